@@ -37,6 +37,11 @@ import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 
+/**
+ * Multi producer proxy channel benchmark. The {@code channelType} param picks the MPSC or the MPMC channel, the group
+ * thread counts default to 10 callers and 1 processor and can be set with the JMH {@code -tg <callers>,<processors>}
+ * option. Only the MPMC channel supports more than one processor.
+ */
 @State(Scope.Benchmark)
 @BenchmarkMode(Mode.Throughput)
 @OutputTimeUnit(TimeUnit.SECONDS)
@@ -244,7 +249,7 @@ public class MpscProxyChannelBenchmark {
 
     }
 
-    private ProxyChannel<BenchIFace> mpscChannel;
+    private ProxyChannel<BenchIFace> proxyChannel;
     private BenchIFace proxy;
     private BenchIFace impl;
     private MyWaitStrategy waitStrategy;
@@ -269,11 +274,23 @@ public class MpscProxyChannelBenchmark {
     @Param({ "1", "" + CAPACITY })
     private int limit;
 
+    @Param({ "MPSC", "MPMC" })
+    private String channelType;
+
     @Setup(Level.Iteration)
     public void setupTrial() {
         this.waitStrategy = new MyWaitStrategy();
-        this.mpscChannel = ProxyChannelFactory.createMpscProxy(CAPACITY, BenchIFace.class, this.waitStrategy);
-        this.proxy = this.mpscChannel.proxy();
+        switch (this.channelType) {
+        case "MPSC":
+            this.proxyChannel = ProxyChannelFactory.createMpscProxy(CAPACITY, BenchIFace.class, this.waitStrategy);
+            break;
+        case "MPMC":
+            this.proxyChannel = ProxyChannelFactory.createMpmcProxy(CAPACITY, BenchIFace.class, this.waitStrategy);
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown channel type: " + this.channelType);
+        }
+        this.proxy = this.proxyChannel.proxy();
         this.impl = new BenchImpl(0);
 
         this.intArg = 7;
@@ -318,7 +335,7 @@ public class MpscProxyChannelBenchmark {
     @Group("oneObjectArg")
     @GroupThreads(CONSUMER_THREADS)
     public int oneObjectArgProcessor(final ProcessorCounters counters) {
-        return doProcess(mpscChannel, counters);
+        return doProcess(proxyChannel, counters);
     }
 
     @Benchmark
@@ -345,7 +362,7 @@ public class MpscProxyChannelBenchmark {
     @Group("oneReferenceArg")
     @GroupThreads(CONSUMER_THREADS)
     public int oneReferenceArgProcessor(final ProcessorCounters counters) {
-        return doProcess(mpscChannel, counters);
+        return doProcess(proxyChannel, counters);
     }
 
     @Benchmark
@@ -372,7 +389,7 @@ public class MpscProxyChannelBenchmark {
     @Group("twoMixedLengthPrimitiveArgs")
     @GroupThreads(CONSUMER_THREADS)
     public int twoMixedLengthPrimitiveArgsProcessor(final ProcessorCounters counters) {
-        return doProcess(mpscChannel, counters);
+        return doProcess(proxyChannel, counters);
     }
 
     @Benchmark
@@ -399,7 +416,7 @@ public class MpscProxyChannelBenchmark {
     @Group("onePrimitiveArg")
     @GroupThreads(CONSUMER_THREADS)
     public int onePrimitiveArgProcessor(final ProcessorCounters counters) {
-        return doProcess(mpscChannel, counters);
+        return doProcess(proxyChannel, counters);
     }
 
     @Benchmark
@@ -426,7 +443,7 @@ public class MpscProxyChannelBenchmark {
     @Group("noArgs")
     @GroupThreads(CONSUMER_THREADS)
     public int noArgsProcessor(final ProcessorCounters counters) {
-        return doProcess(mpscChannel, counters);
+        return doProcess(proxyChannel, counters);
     }
 
     @Benchmark
@@ -471,7 +488,7 @@ public class MpscProxyChannelBenchmark {
     @Group("tenMixedArgs")
     @GroupThreads(CONSUMER_THREADS)
     public int tenMixedArgsProcessor(final ProcessorCounters counters) {
-        return doProcess(mpscChannel, counters);
+        return doProcess(proxyChannel, counters);
     }
 
     @Benchmark
@@ -530,7 +547,7 @@ public class MpscProxyChannelBenchmark {
     @Group("alignedPrimitiveArgs")
     @GroupThreads(CONSUMER_THREADS)
     public int alignedPrimitiveArgsProcessor(final ProcessorCounters counters) {
-        return doProcess(mpscChannel, counters);
+        return doProcess(proxyChannel, counters);
     }
 
     @Benchmark
@@ -591,7 +608,7 @@ public class MpscProxyChannelBenchmark {
     @Group("unalignedPrimitiveArgs")
     @GroupThreads(CONSUMER_THREADS)
     public int unalignedPrimitiveArgsProcessor(final ProcessorCounters counters) {
-        return doProcess(mpscChannel, counters);
+        return doProcess(proxyChannel, counters);
     }
 
     private int doProcess(ProxyChannel<BenchIFace> proxyChannel, final ProcessorCounters counters) {
@@ -14,7 +14,9 @@
 package org.jctools.jmh.latency;
 
 import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MessagePassingQueue.WaitStrategy;
 import org.jctools.queues.MessagePassingQueueByTypeFactory;
+import org.jctools.queues.WaitStrategies;
 import org.jctools.util.PortableJvmInfo;
 import org.jctools.util.Pow2;
 import org.jctools.util.UnsafeAccess;
@@ -46,6 +48,12 @@ public class MpqBurstCost
     boolean warmup;
     @Param(value = {"132000"})
     String qCapacity;
+    /**
+     * How consumers idle on an empty queue, NONE polls again straight away. The burst cost includes waking up the
+     * consumers from the strategy's idle state.
+     */
+    @Param( {"NONE"})
+    String waitStrategy;
     MessagePassingQueue<Event> q;
     private ExecutorService consumerExecutor;
     private Consumer[] consumers;
@@ -81,11 +89,30 @@ public class MpqBurstCost
         consumers = new Consumer[consumerCount];
         for (int i = 0; i < consumerCount; i++)
         {
-            consumers[i] = new Consumer(q, i);
+            consumers[i] = new Consumer(q, i, createWaitStrategy(waitStrategy));
         }
         consumerExecutor = Executors.newFixedThreadPool(consumerCount);
     }
 
+    private static WaitStrategy createWaitStrategy(String waitStrategy)
+    {
+        switch (waitStrategy)
+        {
+            case "NONE":
+                return null;
+            case "BUSY_SPIN":
+                return WaitStrategies.busySpin();
+            case "SPIN_YIELD":
+                return WaitStrategies.spinYield(100);
+            case "PROGRESSIVE":
+                return WaitStrategies.progressive(100, 10, 1000, 1000000);
+            case "PARK":
+                return WaitStrategies.park(1000);
+            default:
+                throw new IllegalArgumentException("Unknown wait strategy: " + waitStrategy);
+        }
+    }
+
     @Setup(Level.Iteration)
     public void startConsumers() throws InterruptedException
     {
@@ -253,11 +280,13 @@ public class MpqBurstCost
         public long p40, p41, p42, p43, p44, p45, p46;
         public long p30, p31, p32, p33, p34, p35, p36, p37;
         private final int consumerId;
+        private final WaitStrategy wait;
 
-        public Consumer(MessagePassingQueue<Event> q, int consumerId)
+        public Consumer(MessagePassingQueue<Event> q, int consumerId, WaitStrategy wait)
         {
             this.q = q;
             this.consumerId = consumerId;
+            this.wait = wait;
         }
 
         @Override
@@ -267,27 +296,37 @@ public class MpqBurstCost
             final CountDownLatch started = this.started;
             final int consumerId = this.consumerId;
             final MessagePassingQueue<Event> q = this.q;
+            final WaitStrategy wait = this.wait;
             started.countDown();
+            int idleCounter = 0;
             while (isRunning)
             {
-                consume(q, consumerId);
+                if (consume(q, consumerId))
+                {
+                    idleCounter = 0;
+                }
+                else if (wait != null)
+                {
+                    idleCounter = wait.idle(idleCounter);
+                }
             }
             stopped.countDown();
         }
 
         @CompilerControl(CompilerControl.Mode.DONT_INLINE)
-        private void consume(MessagePassingQueue<Event> q, int consumerId)
+        private boolean consume(MessagePassingQueue<Event> q, int consumerId)
         {
             Event e = null;
             if ((e = q.relaxedPoll()) == null)
             {
-                return;
+                return false;
             }
             if (DELAY_CONSUMER != 0)
             {
                 Blackhole.consumeCPU(DELAY_CONSUMER);
             }
             e.handle(consumerId);
+            return true;
         }
 
     }
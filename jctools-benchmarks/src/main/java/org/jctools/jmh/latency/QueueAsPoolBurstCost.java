@@ -13,10 +13,13 @@
  */
 package org.jctools.jmh.latency;
 
+import java.util.AbstractQueue;
 import java.util.ArrayDeque;
+import java.util.Iterator;
 import java.util.Queue;
 import java.util.concurrent.TimeUnit;
 
+import org.jctools.queues.ObjectPool;
 import org.jctools.queues.QueueByTypeFactory;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
@@ -39,7 +42,8 @@ import org.openjdk.jmh.infra.Blackhole;
 @SuppressWarnings("serial")
 public class QueueAsPoolBurstCost {
 
-   @Param({"None", "ArrayBlockingQueue", "ConcurrentLinkedQueue", "MpmcUnboundedXaddArrayQueue", "MpmcArrayQueue"})
+   @Param({"None", "ArrayBlockingQueue", "ConcurrentLinkedQueue", "MpmcUnboundedXaddArrayQueue", "MpmcArrayQueue",
+      "ObjectPool"})
    String qType;
    @Param({"1", "10"})
    int burstSize;
@@ -52,10 +56,14 @@ public class QueueAsPoolBurstCost {
    @Param({"0", "10", "100"})
    int work;
 
+   @Param({"16"})
+   int magazineSize;
+
    @Setup
    public void init() {
       final boolean noQ = qType.equals("None");
-      if (!noQ && warmup) {
+      final boolean objectPool = qType.equals("ObjectPool");
+      if (!noQ && !objectPool && warmup) {
          q = QueueByTypeFactory.createQueue(qType, 128);
 
          final Object o = new Object();
@@ -74,7 +82,12 @@ public class QueueAsPoolBurstCost {
             q.poll();
          }
       }
-      q = noQ ? null : QueueByTypeFactory.buildQ(qType, qCapacity);
+      if (objectPool) {
+         q = new ObjectPoolAsQueue(
+            new ObjectPool<Object>(magazineSize, Integer.parseInt(qCapacity) / magazineSize + 1));
+      } else {
+         q = noQ ? null : QueueByTypeFactory.buildQ(qType, qCapacity);
+      }
       // fill the qs, if any
       final Object o = new Object();
       if (q != null) {
@@ -122,4 +135,41 @@ public class QueueAsPoolBurstCost {
          }
       }
    }
+
+   /**
+    * Acquire and release on the {@link ObjectPool} as poll and offer, the pool does not know its size.
+    */
+   static final class ObjectPoolAsQueue extends AbstractQueue<Object> {
+      private final ObjectPool<Object> pool;
+
+      ObjectPoolAsQueue(ObjectPool<Object> pool) {
+         this.pool = pool;
+      }
+
+      @Override
+      public boolean offer(Object e) {
+         pool.release(e);
+         return true;
+      }
+
+      @Override
+      public Object poll() {
+         return pool.acquire();
+      }
+
+      @Override
+      public Object peek() {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Iterator<Object> iterator() {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public int size() {
+         throw new UnsupportedOperationException();
+      }
+   }
 }
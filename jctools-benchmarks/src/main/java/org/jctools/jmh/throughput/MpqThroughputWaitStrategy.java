@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.jmh.throughput;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MessagePassingQueue.WaitStrategy;
+import org.jctools.queues.MessagePassingQueueByTypeFactory;
+import org.jctools.queues.WaitStrategies;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the {@link WaitStrategies} as the backoff of failed offers/polls, on top of the same harness as
+ * {@link MpqThroughputBackoffNone}. The failed counters show how often each side went idle, to compare the CPU cost
+ * of the strategies run with a profiler, e.g. {@code -prof perfnorm} or {@code -prof gc}, and delays ({@code
+ * -Ddelay.p/-Ddelay.c}) to make one side slower than the other.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class MpqThroughputWaitStrategy {
+    private static final long DELAY_PRODUCER = Long.getLong("delay.p", 0L);
+    private static final long DELAY_CONSUMER = Long.getLong("delay.c", 0L);
+    static final Object TEST_ELEMENT = 1;
+    Integer element = 1;
+    Integer escape;
+    MessagePassingQueue<Integer> q;
+    WaitStrategy wait;
+
+    @Param(value = { "SpscArrayQueue", "MpscArrayQueue", "MpmcArrayQueue" })
+    String qType;
+
+    @Param(value = { "132000" })
+    int qCapacity;
+
+    @Param(value = { "BUSY_SPIN", "SPIN_YIELD", "PROGRESSIVE", "PARK" })
+    String waitStrategy;
+
+    @Setup()
+    public void createQ() {
+        q = MessagePassingQueueByTypeFactory.createQueue(qType, qCapacity);
+        wait = createWaitStrategy(waitStrategy);
+    }
+
+    static WaitStrategy createWaitStrategy(String waitStrategy) {
+        switch (waitStrategy) {
+            case "BUSY_SPIN":
+                return WaitStrategies.busySpin();
+            case "SPIN_YIELD":
+                return WaitStrategies.spinYield(100);
+            case "PROGRESSIVE":
+                return WaitStrategies.progressive(100, 10, 1000, 1000000);
+            case "PARK":
+                return WaitStrategies.park(1000);
+            default:
+                throw new IllegalArgumentException("Unknown wait strategy: " + waitStrategy);
+        }
+    }
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class PollCounters {
+        public long pollsFailed;
+        public long pollsMade;
+        int idleCounter;
+    }
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class OfferCounters {
+        public long offersFailed;
+        public long offersMade;
+        int idleCounter;
+    }
+
+    @Benchmark
+    @Group("normal")
+    public void offer(OfferCounters counters) {
+        if (!q.offer(element)) {
+            counters.offersFailed++;
+            counters.idleCounter = wait.idle(counters.idleCounter);
+        } else {
+            counters.offersMade++;
+            counters.idleCounter = 0;
+        }
+        if (DELAY_PRODUCER != 0) {
+            Blackhole.consumeCPU(DELAY_PRODUCER);
+        }
+    }
+
+    @Benchmark
+    @Group("normal")
+    public void poll(PollCounters counters) {
+        Integer e = q.poll();
+        if (e == null) {
+            counters.pollsFailed++;
+            counters.idleCounter = wait.idle(counters.idleCounter);
+        } else {
+            counters.idleCounter = 0;
+            if (e == TEST_ELEMENT) {
+                counters.pollsMade++;
+            } else {
+                escape = e;
+            }
+        }
+        if (DELAY_CONSUMER != 0) {
+            Blackhole.consumeCPU(DELAY_CONSUMER);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void emptyQ() {
+        synchronized (q)
+        {
+            while (q.poll() != null)
+                ;
+        }
+    }
+}
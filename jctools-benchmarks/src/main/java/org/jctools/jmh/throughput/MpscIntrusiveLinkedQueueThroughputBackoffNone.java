@@ -13,6 +13,8 @@
  */
 package org.jctools.jmh.throughput;
 
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.intrusive.MpmcIntrusiveLinkedQueue;
 import org.jctools.queues.intrusive.MpscIntrusiveLinkedQueue;
 import org.jctools.queues.intrusive.Node;
 import org.jctools.queues.intrusive.NodeImpl;
@@ -24,6 +26,7 @@ import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
@@ -42,11 +45,20 @@ public class MpscIntrusiveLinkedQueueThroughputBackoffNone {
     private static final long DELAY_PRODUCER = Long.getLong("delay.p", 0L);
     private static final long DELAY_CONSUMER = Long.getLong("delay.c", 0L);
 
-    MpscIntrusiveLinkedQueue q;
+    @Param({"MpscIntrusiveLinkedQueue", "MpmcIntrusiveLinkedQueue"})
+    String qType;
+
+    MessagePassingQueue<Node> q;
 
     @Setup()
     public void createQandPrimeCompilation() {
-        q = new MpscIntrusiveLinkedQueue();
+        if ("MpscIntrusiveLinkedQueue".equals(qType)) {
+            q = new MpscIntrusiveLinkedQueue();
+        } else if ("MpmcIntrusiveLinkedQueue".equals(qType)) {
+            q = new MpmcIntrusiveLinkedQueue();
+        } else {
+            throw new IllegalArgumentException("Unknown intrusive queue type: " + qType);
+        }
     }
 
     @AuxCounters
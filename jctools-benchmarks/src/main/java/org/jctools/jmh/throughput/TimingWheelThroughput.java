@@ -0,0 +1,172 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.jmh.throughput;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MpscTimingWheel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Timeouts scheduled and cancelled from many threads, compares {@link MpscTimingWheel} ticked by a dedicated thread
+ * to a single threaded {@link ScheduledThreadPoolExecutor} removing cancelled tasks. The scheduling thread count is
+ * set with {@code -t}.
+ * <ul>
+ * <li>{@code scheduleAndCancel}: a timeout far in the future is scheduled and cancelled, the common case for request
+ * timeouts</li>
+ * <li>{@code schedule}: a timeout expiring in {@code delayMicros} is scheduled and left to expire</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Threads(4)
+public class TimingWheelThroughput {
+    static final Runnable TASK = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+    Timer timer;
+
+    @Param(value = { "MpscTimingWheel", "ScheduledThreadPoolExecutor" })
+    String timerType;
+
+    @Param(value = { "1000" })
+    long delayMicros;
+
+    @Setup()
+    public void createTimer() {
+        switch (timerType) {
+            case "MpscTimingWheel":
+                timer = new TimingWheelTimer();
+                break;
+            case "ScheduledThreadPoolExecutor":
+                timer = new ScheduledExecutorTimer();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown timer type: " + timerType);
+        }
+    }
+
+    @TearDown()
+    public void stopTimer() throws InterruptedException {
+        timer.stop();
+    }
+
+    @Benchmark
+    public boolean scheduleAndCancel() {
+        final Timer timer = this.timer;
+        return timer.cancel(timer.schedule(TASK, 10, TimeUnit.SECONDS));
+    }
+
+    @Benchmark
+    public Object schedule() {
+        return timer.schedule(TASK, delayMicros, TimeUnit.MICROSECONDS);
+    }
+
+    interface Timer {
+        Object schedule(Runnable task, long delay, TimeUnit unit);
+
+        boolean cancel(Object timeout);
+
+        void stop() throws InterruptedException;
+    }
+
+    static final class TimingWheelTimer implements Timer {
+        final MpscTimingWheel<Runnable> wheel =
+            new MpscTimingWheel<>(100, TimeUnit.MICROSECONDS, 512, 4, System.nanoTime());
+        final Thread ticker;
+        volatile boolean running = true;
+
+        TimingWheelTimer() {
+            final MessagePassingQueue.Consumer<Runnable> runner = new MessagePassingQueue.Consumer<Runnable>() {
+                @Override
+                public void accept(Runnable task) {
+                    task.run();
+                }
+            };
+            ticker = new Thread("ticker") {
+                @Override
+                public void run() {
+                    while (running) {
+                        if (wheel.expire(System.nanoTime(), runner) == 0) {
+                            LockSupport.parkNanos(10000);
+                        }
+                    }
+                }
+            };
+            ticker.setDaemon(true);
+            ticker.start();
+        }
+
+        @Override
+        public Object schedule(Runnable task, long delay, TimeUnit unit) {
+            return wheel.schedule(task, delay, unit);
+        }
+
+        @Override
+        public boolean cancel(Object timeout) {
+            return ((MpscTimingWheel.Timeout<?>) timeout).cancel();
+        }
+
+        @Override
+        public void stop() throws InterruptedException {
+            running = false;
+            ticker.join();
+        }
+    }
+
+    static final class ScheduledExecutorTimer implements Timer {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+
+        ScheduledExecutorTimer() {
+            // as the wheel does, do not keep cancelled timeouts around until their deadline
+            executor.setRemoveOnCancelPolicy(true);
+        }
+
+        @Override
+        public Object schedule(Runnable task, long delay, TimeUnit unit) {
+            return executor.schedule(task, delay, unit);
+        }
+
+        @Override
+        public boolean cancel(Object timeout) {
+            return ((ScheduledFuture<?>) timeout).cancel(false);
+        }
+
+        @Override
+        public void stop() throws InterruptedException {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.jmh.throughput;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+
+import org.jctools.queues.WorkStealingArrayDeque;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * An owner thread pushing a burst of elements and popping some of them back, LIFO, while thieves steal from the
+ * other end, FIFO. This is the access pattern of a work-stealing scheduler's per worker queue. Compares
+ * {@link WorkStealingArrayDeque} to a {@link ConcurrentLinkedDeque} used the same way. The thief count is set with
+ * the group thread distribution, e.g. {@code -tg 1,3}.
+ * <p>
+ * See {@link WorkStealingTaskTree} for the comparison with {@link java.util.concurrent.ForkJoinPool}, whose work
+ * queue is not accessible on its own.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class WorkStealingDequeThroughput {
+    static final Integer TEST_ELEMENT = 1;
+    Deque deque;
+
+    @Param(value = { "WorkStealingArrayDeque", "ConcurrentLinkedDeque" })
+    String qType;
+
+    @Param(value = { "8" })
+    int burst;
+
+    @Param(value = { "4" })
+    int pops;
+
+    @Setup()
+    public void createDeque() {
+        switch (qType) {
+            case "WorkStealingArrayDeque":
+                deque = new WorkStealingArrayDequeAdapter();
+                break;
+            case "ConcurrentLinkedDeque":
+                deque = new ConcurrentLinkedDequeAdapter();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown deque type: " + qType);
+        }
+    }
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class OwnerCounters {
+        public long pushesFailed;
+        public long pops;
+    }
+
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class ThiefCounters {
+        public long stealsFailed;
+        public long steals;
+    }
+
+    @Benchmark
+    @Group("stealing")
+    @GroupThreads(1)
+    public void owner(OwnerCounters counters) {
+        final Deque deque = this.deque;
+        for (int i = 0; i < burst; i++) {
+            if (!deque.push(TEST_ELEMENT)) {
+                counters.pushesFailed++;
+            }
+        }
+        for (int i = 0; i < pops; i++) {
+            if (deque.pop() != null) {
+                counters.pops++;
+            }
+        }
+    }
+
+    @Benchmark
+    @Group("stealing")
+    @GroupThreads(3)
+    public void thief(ThiefCounters counters) {
+        if (deque.steal() == null) {
+            counters.stealsFailed++;
+        } else {
+            counters.steals++;
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void emptyDeque() {
+        synchronized (deque) {
+            while (deque.steal() != null)
+                ;
+        }
+    }
+
+    interface Deque {
+        boolean push(Integer e);
+
+        Integer pop();
+
+        Integer steal();
+    }
+
+    static final class WorkStealingArrayDequeAdapter implements Deque {
+        // the owner runs ahead of the thieves, bound the deque so a run does not exhaust the heap
+        final WorkStealingArrayDeque<Integer> deque = new WorkStealingArrayDeque<>(256, 1 << 20);
+
+        @Override
+        public boolean push(Integer e) {
+            return deque.push(e);
+        }
+
+        @Override
+        public Integer pop() {
+            return deque.pop();
+        }
+
+        @Override
+        public Integer steal() {
+            return deque.steal();
+        }
+    }
+
+    static final class ConcurrentLinkedDequeAdapter implements Deque {
+        final ConcurrentLinkedDeque<Integer> deque = new ConcurrentLinkedDeque<>();
+
+        // unbounded, size() is not constant time
+        @Override
+        public boolean push(Integer e) {
+            return deque.offerLast(e);
+        }
+
+        @Override
+        public Integer pop() {
+            return deque.pollLast();
+        }
+
+        @Override
+        public Integer steal() {
+            return deque.pollFirst();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.jmh.throughput;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jctools.queues.WorkStealingArrayDeque;
+import org.jctools.util.PaddedAtomicLong;
+import org.jctools.util.ThreadHints;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Runs a binary task tree of 2^depth leaves on a {@link ForkJoinPool} and on a minimal work-stealing scheduler of
+ * {@link WorkStealingArrayDeque}s with the same number of workers. Each inner task forks its 2 children and each
+ * leaf burns {@code leafWork} tokens, so the smaller the leaf work the more the result is down to the scheduling
+ * cost: pushing, popping and stealing tasks.<br>
+ * The scheduler workers pop their own deque, steal from the others starting at a random victim, and spin when there
+ * is nothing to steal. Unlike the pool, tasks don't join their children, the benchmark thread waits for all leaves
+ * to complete, so this compares the queues more than the full fork/join machinery.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class WorkStealingTaskTree {
+    @Param(value = { "4" })
+    int workers;
+
+    @Param(value = { "16" })
+    int depth;
+
+    @Param(value = { "0", "100" })
+    int leafWork;
+
+    ForkJoinPool pool;
+    Scheduler scheduler;
+
+    @Setup(Level.Trial)
+    public void start() {
+        pool = new ForkJoinPool(workers);
+        scheduler = new Scheduler(workers, leafWork);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws InterruptedException {
+        pool.shutdown();
+        scheduler.stop();
+    }
+
+    @Benchmark
+    public void forkJoinPool() {
+        pool.invoke(new TreeAction(depth, leafWork));
+    }
+
+    @Benchmark
+    public void workStealingDeque() {
+        scheduler.run(depth);
+    }
+
+    static final class TreeAction extends RecursiveAction {
+        final int depth;
+        final int leafWork;
+
+        TreeAction(int depth, int leafWork) {
+            this.depth = depth;
+            this.leafWork = leafWork;
+        }
+
+        @Override
+        protected void compute() {
+            if (depth == 0) {
+                Blackhole.consumeCPU(leafWork);
+            } else {
+                invokeAll(new TreeAction(depth - 1, leafWork), new TreeAction(depth - 1, leafWork));
+            }
+        }
+    }
+
+    static final class Task {
+        final int depth;
+
+        Task(int depth) {
+            this.depth = depth;
+        }
+    }
+
+    static final class Scheduler {
+        final WorkStealingArrayDeque<Task>[] deques;
+        final PaddedAtomicLong[] leavesDone;
+        final Thread[] threads;
+        final AtomicReference<Task> submission = new AtomicReference<>();
+        final int leafWork;
+        volatile boolean running = true;
+        long leavesExpected;
+
+        @SuppressWarnings("unchecked")
+        Scheduler(int workers, int leafWork) {
+            this.leafWork = leafWork;
+            deques = new WorkStealingArrayDeque[workers];
+            leavesDone = new PaddedAtomicLong[workers];
+            threads = new Thread[workers];
+            for (int i = 0; i < workers; i++) {
+                deques[i] = new WorkStealingArrayDeque<>(64, 1 << 20);
+                leavesDone[i] = new PaddedAtomicLong();
+            }
+            for (int i = 0; i < workers; i++) {
+                final int worker = i;
+                threads[i] = new Thread(() -> work(worker), "WorkStealingTaskTree-" + i);
+                threads[i].setDaemon(true);
+                threads[i].start();
+            }
+        }
+
+        /**
+         * Called from a single thread, submits the root and waits for all the leaves.
+         */
+        void run(int depth) {
+            leavesExpected += 1L << depth;
+            submission.lazySet(new Task(depth));
+            while (leavesDone() < leavesExpected) {
+                ThreadHints.onSpinWait();
+            }
+        }
+
+        long leavesDone() {
+            long done = 0;
+            for (PaddedAtomicLong counter : leavesDone) {
+                done += counter.get();
+            }
+            return done;
+        }
+
+        void stop() throws InterruptedException {
+            running = false;
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        private void work(int worker) {
+            final WorkStealingArrayDeque<Task> deque = deques[worker];
+            final PaddedAtomicLong done = leavesDone[worker];
+            while (running) {
+                Task task = deque.pop();
+                if (task == null) {
+                    task = steal(worker);
+                }
+                if (task == null) {
+                    task = submission.getAndSet(null);
+                }
+                if (task == null) {
+                    ThreadHints.onSpinWait();
+                    continue;
+                }
+                // fork one child and continue depth first with the other, as invokeAll does
+                while (task.depth != 0) {
+                    deque.push(new Task(task.depth - 1));
+                    task = new Task(task.depth - 1);
+                }
+                Blackhole.consumeCPU(leafWork);
+                done.lazySet(done.get() + 1);
+            }
+        }
+
+        private Task steal(int thief) {
+            final WorkStealingArrayDeque<Task>[] deques = this.deques;
+            final int start = ThreadLocalRandom.current().nextInt(deques.length);
+            for (int i = 0; i < deques.length; i++) {
+                final int victim = (start + i) % deques.length;
+                if (victim != thief) {
+                    final Task task = deques[victim].steal();
+                    if (task != null) {
+                        return task;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
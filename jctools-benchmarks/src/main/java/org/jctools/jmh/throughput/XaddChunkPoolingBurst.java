@@ -0,0 +1,239 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.jmh.throughput;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jctools.queues.MpmcUnboundedXaddArrayQueue;
+import org.jctools.queues.MpscUnboundedXaddArrayQueue;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Bursty load on the XADD queues: every invocation offers and then polls {@code burst} elements, and every
+ * {@code spikeEvery} invocations the burst is {@code spikeBurst} elements instead. Run with {@code -prof gc}, the
+ * {@code gc.alloc.rate.norm} is the chunk allocation per element for each pooling mode:
+ * <ul>
+ * <li>{@code none}: no chunk is pooled, every chunk is allocated</li>
+ * <li>{@code fixed}: {@code maxPooledChunks} pre-allocated chunks, spikes beyond them allocate</li>
+ * <li>{@code adaptive}: 2 pre-allocated chunks, the pool grows to {@code maxPooledChunks} on spikes and shrinks
+ * between them if they are far enough apart</li>
+ * </ul>
+ * The chunk counters of the queue are reported per iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class XaddChunkPoolingBurst {
+    private static final int OPS = 1024;
+    Integer element = 1;
+    Queue q;
+
+    @Param(value = { "MpscUnboundedXaddArrayQueue", "MpmcUnboundedXaddArrayQueue" })
+    String qType;
+
+    @Param(value = { "none", "fixed", "adaptive" })
+    String pooling;
+
+    @Param(value = { "1024" })
+    int chunkSize;
+
+    @Param(value = { "16" })
+    int maxPooledChunks;
+
+    @Param(value = { "64" })
+    int burst;
+
+    @Param(value = { "16384" })
+    int spikeBurst;
+
+    @Param(value = { "256" })
+    int spikeEvery;
+
+    long invocations;
+
+    @Setup()
+    public void createQ() {
+        final int minPooledChunks;
+        final int maxPooledChunks;
+        switch (pooling) {
+            case "none":
+                minPooledChunks = maxPooledChunks = 0;
+                break;
+            case "fixed":
+                minPooledChunks = maxPooledChunks = this.maxPooledChunks;
+                break;
+            case "adaptive":
+                minPooledChunks = 2;
+                maxPooledChunks = this.maxPooledChunks;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown pooling: " + pooling);
+        }
+        switch (qType) {
+            case "MpscUnboundedXaddArrayQueue":
+                q = new MpscQueue(new MpscUnboundedXaddArrayQueue<>(chunkSize, minPooledChunks, maxPooledChunks));
+                break;
+            case "MpmcUnboundedXaddArrayQueue":
+                q = new MpmcQueue(new MpmcUnboundedXaddArrayQueue<>(chunkSize, minPooledChunks, maxPooledChunks));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown queue type: " + qType);
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class ChunkCounters {
+        public long chunkAllocations;
+        public long chunkReuses;
+        public long chunkReleases;
+        long allocationsStart;
+        long reusesStart;
+        long releasesStart;
+
+        @Setup(Level.Iteration)
+        public void start(XaddChunkPoolingBurst benchmark) {
+            allocationsStart = benchmark.q.chunkAllocations();
+            reusesStart = benchmark.q.chunkReuses();
+            releasesStart = benchmark.q.chunkReleases();
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop(XaddChunkPoolingBurst benchmark) {
+            chunkAllocations = benchmark.q.chunkAllocations() - allocationsStart;
+            chunkReuses = benchmark.q.chunkReuses() - reusesStart;
+            chunkReleases = benchmark.q.chunkReleases() - releasesStart;
+        }
+    }
+
+    /**
+     * Offers and polls {@link #OPS} elements in bursts, the allocation is normalized per element with the spikes
+     * amortized over them.
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public void offerAndPoll(ChunkCounters counters, Blackhole bh) {
+        final Queue q = this.q;
+        final Integer element = this.element;
+        if (++invocations % spikeEvery == 0) {
+            offerAndPoll(q, element, spikeBurst, bh);
+        }
+        for (int i = 0; i < OPS; i += burst) {
+            offerAndPoll(q, element, burst, bh);
+        }
+    }
+
+    private static void offerAndPoll(Queue q, Integer element, int elements, Blackhole bh) {
+        for (int i = 0; i < elements; i++) {
+            q.offer(element);
+        }
+        for (int i = 0; i < elements; i++) {
+            bh.consume(q.poll());
+        }
+    }
+
+    interface Queue {
+        boolean offer(Integer e);
+
+        Integer poll();
+
+        long chunkAllocations();
+
+        long chunkReuses();
+
+        long chunkReleases();
+    }
+
+    static final class MpscQueue implements Queue {
+        final MpscUnboundedXaddArrayQueue<Integer> q;
+
+        MpscQueue(MpscUnboundedXaddArrayQueue<Integer> q) {
+            this.q = q;
+        }
+
+        @Override
+        public boolean offer(Integer e) {
+            return q.offer(e);
+        }
+
+        @Override
+        public Integer poll() {
+            return q.poll();
+        }
+
+        @Override
+        public long chunkAllocations() {
+            return q.chunkAllocations();
+        }
+
+        @Override
+        public long chunkReuses() {
+            return q.chunkReuses();
+        }
+
+        @Override
+        public long chunkReleases() {
+            return q.chunkReleases();
+        }
+    }
+
+    static final class MpmcQueue implements Queue {
+        final MpmcUnboundedXaddArrayQueue<Integer> q;
+
+        MpmcQueue(MpmcUnboundedXaddArrayQueue<Integer> q) {
+            this.q = q;
+        }
+
+        @Override
+        public boolean offer(Integer e) {
+            return q.offer(e);
+        }
+
+        @Override
+        public Integer poll() {
+            return q.poll();
+        }
+
+        @Override
+        public long chunkAllocations() {
+            return q.chunkAllocations();
+        }
+
+        @Override
+        public long chunkReuses() {
+            return q.chunkReuses();
+        }
+
+        @Override
+        public long chunkReleases() {
+            return q.chunkReleases();
+        }
+    }
+}
@@ -41,6 +41,8 @@ public class QueueByTypeFactory {
             return new SpscArrayQueue<T>(queueCapacity);
         case 308:
             return BlockingQueueFactory.newBlockingQueue(ConcurrentQueueSpec.createBoundedSpsc(queueCapacity));
+        case 309:
+            return new SpscBlockingArrayQueue<T>(queueCapacity);
         case 31:
             return new SpscLinkedQueue<T>();
         case 32:
@@ -51,6 +53,8 @@ public class QueueByTypeFactory {
             return new SpmcArrayQueue<T>(queueCapacity);
         case 508:
             return BlockingQueueFactory.newBlockingQueue(ConcurrentQueueSpec.createBoundedSpmc(queueCapacity));
+        case 509:
+            return new SpmcBlockingArrayQueue<T>(queueCapacity);
         case 6:
             return new MpscArrayQueue<T>(queueCapacity);
         case 608:
@@ -65,6 +69,8 @@ public class QueueByTypeFactory {
             return new MpmcArrayQueue<T>(queueCapacity);
         case 708:
             return BlockingQueueFactory.newBlockingQueue(ConcurrentQueueSpec.createBoundedMpmc(queueCapacity));
+        case 709:
+            return new MpmcBlockingArrayQueue<T>(queueCapacity);
         case 71:
             return new MpmcConcurrentQueueStateMarkers<T>(queueCapacity);
         }
@@ -121,6 +121,18 @@ public class JavaParsingAtomicArrayQueueGenerator extends JavaParsingAtomicQueue
             return "PREV_UPDATER";
         case "next":
             return "NEXT_UPDATER";
+        // MpscRelaxedArrayQueue cycle fields
+        case "activeCycleId":
+            return "ACTIVE_CYCLE_ID_UPDATER";
+        case "consumerPosition":
+            return "C_POSITION_UPDATER";
+        case "producerFirstCycleClaim":
+            return "P_FIRST_CYCLE_CLAIM_UPDATER";
+        case "producerSecondCycleClaim":
+            return "P_SECOND_CYCLE_CLAIM_UPDATER";
+        // MpmcBoundedXaddArrayQueue capacity permits
+        case "permits":
+            return "PERMITS_UPDATER";
         default:
             throw new IllegalArgumentException("Unhandled field: " + fieldName);
         }
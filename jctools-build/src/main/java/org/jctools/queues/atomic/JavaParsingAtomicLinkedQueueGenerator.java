@@ -38,6 +38,8 @@ public class JavaParsingAtomicLinkedQueueGenerator extends JavaParsingAtomicQueu
      */
     private static final Set<String> LONG_NAMES_NARROWED_TO_INT = new HashSet<>(Arrays.asList(
             "offset", "offsetInNew", "offsetInOld", "lookAheadElementOffset"));
+    // caller supplied arrays (e.g. batch drain targets) are plain arrays in the atomic variants as well
+    private static final Set<String> REF_ARRAY_NAMES_KEPT = new HashSet<>(Arrays.asList("dst", "src"));
 
     public static void main(String[] args) throws Exception {
         runJCToolsGenerator(JavaParsingAtomicLinkedQueueGenerator.class, args);
@@ -123,6 +125,8 @@ public class JavaParsingAtomicLinkedQueueGenerator extends JavaParsingAtomicQueu
             return "P_INDEX_UPDATER";
         case "producerLimit":
             return "P_LIMIT_UPDATER";
+        case "blocked":
+            return "BLOCKED";
         default:
             throw new IllegalArgumentException("Unhandled field: " + fieldName);
         }
@@ -133,7 +137,7 @@ public class JavaParsingAtomicLinkedQueueGenerator extends JavaParsingAtomicQueu
      * {@link com.github.javaparser.ast.body.Parameter}, or {@link MethodDeclaration} return type
      * when the source uses an Unsafe-flavoured idiom whose atomic counterpart needs a different
      * type — {@code LinkedQueueNode} → {@code LinkedQueueAtomicNode}, {@code E[]} →
-     * {@code AtomicReferenceArray<E>}, the return type of {@code nextArrayOffset} narrowed to
+     * {@code AtomicReferenceArray<E>} (except for the caller supplied arrays in {@link #REF_ARRAY_NAMES_KEPT}), the return type of {@code nextArrayOffset} narrowed to
      * {@code int}, and {@code long} locals listed in {@link #LONG_NAMES_NARROWED_TO_INT}.
      */
     void processSpecialNodeTypes(NodeWithType<?, Type> node, String name) {
@@ -146,7 +150,7 @@ public class JavaParsingAtomicLinkedQueueGenerator extends JavaParsingAtomicQueu
             }
         } else if (isRefType(type, "LinkedQueueNode")) {
             node.setType(simpleParametricType("LinkedQueueAtomicNode", "E"));
-        } else if (isRefArray(type, "E")) {
+        } else if (isRefArray(type, "E") && !REF_ARRAY_NAMES_KEPT.contains(name)) {
             replaceType(node, atomicRefArrayType((ArrayType) type));
         }
     }
@@ -154,6 +154,18 @@ public class JavaParsingVarHandleArrayQueueGenerator extends JavaParsingVarHandl
         return "VH_PREV";
       case "next":
         return "VH_NEXT";
+      // MpscRelaxedArrayQueue cycle fields
+      case "activeCycleId":
+        return "VH_ACTIVE_CYCLE_ID";
+      case "consumerPosition":
+        return "VH_CONSUMER_POSITION";
+      case "producerFirstCycleClaim":
+        return "VH_PRODUCER_FIRST_CYCLE_CLAIM";
+      case "producerSecondCycleClaim":
+        return "VH_PRODUCER_SECOND_CYCLE_CLAIM";
+      // MpmcBoundedXaddArrayQueue capacity permits
+      case "permits":
+        return "VH_PERMITS";
       default:
         throw new IllegalArgumentException("Unhandled field: " + fieldName);
     }
@@ -100,6 +100,8 @@ public class JavaParsingVarHandleLinkedQueueGenerator extends JavaParsingVarHand
             return "VH_PRODUCER_INDEX";
         case "producerLimit":
             return "VH_PRODUCER_LIMIT";
+        case "blocked":
+            return "VH_BLOCKED";
         default:
             throw new IllegalArgumentException("Unhandled field: " + fieldName);
         }
@@ -0,0 +1,222 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels;
+
+import static org.jctools.util.PortableJvmInfo.CACHE_LINE_SIZE;
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.jctools.channels.mapping.Mapper;
+import org.jctools.channels.mpsc.MpscChannel;
+import org.jctools.channels.spsc.SpscChannel;
+import org.jctools.util.UnsafeDirectByteBuffer;
+
+/**
+ * Creates channels in memory mapped files, and attaches to them from other processes. A file under {@code /dev/shm}
+ * is in memory only on Linux, any other path works too but may be written back to disk by the OS.<br>
+ * The creating process initializes the ring and the opening process validates the file header before attaching to
+ * it without initializing. Either side may create the file, but it must be created before it is opened. The channel
+ * type must be the same flyweight interface on both sides. SPSC and MPSC rules still apply across processes: a
+ * single consumer, and a single producer for SPSC channels.
+ * <p>
+ * File layout (assuming 64b cache line), the mapping is page aligned so the ring is cache line aligned:
+ * <pre>
+ * magic(4b), ring type(4b), message size(4b), requested capacity(4b), maximum capacity(4b), pad(44b) |
+ * ring buffer
+ * </pre>
+ * The magic is written last, a file with no magic is not a channel or was not fully created yet.
+ */
+public final class MappedChannelFactory {
+    public static final int MAGIC = 0x4A435443; // "JCTC"
+    private static final int SPSC_RING = 1;
+    private static final int MPSC_RING = 2;
+
+    private static final int FILE_HEADER_SIZE = CACHE_LINE_SIZE;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int RING_TYPE_OFFSET = 4;
+    private static final int MESSAGE_SIZE_OFFSET = 8;
+    private static final int REQUESTED_CAPACITY_OFFSET = 12;
+    private static final int MAXIMUM_CAPACITY_OFFSET = 16;
+
+    private MappedChannelFactory() {
+    }
+
+    /**
+     * Create, or overwrite, a single producer single consumer (SPSC) channel file.
+     *
+     * @param file
+     *            the file to create, e.g. under {@code /dev/shm}
+     * @param requestedCapacity
+     *            The minimum capacity for unconsumed elements the channel should support
+     * @param type
+     *            the flyweight interface of the channel elements
+     * @return the channel, initialized
+     */
+    public static <E> Channel<E> createSpscChannel(Path file, int requestedCapacity, Class<E> type)
+            throws IOException {
+        return create(file, SPSC_RING, requestedCapacity, SpscChannel.getMaximumCapacity(requestedCapacity), type);
+    }
+
+    /**
+     * Attach to a single producer single consumer (SPSC) channel file created by
+     * {@link #createSpscChannel(Path, int, Class)}.
+     *
+     * @param file
+     *            the channel file
+     * @param type
+     *            the flyweight interface of the channel elements, as used to create the channel
+     * @return the channel, not initialized
+     * @throws IllegalArgumentException if the file is not an SPSC channel of this element type
+     */
+    public static <E> Channel<E> openSpscChannel(Path file, Class<E> type) throws IOException {
+        return open(file, SPSC_RING, type);
+    }
+
+    /**
+     * Create, or overwrite, a multi producer single consumer (MPSC) channel file.
+     *
+     * @param file
+     *            the file to create, e.g. under {@code /dev/shm}
+     * @param requestedCapacity
+     *            The minimum capacity for unconsumed elements the channel should support
+     * @param type
+     *            the flyweight interface of the channel elements
+     * @return the channel, initialized
+     */
+    public static <E> Channel<E> createMpscChannel(Path file, int requestedCapacity, Class<E> type)
+            throws IOException {
+        return create(file, MPSC_RING, requestedCapacity, MpscChannel.getMaximumCapacity(requestedCapacity), type);
+    }
+
+    /**
+     * Attach to a multi producer single consumer (MPSC) channel file created by
+     * {@link #createMpscChannel(Path, int, Class)}.
+     *
+     * @param file
+     *            the channel file
+     * @param type
+     *            the flyweight interface of the channel elements, as used to create the channel
+     * @return the channel, not initialized
+     * @throws IllegalArgumentException if the file is not an MPSC channel of this element type
+     */
+    public static <E> Channel<E> openMpscChannel(Path file, Class<E> type) throws IOException {
+        return open(file, MPSC_RING, type);
+    }
+
+    private static <E> Channel<E> create(Path file,
+            int ringType,
+            int requestedCapacity,
+            int maximumCapacity,
+            Class<E> type) throws IOException {
+        final int messageSize = new Mapper<E>(type, false).getSizeInBytes();
+        final int ringSize = OffHeapFixedMessageSizeRingBuffer.getRequiredBufferSize(maximumCapacity, messageSize);
+        final MappedByteBuffer mapped;
+        try (FileChannel fileChannel = FileChannel.open(file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // drop any previous content, mapping grows the file back zero filled
+            fileChannel.truncate(0);
+            mapped = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_HEADER_SIZE + ringSize);
+        }
+        final long address = UnsafeDirectByteBuffer.getAddress(mapped);
+        final Channel<E> channel = newChannel(ringType, ringSlice(mapped), requestedCapacity, type, true);
+
+        UNSAFE.putInt(address + RING_TYPE_OFFSET, ringType);
+        UNSAFE.putInt(address + MESSAGE_SIZE_OFFSET, messageSize);
+        UNSAFE.putInt(address + REQUESTED_CAPACITY_OFFSET, requestedCapacity);
+        UNSAFE.putInt(address + MAXIMUM_CAPACITY_OFFSET, maximumCapacity);
+        // publish the header and initialized ring
+        UNSAFE.putOrderedInt(null, address + MAGIC_OFFSET, MAGIC);
+        return channel;
+    }
+
+    private static <E> Channel<E> open(Path file, int ringType, Class<E> type) throws IOException {
+        final MappedByteBuffer mapped;
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final long fileSize = fileChannel.size();
+            if (fileSize < FILE_HEADER_SIZE) {
+                throw new IllegalArgumentException("Not a channel file: " + file);
+            }
+            mapped = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        }
+        final long address = UnsafeDirectByteBuffer.getAddress(mapped);
+        if (UNSAFE.getIntVolatile(null, address + MAGIC_OFFSET) != MAGIC) {
+            throw new IllegalArgumentException("Not a channel file, or not fully created yet: " + file);
+        }
+        final int fileRingType = UNSAFE.getInt(address + RING_TYPE_OFFSET);
+        if (fileRingType != ringType) {
+            throw new IllegalArgumentException("Expected a " + ringTypeName(ringType) + " channel but "
+                    + file + " is a " + ringTypeName(fileRingType) + " channel");
+        }
+        final int messageSize = new Mapper<E>(type, false).getSizeInBytes();
+        final int fileMessageSize = UNSAFE.getInt(address + MESSAGE_SIZE_OFFSET);
+        if (fileMessageSize != messageSize) {
+            throw new IllegalArgumentException("Message size of " + type.getName() + " is " + messageSize
+                    + " but the channel message size is " + fileMessageSize);
+        }
+        final int requestedCapacity = UNSAFE.getInt(address + REQUESTED_CAPACITY_OFFSET);
+        final int maximumCapacity = UNSAFE.getInt(address + MAXIMUM_CAPACITY_OFFSET);
+        final int ringSize = OffHeapFixedMessageSizeRingBuffer.getRequiredBufferSize(maximumCapacity, messageSize);
+        if (mapped.capacity() < FILE_HEADER_SIZE + ringSize) {
+            throw new IllegalArgumentException("Channel file is truncated, expected " + (FILE_HEADER_SIZE + ringSize)
+                    + " bytes but got " + mapped.capacity());
+        }
+        final Channel<E> channel = newChannel(ringType, ringSlice(mapped), requestedCapacity, type, false);
+        if (channel.maximumCapacity() != maximumCapacity) {
+            throw new IllegalArgumentException("Channel capacity is " + maximumCapacity + " but "
+                    + channel.maximumCapacity() + " is derived from the requested capacity " + requestedCapacity);
+        }
+        return channel;
+    }
+
+    private static ByteBuffer ringSlice(MappedByteBuffer mapped) {
+        mapped.position(FILE_HEADER_SIZE);
+        final ByteBuffer ring = mapped.slice();
+        mapped.position(0);
+        return ring;
+    }
+
+    private static <E> Channel<E> newChannel(int ringType,
+            ByteBuffer buffer,
+            int requestedCapacity,
+            Class<E> type,
+            boolean initialize) {
+        switch (ringType) {
+            case SPSC_RING:
+                return new SpscChannel<E>(buffer, requestedCapacity, type, initialize);
+            case MPSC_RING:
+                return new MpscChannel<E>(buffer, requestedCapacity, type, initialize);
+            default:
+                throw new IllegalArgumentException("Unknown ring type: " + ringType);
+        }
+    }
+
+    private static String ringTypeName(int ringType) {
+        switch (ringType) {
+            case SPSC_RING:
+                return "SPSC";
+            case MPSC_RING:
+                return "MPSC";
+            default:
+                return "unknown(" + ringType + ")";
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels;
+
+import static org.jctools.util.PortableJvmInfo.CACHE_LINE_SIZE;
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeDirectByteBuffer.alignedSlice;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.jctools.util.Pow2;
+import org.jctools.util.UnsafeDirectByteBuffer;
+
+/**
+ * Channel protocol:
+ * - Variable message size, messages are framed in records aligned to {@link #RECORD_ALIGNMENT}
+ * - Each record starts with an 8 byte indicator word, holding the record length (header included) in the low int and
+ * the message type in the high int
+ * - A record is ready to read when its length is positive, producers write a negative length on claim and the positive
+ * length and type on commit
+ * - A claim which does not fit before the end of the buffer is preceded by a padding record up to the end of the
+ * buffer, and starts at the buffer start
+ * - Records are zeroed by the consumer when released, so a claimed but not yet written indicator reads as 0
+ * <p>
+ * Indices are byte positions, the capacity is in bytes. Messages are read and written in place using the addresses
+ * handed out by the acquire methods or via the {@link ByteBuffer} views of {@link #producer()} and
+ * {@link #consumer(VariableMessageReceiver)}.
+ */
+public abstract class OffHeapVariableMessageSizeRingBuffer {
+
+    public static final long EOF = 0;
+    public static final int RECORD_HEADER_SIZE = 8;
+    public static final int RECORD_ALIGNMENT = 8;
+    public static final int PADDING_TYPE = -1;
+    public static final int HEADER_SIZE = 4 * CACHE_LINE_SIZE;
+
+    private final ByteBuffer buffy;
+    protected final long bufferAddress;
+    protected final long consumerIndexAddress;
+    protected final long producerIndexAddress;
+    protected final long mask;
+    private final int maxMessageLength;
+
+    /**
+     * @param capacity in bytes, will be rounded up to the next power of 2
+     * @return the buffer size needed for a ring of this capacity
+     */
+    public static int getRequiredBufferSize(final int capacity) {
+        return HEADER_SIZE + Pow2.roundToPowerOfTwo(capacity);
+    }
+
+    /**
+     * This is to be used for an IPC queue with the direct buffer used being a memory mapped file.
+     *
+     * @param buff should be at least {@link #getRequiredBufferSize(int)} bytes
+     * @param capacity in bytes, actual capacity will be the next power of 2
+     */
+    protected OffHeapVariableMessageSizeRingBuffer(final ByteBuffer buff,
+            final int capacity,
+            final boolean isProducer,
+            final boolean isConsumer,
+            final boolean initialize) {
+        final int actualCapacity = Pow2.roundToPowerOfTwo(capacity);
+        if (actualCapacity < 2 * RECORD_ALIGNMENT) {
+            throw new IllegalArgumentException("Capacity of " + capacity + " bytes is too small for a message");
+        }
+        this.buffy = alignedSlice(HEADER_SIZE + actualCapacity, CACHE_LINE_SIZE, buff);
+
+        long alignedAddress = UnsafeDirectByteBuffer.getAddress(buffy);
+        if (alignedAddress % CACHE_LINE_SIZE != 0) {
+            throw new IllegalStateException("buffer is expected to be cache line aligned by now");
+        }
+        // Layout of the RingBuffer (assuming 64b cache line):
+        // consumerIndex(8b), pad(56b) |
+        // pad(64b) |
+        // producerIndex(8b), pad(56b) |
+        // pad(64b) |
+        // buffer (capacity bytes of records)
+        this.consumerIndexAddress = alignedAddress;
+        this.producerIndexAddress = this.consumerIndexAddress + 2l * CACHE_LINE_SIZE;
+        this.bufferAddress = alignedAddress + HEADER_SIZE;
+        this.mask = actualCapacity - 1;
+        // a record of up to half the capacity fits in an empty ring whatever the padding at wrap
+        this.maxMessageLength = actualCapacity / 2 - RECORD_HEADER_SIZE;
+
+        // producer owns tail and the records
+        if (isProducer && initialize) {
+            UNSAFE.setMemory(bufferAddress, actualCapacity, (byte) 0);
+            soProducerIndex(0);
+        }
+        // consumer owns head
+        if (isConsumer && initialize) {
+            soConsumerIndex(0);
+        }
+    }
+
+    /**
+     * @return the capacity in bytes, record headers and padding included
+     */
+    public final int capacity() {
+        return (int) (mask + 1);
+    }
+
+    /**
+     * @return the largest message length a producer can claim
+     */
+    public final int maxMessageLength() {
+        return maxMessageLength;
+    }
+
+    /**
+     * @return the number of claimed bytes not yet released by the consumer, record headers and padding included
+     */
+    public final int size() {
+        return (int) (lvProducerIndex() - lvConsumerIndex());
+    }
+
+    public final boolean isEmpty() {
+        return lvProducerIndex() == lvConsumerIndex();
+    }
+
+    /**
+     * @param length of the message to claim, at most {@link #maxMessageLength()}
+     * @return the address of a record acquired to be written, or EOF if there is not enough space
+     */
+    public abstract long writeAcquire(int length);
+
+    /**
+     * Publish a record acquired by {@link #writeAcquire(int)}.
+     *
+     * @param address of the record
+     * @param type of the message, must not be {@link #PADDING_TYPE}
+     */
+    public final void writeRelease(long address, int type) {
+        assert type != PADDING_TYPE;
+        soIndicator(address, indicator(type, -indicatorLength(lpIndicator(address))));
+    }
+
+    /**
+     * Publish a record acquired by {@link #writeAcquire(int)} as padding, the consumer skips it.
+     *
+     * @param address of the record
+     */
+    public final void writeAbort(long address) {
+        soIndicator(address, indicator(PADDING_TYPE, -indicatorLength(lpIndicator(address))));
+    }
+
+    /**
+     * Padding records are skipped and released on the way.
+     *
+     * @return the address of a record acquired to be read, or EOF if none is available
+     */
+    public final long readAcquire() {
+        for (;;) {
+            final long consumerIndex = lpConsumerIndex();
+            final long address = bufferAddress + (consumerIndex & mask);
+            final long indicator = lvIndicator(address);
+            final int recordLength = indicatorLength(indicator);
+            if (recordLength <= 0) {
+                // not claimed, or claimed and not yet written
+                return EOF;
+            }
+            if (indicatorType(indicator) != PADDING_TYPE) {
+                return address;
+            }
+            releaseRecord(consumerIndex, address, recordLength);
+        }
+    }
+
+    /**
+     * @param address of the record acquired by {@link #readAcquire()} that we are done reading and can be overwritten
+     *        now
+     */
+    public final void readRelease(long address) {
+        releaseRecord(lpConsumerIndex(), address, indicatorLength(lpIndicator(address)));
+    }
+
+    private void releaseRecord(long consumerIndex, long address, int recordLength) {
+        final int alignedRecordLength = (int) Pow2.align(recordLength, RECORD_ALIGNMENT);
+        // producers rely on a zero indicator for claimed and not yet written records
+        UNSAFE.setMemory(address, alignedRecordLength, (byte) 0);
+        soConsumerIndex(consumerIndex + alignedRecordLength); // StoreStore
+    }
+
+    /**
+     * @param address of an acquired record
+     * @return the message type of a record acquired to be read
+     */
+    public final int messageType(long address) {
+        return indicatorType(lpIndicator(address));
+    }
+
+    /**
+     * @param address of an acquired record
+     * @return the message length of the record, the sign is lost on acquired records to be written
+     */
+    public final int messageLength(long address) {
+        return Math.abs(indicatorLength(lpIndicator(address))) - RECORD_HEADER_SIZE;
+    }
+
+    /**
+     * @param address of an acquired record
+     * @return the address of the message in the record
+     */
+    public static long messageAddress(long address) {
+        return address + RECORD_HEADER_SIZE;
+    }
+
+    /**
+     * @return a view of the records, message positions in the view are {@link #messageOffset(long)}
+     */
+    public final ByteBuffer newBufferView() {
+        final ByteBuffer view = buffy.duplicate();
+        ((Buffer) view).clear().position(HEADER_SIZE);
+        return view.slice().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * @param address of an acquired record
+     * @return the position of the message in the views of {@link #newBufferView()}
+     */
+    public final int messageOffset(long address) {
+        return (int) (messageAddress(address) - bufferAddress);
+    }
+
+    /**
+     * @return a producer for a single thread to claim and commit messages through
+     */
+    public VariableMessageProducer producer() {
+        return new VariableMessageProducer(this);
+    }
+
+    /**
+     * @return a consumer for the single consumer thread, reading messages into the receiver
+     */
+    public ChannelConsumer consumer(VariableMessageReceiver receiver) {
+        return new VariableMessageConsumer(this, receiver);
+    }
+
+    /**
+     * @return the aligned record length of a message
+     * @throws IllegalArgumentException if the length is negative or above {@link #maxMessageLength()}
+     */
+    protected final int alignedRecordLength(int length) {
+        if (length < 0 || length > maxMessageLength) {
+            throw new IllegalArgumentException("Message length " + length + " is not in [0, " + maxMessageLength
+                    + "]");
+        }
+        return (int) Pow2.align(length + RECORD_HEADER_SIZE, RECORD_ALIGNMENT);
+    }
+
+    /**
+     * Write the claimed record header, and the padding record preceding it if the claim wraps.
+     *
+     * @param producerIndex the claimed index, padding included
+     * @param padding the padding before the record, 0 if none
+     * @param length the message length
+     * @return the address of the claimed record
+     */
+    protected final long claimRecord(long producerIndex, int padding, int length) {
+        long address = bufferAddress + (producerIndex & mask);
+        if (padding != 0) {
+            soIndicator(address, indicator(PADDING_TYPE, padding));
+            address = bufferAddress;
+        }
+        // the consumer reads a negative length as not yet written
+        UNSAFE.putLong(null, address, indicator(0, -(length + RECORD_HEADER_SIZE)));
+        return address;
+    }
+
+    /**
+     * @return the padding needed before a record at the producer index, 0 if it fits before the buffer end
+     */
+    protected final int paddingFor(long producerIndex, int alignedRecordLength) {
+        final int bytesToEnd = (int) (capacity() - (producerIndex & mask));
+        return alignedRecordLength > bytesToEnd ? bytesToEnd : 0;
+    }
+
+    private static long indicator(int type, int recordLength) {
+        return ((long) type << 32) | (recordLength & 0xFFFFFFFFL);
+    }
+
+    private static int indicatorLength(long indicator) {
+        return (int) indicator;
+    }
+
+    private static int indicatorType(long indicator) {
+        return (int) (indicator >>> 32);
+    }
+
+    private static long lpIndicator(long address) {
+        return UNSAFE.getLong(null, address);
+    }
+
+    private static long lvIndicator(long address) {
+        return UNSAFE.getLongVolatile(null, address);
+    }
+
+    private static void soIndicator(long address, long indicator) {
+        UNSAFE.putOrderedLong(null, address, indicator);
+    }
+
+    protected final long lpConsumerIndex() {
+        return UNSAFE.getLong(null, consumerIndexAddress);
+    }
+
+    protected final long lvConsumerIndex() {
+        return UNSAFE.getLongVolatile(null, consumerIndexAddress);
+    }
+
+    protected final void soConsumerIndex(final long value) {
+        UNSAFE.putOrderedLong(null, consumerIndexAddress, value);
+    }
+
+    protected final long lpProducerIndex() {
+        return UNSAFE.getLong(null, producerIndexAddress);
+    }
+
+    protected final long lvProducerIndex() {
+        return UNSAFE.getLongVolatile(null, producerIndexAddress);
+    }
+
+    protected final void soProducerIndex(final long value) {
+        UNSAFE.putOrderedLong(null, producerIndexAddress, value);
+    }
+
+    protected final boolean casProducerIndex(final long expected, long update) {
+        return UNSAFE.compareAndSwapLong(null, producerIndexAddress, expected, update);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels;
+
+import static org.jctools.channels.OffHeapVariableMessageSizeRingBuffer.EOF;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * The consumer of a {@link OffHeapVariableMessageSizeRingBuffer}, handing messages in place to a
+ * {@link VariableMessageReceiver}.
+ */
+final class VariableMessageConsumer implements ChannelConsumer {
+
+    private final OffHeapVariableMessageSizeRingBuffer ring;
+    private final VariableMessageReceiver receiver;
+    private final ByteBuffer view;
+
+    VariableMessageConsumer(OffHeapVariableMessageSizeRingBuffer ring, VariableMessageReceiver receiver) {
+        this.ring = ring;
+        this.receiver = receiver;
+        this.view = ring.newBufferView();
+    }
+
+    @Override
+    public boolean read() {
+        final long address = ring.readAcquire();
+        if (address == EOF) {
+            return false;
+        }
+        try {
+            final int offset = ring.messageOffset(address);
+            ((Buffer) view).limit(offset + ring.messageLength(address)).position(offset);
+            receiver.accept(ring.messageType(address), view);
+        } finally {
+            ring.readRelease(address);
+        }
+        return true;
+    }
+
+}
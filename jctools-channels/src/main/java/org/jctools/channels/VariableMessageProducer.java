@@ -0,0 +1,101 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels;
+
+import static org.jctools.channels.OffHeapVariableMessageSizeRingBuffer.EOF;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * A producer used by a single thread for writing variable length messages into a
+ * {@link OffHeapVariableMessageSizeRingBuffer}. Messages are written in place, through a {@link ByteBuffer} view or
+ * the message address.
+ */
+public final class VariableMessageProducer {
+
+    private final OffHeapVariableMessageSizeRingBuffer ring;
+    private final ByteBuffer view;
+    private long address = EOF;
+
+    VariableMessageProducer(OffHeapVariableMessageSizeRingBuffer ring) {
+        this.ring = ring;
+        this.view = ring.newBufferView();
+    }
+
+    /**
+     * Attempt to claim a message of the given length in the channel.
+     *
+     * @see #commit(int)
+     * @param length of the message, at most {@link OffHeapVariableMessageSizeRingBuffer#maxMessageLength()}
+     * @return true if claimed, false if there is insufficient space in the channel.
+     */
+    public boolean claim(int length) {
+        if (address != EOF) {
+            throw new IllegalStateException("The previous claim is not committed");
+        }
+        address = ring.writeAcquire(length);
+        if (address == EOF) {
+            return false;
+        }
+        final int offset = ring.messageOffset(address);
+        // Buffer methods, ByteBuffer overrides them from JDK 9
+        ((Buffer) view).limit(offset + length).position(offset);
+        return true;
+    }
+
+    /**
+     * @return a view positioned at the claimed message start and limited to its end
+     */
+    public ByteBuffer currentBuffer() {
+        return view;
+    }
+
+    /**
+     * @return the address of the claimed message, to write to with Unsafe
+     */
+    public long currentAddress() {
+        return OffHeapVariableMessageSizeRingBuffer.messageAddress(address);
+    }
+
+    /**
+     * @see #claim(int)
+     * @param type of the message, handed to the receiver, must not be
+     *        {@link OffHeapVariableMessageSizeRingBuffer#PADDING_TYPE}
+     * @return true if a claimed message was committed
+     */
+    public boolean commit(int type) {
+        if (address == EOF) {
+            return false;
+        }
+        ring.writeRelease(address, type);
+        address = EOF;
+        return true;
+    }
+
+    /**
+     * Give up on the claimed message, the consumer skips it.
+     *
+     * @return true if a claimed message was aborted
+     */
+    public boolean abort() {
+        if (address == EOF) {
+            return false;
+        }
+        ring.writeAbort(address);
+        address = EOF;
+        return true;
+    }
+
+}
@@ -0,0 +1,31 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Callback for messages read from a {@link OffHeapVariableMessageSizeRingBuffer} by its consumer.
+ */
+public interface VariableMessageReceiver {
+
+    /**
+     * The message is only valid for the duration of the call, it is released once the call returns.
+     *
+     * @param type the message type it was committed with
+     * @param message a view positioned at the message start and limited to its end
+     */
+    void accept(int type, ByteBuffer message);
+
+}
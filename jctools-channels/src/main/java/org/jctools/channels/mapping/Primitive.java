@@ -58,6 +58,10 @@ enum Primitive implements Opcodes {
 	}
 
     static Class<?> replaceWithPrimitive(Class<?> boxedJavaType) {
+        // BOOLEAN is stored as a byte, so boolean is not its java equivalent
+        if (boxedJavaType == Boolean.class)
+            return boolean.class;
+
         for (Primitive primitive: Primitive.values())
             if (primitive.boxedJavaType == boxedJavaType)
                 return primitive.javaEquivalent;
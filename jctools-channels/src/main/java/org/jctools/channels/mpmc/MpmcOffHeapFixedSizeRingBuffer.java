@@ -0,0 +1,181 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels.mpmc;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeDirectByteBuffer.allocateAlignedByteBuffer;
+
+import java.nio.ByteBuffer;
+
+import org.jctools.channels.OffHeapFixedMessageSizeRingBuffer;
+import org.jctools.util.PortableJvmInfo;
+import org.jctools.util.Pow2;
+
+/**
+ * Channel protocol:
+ * - Fixed message size
+ * - 'null' indicator in message preceding byte (potentially use same for type mapping in future)
+ * - Use Vyukov MPMC algorithm relying on a per slot sequence to claim slots on both sides
+ * <p>
+ * The sequence is a long stored in the last 8 bytes of each slot, after the message. A slot at index i can be written
+ * when its sequence is i, and read when its sequence is i + 1. Releasing a read moves the sequence to i + capacity,
+ * making the slot writable on the next lap. The message indicator is still written on release, so the type of a
+ * proxied call is where the other rings keep it.
+ */
+public class MpmcOffHeapFixedSizeRingBuffer extends OffHeapFixedMessageSizeRingBuffer {
+
+    private static final int SEQUENCE_SIZE = 8;
+
+    private final long sequenceOffset;
+
+    public static int getRequiredBufferSize(final int capacity, final int messageSize) {
+        return OffHeapFixedMessageSizeRingBuffer.getRequiredBufferSize(capacity, sequencedMessageSize(messageSize));
+    }
+
+    /**
+     * @return the message size to ask of the parent to fit the message and an 8 byte aligned sequence
+     */
+    private static int sequencedMessageSize(final int messageSize) {
+        return (int) Pow2.align(messageSize + MESSAGE_INDICATOR_SIZE, SEQUENCE_SIZE) - MESSAGE_INDICATOR_SIZE
+                + SEQUENCE_SIZE;
+    }
+
+    public MpmcOffHeapFixedSizeRingBuffer(final int capacity, final int messageSize, int referenceMessageSize) {
+        this(allocateAlignedByteBuffer(getRequiredBufferSize(capacity, messageSize), PortableJvmInfo.CACHE_LINE_SIZE),
+                Pow2.roundToPowerOfTwo(capacity),
+                true,
+                true,
+                true,
+                messageSize,
+                createReferenceArray(capacity, referenceMessageSize),
+                referenceMessageSize);
+    }
+
+    /**
+     * This is to be used for an IPC queue with the direct buffer used being a memory mapped file.
+     *
+     * @param buff should be at least {@link #getRequiredBufferSize(int, int)} bytes
+     * @param capacity
+     */
+    protected MpmcOffHeapFixedSizeRingBuffer(final ByteBuffer buff,
+            final int capacity,
+            final boolean isProducer,
+            final boolean isConsumer,
+            final boolean initialize,
+            final int messageSize,
+            final Object[] references,
+            final int referenceMessageSize) {
+        super(buff,
+                capacity,
+                isProducer,
+                isConsumer,
+                initialize,
+                sequencedMessageSize(messageSize),
+                references,
+                referenceMessageSize);
+        // Layout of a slot, the slot size is a multiple of 8:
+        // indicator(4b), message, pad | sequence(8b)
+        this.sequenceOffset = this.messageSize - SEQUENCE_SIZE;
+
+        // producer owns the initial sequences, as it does the indicators
+        if (isProducer && initialize) {
+            final int actualCapacity = capacity();
+            for (int i = 0; i < actualCapacity; i++) {
+                soSequence(offsetForIndex(i), i);
+            }
+        }
+    }
+
+    @Override
+    protected final long writeAcquire() {
+        long producerIndex;
+        long offset;
+        do {
+            producerIndex = lvProducerIndex(); // LoadLoad
+            offset = offsetForIndex(producerIndex);
+            final long sequence = lvSequence(offset);
+            if (sequence < producerIndex) {
+                // the slot is not released by the consumer of the previous lap
+                return EOF;
+            }
+            if (sequence > producerIndex) {
+                // another producer claimed this index, go around again
+                continue;
+            }
+        } while (!casProducerIndex(producerIndex, producerIndex + 1));
+        // return offset for current producer index
+        return offset;
+    }
+
+    @Override
+    protected final void writeRelease(long offset) {
+        writeReleaseState(offset);
+        // the slot is owned by this producer, its sequence is still the claimed index
+        soSequence(offset, lpSequence(offset) + 1);
+    }
+
+    @Override
+    protected final void writeRelease(long offset, int callTypeId) {
+        assert callTypeId != 0;
+        UNSAFE.putOrderedInt(null, offset, callTypeId);
+        soSequence(offset, lpSequence(offset) + 1);
+    }
+
+    @Override
+    protected final long readAcquire() {
+        long consumerIndex;
+        long offset;
+        do {
+            consumerIndex = lvConsumerIndex(); // LoadLoad
+            offset = offsetForIndex(consumerIndex);
+            final long sequence = lvSequence(offset);
+            if (sequence < consumerIndex + 1) {
+                // the slot is not written yet, the ring is empty or the producer is slow
+                return EOF;
+            }
+            if (sequence > consumerIndex + 1) {
+                // another consumer claimed this index, go around again
+                continue;
+            }
+        } while (!casConsumerIndex(consumerIndex, consumerIndex + 1));
+        return offset;
+    }
+
+    @Override
+    protected final void readRelease(long offset) {
+        readReleaseState(offset);
+        // the slot is owned by this consumer, its sequence is the claimed index + 1
+        soSequence(offset, lpSequence(offset) + mask);
+    }
+
+    private long lpSequence(final long offset) {
+        return UNSAFE.getLong(null, offset + sequenceOffset);
+    }
+
+    private long lvSequence(final long offset) {
+        return UNSAFE.getLongVolatile(null, offset + sequenceOffset);
+    }
+
+    private void soSequence(final long offset, final long value) {
+        UNSAFE.putOrderedLong(null, offset + sequenceOffset, value);
+    }
+
+    private boolean casProducerIndex(final long expected, long update) {
+        return UNSAFE.compareAndSwapLong(null, producerIndexAddress, expected, update);
+    }
+
+    private boolean casConsumerIndex(final long expected, long update) {
+        return UNSAFE.compareAndSwapLong(null, consumerIndexAddress, expected, update);
+    }
+}
@@ -43,8 +43,20 @@ public final class MpscChannel<E> implements Channel<E> {
      * @param buffer
      * @param requestedCapacity
      */
-    // TODO: take an initialize parameter
     public MpscChannel(final ByteBuffer buffer, final int requestedCapacity, final Class<E> type) {
+        this(buffer, requestedCapacity, type, true);
+    }
+
+    /**
+     * This is to be used for an IPC queue with the direct buffer used being a memory mapped file.
+     *
+     * @param buffer
+     * @param requestedCapacity
+     * @param initialize false when attaching to a buffer already initialized by another channel instance, e.g. in
+     *        another process
+     */
+    public MpscChannel(final ByteBuffer buffer, final int requestedCapacity, final Class<E> type,
+            final boolean initialize) {
         this.requestedCapacity = requestedCapacity;
         this.maximumCapacity = getMaximumCapacity(requestedCapacity);
         this.buffer = buffer;
@@ -54,10 +66,13 @@ public final class MpscChannel<E> implements Channel<E> {
         checkSufficientCapacity();
         checkByteBuffer();
 
-        producer = newProducer(type, buffer, maximumCapacity, elementSize);
+        producer = newProducer(type, buffer, maximumCapacity, elementSize, initialize);
     }
 
-    private int getMaximumCapacity(int requestedCapacity) {
+    /**
+     * @return the capacity of a channel created with the requested capacity
+     */
+    public static int getMaximumCapacity(int requestedCapacity) {
         return Pow2.roundToPowerOfTwo(requestedCapacity);
     }
 
@@ -30,8 +30,20 @@ public abstract class MpscChannelProducer<E> extends MpscOffHeapFixedSizeRingBuf
         final ByteBuffer buffer,
         final int capacity,
         final int messageSize) {
+        this(buffer, capacity, messageSize, true);
+    }
+
+    /**
+     * @param initialize false when attaching to a buffer already initialized by another producer, e.g. in another
+     *        process sharing a memory mapped file
+     */
+    public MpscChannelProducer(
+        final ByteBuffer buffer,
+        final int capacity,
+        final int messageSize,
+        final boolean initialize) {
 
-        super(buffer, capacity, true, false, true, messageSize, null, 0);
+        super(buffer, capacity, true, false, initialize, messageSize, null, 0);
         pointer = EOF;
     }
 
@@ -0,0 +1,63 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels.mpsc;
+
+import static org.jctools.util.PortableJvmInfo.CACHE_LINE_SIZE;
+import static org.jctools.util.UnsafeDirectByteBuffer.allocateAlignedByteBuffer;
+
+import java.nio.ByteBuffer;
+
+import org.jctools.channels.OffHeapVariableMessageSizeRingBuffer;
+
+/**
+ * Channel protocol:
+ * - Variable message size, see {@link OffHeapVariableMessageSizeRingBuffer}
+ * - Multiple producers, claims CAS the producer index forward by the record length and any padding at wrap
+ */
+public class MpscOffHeapVariableSizeRingBuffer extends OffHeapVariableMessageSizeRingBuffer {
+
+    public MpscOffHeapVariableSizeRingBuffer(final int capacity) {
+        this(allocateAlignedByteBuffer(getRequiredBufferSize(capacity), CACHE_LINE_SIZE), capacity, true, true, true);
+    }
+
+    /**
+     * This is to be used for an IPC queue with the direct buffer used being a memory mapped file.
+     *
+     * @param buff should be at least {@link #getRequiredBufferSize(int)} bytes
+     * @param capacity in bytes, actual capacity will be the next power of 2
+     */
+    public MpscOffHeapVariableSizeRingBuffer(final ByteBuffer buff,
+            final int capacity,
+            final boolean isProducer,
+            final boolean isConsumer,
+            final boolean initialize) {
+        super(buff, capacity, isProducer, isConsumer, initialize);
+    }
+
+    @Override
+    public final long writeAcquire(int length) {
+        final int alignedRecordLength = alignedRecordLength(length);
+        long producerIndex;
+        int padding;
+        do {
+            producerIndex = lvProducerIndex(); // LoadLoad
+            padding = paddingFor(producerIndex, alignedRecordLength);
+            // the consumer index is read after the producer index, so it is not ahead of it
+            if (producerIndex + padding + alignedRecordLength - capacity() > lvConsumerIndex()) {
+                return EOF;
+            }
+        } while (!casProducerIndex(producerIndex, producerIndex + padding + alignedRecordLength));
+        return claimRecord(producerIndex, padding, length);
+    }
+}
@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.jctools.channels.WaitStrategy;
+import org.jctools.channels.mpmc.MpmcOffHeapFixedSizeRingBuffer;
 import org.jctools.channels.mpsc.MpscOffHeapFixedSizeRingBuffer;
 import org.jctools.channels.spsc.SpscOffHeapFixedSizeRingBuffer;
 import org.jctools.util.UnsafeAccess;
@@ -90,6 +91,29 @@ public class ProxyChannelFactory {
                 waitStrategy,
                 MpscOffHeapFixedSizeRingBuffer.class);
     }
+
+    /**
+     * Create a default multi producer multi consumer (MPMC) proxy channel.
+     * Processing threads may call {@link ProxyChannel#process(Object, int)} concurrently.
+     * 
+     * @param capacity
+     *            The minimum capacity for unprocessed invocations the channel
+     *            should support
+     * @param iFace
+     *            Interface the proxy must implement
+     * @param waitStrategy
+     *            A wait strategy to be invoked when the backing data structure
+     *            is full
+     * @return A proxy channel instance
+     */
+    public static <E> ProxyChannel<E> createMpmcProxy(int capacity,
+            Class<E> iFace,
+            WaitStrategy waitStrategy) {
+        return createProxy(capacity,
+                iFace,
+                waitStrategy,
+                MpmcOffHeapFixedSizeRingBuffer.class);
+    }
     
     /**
      * Create a proxy channel using a user supplied back end.
@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels.spsc;
+
+import static org.jctools.util.PortableJvmInfo.CACHE_LINE_SIZE;
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeDirectByteBuffer.allocateAlignedByteBuffer;
+
+import java.nio.ByteBuffer;
+
+import org.jctools.channels.OffHeapVariableMessageSizeRingBuffer;
+
+/**
+ * Channel protocol:
+ * - Variable message size, see {@link OffHeapVariableMessageSizeRingBuffer}
+ * - Single producer, claims move the producer index and check the space left against a cached consumer index
+ */
+public class SpscOffHeapVariableSizeRingBuffer extends OffHeapVariableMessageSizeRingBuffer {
+
+    private final long producerConsumerIndexCacheAddress;
+
+    public SpscOffHeapVariableSizeRingBuffer(final int capacity) {
+        this(allocateAlignedByteBuffer(getRequiredBufferSize(capacity), CACHE_LINE_SIZE), capacity, true, true, true);
+    }
+
+    /**
+     * This is to be used for an IPC queue with the direct buffer used being a memory mapped file.
+     *
+     * @param buff should be at least {@link #getRequiredBufferSize(int)} bytes
+     * @param capacity in bytes, actual capacity will be the next power of 2
+     */
+    public SpscOffHeapVariableSizeRingBuffer(final ByteBuffer buff,
+            final int capacity,
+            final boolean isProducer,
+            final boolean isConsumer,
+            final boolean initialize) {
+        super(buff, capacity, isProducer, isConsumer, initialize);
+        // Layout of the RingBuffer (assuming 64b cache line):
+        // consumerIndex(8b), pad(56b) |
+        // pad(64b) |
+        // producerIndex(8b), producerConsumerIndexCache(8b), pad(48b) |
+        // pad(64b) |
+        // buffer (capacity bytes of records)
+        this.producerConsumerIndexCacheAddress = this.producerIndexAddress + 8;
+
+        // producer owns tail and headCache
+        if (isProducer && initialize) {
+            spConsumerIndexCache(0);
+        }
+    }
+
+    @Override
+    public final long writeAcquire(int length) {
+        final int alignedRecordLength = alignedRecordLength(length);
+        final long producerIndex = lpProducerIndex();
+        final int padding = paddingFor(producerIndex, alignedRecordLength);
+        final long requiredConsumerIndex = producerIndex + padding + alignedRecordLength - capacity();
+        if (requiredConsumerIndex > lpConsumerIndexCache()) {
+            final long consumerIndex = lvConsumerIndex(); // LoadLoad
+            if (requiredConsumerIndex > consumerIndex) {
+                return EOF;
+            }
+            spConsumerIndexCache(consumerIndex);
+        }
+        final long address = claimRecord(producerIndex, padding, length);
+        soProducerIndex(producerIndex + padding + alignedRecordLength); // StoreStore
+        return address;
+    }
+
+    private long lpConsumerIndexCache() {
+        return UNSAFE.getLong(null, producerConsumerIndexCacheAddress);
+    }
+
+    private void spConsumerIndexCache(final long value) {
+        UNSAFE.putLong(null, producerConsumerIndexCacheAddress, value);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels;
+
+import static org.jctools.channels.OffHeapVariableMessageSizeRingBuffer.EOF;
+import static org.jctools.channels.OffHeapVariableMessageSizeRingBuffer.RECORD_HEADER_SIZE;
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+public class AbstractOffHeapVariableSizeRingBufferTest {
+
+    public static void test(OffHeapVariableMessageSizeRingBuffer rb) {
+        assertEquals(0, rb.size());
+        assertTrue(rb.isEmpty());
+        assertEquals(EOF, rb.readAcquire());
+
+        long writeOffset = rb.writeAcquire(12);
+        assertNotEquals(EOF, writeOffset);
+        // claimed is not readable
+        assertEquals(EOF, rb.readAcquire());
+        long fieldOffset = OffHeapVariableMessageSizeRingBuffer.messageAddress(writeOffset);
+        UNSAFE.putInt(fieldOffset, 1);
+        UNSAFE.putLong(fieldOffset + 4, 1);
+
+        rb.writeRelease(writeOffset, 7);
+        assertEquals(24, rb.size());
+        assertTrue(!rb.isEmpty());
+        long readOffset = rb.readAcquire();
+        assertEquals(writeOffset, readOffset);
+        assertEquals(7, rb.messageType(readOffset));
+        assertEquals(12, rb.messageLength(readOffset));
+        fieldOffset = OffHeapVariableMessageSizeRingBuffer.messageAddress(readOffset);
+        assertEquals(1, UNSAFE.getInt(fieldOffset));
+        assertEquals(1L, UNSAFE.getLong(fieldOffset + 4));
+        rb.readRelease(readOffset);
+
+        assertEquals(0, rb.size());
+        assertTrue(rb.isEmpty());
+        assertEquals(EOF, rb.readAcquire());
+    }
+
+    public static void testWrapAndAbort(OffHeapVariableMessageSizeRingBuffer rb) {
+        final int capacity = rb.capacity();
+        final VariableMessageProducer producer = rb.producer();
+        final int[] received = new int[2];
+        final ChannelConsumer consumer = rb.consumer(new VariableMessageReceiver() {
+            public void accept(int type, ByteBuffer message) {
+                assertEquals(type, message.remaining());
+                for (int i = 0; i < type; i++) {
+                    assertEquals((byte) type, message.get());
+                }
+                received[0]++;
+                received[1] += type;
+            }
+        });
+
+        // odd lengths keep shifting the wrap point, every length up to the max fits an empty ring
+        int sent = 0;
+        int sentBytes = 0;
+        for (int length = 1; length <= rb.maxMessageLength(); length += 13) {
+            assertTrue(producer.claim(length));
+            final ByteBuffer buffer = producer.currentBuffer();
+            assertEquals(length, buffer.remaining());
+            while (buffer.hasRemaining()) {
+                buffer.put((byte) length);
+            }
+            assertTrue(producer.commit(length));
+            sent++;
+            sentBytes += length;
+
+            // aborted claims are skipped
+            assertTrue(producer.claim(RECORD_HEADER_SIZE));
+            assertTrue(producer.abort());
+
+            assertTrue(consumer.read());
+            assertFalse(consumer.read());
+            assertTrue(rb.isEmpty());
+        }
+        assertEquals(sent, received[0]);
+        assertEquals(sentBytes, received[1]);
+
+        // a full ring rejects claims
+        int claimed = 0;
+        while (producer.claim(RECORD_HEADER_SIZE)) {
+            producer.commit(0);
+            claimed += 2 * RECORD_HEADER_SIZE;
+        }
+        assertTrue(claimed > capacity - 4 * RECORD_HEADER_SIZE);
+        assertTrue(claimed <= capacity);
+    }
+
+}
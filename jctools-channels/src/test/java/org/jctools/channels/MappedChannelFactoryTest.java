@@ -0,0 +1,140 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class MappedChannelFactoryTest {
+
+    private static final int REQUESTED_CAPACITY = 8;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldPassMessagesBetweenSpscMappings() throws IOException {
+        Path file = folder.newFile("spsc").toPath();
+        Channel<Example> created = MappedChannelFactory.createSpscChannel(file, REQUESTED_CAPACITY, Example.class);
+        Channel<Example> opened = MappedChannelFactory.openSpscChannel(file, Example.class);
+
+        assertEquals(created.maximumCapacity(), opened.maximumCapacity());
+        assertMessagesPass(created, opened);
+        assertMessagesPass(created, opened);
+    }
+
+    @Test
+    public void shouldPassMessagesBetweenMpscMappings() throws IOException {
+        Path file = folder.newFile("mpsc").toPath();
+        Channel<Example> created = MappedChannelFactory.createMpscChannel(file, REQUESTED_CAPACITY, Example.class);
+        Channel<Example> opened = MappedChannelFactory.openMpscChannel(file, Example.class);
+
+        assertEquals(created.maximumCapacity(), opened.maximumCapacity());
+        assertMessagesPass(opened, created);
+        assertMessagesPass(opened, created);
+    }
+
+    @Test
+    public void shouldNotInitializeAnOpenedChannel() throws IOException {
+        Path file = folder.newFile("spsc").toPath();
+        Channel<Example> created = MappedChannelFactory.createSpscChannel(file, REQUESTED_CAPACITY, Example.class);
+        write(created.producer(), 1);
+
+        Channel<Example> opened = MappedChannelFactory.openSpscChannel(file, Example.class);
+        assertEquals(1, opened.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectOtherRingType() throws IOException {
+        Path file = folder.newFile("spsc").toPath();
+        MappedChannelFactory.createSpscChannel(file, REQUESTED_CAPACITY, Example.class);
+        MappedChannelFactory.openMpscChannel(file, Example.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectOtherMessageType() throws IOException {
+        Path file = folder.newFile("spsc").toPath();
+        MappedChannelFactory.createSpscChannel(file, REQUESTED_CAPACITY, Example.class);
+        MappedChannelFactory.openSpscChannel(file, Other.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectFileWithoutHeader() throws IOException {
+        Path file = folder.newFile("empty").toPath();
+        Files.write(file, new byte[4096]);
+        MappedChannelFactory.openSpscChannel(file, Example.class);
+    }
+
+    private static void assertMessagesPass(Channel<Example> producerSide, Channel<Example> consumerSide) {
+        ChannelProducer<Example> producer = producerSide.producer();
+        final long[] received = new long[REQUESTED_CAPACITY];
+        final int[] count = new int[1];
+        ChannelConsumer consumer = consumerSide.consumer(new ChannelReceiver<Example>() {
+            public void accept(Example element) {
+                assertEquals(element.getFoo() * 10L, element.getBar());
+                received[count[0]++] = element.getFoo();
+            }
+        });
+
+        for (int i = 0; i < REQUESTED_CAPACITY; i++) {
+            write(producer, i);
+        }
+        assertEquals(REQUESTED_CAPACITY, consumerSide.size());
+        for (int i = 0; i < REQUESTED_CAPACITY; i++) {
+            assertTrue(consumer.read());
+        }
+        assertFalse(consumer.read());
+        assertTrue(producerSide.isEmpty());
+        for (int i = 0; i < REQUESTED_CAPACITY; i++) {
+            assertEquals(i, received[i]);
+        }
+    }
+
+    private static void write(ChannelProducer<Example> producer, int foo) {
+        assertTrue(producer.claim());
+        Example writer = producer.currentElement();
+        writer.setFoo(foo);
+        writer.setBar(foo * 10L);
+        assertTrue(producer.commit());
+    }
+
+    // ---------------------------------------------------
+
+    public interface Example {
+
+        int getFoo();
+
+        void setFoo(int value);
+
+        long getBar();
+
+        void setBar(long value);
+
+    }
+
+    public interface Other {
+
+        long getFoo();
+
+        void setFoo(long value);
+
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels.mpmc;
+
+import static org.jctools.channels.OffHeapFixedMessageSizeRingBuffer.EOF;
+import static org.jctools.channels.OffHeapFixedMessageSizeRingBuffer.MESSAGE_INDICATOR_SIZE;
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jctools.channels.AbstractOffHeapFixedSizeRingBufferTest;
+import org.junit.Test;
+
+public class MpmcOffHeapFixedSizeRingBufferTest extends AbstractOffHeapFixedSizeRingBufferTest {
+
+    @Test
+    public void test() {
+        MpmcOffHeapFixedSizeRingBuffer rb = new MpmcOffHeapFixedSizeRingBuffer(1024, 31, 0);
+        test(rb);
+    }
+
+    @Test
+    public void testFullAndWrapAround() {
+        MpmcOffHeapFixedSizeRingBuffer rb = new MpmcOffHeapFixedSizeRingBuffer(4, 8, 0);
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 4; i++) {
+                long offset = rb.writeAcquire();
+                assertNotEquals(EOF, offset);
+                UNSAFE.putLong(offset + MESSAGE_INDICATOR_SIZE, lap * 4 + i);
+                rb.writeRelease(offset);
+            }
+            assertEquals(EOF, rb.writeAcquire());
+            for (int i = 0; i < 4; i++) {
+                long offset = rb.readAcquire();
+                assertNotEquals(EOF, offset);
+                assertEquals(lap * 4 + i, UNSAFE.getLong(offset + MESSAGE_INDICATOR_SIZE));
+                rb.readRelease(offset);
+            }
+            assertEquals(EOF, rb.readAcquire());
+        }
+    }
+
+    @Test
+    public void testReferencesWrapAround() {
+        ReferenceRingBuffer rb = new ReferenceRingBuffer(4, 8, 2);
+        for (int lap = 0; lap < 3; lap++) {
+            for (int i = 0; i < 4; i++) {
+                long offset = rb.writeAcquire();
+                assertNotEquals(EOF, offset);
+                UNSAFE.putLong(offset + MESSAGE_INDICATOR_SIZE, lap * 4 + i);
+                rb.writeReferences(offset, "x" + (lap * 4 + i), lap * 4 + i);
+                rb.writeRelease(offset);
+            }
+            for (int i = 0; i < 4; i++) {
+                long offset = rb.readAcquire();
+                assertNotEquals(EOF, offset);
+                assertEquals(lap * 4 + i, UNSAFE.getLong(offset + MESSAGE_INDICATOR_SIZE));
+                assertEquals("x" + (lap * 4 + i), rb.readReference(offset, 0));
+                assertEquals(lap * 4 + i, rb.readReference(offset, 1));
+                rb.readRelease(offset);
+            }
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentProducersAndConsumers() throws InterruptedException {
+        final MpmcOffHeapFixedSizeRingBuffer rb = new MpmcOffHeapFixedSizeRingBuffer(64, 8, 0);
+        final int threads = 2;
+        final long messages = 200000;
+        final AtomicLong consumed = new AtomicLong();
+        final AtomicLong sum = new AtomicLong();
+        Thread[] workers = new Thread[2 * threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                for (long i = 1; i <= messages; i++) {
+                    long offset;
+                    while ((offset = rb.writeAcquire()) == EOF) {
+                        Thread.yield();
+                    }
+                    UNSAFE.putLong(offset + MESSAGE_INDICATOR_SIZE, i);
+                    rb.writeRelease(offset);
+                }
+            });
+            workers[threads + t] = new Thread(() -> {
+                while (consumed.get() < threads * messages) {
+                    long offset = rb.readAcquire();
+                    if (offset == EOF) {
+                        Thread.yield();
+                        continue;
+                    }
+                    sum.addAndGet(UNSAFE.getLong(offset + MESSAGE_INDICATOR_SIZE));
+                    rb.readRelease(offset);
+                    consumed.incrementAndGet();
+                }
+            });
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(threads * messages * (messages + 1) / 2, sum.get());
+        assertEquals(0, rb.size());
+    }
+
+    static final class ReferenceRingBuffer extends MpmcOffHeapFixedSizeRingBuffer {
+        ReferenceRingBuffer(int capacity, int messageSize, int referenceMessageSize) {
+            super(capacity, messageSize, referenceMessageSize);
+        }
+
+        void writeReferences(long offset, Object first, Object second) {
+            long index = producerReferenceArrayIndex(offset);
+            writeReference(index, first);
+            writeReference(index + 1, second);
+        }
+
+        Object readReference(long offset, int reference) {
+            return readReference(consumerReferenceArrayIndex(offset) + reference);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels.mpsc;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jctools.channels.AbstractOffHeapVariableSizeRingBufferTest;
+import org.jctools.channels.ChannelConsumer;
+import org.jctools.channels.VariableMessageProducer;
+import org.jctools.channels.VariableMessageReceiver;
+import org.junit.Test;
+
+public class MpscOffHeapVariableSizeRingBufferTest extends AbstractOffHeapVariableSizeRingBufferTest {
+
+    @Test
+    public void test() {
+        test(new MpscOffHeapVariableSizeRingBuffer(1024));
+    }
+
+    @Test
+    public void testWrapAndAbort() {
+        testWrapAndAbort(new MpscOffHeapVariableSizeRingBuffer(1024));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMessageLongerThanMax() {
+        MpscOffHeapVariableSizeRingBuffer rb = new MpscOffHeapVariableSizeRingBuffer(1024);
+        rb.writeAcquire(rb.maxMessageLength() + 1);
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentProducers() throws InterruptedException {
+        final int producers = 4;
+        final int messages = 100000;
+        final MpscOffHeapVariableSizeRingBuffer rb = new MpscOffHeapVariableSizeRingBuffer(4096);
+        final Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int type = p + 1;
+            threads[p] = new Thread() {
+                public void run() {
+                    final VariableMessageProducer producer = rb.producer();
+                    for (int i = 0; i < messages; i++) {
+                        final int length = 8 + (i % 5) * 12;
+                        while (!producer.claim(length)) {
+                            Thread.yield();
+                        }
+                        final ByteBuffer buffer = producer.currentBuffer();
+                        while (buffer.remaining() >= 8) {
+                            buffer.putLong(i);
+                        }
+                        producer.commit(type);
+                    }
+                }
+            };
+            threads[p].start();
+        }
+
+        final long[] nextExpected = new long[producers];
+        final AtomicLong received = new AtomicLong();
+        final ChannelConsumer consumer = rb.consumer(new VariableMessageReceiver() {
+            public void accept(int type, ByteBuffer message) {
+                final long expected = nextExpected[type - 1]++;
+                assertEquals(8 + (expected % 5) * 12, message.remaining());
+                while (message.remaining() >= 8) {
+                    assertEquals(expected, message.getLong());
+                }
+                received.lazySet(received.get() + 1);
+            }
+        });
+        while (received.get() < (long) producers * messages) {
+            consumer.read();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(true, rb.isEmpty());
+    }
+
+}
@@ -4,6 +4,7 @@ import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.Assert.assertThat;
 
 import org.jctools.channels.WaitStrategy;
+import org.jctools.channels.mpmc.MpmcOffHeapFixedSizeRingBuffer;
 import org.jctools.channels.mpsc.MpscOffHeapFixedSizeRingBuffer;
 import org.jctools.channels.proxy.DemoIFace.CustomType;
 import org.jctools.channels.spsc.SpscOffHeapFixedSizeRingBuffer;
@@ -48,6 +49,11 @@ public class ProxyCreationTest {
         util_givenGeneratedProxyUsingReferenceChannel_whenCallMethods_expectAllCallsAreProxied(MpscOffHeapFixedSizeRingBuffer.class);
     }
 
+    @Test
+    public void givenGeneratedProxyUsingMpmcReferenceChannel_whenCallMethods_expectAllCallsAreProxied() throws Exception {
+        util_givenGeneratedProxyUsingReferenceChannel_whenCallMethods_expectAllCallsAreProxied(MpmcOffHeapFixedSizeRingBuffer.class);
+    }
+
     private static void util_givenGeneratedProxyUsingReferenceChannel_whenCallMethods_expectAllCallsAreProxied(
             Class<? extends ProxyChannelRingBuffer> backend) {
         ProxyChannel<DemoIFace> proxyChannel =
@@ -125,6 +131,14 @@ public class ProxyCreationTest {
         util_givenProxyChannel_andQueueIsFull_whenCallAgain_expectRuntimeException(16, proxyChannel);
     }
 
+    @Test
+    public void givenGeneratedMpmcProxy_andQueueIsFull_whenCallAgain_expectRuntimeException() throws Exception {
+        ProxyChannel<DemoIFace> proxyChannel =
+                ProxyChannelFactory.createMpmcProxy(10, DemoIFace.class, new ThrowExceptionOnFullQueue());
+        // capacity of 10 results in 16 slots in the queue
+        util_givenProxyChannel_andQueueIsFull_whenCallAgain_expectRuntimeException(16, proxyChannel);
+    }
+
     @Test
     public void givenDemoProxy_andQueueIsFull_whenCallAgain_expectRuntimeException() throws Exception {
         ProxyChannel<DemoIFace> proxyChannel = new DemoProxyResult(10, new ThrowExceptionOnFullQueue());
@@ -0,0 +1,37 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.channels.spsc;
+
+import org.jctools.channels.AbstractOffHeapVariableSizeRingBufferTest;
+import org.junit.Test;
+
+public class SpscOffHeapVariableSizeRingBufferTest extends AbstractOffHeapVariableSizeRingBufferTest {
+
+    @Test
+    public void test() {
+        test(new SpscOffHeapVariableSizeRingBuffer(1024));
+    }
+
+    @Test
+    public void testWrapAndAbort() {
+        testWrapAndAbort(new SpscOffHeapVariableSizeRingBuffer(1024));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMessageLongerThanMax() {
+        SpscOffHeapVariableSizeRingBuffer rb = new SpscOffHeapVariableSizeRingBuffer(1024);
+        rb.writeAcquire(rb.maxMessageLength() + 1);
+    }
+
+}
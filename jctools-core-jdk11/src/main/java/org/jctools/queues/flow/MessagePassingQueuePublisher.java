@@ -0,0 +1,282 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.flow;
+
+import org.jctools.queues.MessagePassingQueue;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+
+/**
+ * A {@link Flow.Publisher} of the elements offered to a {@link MessagePassingQueue}, for a single subscriber.
+ * <p>
+ * Producers {@link #offer(Object)} to the queue from any number of threads without locks, the queue bounds how far
+ * they can get ahead of the subscriber. Emission is serialized by a work in progress counter: whichever thread finds
+ * the counter at 0 emits, the others only increment it to have the emitting thread go around again. Each round
+ * drains up to the outstanding demand with a single {@link MessagePassingQueue#drain(MessagePassingQueue.Consumer, int)}
+ * call, so the per element cost is the queue poll and the {@code onNext} call.
+ * <p>
+ * The queue must support a single consumer, e.g. an MPSC queue, and must not be consumed from elsewhere.
+ * {@link #complete()} and {@link #error(Throwable)} end the stream after the elements already offered.
+ *
+ * @param <T> the element type
+ */
+public class MessagePassingQueuePublisher<T> implements Flow.Publisher<T>
+{
+    private static final VarHandle VH_WIP;
+    private static final VarHandle VH_REQUESTED;
+    private static final VarHandle VH_SUBSCRIBER;
+
+    static
+    {
+        try
+        {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            VH_WIP = lookup.findVarHandle(MessagePassingQueuePublisher.class, "wip", int.class);
+            VH_REQUESTED = lookup.findVarHandle(MessagePassingQueuePublisher.class, "requested", long.class);
+            VH_SUBSCRIBER = lookup.findVarHandle(MessagePassingQueuePublisher.class, "subscriber", Flow.Subscriber.class);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final MessagePassingQueue<T> queue;
+    private final QueueSubscription subscription = new QueueSubscription();
+    private final MessagePassingQueue.Consumer<T> emitter = new MessagePassingQueue.Consumer<T>()
+    {
+        @Override
+        public void accept(T e)
+        {
+            // the subscription may be cancelled in the middle of a batch, the rest of the batch is dropped
+            if (!cancelled)
+            {
+                subscriber.onNext(e);
+            }
+        }
+    };
+
+    private volatile int wip;
+    private volatile long requested;
+    private volatile Flow.Subscriber<? super T> subscriber;
+    // set once onSubscribe returned, nothing is emitted before
+    private volatile boolean subscribed;
+    private volatile boolean cancelled;
+    private volatile boolean done;
+    private volatile Throwable error;
+    private volatile Throwable invalidRequest;
+
+    public MessagePassingQueuePublisher(MessagePassingQueue<T> queue)
+    {
+        this.queue = Objects.requireNonNull(queue, "queue");
+    }
+
+    /**
+     * A subscriber other than the first one is signalled an {@link IllegalStateException}.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> s)
+    {
+        Objects.requireNonNull(s, "subscriber");
+        if (!VH_SUBSCRIBER.compareAndSet(this, null, s))
+        {
+            s.onSubscribe(new Flow.Subscription()
+            {
+                @Override
+                public void request(long n)
+                {
+                }
+
+                @Override
+                public void cancel()
+                {
+                }
+            });
+            s.onError(new IllegalStateException("Only a single subscriber is supported"));
+            return;
+        }
+        s.onSubscribe(subscription);
+        subscribed = true;
+        drain();
+    }
+
+    /**
+     * Offer an element to the subscriber, allowed from any thread.
+     *
+     * @return false if the queue is full, or the stream is complete or cancelled
+     * @throws NullPointerException if the element is null
+     */
+    public boolean offer(T e)
+    {
+        if (done || cancelled)
+        {
+            return false;
+        }
+        if (!queue.offer(e))
+        {
+            return false;
+        }
+        drain();
+        return true;
+    }
+
+    /**
+     * Complete the stream once the subscriber received the elements offered before this call.
+     */
+    public void complete()
+    {
+        done = true;
+        drain();
+    }
+
+    /**
+     * Fail the stream once the subscriber received the elements offered before this call.
+     */
+    public void error(Throwable t)
+    {
+        Objects.requireNonNull(t, "error");
+        error = t;
+        done = true;
+        drain();
+    }
+
+    /**
+     * @return the outstanding demand of the subscriber, {@link Long#MAX_VALUE} for unbounded demand
+     */
+    public long requested()
+    {
+        return requested;
+    }
+
+    public boolean isCancelled()
+    {
+        return cancelled;
+    }
+
+    private void drain()
+    {
+        if ((int) VH_WIP.getAndAdd(this, 1) != 0)
+        {
+            // the emitting thread goes around again
+            return;
+        }
+        int missed = 1;
+        for (;;)
+        {
+            if (subscribed)
+            {
+                emit();
+            }
+            missed = (int) VH_WIP.getAndAdd(this, -missed) - missed;
+            if (missed == 0)
+            {
+                return;
+            }
+        }
+    }
+
+    private void emit()
+    {
+        if (cancelled)
+        {
+            queue.clear();
+            return;
+        }
+        final Flow.Subscriber<? super T> s = subscriber;
+        final Throwable invalidRequest = this.invalidRequest;
+        if (invalidRequest != null)
+        {
+            terminate();
+            s.onError(invalidRequest);
+            return;
+        }
+        final long r = requested;
+        if (r != 0)
+        {
+            final int emitted = queue.drain(emitter, (int) Math.min(r, Integer.MAX_VALUE));
+            if (emitted != 0 && r != Long.MAX_VALUE)
+            {
+                VH_REQUESTED.getAndAdd(this, (long) -emitted);
+            }
+            if (cancelled)
+            {
+                queue.clear();
+                return;
+            }
+        }
+        // read done before checking the queue, the elements offered before completion are emitted first
+        if (done && queue.isEmpty())
+        {
+            terminate();
+            final Throwable error = this.error;
+            if (error != null)
+            {
+                s.onError(error);
+            }
+            else
+            {
+                s.onComplete();
+            }
+        }
+    }
+
+    private void terminate()
+    {
+        cancelled = true;
+        queue.clear();
+    }
+
+    private final class QueueSubscription implements Flow.Subscription
+    {
+        @Override
+        public void request(long n)
+        {
+            if (n <= 0)
+            {
+                invalidRequest = new IllegalArgumentException("Non-positive request: " + n);
+            }
+            else
+            {
+                long r;
+                long u;
+                do
+                {
+                    r = requested;
+                    if (r == Long.MAX_VALUE)
+                    {
+                        return;
+                    }
+                    u = r + n;
+                    if (u < 0)
+                    {
+                        // demand over Long.MAX_VALUE is unbounded
+                        u = Long.MAX_VALUE;
+                    }
+                }
+                while (!VH_REQUESTED.compareAndSet(MessagePassingQueuePublisher.this, r, u));
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel()
+        {
+            cancelled = true;
+            drain();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.flow;
+
+import org.jctools.queues.MessagePassingQueue;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+
+/**
+ * A {@link Flow.Subscriber} buffering the elements it receives in a {@link MessagePassingQueue} for a consumer thread
+ * to {@link #poll()} or {@link #drain(MessagePassingQueue.Consumer, int)}.
+ * <p>
+ * The subscriber requests {@code prefetch} elements up front and requests more as the consumer takes them, in batches
+ * of 3/4 of the prefetch, so the queue never holds more than {@code prefetch} elements. The publisher signals are
+ * serialized, so the queue needs to support a single producer and a single consumer, e.g. an SPSC queue.
+ *
+ * @param <T> the element type
+ */
+public class MessagePassingQueueSubscriber<T> implements Flow.Subscriber<T>
+{
+    private final MessagePassingQueue<T> queue;
+    private final int prefetch;
+    private final int replenishLimit;
+
+    private volatile Flow.Subscription subscription;
+    private volatile boolean done;
+    private volatile Throwable error;
+    // consumer thread only
+    private int consumed;
+
+    /**
+     * @param prefetch the number of elements requested ahead of the consumer, at most the queue capacity
+     * @throws IllegalArgumentException if prefetch is not positive or over the queue capacity
+     */
+    public MessagePassingQueueSubscriber(MessagePassingQueue<T> queue, int prefetch)
+    {
+        this.queue = Objects.requireNonNull(queue, "queue");
+        if (prefetch <= 0)
+        {
+            throw new IllegalArgumentException("prefetch must be positive: " + prefetch);
+        }
+        final int capacity = queue.capacity();
+        if (capacity != MessagePassingQueue.UNBOUNDED_CAPACITY && prefetch > capacity)
+        {
+            throw new IllegalArgumentException("prefetch " + prefetch + " is over the queue capacity " + capacity);
+        }
+        this.prefetch = prefetch;
+        this.replenishLimit = prefetch - (prefetch >> 2);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription s)
+    {
+        Objects.requireNonNull(s, "subscription");
+        if (subscription != null)
+        {
+            // rule 2.5, a subscriber is active for a single subscription
+            s.cancel();
+            return;
+        }
+        subscription = s;
+        s.request(prefetch);
+    }
+
+    @Override
+    public void onNext(T e)
+    {
+        Objects.requireNonNull(e, "element");
+        if (!queue.offer(e))
+        {
+            // the publisher signalled more than was requested
+            subscription.cancel();
+            onError(new IllegalStateException("Queue is full, the publisher does not respect the demand"));
+        }
+    }
+
+    @Override
+    public void onError(Throwable t)
+    {
+        Objects.requireNonNull(t, "error");
+        if (done)
+        {
+            return;
+        }
+        error = t;
+        done = true;
+    }
+
+    @Override
+    public void onComplete()
+    {
+        done = true;
+    }
+
+    /**
+     * Consumer thread only.
+     *
+     * @return the next element or null if none is available
+     */
+    public T poll()
+    {
+        final T e = queue.poll();
+        if (e != null)
+        {
+            consumed(1);
+        }
+        return e;
+    }
+
+    /**
+     * Consumer thread only, hands up to {@code limit} elements to {@code c}.
+     *
+     * @return the number of elements drained
+     */
+    public int drain(MessagePassingQueue.Consumer<T> c, int limit)
+    {
+        final int drained = queue.drain(c, limit);
+        consumed(drained);
+        return drained;
+    }
+
+    /**
+     * @return true once the publisher terminated and every element was consumed
+     */
+    public boolean isDone()
+    {
+        // read done before checking the queue, elements received before the terminal signal are consumed first
+        return done && queue.isEmpty();
+    }
+
+    /**
+     * @return the error the publisher terminated with, null if it completed or has not terminated
+     */
+    public Throwable error()
+    {
+        return error;
+    }
+
+    /**
+     * Cancel the subscription, the elements already received remain in the queue.
+     */
+    public void cancel()
+    {
+        final Flow.Subscription s = subscription;
+        if (s != null)
+        {
+            s.cancel();
+        }
+    }
+
+    private void consumed(int n)
+    {
+        if (n == 0)
+        {
+            return;
+        }
+        final int consumed = this.consumed + n;
+        if (consumed >= replenishLimit)
+        {
+            this.consumed = 0;
+            subscription.request(consumed);
+        }
+        else
+        {
+            this.consumed = consumed;
+        }
+    }
+}
@@ -11,10 +11,7 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package org.jctools.queues.spec;
+@Export
+package org.jctools.queues.flow;
 
-@Deprecated//(since = "3.0.0")
-public enum Ordering
-{
-    FIFO, KFIFO, PRODUCER_FIFO, NONE
-}
+import org.osgi.annotation.bundle.Export;
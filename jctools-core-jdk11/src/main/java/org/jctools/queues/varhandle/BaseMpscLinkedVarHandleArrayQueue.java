@@ -18,6 +18,7 @@ import org.jctools.util.Pow2;
 import org.jctools.util.RangeUtil;
 import java.util.AbstractQueue;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
@@ -653,6 +654,18 @@ abstract class BaseMpscLinkedVarHandleArrayQueue<E> extends BaseMpscLinkedVarHan
         return drain(c, capacity());
     }
 
+    @Override
+    public int drain(E[] dst, int dstOffset, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, dstOffset, limit);
+    }
+
+    @Override
+    public int drain(List<? super E> dst, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, limit);
+    }
+
     @Override
     public int drain(Consumer<E> c, int limit)
     {
@@ -16,6 +16,7 @@ import org.jctools.queues.IndexedQueueSizeUtil.IndexedQueue;
 import org.jctools.util.PortableJvmInfo;
 import java.util.AbstractQueue;
 import java.util.Iterator;
+import java.util.List;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
 import org.jctools.queues.*;
@@ -252,6 +253,18 @@ abstract class BaseSpscLinkedVarHandleArrayQueue<E> extends BaseSpscLinkedVarHan
         return MessagePassingQueueUtil.drain(this, c);
     }
 
+    @Override
+    public int drain(E[] dst, int dstOffset, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, dstOffset, limit);
+    }
+
+    @Override
+    public int drain(List<? super E> dst, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, limit);
+    }
+
     @Override
     public int fill(Supplier<E> s)
     {
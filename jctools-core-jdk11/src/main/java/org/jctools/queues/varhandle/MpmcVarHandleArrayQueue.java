@@ -13,6 +13,7 @@
  */
 package org.jctools.queues.varhandle;
 import org.jctools.util.RangeUtil;
+import java.util.List;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
 import org.jctools.queues.*;
@@ -20,6 +21,7 @@ import static org.jctools.queues.varhandle.VarHandleQueueUtil.*;
 
 
 
+
 /**
  * NOTE: This class was automatically generated by org.jctools.queues.varhandle.JavaParsingVarHandleArrayQueueGenerator
  * which can found in the jctools-build module. The original source file is MpmcArrayQueue.java.
@@ -202,7 +204,7 @@ abstract class MpmcVarHandleArrayQueueL3Pad<E> extends MpmcVarHandleArrayQueueCo
  * equal to the requested capacity.
  * </ol>
  */
-public class MpmcVarHandleArrayQueue<E> extends MpmcVarHandleArrayQueueL3Pad<E>
+public class MpmcVarHandleArrayQueue<E> extends MpmcVarHandleArrayQueueL3Pad<E> implements OfferBatch<E>
 {
     public static final int MAX_LOOK_AHEAD_STEP = Integer.getInteger("jctools.mpmc.max.lookahead.step", 4096);
     private final int lookAheadStep;
@@ -502,6 +504,124 @@ public class MpmcVarHandleArrayQueue<E> extends MpmcVarHandleArrayQueueL3Pad<E>
         return limit;
     }
 
+    @Override
+    public int drain(E[] dst, int dstOffset, int limit)
+    {
+        MessagePassingQueueUtil.checkDrainBatch(dst, dstOffset, limit);
+        if (limit == 0)
+            return 0;
+
+        final long[] sBuffer = sequenceBuffer;
+        final long mask = this.mask;
+        final E[] buffer = this.buffer;
+        final int maxLookAheadStep = Math.min(this.lookAheadStep, limit);
+        int consumed = 0;
+
+        while (consumed < limit)
+        {
+            final int lookAheadStep = Math.min(limit - consumed, maxLookAheadStep);
+            final long cIndex = lvConsumerIndex();
+            final long lookAheadIndex = cIndex + lookAheadStep - 1;
+            final long lookAheadSeqOffset = calcCircularLongElementOffset(lookAheadIndex, mask);
+            final long lookAheadSeq = lvLongElement(sBuffer, lookAheadSeqOffset);
+            final long expectedLookAheadSeq = lookAheadIndex + 1;
+            if (lookAheadSeq == expectedLookAheadSeq && casConsumerIndex(cIndex, expectedLookAheadSeq))
+            {
+                for (int i = 0; i < lookAheadStep; i++)
+                {
+                    final long index = cIndex + i;
+                    final long seqOffset = calcCircularLongElementOffset(index, mask);
+                    final long offset = calcCircularRefElementOffset(index, mask);
+                    final long expectedSeq = index + 1;
+                    while (lvLongElement(sBuffer, seqOffset) != expectedSeq)
+                    {
+
+                    }
+                    final E e = lpRefElement(buffer, offset);
+                    spRefElement(buffer, offset, null);
+                    soLongElement(sBuffer, seqOffset, index + mask + 1);
+                    dst[dstOffset + consumed + i] = e;
+                }
+                consumed += lookAheadStep;
+            }
+            else
+            {
+                if (lookAheadSeq < expectedLookAheadSeq && notAvailable(cIndex, mask, sBuffer, cIndex + 1))
+                {
+                    return consumed;
+                }
+                // the look ahead slot is not ready or we lost the race, take a single element and retry
+                final E e = relaxedPoll();
+                if (null == e)
+                {
+                    return consumed;
+                }
+                dst[dstOffset + consumed] = e;
+                consumed++;
+            }
+        }
+        return limit;
+    }
+
+    @Override
+    public int drain(List<? super E> dst, int limit)
+    {
+        MessagePassingQueueUtil.checkDrainBatch(dst, limit);
+        if (limit == 0)
+            return 0;
+
+        final long[] sBuffer = sequenceBuffer;
+        final long mask = this.mask;
+        final E[] buffer = this.buffer;
+        final int maxLookAheadStep = Math.min(this.lookAheadStep, limit);
+        int consumed = 0;
+
+        while (consumed < limit)
+        {
+            final int lookAheadStep = Math.min(limit - consumed, maxLookAheadStep);
+            final long cIndex = lvConsumerIndex();
+            final long lookAheadIndex = cIndex + lookAheadStep - 1;
+            final long lookAheadSeqOffset = calcCircularLongElementOffset(lookAheadIndex, mask);
+            final long lookAheadSeq = lvLongElement(sBuffer, lookAheadSeqOffset);
+            final long expectedLookAheadSeq = lookAheadIndex + 1;
+            if (lookAheadSeq == expectedLookAheadSeq && casConsumerIndex(cIndex, expectedLookAheadSeq))
+            {
+                for (int i = 0; i < lookAheadStep; i++)
+                {
+                    final long index = cIndex + i;
+                    final long seqOffset = calcCircularLongElementOffset(index, mask);
+                    final long offset = calcCircularRefElementOffset(index, mask);
+                    final long expectedSeq = index + 1;
+                    while (lvLongElement(sBuffer, seqOffset) != expectedSeq)
+                    {
+
+                    }
+                    final E e = lpRefElement(buffer, offset);
+                    spRefElement(buffer, offset, null);
+                    soLongElement(sBuffer, seqOffset, index + mask + 1);
+                    dst.add(e);
+                }
+                consumed += lookAheadStep;
+            }
+            else
+            {
+                if (lookAheadSeq < expectedLookAheadSeq && notAvailable(cIndex, mask, sBuffer, cIndex + 1))
+                {
+                    return consumed;
+                }
+                // the look ahead slot is not ready or we lost the race, take a single element and retry
+                final E e = relaxedPoll();
+                if (null == e)
+                {
+                    return consumed;
+                }
+                dst.add(e);
+                consumed++;
+            }
+        }
+        return limit;
+    }
+
     private int drainOneByOne(Consumer<E> c, int limit)
     {
         final long[] sBuffer = sequenceBuffer;
@@ -635,6 +755,119 @@ public class MpmcVarHandleArrayQueue<E> extends MpmcVarHandleArrayQueueL3Pad<E>
         return limit;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * Lock free batch offer using a single CAS to claim all the slots the batch will occupy, provided the last
+     * slot of the batch has already been released by the consumers. Otherwise falls back to {@link #offer(Object)}.
+     */
+    @Override
+    public int offer(final E[] src, final int srcOffset, final int length)
+    {
+        MessagePassingQueueUtil.checkOfferBatch(src, srcOffset, length);
+
+        final long[] sBuffer = sequenceBuffer;
+        final long mask = this.mask;
+        final long capacity = mask + 1;
+        final E[] buffer = this.buffer;
+        int offered = 0;
+
+        while (offered < length)
+        {
+            final long pIndex = lvProducerIndex();
+            // cIndex is loaded after pIndex, so if there's no room the queue was full at some point
+            final long available = lvConsumerIndex() + capacity - pIndex;
+            if (available <= 0)
+            {
+                return offered;
+            }
+            final int batch = (int) Math.min(available, length - offered);
+            final long lastIndex = pIndex + batch - 1;
+            final long lastSeq = lvLongElement(sBuffer, calcCircularLongElementOffset(lastIndex, mask));
+            if (lastSeq == lastIndex && casProducerIndex(pIndex, pIndex + batch))
+            {
+                for (int i = 0; i < batch; i++)
+                {
+                    final long index = pIndex + i;
+                    final long seqOffset = calcCircularLongElementOffset(index, mask);
+                    // consumers may have claimed, but not yet released, the slots before the last one
+                    while (lvLongElement(sBuffer, seqOffset) != index)
+                    {
+
+                    }
+                    spRefElement(buffer, calcCircularRefElementOffset(index, mask), src[srcOffset + offered + i]);
+                    soLongElement(sBuffer, seqOffset, index + 1);
+                }
+                offered += batch;
+            }
+            else if (lastSeq < lastIndex)
+            {
+                // the last slot is not yet released, make progress (or discover the queue is full) one by one
+                if (!offer(src[srcOffset + offered]))
+                {
+                    return offered;
+                }
+                offered++;
+            }
+            // else another producer has claimed the slots, try again
+        }
+        return offered;
+    }
+
+    @Override
+    public int offer(final List<? extends E> src, final int srcOffset, final int length)
+    {
+        MessagePassingQueueUtil.checkOfferBatch(src, srcOffset, length);
+
+        final long[] sBuffer = sequenceBuffer;
+        final long mask = this.mask;
+        final long capacity = mask + 1;
+        final E[] buffer = this.buffer;
+        int offered = 0;
+
+        while (offered < length)
+        {
+            final long pIndex = lvProducerIndex();
+            // cIndex is loaded after pIndex, so if there's no room the queue was full at some point
+            final long available = lvConsumerIndex() + capacity - pIndex;
+            if (available <= 0)
+            {
+                return offered;
+            }
+            final int batch = (int) Math.min(available, length - offered);
+            final long lastIndex = pIndex + batch - 1;
+            final long lastSeq = lvLongElement(sBuffer, calcCircularLongElementOffset(lastIndex, mask));
+            if (lastSeq == lastIndex && casProducerIndex(pIndex, pIndex + batch))
+            {
+                for (int i = 0; i < batch; i++)
+                {
+                    final long index = pIndex + i;
+                    final long seqOffset = calcCircularLongElementOffset(index, mask);
+                    // consumers may have claimed, but not yet released, the slots before the last one
+                    while (lvLongElement(sBuffer, seqOffset) != index)
+                    {
+
+                    }
+                    spRefElement(buffer, calcCircularRefElementOffset(index, mask), src.get(srcOffset + offered + i));
+                    soLongElement(sBuffer, seqOffset, index + 1);
+                }
+                offered += batch;
+            }
+            else if (lastSeq < lastIndex)
+            {
+                // the last slot is not yet released, make progress (or discover the queue is full) one by one
+                if (!offer(src.get(srcOffset + offered)))
+                {
+                    return offered;
+                }
+                offered++;
+            }
+            // else another producer has claimed the slots, try again
+        }
+        return offered;
+    }
+
     @Override
     public int drain(Consumer<E> c)
     {
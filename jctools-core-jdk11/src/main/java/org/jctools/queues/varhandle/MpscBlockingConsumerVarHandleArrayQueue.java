@@ -15,6 +15,7 @@ package org.jctools.queues.varhandle;
 import java.util.AbstractQueue;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.LockSupport;
 import org.jctools.queues.IndexedQueueSizeUtil.IndexedQueue;
@@ -849,6 +850,18 @@ public class MpscBlockingConsumerVarHandleArrayQueue<E> extends MpscBlockingCons
         return drain(c, capacity());
     }
 
+    @Override
+    public int drain(E[] dst, int dstOffset, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, dstOffset, limit);
+    }
+
+    @Override
+    public int drain(List<? super E> dst, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, limit);
+    }
+
     @Override
     public int drain(final Consumer<E> c, final int limit)
     {
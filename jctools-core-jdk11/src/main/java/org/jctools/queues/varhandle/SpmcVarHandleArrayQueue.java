@@ -12,12 +12,14 @@
  * limitations under the License.
  */
 package org.jctools.queues.varhandle;
+import java.util.List;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
 import org.jctools.queues.*;
 import static org.jctools.queues.varhandle.VarHandleQueueUtil.*;
 
 
+
 /**
  * NOTE: This class was automatically generated by org.jctools.queues.varhandle.JavaParsingVarHandleArrayQueueGenerator
  * which can found in the jctools-build module. The original source file is SpmcArrayQueue.java.
@@ -482,6 +484,18 @@ public class SpmcVarHandleArrayQueue<E> extends SpmcVarHandleArrayQueueL3Pad<E>
         return MessagePassingQueueUtil.drain(this, c);
     }
 
+    @Override
+    public int drain(final E[] dst, final int dstOffset, final int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, dstOffset, limit);
+    }
+
+    @Override
+    public int drain(final List<? super E> dst, final int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, limit);
+    }
+
     @Override
     public int fill(final Supplier<E> s)
     {
@@ -13,6 +13,7 @@
  */
 package org.jctools.queues.varhandle;
 import org.jctools.util.SpscLookAheadUtil;
+import java.util.List;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
 import org.jctools.queues.*;
@@ -20,6 +21,7 @@ import static org.jctools.queues.varhandle.VarHandleQueueUtil.*;
 
 
 
+
 /**
  * NOTE: This class was automatically generated by org.jctools.queues.varhandle.JavaParsingVarHandleArrayQueueGenerator
  * which can found in the jctools-build module. The original source file is SpscArrayQueue.java.
@@ -372,6 +374,66 @@ public class SpscVarHandleArrayQueue<E> extends SpscVarHandleArrayQueueL3Pad<E>
         return limit;
     }
 
+    @Override
+    public int drain(final E[] dst, final int dstOffset, final int limit)
+    {
+        MessagePassingQueueUtil.checkDrainBatch(dst, dstOffset, limit);
+        if (limit == 0)
+            return 0;
+
+        final E[] buffer = this.buffer;
+        final long mask = this.mask;
+        final long consumerIndex = this.lpConsumerIndex();
+
+        int i = 0;
+        for (; i < limit; i++)
+        {
+            final long offset = calcCircularRefElementOffset(consumerIndex + i, mask);
+            final E e = lvRefElement(buffer, offset);
+            if (null == e)
+            {
+                break;
+            }
+            soRefElement(buffer, offset, null);
+            dst[dstOffset + i] = e;
+        }
+        if (i != 0)
+        {
+            soConsumerIndex(consumerIndex + i); // single ordered store releases the whole batch
+        }
+        return i;
+    }
+
+    @Override
+    public int drain(final List<? super E> dst, final int limit)
+    {
+        MessagePassingQueueUtil.checkDrainBatch(dst, limit);
+        if (limit == 0)
+            return 0;
+
+        final E[] buffer = this.buffer;
+        final long mask = this.mask;
+        final long consumerIndex = this.lpConsumerIndex();
+
+        int i = 0;
+        for (; i < limit; i++)
+        {
+            final long offset = calcCircularRefElementOffset(consumerIndex + i, mask);
+            final E e = lvRefElement(buffer, offset);
+            if (null == e)
+            {
+                break;
+            }
+            soRefElement(buffer, offset, null);
+            dst.add(e);
+        }
+        if (i != 0)
+        {
+            soConsumerIndex(consumerIndex + i); // single ordered store releases the whole batch
+        }
+        return i;
+    }
+
     @Override
     public int fill(final Supplier<E> s, final int limit)
     {
@@ -14,6 +14,7 @@
 package org.jctools.queues.varhandle.unpadded;
 import java.util.AbstractQueue;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Queue;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
@@ -376,6 +377,18 @@ abstract class BaseLinkedVarHandleUnpaddedQueue<E> extends BaseLinkedVarHandleUn
         return MessagePassingQueueUtil.drain(this, c);
     }
 
+    @Override
+    public int drain(E[] dst, int dstOffset, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, dstOffset, limit);
+    }
+
+    @Override
+    public int drain(List<? super E> dst, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, limit);
+    }
+
     @Override
     public void drain(Consumer<E> c, WaitStrategy wait, ExitCondition exit)
     {
@@ -0,0 +1,298 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.varhandle.unpadded;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import org.jctools.queues.*;
+import static org.jctools.queues.varhandle.VarHandleQueueUtil.*;
+import org.jctools.queues.varhandle.LinkedQueueVarHandleNode;
+
+
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.varhandle.unpadded.JavaParsingVarHandleUnpaddedLinkedQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscBlockingConsumerUnboundedArrayQueue.java.
+ */
+@SuppressWarnings("unused")
+abstract class MpscBlockingConsumerUnboundedVarHandleUnpaddedArrayQueuePad1<E> extends BaseMpscLinkedVarHandleUnpaddedArrayQueue<E>
+{
+    MpscBlockingConsumerUnboundedVarHandleUnpaddedArrayQueuePad1(int chunkSize)
+    {
+        super(chunkSize);
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.varhandle.unpadded.JavaParsingVarHandleUnpaddedLinkedQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscBlockingConsumerUnboundedArrayQueue.java.
+ */
+abstract class MpscBlockingConsumerUnboundedVarHandleUnpaddedArrayQueueBlockedField<E>
+    extends MpscBlockingConsumerUnboundedVarHandleUnpaddedArrayQueuePad1<E>
+{
+    private static final VarHandle VH_BLOCKED;
+    
+    static {
+        try {
+            VH_BLOCKED = MethodHandles.lookup().findVarHandle(MpscBlockingConsumerUnboundedVarHandleUnpaddedArrayQueueBlockedField.class, "blocked", Thread.class);
+        } catch (Exception e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    private volatile Thread blocked;
+
+    MpscBlockingConsumerUnboundedVarHandleUnpaddedArrayQueueBlockedField(int chunkSize)
+    {
+        super(chunkSize);
+    }
+
+    final Thread lvBlocked()
+    {
+        return blocked;
+    }
+
+    /**
+     * This field should only be written to from the consumer thread. It is set before the final emptiness check
+     * ahead of parking the consumer, and this store must not be reordered with the following load of the producer
+     * index.
+     *
+     * @param newValue the consumer thread which is about to block waiting for the producers
+     */
+    final void svBlocked(Thread newValue)
+    {
+        blocked = newValue;
+    }
+
+    final void soBlocked(Thread newValue)
+    {
+        VH_BLOCKED.setRelease(this, newValue);
+    }
+
+    final boolean casBlocked(Thread expect, Thread newValue)
+    {
+        return VH_BLOCKED.compareAndSet(this, expect, newValue);
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.varhandle.unpadded.JavaParsingVarHandleUnpaddedLinkedQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscBlockingConsumerUnboundedArrayQueue.java.
+ *
+ * An unbounded MPSC queue growing in linked chunks of the initial size, as {@link MpscUnboundedArrayQueue}, with
+ * a blocking consumer side as {@link MpscBlockingConsumerArrayQueue}. This is a partial implementation of the
+ * {@link java.util.concurrent.BlockingQueue} on the consumer side only: as the queue never rejects an element the
+ * producer side never needs to block.<br>
+ * The lower bit of the producer index is used for resizing by {@link BaseMpscLinkedArrayQueue}, so it can't be used
+ * to announce a blocked consumer. Instead the consumer publishes itself in the blocked field before checking the
+ * queue is still empty and parking, while producers check the blocked field after claiming their slot. The claiming
+ * CAS orders the producer index update before that check, so either the consumer sees the new element or the
+ * producer sees the consumer and unparks it. The only cost to producers is a load of the blocked field, which is
+ * only written when the consumer blocks.
+ */
+@SuppressWarnings("unused")
+public class MpscBlockingConsumerUnboundedVarHandleUnpaddedArrayQueue<E> extends MpscBlockingConsumerUnboundedVarHandleUnpaddedArrayQueueBlockedField<E>
+    implements MessagePassingBlockingQueue<E>
+{
+    public MpscBlockingConsumerUnboundedVarHandleUnpaddedArrayQueue(int chunkSize)
+    {
+        super(chunkSize);
+    }
+
+    @Override
+    protected long availableInQueue(long pIndex, long cIndex)
+    {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int capacity()
+    {
+        return MessagePassingQueue.UNBOUNDED_CAPACITY;
+    }
+
+    @Override
+    protected int getNextBufferSize(E[] buffer)
+    {
+        return length(buffer);
+    }
+
+    @Override
+    protected long getCurrentBufferCapacity(long mask)
+    {
+        return mask;
+    }
+
+    @Override
+    public boolean offer(final E e)
+    {
+        // the producer index CAS in offer happens before the blocked consumer check
+        super.offer(e);
+        wakeupConsumer();
+        return true;
+    }
+
+    @Override
+    public int fill(Supplier<E> s, int limit)
+    {
+        final int filled = super.fill(s, limit);
+        if (filled != 0)
+        {
+            wakeupConsumer();
+        }
+        return filled;
+    }
+
+    private void wakeupConsumer()
+    {
+        final Thread consumerThread = lvBlocked();
+        // only one producer gets to unpark the consumer for a given block
+        if (consumerThread != null && casBlocked(consumerThread, null))
+        {
+            LockSupport.unpark(consumerThread);
+        }
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException
+    {
+        offer(e);
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException
+    {
+        return offer(e);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation is correct for single consumer thread use only.
+     */
+    @Override
+    public E take() throws InterruptedException
+    {
+        final E e = poll();
+        if (e != null)
+        {
+            return e;
+        }
+        return parkUntilNext(Long.MAX_VALUE);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation is correct for single consumer thread use only.
+     */
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        final E e = poll();
+        if (e != null)
+        {
+            return e;
+        }
+        final long timeoutNs = unit.toNanos(timeout);
+        if (timeoutNs <= 0)
+        {
+            return null;
+        }
+        return parkUntilNext(timeoutNs);
+    }
+
+    private E parkUntilNext(long timeoutNs) throws InterruptedException
+    {
+        final Thread consumerThread = Thread.currentThread();
+        // ignore deadline when it's forever
+        final long deadlineNs = timeoutNs == Long.MAX_VALUE ? 0 : System.nanoTime() + timeoutNs;
+        E e;
+        try
+        {
+            while ((e = poll()) == null)
+            {
+                svBlocked(consumerThread);
+                // An odd producer index is a resize in progress, the element will follow shortly so we don't park.
+                if (lpConsumerIndex() != lvProducerIndex())
+                {
+                    continue;
+                }
+                LockSupport.parkNanos(this, timeoutNs);
+                if (Thread.interrupted())
+                {
+                    throw new InterruptedException();
+                }
+                // ignore deadline when it's forever
+                if (timeoutNs != Long.MAX_VALUE)
+                {
+                    timeoutNs = deadlineNs - System.nanoTime();
+                    if (timeoutNs <= 0)
+                    {
+                        // ran out of time, the element may have arrived just in the nick of time
+                        return poll();
+                    }
+                }
+            }
+        }
+        finally
+        {
+            soBlocked(null);
+        }
+        return e;
+    }
+
+    @Override
+    public int remainingCapacity()
+    {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c)
+    {
+        return MessagePassingQueueUtil.drainTo(this, c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements)
+    {
+        return MessagePassingQueueUtil.drainTo(this, c, maxElements);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation is correct for single consumer thread use only.
+     */
+    @Override
+    public int drain(Consumer<E> c, final int limit, long timeout, TimeUnit unit) throws InterruptedException
+    {
+        return MessagePassingQueueUtil.drain(this, c, limit, timeout, unit);
+    }
+
+    @Override
+    public int drain(Consumer<E> c)
+    {
+        return drain(c, 4096);
+    }
+
+    @Override
+    public int fill(Supplier<E> s)
+    {
+        return MessagePassingQueueUtil.fillUnbounded(this, s);
+    }
+}
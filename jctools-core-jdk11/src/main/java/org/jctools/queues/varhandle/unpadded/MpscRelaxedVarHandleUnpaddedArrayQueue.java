@@ -0,0 +1,994 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This is a port of the algorithm used here:
+ * https://github.com/real-logic/aeron/blob/c715c19852c8455c92e73c3167e7d43021d9a384/aeron-client/src/main/java/io/aeron/Publication.java
+ */
+
+package org.jctools.queues.varhandle.unpadded;
+import org.jctools.util.PortableJvmInfo;
+import org.jctools.util.Pow2;
+import org.jctools.util.RangeUtil;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.List;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import org.jctools.queues.*;
+import static org.jctools.queues.varhandle.VarHandleQueueUtil.*;
+
+
+
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.varhandle.unpadded.JavaParsingVarHandleUnpaddedArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscRelaxedArrayQueue.java.
+ */
+abstract class MpscRelaxedVarHandleUnpaddedArrayQueueL0Pad<E> extends AbstractQueue<E>
+{
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.varhandle.unpadded.JavaParsingVarHandleUnpaddedArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscRelaxedArrayQueue.java.
+ */
+abstract class MpscRelaxedVarHandleUnpaddedArrayQueueActiveCycleIdField<E> extends MpscRelaxedVarHandleUnpaddedArrayQueueL0Pad<E>
+{
+    private static final VarHandle VH_ACTIVE_CYCLE_ID;
+    
+    static {
+        try {
+            VH_ACTIVE_CYCLE_ID = MethodHandles.lookup().findVarHandle(MpscRelaxedVarHandleUnpaddedArrayQueueActiveCycleIdField.class, "activeCycleId", long.class);
+        } catch (Exception e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    private volatile long activeCycleId;
+
+    public static int activeCycleIndex(long activeCycleId)
+    {
+        return (int) (activeCycleId & 1);
+    }
+
+    public final long lvActiveCycleId()
+    {
+        return activeCycleId;
+    }
+
+    public final boolean casActiveCycleId(long expected, long value)
+    {
+        return VH_ACTIVE_CYCLE_ID.compareAndSet(this, expected, value);
+    }
+
+    public final void soActiveCycleId(long value)
+    {
+        VH_ACTIVE_CYCLE_ID.setRelease(this, value);
+    }
+
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.varhandle.unpadded.JavaParsingVarHandleUnpaddedArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscRelaxedArrayQueue.java.
+ */
+abstract class MpscRelaxedVarHandleUnpaddedArrayQueueMidPad<E> extends MpscRelaxedVarHandleUnpaddedArrayQueueActiveCycleIdField<E>
+{
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.varhandle.unpadded.JavaParsingVarHandleUnpaddedArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscRelaxedArrayQueue.java.
+ */
+abstract class MpscRelaxedVarHandleUnpaddedArrayQueueProducerLimitField<E> extends MpscRelaxedVarHandleUnpaddedArrayQueueMidPad<E>
+{
+    private static final VarHandle VH_PRODUCER_LIMIT;
+    
+    static {
+        try {
+            VH_PRODUCER_LIMIT = MethodHandles.lookup().findVarHandle(MpscRelaxedVarHandleUnpaddedArrayQueueProducerLimitField.class, "producerLimit", long.class);
+        } catch (Exception e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    private volatile long producerLimit;
+
+    protected final long lvProducerLimit()
+    {
+        return producerLimit;
+    }
+
+    protected final void soProducerLimit(long newValue)
+    {
+        VH_PRODUCER_LIMIT.setRelease(this, newValue);
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.varhandle.unpadded.JavaParsingVarHandleUnpaddedArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscRelaxedArrayQueue.java.
+ */
+abstract class MpscRelaxedVarHandleUnpaddedArrayQueueL2Pad<E> extends MpscRelaxedVarHandleUnpaddedArrayQueueProducerLimitField<E>
+{
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.varhandle.unpadded.JavaParsingVarHandleUnpaddedArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscRelaxedArrayQueue.java.
+ */
+abstract class MpscRelaxedVarHandleUnpaddedArrayQueueConsumerPositionField<E> extends MpscRelaxedVarHandleUnpaddedArrayQueueL2Pad<E>
+{
+    private static final VarHandle VH_CONSUMER_POSITION;
+    
+    static {
+        try {
+            VH_CONSUMER_POSITION = MethodHandles.lookup().findVarHandle(MpscRelaxedVarHandleUnpaddedArrayQueueConsumerPositionField.class, "consumerPosition", long.class);
+        } catch (Exception e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    private volatile long consumerPosition;
+
+    protected final long lvConsumerPosition()
+    {
+        return consumerPosition;
+    }
+
+    protected final long lpConsumerPosition()
+    {
+        return consumerPosition;
+    }
+
+    protected void soConsumerPosition(long newValue)
+    {
+        VH_CONSUMER_POSITION.setRelease(this, newValue);
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.varhandle.unpadded.JavaParsingVarHandleUnpaddedArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscRelaxedArrayQueue.java.
+ */
+abstract class MpscRelaxedVarHandleUnpaddedArrayQueueL3Pad<E> extends MpscRelaxedVarHandleUnpaddedArrayQueueConsumerPositionField<E>
+{
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.varhandle.unpadded.JavaParsingVarHandleUnpaddedArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscRelaxedArrayQueue.java.
+ */
+abstract class MpscRelaxedVarHandleUnpaddedArrayQueueProducerCycleClaimFields<E> extends MpscRelaxedVarHandleUnpaddedArrayQueueL3Pad<E>
+{
+    // these are selected by cycleIndex, the cycle id parity
+    private static final VarHandle VH_PRODUCER_FIRST_CYCLE_CLAIM;
+    
+    private static final VarHandle VH_PRODUCER_SECOND_CYCLE_CLAIM;
+    
+    static {
+        try {
+            VH_PRODUCER_FIRST_CYCLE_CLAIM = MethodHandles.lookup().findVarHandle(MpscRelaxedVarHandleUnpaddedArrayQueueProducerCycleClaimFields.class, "producerFirstCycleClaim", long.class);
+            VH_PRODUCER_SECOND_CYCLE_CLAIM = MethodHandles.lookup().findVarHandle(MpscRelaxedVarHandleUnpaddedArrayQueueProducerCycleClaimFields.class, "producerSecondCycleClaim", long.class);
+        } catch (Exception e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    private volatile long producerFirstCycleClaim;
+    private volatile long producerSecondCycleClaim;
+
+    protected final long lvProducerCycleClaim(int cycleIndex)
+    {
+        return cycleIndex == 0 ? lvProducerFirstCycleClaim() : lvProducerSecondCycleClaim();
+    }
+
+    protected final void soProducerCycleClaim(int cycleIndex, long value)
+    {
+        if (cycleIndex == 0)
+        {
+            soProducerFirstCycleClaim(value);
+        }
+        else
+        {
+            soProducerSecondCycleClaim(value);
+        }
+    }
+
+    protected final long getAndIncrementProducerCycleClaim(int cycleIndex)
+    {
+        return cycleIndex == 0 ? getAndIncrementProducerFirstCycleClaim() : getAndIncrementProducerSecondCycleClaim();
+    }
+
+    protected final boolean casProducerCycleClaim(int cycleIndex, long expectedValue, long newValue)
+    {
+        return cycleIndex == 0 ?
+            casProducerFirstCycleClaim(expectedValue, newValue) :
+            casProducerSecondCycleClaim(expectedValue, newValue);
+    }
+
+    private long lvProducerFirstCycleClaim()
+    {
+        return producerFirstCycleClaim;
+    }
+
+    private void soProducerFirstCycleClaim(long value)
+    {
+        VH_PRODUCER_FIRST_CYCLE_CLAIM.setRelease(this, value);
+    }
+
+    private long getAndIncrementProducerFirstCycleClaim()
+    {
+        return (long) VH_PRODUCER_FIRST_CYCLE_CLAIM.getAndAdd(this, 1L);
+    }
+
+    private boolean casProducerFirstCycleClaim(long expectedValue, long newValue)
+    {
+        return VH_PRODUCER_FIRST_CYCLE_CLAIM.compareAndSet(this, expectedValue, newValue);
+    }
+
+    private long lvProducerSecondCycleClaim()
+    {
+        return producerSecondCycleClaim;
+    }
+
+    private void soProducerSecondCycleClaim(long value)
+    {
+        VH_PRODUCER_SECOND_CYCLE_CLAIM.setRelease(this, value);
+    }
+
+    private long getAndIncrementProducerSecondCycleClaim()
+    {
+        return (long) VH_PRODUCER_SECOND_CYCLE_CLAIM.getAndAdd(this, 1L);
+    }
+
+    private boolean casProducerSecondCycleClaim(long expectedValue, long newValue)
+    {
+        return VH_PRODUCER_SECOND_CYCLE_CLAIM.compareAndSet(this, expectedValue, newValue);
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.varhandle.unpadded.JavaParsingVarHandleUnpaddedArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscRelaxedArrayQueue.java.
+ */
+abstract class MpscRelaxedVarHandleUnpaddedArrayQueueL4Pad<E> extends MpscRelaxedVarHandleUnpaddedArrayQueueProducerCycleClaimFields<E>
+{
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.varhandle.unpadded.JavaParsingVarHandleUnpaddedArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpscRelaxedArrayQueue.java.
+ *
+ * A Multi-Producer-Single-Consumer queue based on a bounded array, where producers claim slots with a getAndAdd on
+ * the claim counter of the active cycle instead of a CAS on a shared producer index.<br>
+ * The buffer is split in 2 cycles of {@link #capacity()} elements each. Producers increment the claim of the active
+ * cycle, and the producer claiming the first position past the end of the cycle rotates the active cycle. An
+ * over-claim past the producer limit is rolled back with a CAS when the queue is full. This keeps producers from
+ * retrying a failed CAS on the same cache line under heavy contention, at the cost of allocating twice the requested
+ * capacity.<br>
+ * A producer descheduled for longer than a full rotation of the buffer fails its offer with an
+ * {@link IllegalStateException}, so a capacity comfortably above the number of producers is recommended.
+ * The iterator is not supported.
+ */
+public class MpscRelaxedVarHandleUnpaddedArrayQueue<E> extends MpscRelaxedVarHandleUnpaddedArrayQueueL4Pad<E> implements MessagePassingQueue<E>
+{
+    /**
+     * Note on terminology:
+     *  - position/id: overall progress indicator, not an array index or offset at which to lookup/write.
+     *  - index: for looking up within an array (including the inlined producerCycleClaim array)
+     *  - offset: for pointer like access using Unsafe
+     *
+     * The producer in this queue operates on cycleId and the producerCycleClaim array:
+     *  - The cycleId grow monotonically, and the parity bit (cycleIndex) indicated which claim to use
+     *  - The producerCycleClaim indicate position in a cycle as well as the originating cycleId. From a claim we can
+     *    calculate the producer overall position as well as the position within a cycle.
+     *
+     * The buffer is split into 2 cycles (matching cycleIndex 0 and 1), allowing the above indicators to control
+     * producer progress on separate counters while maintaining the appearance of a contiguous buffer to the consumer.
+     *
+     */
+
+    private final long mask;
+    private final int cycleLength;
+    private final int cycleLengthLog2;
+    private final E[] buffer;
+    private final int positionWithinCycleMask;
+    private final int cycleIdBitShift;
+    private final long maxCycleId;
+
+    public MpscRelaxedVarHandleUnpaddedArrayQueue(int capacity)
+    {
+        RangeUtil.checkGreaterThanOrEqual(capacity, 2, "capacity");
+        capacity = Pow2.roundToPowerOfTwo(capacity * 2);
+        this.buffer = allocateRefArray(capacity);
+        this.soConsumerPosition(0);
+        this.soActiveCycleId(0);
+        this.mask = capacity - 1;
+        this.cycleLength = capacity / 2;
+        this.soProducerLimit(this.cycleLength);
+        this.cycleLengthLog2 = Integer.numberOfTrailingZeros(this.cycleLength);
+        // it allows at least 1L << 28 = 268435456 overclaims of the position within a cycle while waiting a rotation
+        // to complete: this would help to increase the cycleId domain with small capacity
+        this.cycleIdBitShift =
+            Math.min(32, Integer.numberOfTrailingZeros(Pow2.roundToPowerOfTwo(this.cycleLength + (1 << 28))));
+        // it is the max position on cycle too
+        this.positionWithinCycleMask = (int) ((1L << this.cycleIdBitShift) - 1);
+        this.maxCycleId = (1L << (Long.SIZE - this.cycleIdBitShift)) - 1;
+        this.soProducerCycleClaim(0, 0);
+        this.soProducerCycleClaim(1, this.cycleLength + 1);
+    }
+
+    @Override
+    public Iterator<E> iterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean offer(final E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException();
+        }
+        // offer can fail only when queue is full, otherwise it retries
+        final int positionOnCycleMask = this.positionWithinCycleMask;
+        final int cycleLengthLog2 = this.cycleLengthLog2;
+        final int cycleLength = this.cycleLength;
+        final int cycleIdBitShift = this.cycleIdBitShift;
+
+        while (true)
+        {
+            final long activeCycleId = lvActiveCycleId(); // acquire activeCycleId
+            final int activeCycleIndex = activeCycleIndex(activeCycleId);
+
+            // this is a non-committed view of the producer position, but may be out of date when we XADD
+            final long tempCycleClaim = lvProducerCycleClaim(activeCycleIndex);
+
+            final int tempPositionWithinCycle = positionWithinCycle(tempCycleClaim, positionOnCycleMask);
+            final long tempCycleId = producerClaimCycleId(tempCycleClaim, cycleIdBitShift);
+
+            if (activeCycleId != tempCycleId || tempPositionWithinCycle > cycleLength)
+            {
+                // this covers the case of either being mid rotation or by some freak scheduling accident missing 2
+                // rotations between activeCycleId load and lvProducerCycleClaim
+                continue;
+            }
+
+            final long tempPosition = producerPosition(tempPositionWithinCycle, tempCycleId, cycleLengthLog2);
+
+            // pre-checks are only valid for the temp values, so best effort...
+            if (tempPosition >= lvProducerLimit())
+            {
+                if (isFull(tempPosition))
+                {
+                    return false;
+                }
+            }
+
+            // try to claim on the active cycle (though the activeCycleIndex might be outdated)
+            final long producerCycleClaim = getAndIncrementProducerCycleClaim(activeCycleIndex); // release producerCycleClaim[activeCycleIndex]
+
+            final int positionWithinCycle = positionWithinCycle(producerCycleClaim, positionOnCycleMask);
+
+            if (positionWithinCycle == positionOnCycleMask)
+            {
+                // This is an extreme rare case which requires very large numbers of getAndAdd operations to occur while
+                // waiting for rotation, this is also mitigated by the full queue check above and the mid rotation guard
+                // above it.
+                throw new IllegalStateException(
+                    "Too many over-claims: please enlarge the capacity or reduce the number of producers!\n" +
+                        " positionWithinCycle=" + positionWithinCycle);
+            }
+            if (positionWithinCycle < cycleLength)
+            {
+                final long cycleId = producerClaimCycleId(producerCycleClaim, cycleIdBitShift);
+                final boolean slowProducer = cycleId != activeCycleId;
+                //it should fail with a slow producer
+                if (!validateProducerClaim(
+                    activeCycleIndex,
+                    producerCycleClaim,
+                    cycleId,
+                    positionWithinCycle,
+                    cycleLengthLog2, slowProducer))
+                {
+                    //the claim has been rollbacked and can be retried
+                    continue;
+                }
+                soCycleElement(buffer, e, activeCycleIndex, positionWithinCycle, cycleLengthLog2);
+                return true;
+            }
+            else if (positionWithinCycle == cycleLength)
+            {
+                final long cycleId = producerClaimCycleId(producerCycleClaim, cycleIdBitShift);
+                rotateCycle(cycleId, cycleIdBitShift, maxCycleId);
+            }
+        }
+    }
+
+    /**
+     * Given the nature of getAndAdd progress on producerPosition and given the potential risk for over claiming it is
+     * quite possible for this method to report a queue which is not full as full.
+     */
+    private boolean isFull(final long producerPosition)
+    {
+        final long consumerPosition = lvConsumerPosition();
+        final long producerLimit = consumerPosition + this.cycleLength;
+        if (producerPosition < producerLimit)
+        {
+            soProducerLimit(producerLimit);
+            return false;
+        }
+        else
+        {
+            return true;
+        }
+    }
+
+    private void rotateCycle(
+        final long claimCycleId,
+        final int cycleIdBitShift,
+        final long maxCycleId)
+    {
+        if (claimCycleId >= maxCycleId)
+        {
+            throw new IllegalStateException("Exhausted cycle id space!");
+        }
+        final long nextCycleId = claimCycleId + 1;
+        final int nextActiveCycleIndex = activeCycleIndex(nextCycleId);
+        // it points at the beginning of the next cycle
+        soProducerCycleClaim(nextActiveCycleIndex, nextCycleId << cycleIdBitShift);
+        //Following this initialisation, a sequence of slow producers claims could trigger several new cycle rotations
+        //before having changed the activeCycleId from claimCycleId to nextCycleId:
+        //detect (and warn) a slow rotation, but enabling the faster ones to make progress, allows the q to not being blocked
+        long cycleId = claimCycleId;
+        //the rotation claimCycleId -> nextCycleId is unique between producers
+        while (!casActiveCycleId(cycleId, nextCycleId))
+        {
+            cycleId = detectSlowRotation(claimCycleId, nextCycleId);
+        }
+    }
+
+    private long detectSlowRotation(final long claimCycleId, final long nextCycleId)
+    {
+        final long cycleId = lvActiveCycleId();
+        //Another producer has managed to perform a rotation to an higher cycleId?
+        assert cycleId != nextCycleId : "Duplicate rotation!";
+        if (cycleId > nextCycleId)
+        {
+            throw new IllegalStateException(
+                "Slow rotation due to producer thread starvation detected: please enlarge the capacity or reduce the number of producers!\n" +
+                    "found activeCycleId=" + cycleId + "\n" +
+                    "expected activeCycleId=" + claimCycleId + "\n");
+        }
+        return cycleId;
+    }
+
+    /**
+     * Validate a producer claim to find out if is an overclaim (beyond the producer limit).
+     *
+     * @return {@code true} if the claim is valid, {@code false} otherwise.
+     */
+    private boolean validateProducerClaim(
+        final int activeCycleIndex,
+        final long producerCycleClaim,
+        final long cycleId,
+        final int positionOnCycle,
+        final int cycleLengthLog2,
+        final boolean slowProducer)
+    {
+        final long producerPosition = producerPosition(positionOnCycle, cycleId, cycleLengthLog2);
+        final long claimLimit = lvProducerLimit();
+        if (producerPosition >= claimLimit)
+        {
+            // it is really full?
+            if (isFull(producerPosition))
+            {
+                return fixProducerOverClaim(activeCycleIndex, producerCycleClaim, slowProducer);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * It tries to fix a producer overclaim.
+     *
+     * @return {@code true} if the claim is now safe to be used,{@code false} otherwise and is needed to retry the claim.
+     */
+    private boolean fixProducerOverClaim(
+        final int activeCycleIndex,
+        final long producerCycleClaim,
+        final boolean slowProducer)
+    {
+        final long expectedProducerCycleClaim = producerCycleClaim + 1;
+        //try to fix the overclaim bringing it back to a lower or a safe position
+        if (!casProducerCycleClaim(activeCycleIndex, expectedProducerCycleClaim, producerCycleClaim))
+        {
+            final long currentProducerCycleClaim = lvProducerCycleClaim(activeCycleIndex);
+            //another producer has managed to fix the claim
+            if (currentProducerCycleClaim <= producerCycleClaim)
+            {
+                return false;
+            }
+            if (slowProducer)
+            {
+                validateSlowProducerOverClaim(activeCycleIndex, producerCycleClaim);
+                return true;
+            }
+            else
+            {
+                //the claim cannot be rolled back so It must be used as it is
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Validates a slow producer over-claim throwing {@link IllegalStateException} if the offer on it can't continue.
+     */
+    private void validateSlowProducerOverClaim(final int activeCycleIndex, final long producerCycleClaim)
+    {
+        //the cycle claim is now ok?
+        final long producerPosition = producerPositionFromClaim(
+            producerCycleClaim,
+            positionWithinCycleMask,
+            cycleIdBitShift,
+            cycleLengthLog2);
+        if (isFull(producerPosition))
+        {
+            //a definitive fail could be declared only if the claim is trying to overwrite something not consumed yet:
+            //isFull is not considering the real occupation of the slot
+            final long consumerPosition = lvConsumerPosition();
+            final long effectiveProducerLimit = consumerPosition + (this.cycleLength * 2l);
+            if (producerPosition >= effectiveProducerLimit)
+            {
+                throw new IllegalStateException(
+                    "The producer has fallen behind: please enlarge the capacity or reduce the number of producers! \n" +
+                        " producerPosition=" + producerPosition + "\n" +
+                        " consumerPosition=" + consumerPosition + "\n" +
+                        " activeCycleIndex=" + activeCycleIndex + "\n" +
+                        " cycleId=" + producerClaimCycleId(producerCycleClaim, cycleIdBitShift) + "\n" +
+                        " positionOnCycle=" + positionWithinCycle(producerCycleClaim, positionWithinCycleMask));
+            }
+            //the slot is not occupied: we can write into it
+        }
+        //the claim now is ok: consumers have gone forward enough
+    }
+
+    private void soCycleElement(E[] buffer, E e, int activeCycleIndex, int positionWithinCycle, int cycleLengthLog2)
+    {
+        final int indexInBuffer = calcElementIndexInBuffer(positionWithinCycle, activeCycleIndex, cycleLengthLog2);
+        final long offset = calcRefElementOffset(indexInBuffer);
+        soRefElement(buffer, offset, e);
+    }
+
+    @Override
+    public E poll()
+    {
+        final long consumerPosition = lpConsumerPosition();
+        final long offset = calcCircularRefElementOffset(consumerPosition, this.mask);
+        final E[] buffer = this.buffer;
+        final E e = lvRefElement(buffer, offset);
+        if (null == e)
+        {
+            return pollSlowPath(buffer, offset, consumerPosition);
+        }
+        signalConsumerProgress(consumerPosition, buffer, offset);
+        return e;
+    }
+
+    private void signalConsumerProgress(long consumerPosition, E[] buffer, long offset)
+    {
+        spRefElement(buffer, offset, null);
+        soConsumerPosition(consumerPosition + 1);
+    }
+
+    private E pollSlowPath(final E[] buffer, final long offset, final long consumerPosition)
+    {
+        final int activeCycleIndex = activeCycleIndex(lvActiveCycleId());
+        final long producerCycleClaim = lvProducerCycleClaim(activeCycleIndex);
+        final long producerPosition = producerPositionFromClaim(
+            producerCycleClaim,
+            this.positionWithinCycleMask,
+            this.cycleIdBitShift,
+            this.cycleLengthLog2);
+
+        if (producerPosition == consumerPosition)
+        {
+            return null;
+        }
+
+        final E e = spinForElement(buffer, offset);
+        signalConsumerProgress(consumerPosition, buffer, offset);
+        return e;
+    }
+
+    @Override
+    public E peek()
+    {
+        final E[] buffer = this.buffer;
+        final long consumerPosition = lpConsumerPosition();
+        final long offset = calcCircularRefElementOffset(consumerPosition, this.mask);
+        E e = lvRefElement(buffer, offset);
+        if (null == e)
+        {
+            return peekSlowPath(buffer, consumerPosition, offset);
+        }
+        return e;
+    }
+
+    private E peekSlowPath(final E[] buffer, long consumerPosition, long offset)
+    {
+        final int activeCycleIndex = activeCycleIndex(lvActiveCycleId());
+        final long producerCycleClaim = lvProducerCycleClaim(activeCycleIndex);
+
+        final long producerPosition = producerPositionFromClaim(
+            producerCycleClaim,
+            this.positionWithinCycleMask,
+            this.cycleIdBitShift,
+            this.cycleLengthLog2);
+
+        if (producerPosition == consumerPosition)
+        {
+            return null;
+        }
+
+        return spinForElement(buffer, offset);
+    }
+
+    private E spinForElement(final E[] buffer, long offset)
+    {
+        E e;
+        do
+        {
+            e = lvRefElement(buffer, offset);
+        }
+        while (e == null);
+        return e;
+    }
+
+    @Override
+    public int size()
+    {
+        final int cycleIdBitShift = this.cycleIdBitShift;
+
+        long after = lvConsumerPosition();
+        long producerClaimCycleId;
+        long before;
+        long activeCycleId;
+
+        int positionWithinCycle;
+        long producerClaim;
+
+        do
+        {
+            before = after;
+            activeCycleId = lvActiveCycleId();
+            producerClaim = lvProducerCycleClaim(activeCycleIndex(activeCycleId));
+            after = lvConsumerPosition();
+            producerClaimCycleId = producerClaimCycleId(producerClaim, cycleIdBitShift);
+            positionWithinCycle = positionWithinCycle(producerClaim, this.positionWithinCycleMask);
+        }
+        while (positionWithinCycle > this.cycleLength || before != after || activeCycleId != producerClaimCycleId);
+
+        // need to have a stable consumer and a valid claim
+        final long size = producerPosition(positionWithinCycle, producerClaimCycleId, this.cycleLengthLog2) - after;
+        final long bufferLength = mask + 1;
+        if (size > bufferLength)
+        {
+            return (int) bufferLength;
+        }
+        else
+        {
+            return (int) size;
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        while (poll() != null)
+        {
+            // if you stare into the void
+        }
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    @Override
+    public int capacity()
+    {
+        return cycleLength;
+    }
+
+    @Override
+    public boolean relaxedOffer(E e)
+    {
+        return offer(e);
+    }
+
+    @Override
+    public E relaxedPoll()
+    {
+        final long consumerPosition = lpConsumerPosition();
+        final long offset = calcCircularRefElementOffset(consumerPosition, this.mask);
+        final E[] buffer = this.buffer;
+        final E e = lvRefElement(buffer, offset);
+        if (e != null)
+        {
+            signalConsumerProgress(consumerPosition, buffer, offset);
+        }
+        return e;
+    }
+
+    @Override
+    public E relaxedPeek()
+    {
+        final long consumerPosition = lpConsumerPosition();
+        final long mask = this.mask;
+        final long offset = calcCircularRefElementOffset(consumerPosition, mask);
+        return lvRefElement(this.buffer, offset);
+    }
+
+
+    @Override
+    public int drain(Consumer<E> c)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        return drain(c, capacity());
+    }
+
+    @Override
+    public int drain(E[] dst, int dstOffset, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, dstOffset, limit);
+    }
+
+    @Override
+    public int drain(List<? super E> dst, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, limit);
+    }
+
+    @Override
+    public int fill(Supplier<E> s)
+    {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        long result = 0;// result is a long because we want to have a safepoint check at regular intervals
+        final int capacity = capacity();
+        do
+        {
+            final int filled = fill(s, PortableJvmInfo.RECOMENDED_OFFER_BATCH);
+            if (filled == 0)
+            {
+                return (int) result;
+            }
+            result += filled;
+        }
+        while (result <= capacity);
+        return (int) result;
+    }
+
+    @Override
+    public int drain(Consumer<E> c, int limit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+        final E[] buffer = this.buffer;
+        final long mask = this.mask;
+        for (int i = 0; i < limit; i++)
+        {
+            final long consumerPosition = lpConsumerPosition();
+            final long offset = calcCircularRefElementOffset(consumerPosition, mask);
+
+            E e;
+            if ((e = lvRefElement(buffer, offset)) != null)
+            {
+                signalConsumerProgress(consumerPosition, buffer, offset);
+                c.accept(e);
+            }
+            else
+            {
+                return i;
+            }
+        }
+        return limit;
+    }
+
+    @Override
+    public int fill(Supplier<E> s, int limit)
+    {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        final int positionOnCycleMask = this.positionWithinCycleMask;
+        final int cycleLengthLog2 = this.cycleLengthLog2;
+        final int cycleLength = this.cycleLength;
+        final int cycleIdBitShift = this.cycleIdBitShift;
+        final E[] buffer = this.buffer;
+        final long maxCycleId = this.maxCycleId;
+        final long maxPositionOnCycle = positionOnCycleMask;
+
+        int i = 0;
+        while (i < limit)
+        {
+            final int activeCycle = activeCycleIndex(lvActiveCycleId());
+            final long producerActiveCycleClaim = lvProducerCycleClaim(activeCycle);
+            final int positionOnActiveCycle = positionWithinCycle(producerActiveCycleClaim, positionOnCycleMask);
+            final long activeCycleId = producerClaimCycleId(producerActiveCycleClaim, cycleIdBitShift);
+            final long producerPosition = producerPosition(positionOnActiveCycle, activeCycleId, cycleLengthLog2);
+            final long claimLimit = lvProducerLimit();
+            if (producerPosition >= claimLimit)
+            {
+                //it is really full?
+                if (isFull(producerPosition))
+                {
+                    return i;
+                }
+            }
+            //try to claim on the active cycle
+            final long producerCycleClaim = getAndIncrementProducerCycleClaim(activeCycle);
+            final int positionOnCycle = positionWithinCycle(producerCycleClaim, positionOnCycleMask);
+            if (positionOnCycle >= maxPositionOnCycle)
+            {
+                throw new IllegalStateException(
+                    "too many over-claims: please enlarge the capacity or reduce the number of producers!");
+            }
+            if (positionOnCycle < cycleLength)
+            {
+                final long cycleId = producerClaimCycleId(producerCycleClaim, cycleIdBitShift);
+                //it is a slow producer?
+                final boolean slowProducer = cycleId != activeCycleId;
+                if (!validateProducerClaim(
+                    activeCycle,
+                    producerCycleClaim,
+                    cycleId,
+                    positionOnCycle,
+                    cycleLengthLog2,
+                    slowProducer))
+                {
+                    continue;
+                }
+                soCycleElement(buffer, s.get(), activeCycle, positionOnCycle, cycleLengthLog2);
+                i++;
+            }
+            else if (positionOnCycle == cycleLength)
+            {
+                final long cycleId = producerClaimCycleId(producerCycleClaim, cycleIdBitShift);
+                rotateCycle(cycleId, cycleIdBitShift, maxCycleId);
+            }
+        }
+        return i;
+    }
+
+    @Override
+    public void drain(Consumer<E> c, WaitStrategy w, ExitCondition exit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (null == w)
+            throw new IllegalArgumentException("wait is null");
+        if (null == exit)
+            throw new IllegalArgumentException("exit condition is null");
+        final E[] buffer = this.buffer;
+        final long mask = this.mask;
+        long consumerPosition = lvConsumerPosition();
+
+        int counter = 0;
+        while (exit.keepRunning())
+        {
+            for (int i = 0; i < 4096; i++)
+            {
+                final long offset = calcCircularRefElementOffset(consumerPosition, mask);
+                final E e = lvRefElement(buffer, offset);// LoadLoad
+                if (null == e)
+                {
+                    counter = w.idle(counter);
+                    continue;
+                }
+                counter = 0;
+                signalConsumerProgress(consumerPosition, buffer, offset);
+                consumerPosition++;
+                c.accept(e);
+            }
+        }
+    }
+
+    @Override
+    public void fill(Supplier<E> s, WaitStrategy w, ExitCondition exit)
+    {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (null == w)
+            throw new IllegalArgumentException("waiter is null");
+        if (null == exit)
+            throw new IllegalArgumentException("exit condition is null");
+        int idleCounter = 0;
+        while (exit.keepRunning())
+        {
+            if (fill(s, PortableJvmInfo.RECOMENDED_OFFER_BATCH) == 0)
+            {
+                idleCounter = w.idle(idleCounter);
+                continue;
+            }
+            idleCounter = 0;
+        }
+    }
+
+    private static int positionWithinCycle(long producerCycleClaim, int positionOnCycleMask)
+    {
+        return (int) (producerCycleClaim & positionOnCycleMask);
+    }
+
+    private static long producerClaimCycleId(long producerCycleClaim, int cycleIdBitShift)
+    {
+        return (producerCycleClaim >>> cycleIdBitShift);
+    }
+
+    private static long producerPositionFromClaim(
+        long producerCycleClaim,
+        int positionOnCycleMask,
+        int cycleIdBitShift,
+        int cycleLengthLog2)
+    {
+        final int positionWithinCycle = positionWithinCycle(producerCycleClaim, positionOnCycleMask);
+        final long producerClaimCycleId = producerClaimCycleId(producerCycleClaim, cycleIdBitShift);
+        return producerPosition(
+            positionWithinCycle,
+            producerClaimCycleId,
+            cycleLengthLog2);
+    }
+
+    /**
+     * Convert position in cycle and cycleId into a producer position (monotonically increasing reflection of offers
+     * that is comparable with the consumerPosition to determine size/empty/full)
+     */
+    private static long producerPosition(
+        int positionWithinCycle,
+        long cycleId,
+        int cycleLengthLog2)
+    {
+        return (cycleId << cycleLengthLog2) + positionWithinCycle;
+    }
+
+    /**
+     * Convert [position within cycle, cycleIndex] to index in buffer.
+     */
+    private static int calcElementIndexInBuffer(
+        int positionWithinCycle,
+        int cycleIndex,
+        int cycleLengthLog2)
+    {
+        return (cycleIndex << cycleLengthLog2) + positionWithinCycle;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.flow;
+
+import org.jctools.queues.MpscArrayQueue;
+import org.jctools.queues.SpscArrayQueue;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class MessagePassingQueueFlowTest
+{
+    @Test
+    public void testEmitsUpToDemand()
+    {
+        MessagePassingQueuePublisher<Integer> publisher = new MessagePassingQueuePublisher<>(new MpscArrayQueue<>(16));
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        for (int i = 0; i < 10; i++)
+        {
+            assertTrue(publisher.offer(i));
+        }
+        assertTrue(subscriber.values.isEmpty());
+
+        subscriber.subscription.request(3);
+        assertEquals(List.of(0, 1, 2), subscriber.values);
+        assertEquals(0, publisher.requested());
+
+        publisher.complete();
+        assertFalse(publisher.offer(10));
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), subscriber.values);
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void testUnboundedDemandIsNotDecremented()
+    {
+        MessagePassingQueuePublisher<Integer> publisher = new MessagePassingQueuePublisher<>(new MpscArrayQueue<>(16));
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE - 1);
+        subscriber.subscription.request(2);
+        assertEquals(Long.MAX_VALUE, publisher.requested());
+        publisher.offer(1);
+        publisher.offer(2);
+        assertEquals(List.of(1, 2), subscriber.values);
+        assertEquals(Long.MAX_VALUE, publisher.requested());
+    }
+
+    @Test
+    public void testErrorIsSignalledAfterTheOfferedElements()
+    {
+        MessagePassingQueuePublisher<Integer> publisher = new MessagePassingQueuePublisher<>(new MpscArrayQueue<>(16));
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        publisher.offer(1);
+        RuntimeException error = new RuntimeException();
+        publisher.error(error);
+        assertNull(subscriber.error);
+        subscriber.subscription.request(1);
+        assertEquals(List.of(1), subscriber.values);
+        assertSame(error, subscriber.error);
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void testNonPositiveRequestIsAnError()
+    {
+        MessagePassingQueuePublisher<Integer> publisher = new MessagePassingQueuePublisher<>(new MpscArrayQueue<>(16));
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        publisher.offer(1);
+        subscriber.subscription.request(0);
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertTrue(subscriber.values.isEmpty());
+        assertTrue(publisher.isCancelled());
+    }
+
+    @Test
+    public void testCancelStopsEmission()
+    {
+        MessagePassingQueuePublisher<Integer> publisher = new MessagePassingQueuePublisher<>(new MpscArrayQueue<>(16));
+        RecordingSubscriber subscriber = new RecordingSubscriber()
+        {
+            @Override
+            public void onNext(Integer e)
+            {
+                super.onNext(e);
+                if (e == 1)
+                {
+                    subscription.cancel();
+                }
+            }
+        };
+        publisher.subscribe(subscriber);
+        publisher.offer(0);
+        publisher.offer(1);
+        publisher.offer(2);
+        subscriber.subscription.request(10);
+        assertEquals(List.of(0, 1), subscriber.values);
+        assertTrue(publisher.isCancelled());
+        assertFalse(publisher.offer(3));
+        publisher.complete();
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void testSingleSubscriber()
+    {
+        MessagePassingQueuePublisher<Integer> publisher = new MessagePassingQueuePublisher<>(new MpscArrayQueue<>(16));
+        publisher.subscribe(new RecordingSubscriber());
+        RecordingSubscriber second = new RecordingSubscriber();
+        publisher.subscribe(second);
+        assertNotNull(second.subscription);
+        assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testSubscriberRequestsAsElementsAreConsumed()
+    {
+        MessagePassingQueuePublisher<Integer> publisher = new MessagePassingQueuePublisher<>(new MpscArrayQueue<>(64));
+        MessagePassingQueueSubscriber<Integer> subscriber =
+            new MessagePassingQueueSubscriber<>(new SpscArrayQueue<>(8), 8);
+        publisher.subscribe(subscriber);
+        assertEquals(8, publisher.requested());
+        for (int i = 0; i < 20; i++)
+        {
+            assertTrue(publisher.offer(i));
+        }
+        assertEquals(0, publisher.requested());
+
+        // replenish in batches of 6
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals(i, (int) subscriber.poll());
+        }
+        assertEquals(0, publisher.requested());
+        assertEquals(5, (int) subscriber.poll());
+
+        List<Integer> drained = new ArrayList<>();
+        while (drained.size() < 14)
+        {
+            subscriber.drain(drained::add, 4);
+        }
+        for (int i = 0; i < 14; i++)
+        {
+            assertEquals(i + 6, (int) drained.get(i));
+        }
+        assertNull(subscriber.poll());
+        assertFalse(subscriber.isDone());
+        publisher.complete();
+        assertTrue(subscriber.isDone());
+        assertNull(subscriber.error());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPrefetchOverCapacity()
+    {
+        new MessagePassingQueueSubscriber<>(new SpscArrayQueue<Integer>(8), 16);
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentProducersToSubscriber() throws Exception
+    {
+        final int producers = 3;
+        final int count = 100_000;
+        final MessagePassingQueuePublisher<Long> publisher = new MessagePassingQueuePublisher<>(new MpscArrayQueue<>(64));
+        final MessagePassingQueueSubscriber<Long> subscriber =
+            new MessagePassingQueueSubscriber<>(new SpscArrayQueue<>(32), 32);
+        publisher.subscribe(subscriber);
+
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++)
+        {
+            final long id = p;
+            threads[p] = new Thread(() ->
+            {
+                for (long i = 0; i < count; i++)
+                {
+                    final Long e = (id << 32) | i;
+                    while (!publisher.offer(e))
+                    {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads[p].start();
+        }
+        final Thread completer = new Thread(() ->
+        {
+            try
+            {
+                for (Thread t : threads)
+                {
+                    t.join();
+                }
+                publisher.complete();
+            }
+            catch (Throwable t)
+            {
+                failure.set(t);
+            }
+        });
+        completer.start();
+
+        final long[] next = new long[producers];
+        long received = 0;
+        while (!subscriber.isDone())
+        {
+            final Long e = subscriber.poll();
+            if (e == null)
+            {
+                Thread.yield();
+                continue;
+            }
+            final int id = (int) (e >>> 32);
+            assertEquals(next[id]++, e & 0xFFFFFFFFL);
+            received++;
+        }
+        completer.join();
+        assertNull(failure.get());
+        assertNull(subscriber.error());
+        assertEquals((long) producers * count, received);
+    }
+
+    static class RecordingSubscriber implements Flow.Subscriber<Integer>
+    {
+        final List<Integer> values = new ArrayList<>();
+        Flow.Subscription subscription;
+        Throwable error;
+        boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription)
+        {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Integer e)
+        {
+            values.add(e);
+        }
+
+        @Override
+        public void onError(Throwable t)
+        {
+            error = t;
+        }
+
+        @Override
+        public void onComplete()
+        {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.jctools.queues.varhandle;
+
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MpqSanityTest;
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.jctools.queues.varhandle.unpadded.MpscBlockingConsumerUnboundedVarHandleUnpaddedArrayQueue;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import static org.jctools.util.TestUtil.makeParams;
+
+@RunWith(Parameterized.class)
+public class MpqSanityTestMpscBlockingConsumerUnboundedVarHandle extends MpqSanityTest
+{
+    public MpqSanityTestMpscBlockingConsumerUnboundedVarHandle(ConcurrentQueueSpec spec, MessagePassingQueue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscBlockingConsumerUnboundedVarHandleArrayQueue<>(2)));
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscBlockingConsumerUnboundedVarHandleArrayQueue<>(64)));
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscBlockingConsumerUnboundedVarHandleUnpaddedArrayQueue<>(2)));
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscBlockingConsumerUnboundedVarHandleUnpaddedArrayQueue<>(64)));
+        return list;
+    }
+}
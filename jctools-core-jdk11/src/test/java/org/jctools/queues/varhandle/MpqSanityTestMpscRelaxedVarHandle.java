@@ -0,0 +1,36 @@
+package org.jctools.queues.varhandle;
+
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MpqSanityTest;
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.jctools.queues.varhandle.unpadded.MpscRelaxedVarHandleUnpaddedArrayQueue;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import static org.jctools.util.TestUtil.makeParams;
+
+@RunWith(Parameterized.class)
+public class MpqSanityTestMpscRelaxedVarHandle extends MpqSanityTest
+{
+    public MpqSanityTestMpscRelaxedVarHandle(ConcurrentQueueSpec spec, MessagePassingQueue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        // VarHandle
+        list.add(makeParams(0, 1, 2, Ordering.FIFO, new MpscRelaxedVarHandleArrayQueue<>(2)));
+        list.add(makeParams(0, 1, SIZE, Ordering.FIFO, new MpscRelaxedVarHandleArrayQueue<>(SIZE)));
+        // VarHandle Unpadded
+        list.add(makeParams(0, 1, 2, Ordering.FIFO, new MpscRelaxedVarHandleUnpaddedArrayQueue<>(2)));
+        list.add(makeParams(0, 1, SIZE, Ordering.FIFO, new MpscRelaxedVarHandleUnpaddedArrayQueue<>(SIZE)));
+        return list;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.varhandle;
+
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.QueueFactory;
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.jctools.queues.spec.Preference;
+import org.jctools.queues.varhandle.unpadded.MpscLinkedVarHandleUnpaddedQueue;
+import org.jctools.queues.varhandle.unpadded.MpscVarHandleUnpaddedArrayQueue;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class QueueFactoryVarHandleTest
+{
+    @Test
+    public void testVarHandleQueuesAreSelectedWhenAvailable()
+    {
+        assertSame(SpscVarHandleArrayQueue.class, queueClass(1, 1, 128, Preference.NONE));
+        assertSame(MpscVarHandleArrayQueue.class, queueClass(0, 1, 128, Preference.NONE));
+        assertSame(MpmcVarHandleArrayQueue.class, queueClass(0, 0, 128, Preference.NONE));
+        assertSame(MpscUnboundedVarHandleArrayQueue.class, queueClass(0, 1, 0, Preference.NONE));
+        assertSame(MpmcUnboundedXaddVarHandleArrayQueue.class, queueClass(0, 0, 0, Preference.NONE));
+    }
+
+    @Test
+    public void testFootprintPreferenceSelectsUnpaddedVarHandleQueues()
+    {
+        assertSame(MpscVarHandleUnpaddedArrayQueue.class, queueClass(0, 1, 128, Preference.FOOTPRINT));
+        assertSame(MpscLinkedVarHandleUnpaddedQueue.class, queueClass(0, 1, 0, Preference.FOOTPRINT));
+    }
+
+    @Test
+    public void testFactoryCreatesWorkingQueues()
+    {
+        final QueueFactory factory = QueueFactory.forSpec(spec(0, 1, 16, Preference.NONE));
+        final MessagePassingQueue<Integer> q = factory.newQueue();
+        for (int i = 0; i < 16; i++)
+        {
+            q.offer(i);
+        }
+        for (int i = 0; i < 16; i++)
+        {
+            assertEquals(Integer.valueOf(i), q.poll());
+        }
+    }
+
+    private static Class<?> queueClass(int producers, int consumers, int capacity, Preference preference)
+    {
+        return QueueFactory.forSpec(spec(producers, consumers, capacity, preference)).queueClass();
+    }
+
+    private static ConcurrentQueueSpec spec(int producers, int consumers, int capacity, Preference preference)
+    {
+        return new ConcurrentQueueSpec(producers, consumers, capacity, Ordering.FIFO, preference);
+    }
+}
@@ -0,0 +1,38 @@
+package org.jctools.queues.varhandle;
+
+import org.jctools.queues.QueueSanityTest;
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.jctools.queues.varhandle.unpadded.MpmcBoundedXaddVarHandleUnpaddedArrayQueue;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+import static org.jctools.util.TestUtil.makeParams;
+
+@RunWith(Parameterized.class)
+public class QueueSanityTestMpmcBoundedXaddVarHandle extends QueueSanityTest
+{
+    public QueueSanityTestMpmcBoundedXaddVarHandle(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        // VarHandle
+        list.add(makeParams(0, 0, 1, Ordering.FIFO, new MpmcBoundedXaddVarHandleArrayQueue<>(1)));
+        list.add(makeParams(0, 0, 16, Ordering.FIFO, new MpmcBoundedXaddVarHandleArrayQueue<>(4, 16)));
+        list.add(makeParams(0, 0, SIZE, Ordering.FIFO, new MpmcBoundedXaddVarHandleArrayQueue<>(SIZE)));
+        // VarHandle Unpadded
+        list.add(makeParams(0, 0, 1, Ordering.FIFO, new MpmcBoundedXaddVarHandleUnpaddedArrayQueue<>(1)));
+        list.add(makeParams(0, 0, 16, Ordering.FIFO, new MpmcBoundedXaddVarHandleUnpaddedArrayQueue<>(4, 16)));
+        list.add(makeParams(0, 0, SIZE, Ordering.FIFO, new MpmcBoundedXaddVarHandleUnpaddedArrayQueue<>(SIZE)));
+        return list;
+    }
+}
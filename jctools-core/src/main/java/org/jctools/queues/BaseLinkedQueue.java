@@ -15,6 +15,7 @@ package org.jctools.queues;
 
 import java.util.AbstractQueue;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Queue;
 
 import static org.jctools.util.UnsafeAccess.UNSAFE;
@@ -381,6 +382,18 @@ abstract class BaseLinkedQueue<E> extends BaseLinkedQueuePad2<E>
         return MessagePassingQueueUtil.drain(this, c);
     }
 
+    @Override
+    public int drain(E[] dst, int dstOffset, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, dstOffset, limit);
+    }
+
+    @Override
+    public int drain(List<? super E> dst, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, limit);
+    }
+
     @Override
     public void drain(Consumer<E> c, WaitStrategy wait, ExitCondition exit)
     {
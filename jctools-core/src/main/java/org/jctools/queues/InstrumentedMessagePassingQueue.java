@@ -0,0 +1,458 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.counters.Counter;
+import org.jctools.counters.CountersFactory;
+import org.jctools.util.PortableJvmInfo;
+import org.jctools.util.Pow2;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link MessagePassingQueue} decorator counting the events which indicate a queue is running near capacity or
+ * that its consumers are spinning on empty:
+ * <ul>
+ * <li>Failed offers: {@code offer}/{@code relaxedOffer} calls returning false and {@code fill} calls filling nothing.
+ * <li>Empty polls: {@code poll}/{@code relaxedPoll} calls returning null.
+ * <li>Drains: {@code drain} calls, the ones draining nothing and the total number of elements drained, from which
+ * the mean batch size follows.
+ * <li>Occupancy: the queue size is sampled on a random subset of offers and polls into a fixed-bucket histogram.
+ * </ul>
+ * The counters are {@link org.jctools.counters.FixedSizeStripedLongCounter}s so that they don't add contention
+ * between producers (or consumers) beyond that of the decorated queue, and nothing is allocated on the queue
+ * methods. Instrumentation is opt-in by wrapping a queue, so the uninstrumented queues pay nothing for it.<br>
+ * The counters are read with {@link #snapshot()} or {@link #snapshotAndReset()}. Counters are read one by one while
+ * the queue is in use, so a snapshot is not an atomic view of all of them.<br>
+ * The blocking {@link #drain(Consumer, WaitStrategy, ExitCondition)} and
+ * {@link #fill(Supplier, WaitStrategy, ExitCondition)} loops poll/fill this queue rather than the delegate, so idle
+ * iterations show up as empty polls and failed offers.
+ * <p>
+ * Occupancy buckets for a bounded queue are linear: bucket {@code i} of {@code n} holds sizes from
+ * {@code i * capacity / n} up to, but excluding, {@code (i + 1) * capacity / n}, and the last bucket holds a full
+ * queue too. For an unbounded queue they are exponential: bucket 0 holds an empty queue and bucket {@code i} holds
+ * sizes from {@code 2^(i-1)} up to, but excluding, {@code 2^i}, and the last bucket holds any larger size too. See
+ * {@link #occupancyBucket(int)}.
+ */
+public class InstrumentedMessagePassingQueue<E> extends AbstractQueue<E> implements MessagePassingQueue<E>
+{
+    public static final int DEFAULT_OCCUPANCY_SAMPLE_INTERVAL = 1024;
+    public static final int DEFAULT_OCCUPANCY_BUCKETS = 16;
+
+    private final MessagePassingQueue<E> delegate;
+    private final Counter failedOffers;
+    private final Counter emptyPolls;
+    private final Counter drains;
+    private final Counter emptyDrains;
+    private final Counter drainedElements;
+    private final AtomicLongArray occupancy;
+    private final int occupancySampleMask;
+    private final int capacity;
+
+    /**
+     * Instrument with {@link PortableJvmInfo#CPUs} counter stripes, {@link #DEFAULT_OCCUPANCY_SAMPLE_INTERVAL} and
+     * {@link #DEFAULT_OCCUPANCY_BUCKETS}.
+     *
+     * @param delegate the queue to instrument
+     */
+    public InstrumentedMessagePassingQueue(MessagePassingQueue<E> delegate)
+    {
+        this(delegate, PortableJvmInfo.CPUs, DEFAULT_OCCUPANCY_SAMPLE_INTERVAL, DEFAULT_OCCUPANCY_BUCKETS);
+    }
+
+    /**
+     * @param delegate                 the queue to instrument
+     * @param stripes                  the number of stripes of each counter, rounded up to the next power of 2
+     * @param occupancySampleInterval  the queue size is sampled once every this many offers and polls on average,
+     *                                 must be a power of 2
+     * @param occupancyBuckets         the number of occupancy histogram buckets
+     */
+    public InstrumentedMessagePassingQueue(
+        MessagePassingQueue<E> delegate,
+        int stripes,
+        int occupancySampleInterval,
+        int occupancyBuckets)
+    {
+        if (null == delegate)
+            throw new IllegalArgumentException("delegate is null");
+        if (!Pow2.isPowerOfTwo(occupancySampleInterval))
+            throw new IllegalArgumentException(
+                "occupancySampleInterval is not a power of 2: " + occupancySampleInterval);
+        if (occupancyBuckets < 1)
+            throw new IllegalArgumentException("occupancyBuckets is less than 1: " + occupancyBuckets);
+        this.delegate = delegate;
+        this.failedOffers = CountersFactory.createFixedSizeStripedCounter(stripes);
+        this.emptyPolls = CountersFactory.createFixedSizeStripedCounter(stripes);
+        this.drains = CountersFactory.createFixedSizeStripedCounter(stripes);
+        this.emptyDrains = CountersFactory.createFixedSizeStripedCounter(stripes);
+        this.drainedElements = CountersFactory.createFixedSizeStripedCounter(stripes);
+        this.occupancy = new AtomicLongArray(occupancyBuckets);
+        this.occupancySampleMask = occupancySampleInterval - 1;
+        this.capacity = delegate.capacity();
+    }
+
+    /**
+     * @return the decorated queue
+     */
+    public MessagePassingQueue<E> delegate()
+    {
+        return delegate;
+    }
+
+    /**
+     * @param size a queue size
+     * @return the occupancy histogram bucket the size is counted in, see class doc
+     */
+    public int occupancyBucket(int size)
+    {
+        final int lastBucket = occupancy.length() - 1;
+        final int bucket;
+        if (capacity == UNBOUNDED_CAPACITY)
+        {
+            bucket = 32 - Integer.numberOfLeadingZeros(size);
+        }
+        else
+        {
+            bucket = (int) ((long) size * occupancy.length() / capacity);
+        }
+        return Math.min(bucket, lastBucket);
+    }
+
+    private void sampleOccupancy()
+    {
+        if ((ThreadLocalRandom.current().nextInt() & occupancySampleMask) == 0)
+        {
+            occupancy.getAndIncrement(occupancyBucket(delegate.size()));
+        }
+    }
+
+    private boolean countOffer(boolean offered)
+    {
+        if (!offered)
+        {
+            failedOffers.inc();
+        }
+        sampleOccupancy();
+        return offered;
+    }
+
+    private E countPoll(E e)
+    {
+        if (e == null)
+        {
+            emptyPolls.inc();
+        }
+        sampleOccupancy();
+        return e;
+    }
+
+    private int countDrain(int drained)
+    {
+        drains.inc();
+        if (drained == 0)
+        {
+            emptyDrains.inc();
+        }
+        else
+        {
+            drainedElements.inc(drained);
+        }
+        return drained;
+    }
+
+    private int countFill(int filled, int limit)
+    {
+        if (filled == 0 && limit != 0)
+        {
+            failedOffers.inc();
+        }
+        return filled;
+    }
+
+    @Override
+    public boolean offer(E e)
+    {
+        return countOffer(delegate.offer(e));
+    }
+
+    @Override
+    public boolean relaxedOffer(E e)
+    {
+        return countOffer(delegate.relaxedOffer(e));
+    }
+
+    @Override
+    public E poll()
+    {
+        return countPoll(delegate.poll());
+    }
+
+    @Override
+    public E relaxedPoll()
+    {
+        return countPoll(delegate.relaxedPoll());
+    }
+
+    @Override
+    public E peek()
+    {
+        return delegate.peek();
+    }
+
+    @Override
+    public E relaxedPeek()
+    {
+        return delegate.relaxedPeek();
+    }
+
+    @Override
+    public int size()
+    {
+        return delegate.size();
+    }
+
+    @Override
+    public void clear()
+    {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return delegate.isEmpty();
+    }
+
+    @Override
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    @Override
+    public Iterator<E> iterator()
+    {
+        if (delegate instanceof java.util.Queue)
+        {
+            @SuppressWarnings("unchecked")
+            final Iterator<E> iterator = ((java.util.Queue<E>) delegate).iterator();
+            return iterator;
+        }
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName() + "(" + delegate + ")";
+    }
+
+    @Override
+    public int drain(Consumer<E> c, int limit)
+    {
+        return countDrain(delegate.drain(c, limit));
+    }
+
+    @Override
+    public int drain(E[] dst, int dstOffset, int limit)
+    {
+        return countDrain(delegate.drain(dst, dstOffset, limit));
+    }
+
+    @Override
+    public int drain(List<? super E> dst, int limit)
+    {
+        return countDrain(delegate.drain(dst, limit));
+    }
+
+    @Override
+    public int drain(Consumer<E> c)
+    {
+        return countDrain(delegate.drain(c));
+    }
+
+    @Override
+    public int fill(Supplier<E> s, int limit)
+    {
+        return countFill(delegate.fill(s, limit), limit);
+    }
+
+    @Override
+    public int fill(Supplier<E> s)
+    {
+        return countFill(delegate.fill(s), 1);
+    }
+
+    @Override
+    public void drain(Consumer<E> c, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.drain(this, c, wait, exit);
+    }
+
+    @Override
+    public void fill(Supplier<E> s, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.fill(this, s, wait, exit);
+    }
+
+    /**
+     * @return the current counter values
+     */
+    public Snapshot snapshot()
+    {
+        final long[] histogram = new long[occupancy.length()];
+        for (int i = 0; i < histogram.length; i++)
+        {
+            histogram[i] = occupancy.get(i);
+        }
+        return new Snapshot(
+            failedOffers.get(),
+            emptyPolls.get(),
+            drains.get(),
+            emptyDrains.get(),
+            drainedElements.get(),
+            histogram);
+    }
+
+    /**
+     * @return the counter values since the last reset, resetting them to 0
+     */
+    public Snapshot snapshotAndReset()
+    {
+        final long[] histogram = new long[occupancy.length()];
+        for (int i = 0; i < histogram.length; i++)
+        {
+            histogram[i] = occupancy.getAndSet(i, 0);
+        }
+        return new Snapshot(
+            failedOffers.getAndReset(),
+            emptyPolls.getAndReset(),
+            drains.getAndReset(),
+            emptyDrains.getAndReset(),
+            drainedElements.getAndReset(),
+            histogram);
+    }
+
+    /**
+     * Immutable counter values of an {@link InstrumentedMessagePassingQueue}.
+     */
+    public static final class Snapshot
+    {
+        private final long failedOffers;
+        private final long emptyPolls;
+        private final long drains;
+        private final long emptyDrains;
+        private final long drainedElements;
+        private final long[] occupancyHistogram;
+
+        Snapshot(
+            long failedOffers,
+            long emptyPolls,
+            long drains,
+            long emptyDrains,
+            long drainedElements,
+            long[] occupancyHistogram)
+        {
+            this.failedOffers = failedOffers;
+            this.emptyPolls = emptyPolls;
+            this.drains = drains;
+            this.emptyDrains = emptyDrains;
+            this.drainedElements = drainedElements;
+            this.occupancyHistogram = occupancyHistogram;
+        }
+
+        public long failedOffers()
+        {
+            return failedOffers;
+        }
+
+        public long emptyPolls()
+        {
+            return emptyPolls;
+        }
+
+        public long drains()
+        {
+            return drains;
+        }
+
+        public long emptyDrains()
+        {
+            return emptyDrains;
+        }
+
+        public long drainedElements()
+        {
+            return drainedElements;
+        }
+
+        /**
+         * @return the mean number of elements drained by the drains which drained any, 0 if none did
+         */
+        public double meanDrainBatchSize()
+        {
+            final long nonEmptyDrains = drains - emptyDrains;
+            return nonEmptyDrains <= 0 ? 0 : (double) drainedElements / nonEmptyDrains;
+        }
+
+        /**
+         * @return the number of occupancy samples
+         */
+        public long occupancySamples()
+        {
+            long samples = 0;
+            for (long count : occupancyHistogram)
+            {
+                samples += count;
+            }
+            return samples;
+        }
+
+        /**
+         * @return a copy of the occupancy sample counts by bucket, see
+         * {@link InstrumentedMessagePassingQueue#occupancyBucket(int)}
+         */
+        public long[] occupancyHistogram()
+        {
+            return occupancyHistogram.clone();
+        }
+
+        /**
+         * @param bucket an occupancy histogram bucket
+         * @return the number of occupancy samples in the bucket
+         */
+        public long occupancyCount(int bucket)
+        {
+            return occupancyHistogram[bucket];
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Snapshot{" +
+                "failedOffers=" + failedOffers +
+                ", emptyPolls=" + emptyPolls +
+                ", drains=" + drains +
+                ", emptyDrains=" + emptyDrains +
+                ", drainedElements=" + drainedElements +
+                ", occupancyHistogram=" + Arrays.toString(occupancyHistogram) +
+                '}';
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.queues.MessagePassingQueue.ExitCondition;
+import org.jctools.queues.MessagePassingQueue.WaitStrategy;
+
+/**
+ * A primitive {@code long} specialization of {@link MessagePassingQueue}. Elements are stored directly in a
+ * {@code long[]} and are never boxed. As there is no {@code null} to signal an empty queue, the poll/peek methods
+ * take an {@code emptyValue} to be returned when no element is available. The {@code emptyValue} is purely a return
+ * value sentinel and any {@code long} value may be offered to the queue.
+ * <p>
+ * Semantics otherwise follow {@link MessagePassingQueue}, including happens before semantics for the messages passed.
+ */
+public interface MessagePassingLongQueue
+{
+    int UNBOUNDED_CAPACITY = MessagePassingQueue.UNBOUNDED_CAPACITY;
+
+    interface Supplier
+    {
+        /**
+         * This method will return the next value to be written to the queue. As such the queue
+         * implementations are commited to insert the value once the call is made.
+         *
+         * <p><b>WARNING</b>: this method is assumed to never throw. Breaking this assumption can lead to a broken queue.
+         *
+         * @return new element
+         */
+        long get();
+    }
+
+    interface Consumer
+    {
+        /**
+         * This method will process an element already removed from the queue.
+         *
+         * <p><b>WARNING</b>: this method is assumed to never throw. Breaking this assumption can lead to a broken queue.
+         * @param e the element
+         */
+        void accept(long e);
+    }
+
+    /**
+     * Called from a producer thread subject to the restrictions appropriate to the implementation.
+     *
+     * @param e the element to offer
+     * @return true if element was inserted into the queue, false iff full
+     */
+    boolean offer(long e);
+
+    /**
+     * Called from the consumer thread subject to the restrictions appropriate to the implementation.
+     *
+     * @param emptyValue the value returned iff the queue is empty
+     * @return a message from the queue if one is available, {@code emptyValue} iff empty
+     */
+    long poll(long emptyValue);
+
+    /**
+     * Called from the consumer thread subject to the restrictions appropriate to the implementation.
+     *
+     * @param emptyValue the value returned iff the queue is empty
+     * @return a message from the queue if one is available, {@code emptyValue} iff empty
+     */
+    long peek(long emptyValue);
+
+    /**
+     * @see MessagePassingQueue#size()
+     */
+    int size();
+
+    /**
+     * @see MessagePassingQueue#clear()
+     */
+    void clear();
+
+    /**
+     * @see MessagePassingQueue#isEmpty()
+     */
+    boolean isEmpty();
+
+    /**
+     * @return the capacity of this queue or {@link MessagePassingLongQueue#UNBOUNDED_CAPACITY} if not bounded
+     */
+    int capacity();
+
+    /**
+     * As opposed to {@link #offer(long)} this method may return false without the queue being full.
+     *
+     * @param e the element to offer
+     * @return true if element was inserted into the queue, false if unable to offer
+     */
+    boolean relaxedOffer(long e);
+
+    /**
+     * As opposed to {@link #poll(long)} this method may return {@code emptyValue} without the queue being empty.
+     *
+     * @param emptyValue the value returned if unable to poll
+     * @return a message from the queue if one is available, {@code emptyValue} if unable to poll
+     */
+    long relaxedPoll(long emptyValue);
+
+    /**
+     * As opposed to {@link #peek(long)} this method may return {@code emptyValue} without the queue being empty.
+     *
+     * @param emptyValue the value returned if unable to peek
+     * @return a message from the queue if one is available, {@code emptyValue} if unable to peek
+     */
+    long relaxedPeek(long emptyValue);
+
+    /**
+     * Remove up to <i>limit</i> elements from the queue and hand to consume.
+     *
+     * @return the number of polled elements
+     * @throws IllegalArgumentException c is {@code null}
+     * @throws IllegalArgumentException if limit is negative
+     * @see MessagePassingQueue#drain(MessagePassingQueue.Consumer, int)
+     */
+    int drain(Consumer c, int limit);
+
+    /**
+     * Stuff the queue with up to <i>limit</i> elements from the supplier.
+     *
+     * @return the number of offered elements
+     * @throws IllegalArgumentException s is {@code null}
+     * @throws IllegalArgumentException if limit is negative
+     * @see MessagePassingQueue#fill(MessagePassingQueue.Supplier, int)
+     */
+    int fill(Supplier s, int limit);
+
+    /**
+     * Remove all available item from the queue and hand to consume.
+     *
+     * @return the number of polled elements
+     * @throws IllegalArgumentException c is {@code null}
+     * @see MessagePassingQueue#drain(MessagePassingQueue.Consumer)
+     */
+    int drain(Consumer c);
+
+    /**
+     * Stuff the queue with elements from the supplier.
+     *
+     * @return the number of offered elements
+     * @throws IllegalArgumentException s is {@code null}
+     * @see MessagePassingQueue#fill(MessagePassingQueue.Supplier)
+     */
+    int fill(Supplier s);
+
+    /**
+     * Remove elements from the queue and hand to consume forever.
+     *
+     * @throws IllegalArgumentException c OR wait OR exit are {@code null}
+     * @see MessagePassingQueue#drain(MessagePassingQueue.Consumer, WaitStrategy, ExitCondition)
+     */
+    void drain(Consumer c, WaitStrategy wait, ExitCondition exit);
+
+    /**
+     * Stuff the queue with elements from the supplier forever.
+     *
+     * @throws IllegalArgumentException s OR wait OR exit are {@code null}
+     * @see MessagePassingQueue#fill(MessagePassingQueue.Supplier, WaitStrategy, ExitCondition)
+     */
+    void fill(Supplier s, WaitStrategy wait, ExitCondition exit);
+}
@@ -13,6 +13,7 @@
  */
 package org.jctools.queues;
 
+import java.util.List;
 import java.util.Queue;
 
 /**
@@ -206,6 +207,52 @@ public interface MessagePassingQueue<T>
      */
     int drain(Consumer<T> c, int limit);
 
+    /**
+     * Remove up to <i>limit</i> elements from the queue and store them in <i>dst</i>, starting at
+     * <i>dstOffset</i>. This should be semantically similar to:
+     * <p>
+     * <pre>{@code
+     *   M m;
+     *   int i = 0;
+     *   for(;i < limit && (m = relaxedPoll()) != null; i++){
+     *     dst[dstOffset + i] = m;
+     *   }
+     *   return i;
+     * }</pre>
+     * <p>
+     * Implementations may read the whole batch and release the consumed slots with a single update of the
+     * consumer index, saving the per element callback and index store of {@link #drain(Consumer, int)}.
+     * There's no strong commitment to the queue being empty at the end of a drain. Called from a consumer
+     * thread subject to the restrictions appropriate to the implementation.
+     *
+     * @return the number of polled elements
+     * @throws IllegalArgumentException dst is {@code null}
+     * @throws IllegalArgumentException if limit or dstOffset are negative, or the range exceeds dst length
+     */
+    int drain(T[] dst, int dstOffset, int limit);
+
+    /**
+     * Remove up to <i>limit</i> elements from the queue and append them to <i>dst</i>. This should be
+     * semantically similar to:
+     * <p>
+     * <pre>{@code
+     *   M m;
+     *   int i = 0;
+     *   for(;i < limit && (m = relaxedPoll()) != null; i++){
+     *     dst.add(m);
+     *   }
+     *   return i;
+     * }</pre>
+     * <p>
+     * See {@link #drain(Object[], int, int)} for the batching semantics.
+     * Called from a consumer thread subject to the restrictions appropriate to the implementation.
+     *
+     * @return the number of polled elements
+     * @throws IllegalArgumentException dst is {@code null}
+     * @throws IllegalArgumentException if limit is negative
+     */
+    int drain(List<? super T> dst, int limit);
+
     /**
      * Stuff the queue with up to <i>limit</i> elements from the supplier. Semantically similar to:
      * <p>
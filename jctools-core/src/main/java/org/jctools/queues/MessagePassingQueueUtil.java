@@ -21,6 +21,10 @@ import org.jctools.queues.MessagePassingQueue.WaitStrategy;
 import org.jctools.util.InternalAPI;
 import org.jctools.util.PortableJvmInfo;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 @InternalAPI
 public final class MessagePassingQueueUtil
 {
@@ -55,6 +59,85 @@ public final class MessagePassingQueueUtil
         return i;
     }
 
+    public static <E> int drain(MessagePassingQueue<E> queue, E[] dst, int dstOffset, int limit)
+    {
+        checkDrainBatch(dst, dstOffset, limit);
+        E e;
+        int i = 0;
+        for (; i < limit && (e = queue.relaxedPoll()) != null; i++)
+        {
+            dst[dstOffset + i] = e;
+        }
+        return i;
+    }
+
+    public static <E> int drain(MessagePassingQueue<E> queue, List<? super E> dst, int limit)
+    {
+        checkDrainBatch(dst, limit);
+        E e;
+        int i = 0;
+        for (; i < limit && (e = queue.relaxedPoll()) != null; i++)
+        {
+            dst.add(e);
+        }
+        return i;
+    }
+
+    public static <E> int drainTo(MessagePassingQueue<E> queue, Collection<? super E> c, int maxElements)
+    {
+        if (null == c)
+            throw new NullPointerException();
+        if (c == queue)
+            throw new IllegalArgumentException("c is the queue");
+        E e;
+        int i = 0;
+        for (; i < maxElements && (e = queue.poll()) != null; i++)
+        {
+            c.add(e);
+        }
+        return i;
+    }
+
+    public static <E> int drain(
+        MessagePassingBlockingQueue<E> queue,
+        Consumer<E> c,
+        int limit,
+        long timeout,
+        TimeUnit unit) throws InterruptedException
+    {
+        if (limit == 0)
+            return 0;
+        final int drained = queue.drain(c, limit);
+        if (drained != 0)
+            return drained;
+        final E e = queue.poll(timeout, unit);
+        if (e == null)
+            return 0;
+        c.accept(e);
+        return 1 + queue.drain(c, limit - 1);
+    }
+
+    public static <E> void checkDrainBatch(E[] dst, int dstOffset, int limit)
+    {
+        if (null == dst)
+            throw new IllegalArgumentException("dst is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+        if (dstOffset < 0)
+            throw new IllegalArgumentException("dstOffset is negative: " + dstOffset);
+        if (dstOffset > dst.length - limit)
+            throw new IllegalArgumentException(
+                "range [" + dstOffset + ", " + dstOffset + " + " + limit + ") exceeds dst length: " + dst.length);
+    }
+
+    public static <E> void checkDrainBatch(List<? super E> dst, int limit)
+    {
+        if (null == dst)
+            throw new IllegalArgumentException("dst is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+    }
+
     public static <E> void drain(MessagePassingQueue<E> queue, Consumer<E> c, WaitStrategy wait, ExitCondition exit)
     {
         if (null == c)
@@ -122,4 +205,169 @@ public final class MessagePassingQueueUtil
     {
         return fillInBatchesToLimit(q, s, PortableJvmInfo.RECOMENDED_OFFER_BATCH, 4096);
     }
+
+    public static <E> void checkOfferBatch(E[] src, int srcOffset, int length)
+    {
+        if (null == src)
+            throw new NullPointerException("src is null");
+        checkOfferBatchRange(src.length, srcOffset, length);
+        for (int i = srcOffset, end = srcOffset + length; i < end; i++)
+        {
+            if (null == src[i])
+                throw new NullPointerException("src[" + i + "] is null");
+        }
+    }
+
+    public static <E> void checkOfferBatch(List<? extends E> src, int srcOffset, int length)
+    {
+        if (null == src)
+            throw new NullPointerException("src is null");
+        checkOfferBatchRange(src.size(), srcOffset, length);
+        for (int i = srcOffset, end = srcOffset + length; i < end; i++)
+        {
+            if (null == src.get(i))
+                throw new NullPointerException("src[" + i + "] is null");
+        }
+    }
+
+    private static void checkOfferBatchRange(int srcLength, int srcOffset, int length)
+    {
+        if (length < 0)
+            throw new IllegalArgumentException("length is negative: " + length);
+        if (srcOffset < 0)
+            throw new IllegalArgumentException("srcOffset is negative: " + srcOffset);
+        if (srcOffset > srcLength - length)
+            throw new IllegalArgumentException(
+                "range [" + srcOffset + ", " + srcOffset + " + " + length + ") exceeds src length: " + srcLength);
+    }
+
+    public static void drain(
+        MessagePassingLongQueue q,
+        MessagePassingLongQueue.Consumer c,
+        WaitStrategy wait,
+        ExitCondition exit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (null == wait)
+            throw new IllegalArgumentException("wait is null");
+        if (null == exit)
+            throw new IllegalArgumentException("exit condition is null");
+
+        int idleCounter = 0;
+        while (exit.keepRunning())
+        {
+            if (q.drain(c, PortableJvmInfo.RECOMENDED_POLL_BATCH) == 0)
+            {
+                idleCounter = wait.idle(idleCounter);
+                continue;
+            }
+            idleCounter = 0;
+        }
+    }
+
+    public static void fill(
+        MessagePassingLongQueue q,
+        MessagePassingLongQueue.Supplier s,
+        WaitStrategy wait,
+        ExitCondition exit)
+    {
+        if (null == wait)
+            throw new IllegalArgumentException("waiter is null");
+        if (null == exit)
+            throw new IllegalArgumentException("exit condition is null");
+
+        int idleCounter = 0;
+        while (exit.keepRunning())
+        {
+            if (q.fill(s, PortableJvmInfo.RECOMENDED_OFFER_BATCH) == 0)
+            {
+                idleCounter = wait.idle(idleCounter);
+                continue;
+            }
+            idleCounter = 0;
+        }
+    }
+
+    public static int fillBounded(MessagePassingLongQueue q, MessagePassingLongQueue.Supplier s)
+    {
+        long result = 0;// result is a long because we want to have a safepoint check at regular intervals
+        final int limit = q.capacity();
+        do
+        {
+            final int filled = q.fill(s, PortableJvmInfo.RECOMENDED_OFFER_BATCH);
+            if (filled == 0)
+            {
+                return (int) result;
+            }
+            result += filled;
+        }
+        while (result <= limit);
+        return (int) result;
+    }
+
+    public static void drain(
+        MessagePassingIntQueue q,
+        MessagePassingIntQueue.Consumer c,
+        WaitStrategy wait,
+        ExitCondition exit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (null == wait)
+            throw new IllegalArgumentException("wait is null");
+        if (null == exit)
+            throw new IllegalArgumentException("exit condition is null");
+
+        int idleCounter = 0;
+        while (exit.keepRunning())
+        {
+            if (q.drain(c, PortableJvmInfo.RECOMENDED_POLL_BATCH) == 0)
+            {
+                idleCounter = wait.idle(idleCounter);
+                continue;
+            }
+            idleCounter = 0;
+        }
+    }
+
+    public static void fill(
+        MessagePassingIntQueue q,
+        MessagePassingIntQueue.Supplier s,
+        WaitStrategy wait,
+        ExitCondition exit)
+    {
+        if (null == wait)
+            throw new IllegalArgumentException("waiter is null");
+        if (null == exit)
+            throw new IllegalArgumentException("exit condition is null");
+
+        int idleCounter = 0;
+        while (exit.keepRunning())
+        {
+            if (q.fill(s, PortableJvmInfo.RECOMENDED_OFFER_BATCH) == 0)
+            {
+                idleCounter = wait.idle(idleCounter);
+                continue;
+            }
+            idleCounter = 0;
+        }
+    }
+
+    public static int fillBounded(MessagePassingIntQueue q, MessagePassingIntQueue.Supplier s)
+    {
+        long result = 0;// result is a long because we want to have a safepoint check at regular intervals
+        final int limit = q.capacity();
+        do
+        {
+            final int filled = q.fill(s, PortableJvmInfo.RECOMENDED_OFFER_BATCH);
+            if (filled == 0)
+            {
+                return (int) result;
+            }
+            result += filled;
+        }
+        while (result <= limit);
+        return (int) result;
+    }
 }
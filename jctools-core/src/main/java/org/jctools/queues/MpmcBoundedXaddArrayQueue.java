@@ -0,0 +1,232 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.util.Pow2;
+import org.jctools.util.RangeUtil;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+
+abstract class MpmcBoundedXaddArrayQueuePad1<E> extends MpmcXaddArrayQueue<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpmcBoundedXaddArrayQueuePad1(int chunkSize, int maxPooledChunks)
+    {
+        super(chunkSize, maxPooledChunks);
+    }
+}
+
+// $gen:ordered-fields
+abstract class MpmcBoundedXaddArrayQueuePermitsField<E> extends MpmcBoundedXaddArrayQueuePad1<E>
+{
+    private final static long PERMITS_OFFSET =
+        fieldOffset(MpmcBoundedXaddArrayQueuePermitsField.class, "permits");
+
+    // Free slots: taken by producers before claiming a producer index, given back by consumers once a slot is freed
+    private volatile long permits;
+
+    MpmcBoundedXaddArrayQueuePermitsField(int chunkSize, int maxPooledChunks)
+    {
+        super(chunkSize, maxPooledChunks);
+    }
+
+    final long lvPermits()
+    {
+        return permits;
+    }
+
+    final void soPermits(long newValue)
+    {
+        UNSAFE.putOrderedLong(this, PERMITS_OFFSET, newValue);
+    }
+
+    final long getAndAddPermits(long delta)
+    {
+        return UNSAFE.getAndAddLong(this, PERMITS_OFFSET, delta);
+    }
+}
+
+abstract class MpmcBoundedXaddArrayQueuePad2<E> extends MpmcBoundedXaddArrayQueuePermitsField<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    // byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpmcBoundedXaddArrayQueuePad2(int chunkSize, int maxPooledChunks)
+    {
+        super(chunkSize, maxPooledChunks);
+    }
+}
+
+/**
+ * A bounded MPMC queue built on the same linked chunks as {@link MpmcUnboundedXaddArrayQueue}.<br>
+ * Producers claim slots with a single XADD on the producer index rather than the CAS loop used by
+ * {@link MpmcArrayQueue}, which scales better under heavy producer contention. A claim can't be undone, so the
+ * capacity is enforced by a permit count producers take with an XADD before claiming and consumers give back once a
+ * slot is freed: a producer which takes the count below zero returns its permit and fails. A producer racing with
+ * such a failing producer may also find the queue full for the duration of the race. Enough chunks to hold the
+ * capacity are pooled up front, so the queue does not allocate in steady state.<br>
+ * Users should be aware that {@link #poll()} could spin while awaiting a new element to be available:
+ * to avoid this behaviour {@link #relaxedPoll()} should be used instead, accounting for the semantic differences
+ * between the twos.
+ */
+public class MpmcBoundedXaddArrayQueue<E> extends MpmcBoundedXaddArrayQueuePad2<E>
+{
+    private final int capacity;
+
+    /**
+     * @param chunkSize The buffer size to be used in each chunk of this queue, rounded up to the next power of 2 and
+     *                  capped at the capacity
+     * @param capacity the queue capacity, rounded up to the next power of 2
+     */
+    public MpmcBoundedXaddArrayQueue(int chunkSize, int capacity)
+    {
+        super(boundedChunkSize(capacity, chunkSize), pooledChunks(capacity, chunkSize));
+        this.capacity = Pow2.roundToPowerOfTwo(capacity);
+        soPermits(this.capacity);
+    }
+
+    /**
+     * @param capacity the queue capacity, rounded up to the next power of 2. The chunk size defaults to a quarter of
+     *                 the capacity.
+     */
+    public MpmcBoundedXaddArrayQueue(int capacity)
+    {
+        this(Math.max(1, Pow2.roundToPowerOfTwo(RangeUtil.checkGreaterThanOrEqual(capacity, 1, "capacity")) / 4), capacity);
+    }
+
+    private static int boundedChunkSize(int capacity, int chunkSize)
+    {
+        RangeUtil.checkGreaterThanOrEqual(capacity, 1, "capacity");
+        RangeUtil.checkGreaterThanOrEqual(chunkSize, 1, "chunkSize");
+        return Math.min(Pow2.roundToPowerOfTwo(chunkSize), Pow2.roundToPowerOfTwo(capacity));
+    }
+
+    private static int pooledChunks(int capacity, int chunkSize)
+    {
+        // a full queue spans capacity / chunkSize chunks, one more if the consumer index is mid chunk and one more
+        // for the chunk held by the consumer until it moves on
+        return Pow2.roundToPowerOfTwo(capacity) / boundedChunkSize(capacity, chunkSize) + 2;
+    }
+
+    @Override
+    public boolean offer(E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException();
+        }
+        if (acquirePermits(1) == 0)
+        {
+            return false; // FULL :(
+        }
+        return super.offer(e);
+    }
+
+    @Override
+    public E poll()
+    {
+        final E e = super.poll();
+        if (e != null)
+        {
+            getAndAddPermits(1);
+        }
+        return e;
+    }
+
+    @Override
+    public E relaxedPoll()
+    {
+        final E e = super.relaxedPoll();
+        if (e != null)
+        {
+            getAndAddPermits(1);
+        }
+        return e;
+    }
+
+    @Override
+    public int fill(Supplier<E> s, int limit)
+    {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        if (limit == 0)
+            return 0;
+        final int permits = acquirePermits(limit);
+        if (permits == 0)
+        {
+            return 0;
+        }
+        return super.fill(s, permits);
+    }
+
+    /**
+     * @return the number of permits taken, at most {@code requested}, the excess is given back
+     */
+    private int acquirePermits(int requested)
+    {
+        final long available = getAndAddPermits(-requested);
+        if (available >= requested)
+        {
+            return requested;
+        }
+        final int acquired = (int) Math.max(0, available);
+        getAndAddPermits(requested - acquired);
+        return acquired;
+    }
+
+    @Override
+    public int fill(Supplier<E> s)
+    {
+        return MessagePassingQueueUtil.fillBounded(this, s);
+    }
+
+    @Override
+    public int capacity()
+    {
+        return capacity;
+    }
+}
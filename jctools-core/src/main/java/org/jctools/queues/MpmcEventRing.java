@@ -0,0 +1,469 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.queues.IndexedQueueSizeUtil.IndexedQueue;
+import org.jctools.queues.MessagePassingQueue.Consumer;
+import org.jctools.queues.MessagePassingQueue.ExitCondition;
+import org.jctools.queues.MessagePassingQueue.Supplier;
+import org.jctools.queues.MessagePassingQueue.WaitStrategy;
+import org.jctools.util.Pow2;
+import org.jctools.util.RangeUtil;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+import static org.jctools.util.UnsafeLongArrayAccess.*;
+import static org.jctools.util.UnsafeRefArrayAccess.*;
+
+abstract class MpmcEventRingL0Pad<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+abstract class MpmcEventRingColdFields<E> extends MpmcEventRingL0Pad<E>
+{
+    protected final long mask;
+    protected final E[] events;
+    protected final long[] sequenceBuffer;
+
+    MpmcEventRingColdFields(int capacity, Supplier<E> factory)
+    {
+        int actualCapacity = Pow2.roundToPowerOfTwo(capacity);
+        mask = actualCapacity - 1;
+        events = allocateRefArray(actualCapacity);
+        sequenceBuffer = allocateLongArray(actualCapacity);
+        for (int i = 0; i < actualCapacity; i++)
+        {
+            final E event = factory.get();
+            if (null == event)
+            {
+                throw new NullPointerException("factory returned null");
+            }
+            spRefElement(events, calcRefElementOffset(i), event);
+            soLongElement(sequenceBuffer, calcCircularLongElementOffset(i, mask), i);
+        }
+    }
+}
+
+abstract class MpmcEventRingL1Pad<E> extends MpmcEventRingColdFields<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpmcEventRingL1Pad(int capacity, Supplier<E> factory)
+    {
+        super(capacity, factory);
+    }
+}
+
+//$gen:ordered-fields
+abstract class MpmcEventRingProducerIndexField<E> extends MpmcEventRingL1Pad<E>
+{
+    private final static long P_INDEX_OFFSET = fieldOffset(MpmcEventRingProducerIndexField.class, "producerIndex");
+
+    private volatile long producerIndex;
+
+    MpmcEventRingProducerIndexField(int capacity, Supplier<E> factory)
+    {
+        super(capacity, factory);
+    }
+
+    public final long lvProducerIndex()
+    {
+        return producerIndex;
+    }
+
+    final boolean casProducerIndex(long expect, long newValue)
+    {
+        return UNSAFE.compareAndSwapLong(this, P_INDEX_OFFSET, expect, newValue);
+    }
+}
+
+abstract class MpmcEventRingL2Pad<E> extends MpmcEventRingProducerIndexField<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpmcEventRingL2Pad(int capacity, Supplier<E> factory)
+    {
+        super(capacity, factory);
+    }
+}
+
+//$gen:ordered-fields
+abstract class MpmcEventRingConsumerIndexField<E> extends MpmcEventRingL2Pad<E>
+{
+    private final static long C_INDEX_OFFSET = fieldOffset(MpmcEventRingConsumerIndexField.class, "consumerIndex");
+
+    private volatile long consumerIndex;
+
+    MpmcEventRingConsumerIndexField(int capacity, Supplier<E> factory)
+    {
+        super(capacity, factory);
+    }
+
+    public final long lvConsumerIndex()
+    {
+        return consumerIndex;
+    }
+
+    final boolean casConsumerIndex(long expect, long newValue)
+    {
+        return UNSAFE.compareAndSwapLong(this, C_INDEX_OFFSET, expect, newValue);
+    }
+}
+
+abstract class MpmcEventRingL3Pad<E> extends MpmcEventRingConsumerIndexField<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpmcEventRingL3Pad(int capacity, Supplier<E> factory)
+    {
+        super(capacity, factory);
+    }
+}
+
+/**
+ * A bounded ring of preallocated mutable events, for zero allocation messaging of on heap objects. The events are
+ * created by the factory once, when the ring is constructed, and then reused for every message:
+ * <ol>
+ * <li>A producer {@link #claim()}s a sequence, writes the {@link #event(long)} at that sequence in place and
+ * {@link #publish(long)}es it.
+ * <li>A consumer {@link #acquire()}s the next published sequence, reads the {@link #event(long)} in place and
+ * {@link #release(long)}s it back to the producers.
+ * </ol>
+ * This is the claim/commit model of the {@code jctools-channels} {@code ChannelProducer}, but for plain objects: there
+ * is no off heap memory or generated flyweight, the events are whatever the factory creates.
+ * {@link #publishEvent(Consumer)} and {@link #drain(Consumer, int)} wrap the claim/publish and acquire/release pairs for
+ * the common case.<br>
+ * Any number of threads may produce and consume. The ring layout and the slot sequence protocol are those of
+ * {@link MpmcArrayQueue}, a single producer or consumer only pays for an uncontended CAS. A claimed sequence must
+ * always be published, and an acquired sequence released: the sequences are handed over in order, so a sequence held
+ * by one thread makes the ring look full to the producers or empty to the consumers once they get to it.<br>
+ * An event must not be accessed after it is published by the producer or released by the consumer, it is owned by
+ * the other side from then on. Events are never cleared, clear the references an event holds before releasing it if
+ * they should not be retained.
+ *
+ * @param <E> the event type
+ */
+public class MpmcEventRing<E> extends MpmcEventRingL3Pad<E> implements IndexedQueue
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    /**
+     * Returned by {@link #claim()} when the next event is not released and by {@link #acquire()} when the next event
+     * is not published.
+     */
+    public static final long UNAVAILABLE = -1;
+
+    /**
+     * @param capacity the ring capacity, rounded up to the next power of 2
+     * @param factory  called capacity times to preallocate the events, must not return null
+     */
+    public MpmcEventRing(int capacity, Supplier<E> factory)
+    {
+        super(RangeUtil.checkGreaterThanOrEqual(capacity, 2, "capacity"), checkFactory(factory));
+    }
+
+    private static <E> Supplier<E> checkFactory(Supplier<E> factory)
+    {
+        if (null == factory)
+        {
+            throw new IllegalArgumentException("factory is null");
+        }
+        return factory;
+    }
+
+    /**
+     * Claim the next sequence for writing. The event at the returned sequence must be {@link #publish(long)}ed.
+     *
+     * @return the claimed sequence, or {@link #UNAVAILABLE} if the ring is full, i.e. the next event has not been
+     * released by a consumer yet
+     */
+    public long claim()
+    {
+        final long mask = this.mask;
+        final long[] sBuffer = sequenceBuffer;
+
+        long pIndex;
+        long seq;
+        do
+        {
+            pIndex = lvProducerIndex();
+            seq = lvLongElement(sBuffer, calcCircularLongElementOffset(pIndex, mask));
+            // consumer has not released this slot, it's as the last producer left it
+            if (seq < pIndex)
+            {
+                // Unlike MpmcArrayQueue we can't wait for a consumer which moved past the slot, it may be reading the
+                // event for a while. The ring is full unless another producer claimed pIndex in the meantime.
+                if (pIndex == lvProducerIndex())
+                {
+                    return UNAVAILABLE;
+                }
+                seq = pIndex + 1; // (+) hack to make it go around again without CAS
+            }
+        }
+        while (seq > pIndex || // another producer has moved the sequence(or +)
+            !casProducerIndex(pIndex, pIndex + 1)); // failed to increment
+        return pIndex;
+    }
+
+    /**
+     * @param sequence a sequence claimed or acquired by the calling thread
+     * @return the preallocated event at the sequence
+     */
+    public E event(long sequence)
+    {
+        return lpRefElement(events, calcCircularRefElementOffset(sequence, mask));
+    }
+
+    /**
+     * Make the event at a claimed sequence visible to the consumers.
+     *
+     * @param sequence a sequence returned by {@link #claim()} and not yet published
+     */
+    public void publish(long sequence)
+    {
+        soLongElement(sequenceBuffer, calcCircularLongElementOffset(sequence, mask), sequence + 1);
+    }
+
+    /**
+     * Acquire the next published sequence for reading. The event at the returned sequence must be
+     * {@link #release(long)}d.
+     *
+     * @return the acquired sequence, or {@link #UNAVAILABLE} if the ring is empty, i.e. the next event has not been
+     * published by a producer yet
+     */
+    public long acquire()
+    {
+        // local load of field to avoid repeated loads after volatile reads
+        final long[] sBuffer = sequenceBuffer;
+        final long mask = this.mask;
+
+        long cIndex;
+        long seq;
+        long expectedSeq;
+        do
+        {
+            cIndex = lvConsumerIndex();
+            seq = lvLongElement(sBuffer, calcCircularLongElementOffset(cIndex, mask));
+            expectedSeq = cIndex + 1;
+            if (seq < expectedSeq)
+            {
+                // slot has not been published, the producer may be writing the event for a while, see claim
+                if (cIndex == lvConsumerIndex())
+                {
+                    return UNAVAILABLE;
+                }
+                seq = expectedSeq + 1; // trip another go around
+            }
+        }
+        while (seq > expectedSeq || // another consumer beat us to it
+            !casConsumerIndex(cIndex, cIndex + 1)); // failed the CAS
+        return cIndex;
+    }
+
+    /**
+     * Hand the event at an acquired sequence back to the producers.
+     *
+     * @param sequence a sequence returned by {@link #acquire()} and not yet released
+     */
+    public void release(long sequence)
+    {
+        // i.e. seq += capacity
+        soLongElement(sequenceBuffer, calcCircularLongElementOffset(sequence, mask), sequence + mask + 1);
+    }
+
+    /**
+     * Claim, write and publish an event.
+     *
+     * @param writer mutates the event in place, must not throw
+     * @return true if the event was published, false if the ring is full
+     */
+    public boolean publishEvent(Consumer<E> writer)
+    {
+        if (null == writer)
+            throw new IllegalArgumentException("writer is null");
+        final long sequence = claim();
+        if (sequence == UNAVAILABLE)
+        {
+            return false;
+        }
+        writer.accept(event(sequence));
+        publish(sequence);
+        return true;
+    }
+
+    /**
+     * Acquire, read and release up to limit published events.
+     *
+     * @param reader reads the event in place, must not throw or retain the event
+     * @return the number of events read
+     */
+    public int drain(Consumer<E> reader, int limit)
+    {
+        if (null == reader)
+            throw new IllegalArgumentException("reader is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+        int i = 0;
+        for (; i < limit; i++)
+        {
+            final long sequence = acquire();
+            if (sequence == UNAVAILABLE)
+            {
+                break;
+            }
+            reader.accept(event(sequence));
+            release(sequence);
+        }
+        return i;
+    }
+
+    /**
+     * Read all published events, up to a ring capacity.
+     *
+     * @return the number of events read
+     */
+    public int drain(Consumer<E> reader)
+    {
+        return drain(reader, capacity());
+    }
+
+    /**
+     * Read events as they are published until the exit condition is met, idling on the wait strategy when there are
+     * none available.
+     */
+    public void drain(Consumer<E> reader, WaitStrategy wait, ExitCondition exit)
+    {
+        if (null == reader)
+            throw new IllegalArgumentException("reader is null");
+        if (null == wait)
+            throw new IllegalArgumentException("wait is null");
+        if (null == exit)
+            throw new IllegalArgumentException("exit condition is null");
+
+        int idleCounter = 0;
+        while (exit.keepRunning())
+        {
+            final long sequence = acquire();
+            if (sequence == UNAVAILABLE)
+            {
+                idleCounter = wait.idle(idleCounter);
+                continue;
+            }
+            idleCounter = 0;
+            reader.accept(event(sequence));
+            release(sequence);
+        }
+    }
+
+    /**
+     * @return the number of claimed sequences not yet acquired, including those not yet published
+     */
+    public int size()
+    {
+        return IndexedQueueSizeUtil.size(this, IndexedQueueSizeUtil.PLAIN_DIVISOR);
+    }
+
+    public boolean isEmpty()
+    {
+        return IndexedQueueSizeUtil.isEmpty(this);
+    }
+
+    @Override
+    public int capacity()
+    {
+        return (int) (mask + 1);
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+}
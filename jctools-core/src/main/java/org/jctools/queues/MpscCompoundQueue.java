@@ -17,6 +17,7 @@ import org.jctools.util.RangeUtil;
 
 import java.util.AbstractQueue;
 import java.util.Iterator;
+import java.util.List;
 
 import static org.jctools.util.PortableJvmInfo.CPUs;
 import static org.jctools.util.Pow2.isPowerOfTwo;
@@ -313,6 +314,18 @@ public class MpscCompoundQueue<E> extends MpscCompoundQueueConsumerQueueIndex<E>
         return drain(c, limit);
     }
 
+    @Override
+    public int drain(E[] dst, int dstOffset, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, dstOffset, limit);
+    }
+
+    @Override
+    public int drain(List<? super E> dst, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, limit);
+    }
+
     @Override
     public int fill(Supplier<E> s)
     {
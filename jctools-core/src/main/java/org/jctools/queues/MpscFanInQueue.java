@@ -0,0 +1,581 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.util.Pow2;
+import org.jctools.util.RangeUtil;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+
+abstract class MpscFanInQueueL0Pad<E> extends AbstractQueue<E> implements MessagePassingQueue<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+abstract class MpscFanInQueueColdFields<E> extends MpscFanInQueueL0Pad<E>
+{
+    private final static long LANES_OFFSET = fieldOffset(MpscFanInQueueColdFields.class, "lanes");
+
+    protected final int laneChunkSize;
+    protected final int laneCapacity;
+    protected final int laneQueueCapacity;
+    protected final ThreadLocal<MpscFanInQueue.Lane<E>> producerLane;
+    // lanes which were made non-empty by their producer, in order
+    protected final MpscGrowableArrayQueue<MpscFanInQueue.Lane<E>> readyLanes;
+    private volatile MpscFanInQueue.Lane<E>[] lanes;
+
+    @SuppressWarnings("unchecked")
+    MpscFanInQueueColdFields(int laneChunkSize, int laneCapacity)
+    {
+        // lanes are created lazily on the producer threads, fail on bad arguments up front
+        if (laneChunkSize == 0)
+        {
+            RangeUtil.checkGreaterThanOrEqual(laneCapacity, 1, "laneCapacity");
+            laneQueueCapacity = Pow2.roundToPowerOfTwo(Math.max(laneCapacity, 4));
+        }
+        else
+        {
+            RangeUtil.checkGreaterThanOrEqual(laneCapacity, 16, "laneCapacity");
+            RangeUtil.checkGreaterThanOrEqual(laneChunkSize, 8, "laneChunkSize");
+            laneQueueCapacity = Pow2.roundToPowerOfTwo(laneCapacity);
+            RangeUtil.checkLessThan(Pow2.roundToPowerOfTwo(laneChunkSize), laneQueueCapacity, "laneChunkSize");
+        }
+        this.laneChunkSize = laneChunkSize;
+        this.laneCapacity = laneCapacity;
+        this.readyLanes = new MpscGrowableArrayQueue<MpscFanInQueue.Lane<E>>(16, 1 << 30);
+        this.lanes = new MpscFanInQueue.Lane[0];
+        this.producerLane = new ThreadLocal<MpscFanInQueue.Lane<E>>()
+        {
+            @Override
+            protected MpscFanInQueue.Lane<E> initialValue()
+            {
+                final MpscFanInQueue.Lane<E> lane = new MpscFanInQueue.Lane<E>(newLaneQueue());
+                addLane(lane);
+                return lane;
+            }
+        };
+    }
+
+    private MessagePassingQueue<E> newLaneQueue()
+    {
+        return laneChunkSize == 0 ?
+            new SpscArrayQueue<E>(laneCapacity) :
+            new SpscChunkedArrayQueue<E>(laneChunkSize, laneCapacity);
+    }
+
+    final MpscFanInQueue.Lane<E>[] lvLanes()
+    {
+        return lanes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addLane(MpscFanInQueue.Lane<E> lane)
+    {
+        MpscFanInQueue.Lane<E>[] oldLanes;
+        MpscFanInQueue.Lane<E>[] newLanes;
+        do
+        {
+            oldLanes = lanes;
+            newLanes = new MpscFanInQueue.Lane[oldLanes.length + 1];
+            System.arraycopy(oldLanes, 0, newLanes, 0, oldLanes.length);
+            newLanes[oldLanes.length] = lane;
+        }
+        while (!UNSAFE.compareAndSwapObject(this, LANES_OFFSET, oldLanes, newLanes));
+    }
+
+    @SuppressWarnings("unchecked")
+    final void removeLane(MpscFanInQueue.Lane<E> lane)
+    {
+        MpscFanInQueue.Lane<E>[] oldLanes;
+        MpscFanInQueue.Lane<E>[] newLanes;
+        do
+        {
+            oldLanes = lanes;
+            int i = 0;
+            final int length = oldLanes.length;
+            for (; i < length; i++)
+            {
+                if (lane == oldLanes[i])
+                {
+                    break;
+                }
+            }
+            // not here...
+            if (i == length)
+            {
+                return;
+            }
+            // copy over all but that element
+            newLanes = new MpscFanInQueue.Lane[length - 1];
+            System.arraycopy(oldLanes, 0, newLanes, 0, i);
+            System.arraycopy(oldLanes, i + 1, newLanes, i, length - i - 1);
+        }
+        while (!UNSAFE.compareAndSwapObject(this, LANES_OFFSET, oldLanes, newLanes));
+    }
+}
+
+abstract class MpscFanInQueueMidPad<E> extends MpscFanInQueueColdFields<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpscFanInQueueMidPad(int laneChunkSize, int laneCapacity)
+    {
+        super(laneChunkSize, laneCapacity);
+    }
+}
+
+abstract class MpscFanInQueueConsumerFields<E> extends MpscFanInQueueMidPad<E>
+{
+    // only accessed by the consumer
+    MpscFanInQueue.Lane<E> consumerLane;
+    int consumerLaneBudget;
+    int consumerScanIndex;
+    int consumerLanesUntilScan;
+
+    MpscFanInQueueConsumerFields(int laneChunkSize, int laneCapacity)
+    {
+        super(laneChunkSize, laneCapacity);
+    }
+}
+
+/**
+ * A fan-in MPSC queue giving each producer thread its own SPSC lane, a supported version of the experimental
+ * {@code MpscOnSpscQueue}. Producers never contend on a shared producer index: a producer thread is lazily registered
+ * on its first offer and gets an {@link SpscArrayQueue} (or {@link SpscChunkedArrayQueue}) lane held in a thread
+ * local. The capacity is per lane, so the total capacity grows with the number of producer threads.<br>
+ * The consumer round-robins over the lanes with data, consuming up to {@link #LANE_POLL_BUDGET} elements from a lane
+ * before moving on to the next. A producer which finds its lane unscheduled after an offer schedules it on a shared
+ * ready lanes queue, so the shared queue is only touched when a lane goes from empty to non-empty, and the consumer
+ * doesn't scan empty lanes. The ready lanes queue is a hint: the producer does not fence between offering to its
+ * lane and checking the scheduled flag, so it may miss the consumer unscheduling the lane and leave a non-empty lane
+ * off the ready lanes. The consumer scans all the lanes for data before reporting the queue as empty, and every
+ * {@link #LANE_SCAN_INTERVAL} lanes it scans for a non-empty unscheduled lane before taking one from the ready lanes,
+ * which bounds how long such a lane waits under sustained traffic on the other lanes.<br>
+ * Lanes of dead producer threads are removed by the consumer once drained, when it scans the lanes.<br>
+ * Elements are FIFO per producer thread, there is no ordering between elements of different producers.
+ */
+public class MpscFanInQueue<E> extends MpscFanInQueueConsumerFields<E>
+{
+    public static final int LANE_POLL_BUDGET = Integer.getInteger("jctools.fanin.lane.poll.budget", 64);
+    public static final int LANE_SCAN_INTERVAL = Integer.getInteger("jctools.fanin.lane.scan.interval", 64);
+
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    /**
+     * @param laneCapacity the capacity of each producer's {@link SpscArrayQueue} lane
+     */
+    public MpscFanInQueue(int laneCapacity)
+    {
+        super(0, laneCapacity);
+    }
+
+    /**
+     * @param laneChunkSize the chunk size of each producer's {@link SpscChunkedArrayQueue} lane
+     * @param laneCapacity  the maximum capacity of each producer's lane
+     */
+    public MpscFanInQueue(int laneChunkSize, int laneCapacity)
+    {
+        super(RangeUtil.checkGreaterThanOrEqual(laneChunkSize, 8, "laneChunkSize"), laneCapacity);
+    }
+
+    /**
+     * @return the number of registered producer lanes, including lanes of dead producers not yet removed
+     */
+    public int lanes()
+    {
+        return lvLanes().length;
+    }
+
+    @Override
+    public boolean offer(E e)
+    {
+        final Lane<E> lane = producerLane.get();
+        if (!lane.queue.offer(e))
+        {
+            return false;
+        }
+        schedule(lane);
+        return true;
+    }
+
+    @Override
+    public boolean relaxedOffer(E e)
+    {
+        final Lane<E> lane = producerLane.get();
+        if (!lane.queue.relaxedOffer(e))
+        {
+            return false;
+        }
+        schedule(lane);
+        return true;
+    }
+
+    @Override
+    public int fill(Supplier<E> s)
+    {
+        final Lane<E> lane = producerLane.get();
+        final int filled = lane.queue.fill(s);
+        if (filled != 0)
+        {
+            schedule(lane);
+        }
+        return filled;
+    }
+
+    @Override
+    public int fill(Supplier<E> s, int limit)
+    {
+        final Lane<E> lane = producerLane.get();
+        final int filled = lane.queue.fill(s, limit);
+        if (filled != 0)
+        {
+            schedule(lane);
+        }
+        return filled;
+    }
+
+    private void schedule(Lane<E> lane)
+    {
+        if (lane.lvScheduled() == 0 && lane.casScheduled(0, 1))
+        {
+            readyLanes.offer(lane);
+        }
+    }
+
+    @Override
+    public E poll()
+    {
+        Lane<E> lane = consumerLane;
+        while (true)
+        {
+            if (lane == null && (lane = nextLane()) == null)
+            {
+                return null;
+            }
+            final E e = lane.queue.poll();
+            if (e != null)
+            {
+                consumed(lane);
+                return e;
+            }
+            unschedule(lane);
+            lane = null;
+        }
+    }
+
+    @Override
+    public E relaxedPoll()
+    {
+        Lane<E> lane = consumerLane;
+        while (true)
+        {
+            if (lane == null && (lane = nextLane()) == null)
+            {
+                return null;
+            }
+            final E e = lane.queue.relaxedPoll();
+            if (e != null)
+            {
+                consumed(lane);
+                return e;
+            }
+            unschedule(lane);
+            lane = null;
+        }
+    }
+
+    @Override
+    public E peek()
+    {
+        Lane<E> lane = consumerLane;
+        while (true)
+        {
+            if (lane == null && (lane = nextLane()) == null)
+            {
+                return null;
+            }
+            final E e = lane.queue.peek();
+            if (e != null)
+            {
+                return e;
+            }
+            unschedule(lane);
+            lane = null;
+        }
+    }
+
+    @Override
+    public E relaxedPeek()
+    {
+        Lane<E> lane = consumerLane;
+        while (true)
+        {
+            if (lane == null && (lane = nextLane()) == null)
+            {
+                return null;
+            }
+            final E e = lane.queue.relaxedPeek();
+            if (e != null)
+            {
+                return e;
+            }
+            unschedule(lane);
+            lane = null;
+        }
+    }
+
+    private void consumed(Lane<E> lane)
+    {
+        if (--consumerLaneBudget == 0)
+        {
+            // round-robin: the lane is still scheduled, move it to the back of the ready lanes
+            consumerLane = null;
+            readyLanes.offer(lane);
+        }
+    }
+
+    private void unschedule(Lane<E> lane)
+    {
+        consumerLane = null;
+        // StoreLoad: the flag is cleared before checking the lane. The producer may still miss the flag being
+        // cleared, the periodic lanes scan picks up whatever we both miss here.
+        lane.svScheduled(0);
+        if (!lane.queue.isEmpty() && lane.casScheduled(0, 1))
+        {
+            readyLanes.offer(lane);
+        }
+    }
+
+    /**
+     * @return the next lane to consume from, or null if all lanes are empty
+     */
+    private Lane<E> nextLane()
+    {
+        Lane<E> lane = null;
+        if (--consumerLanesUntilScan <= 0)
+        {
+            consumerLanesUntilScan = LANE_SCAN_INTERVAL;
+            lane = scanLanes(true);
+        }
+        if (lane == null && (lane = readyLanes.relaxedPoll()) == null)
+        {
+            lane = scanLanes(false);
+            if (lane == null)
+            {
+                return null;
+            }
+        }
+        consumerLane = lane;
+        consumerLaneBudget = LANE_POLL_BUDGET;
+        return lane;
+    }
+
+    /**
+     * Find a non-empty lane, starting after the last lane found to spread the load, and remove drained lanes of dead
+     * producers.
+     *
+     * @param unscheduledOnly true to only find a lane which is not scheduled, i.e. a lane missing from the ready lanes
+     */
+    private Lane<E> scanLanes(boolean unscheduledOnly)
+    {
+        final Lane<E>[] lanes = lvLanes();
+        final int length = lanes.length;
+        final int start = consumerScanIndex;
+        for (int i = 0; i < length; i++)
+        {
+            final int index = (start + i) % length;
+            final Lane<E> lane = lanes[index];
+            if (!lane.queue.isEmpty() && (lane.casScheduled(0, 1) || !unscheduledOnly))
+            {
+                consumerScanIndex = index + 1;
+                return lane;
+            }
+            // a terminated producer has completed all its offers, so an empty lane checked after it died stays empty
+            if (lane.isOwnerDead() && lane.queue.isEmpty())
+            {
+                removeLane(lane);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size()
+    {
+        long size = 0;
+        for (Lane<E> lane : lvLanes())
+        {
+            size += lane.queue.size();
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        for (Lane<E> lane : lvLanes())
+        {
+            if (!lane.queue.isEmpty())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the capacity of each producer lane
+     */
+    @Override
+    public int capacity()
+    {
+        return laneQueueCapacity;
+    }
+
+    @Override
+    public Iterator<E> iterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+
+    @Override
+    public int drain(Consumer<E> c)
+    {
+        return drain(c, 4096);
+    }
+
+    @Override
+    public int drain(Consumer<E> c, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, c, limit);
+    }
+
+    @Override
+    public int drain(E[] dst, int dstOffset, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, dstOffset, limit);
+    }
+
+    @Override
+    public int drain(List<? super E> dst, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, limit);
+    }
+
+    @Override
+    public void drain(Consumer<E> c, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.drain(this, c, wait, exit);
+    }
+
+    @Override
+    public void fill(Supplier<E> s, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.fill(this, s, wait, exit);
+    }
+
+    static final class Lane<E>
+    {
+        private final static long SCHEDULED_OFFSET = fieldOffset(Lane.class, "scheduled");
+
+        final MessagePassingQueue<E> queue;
+        private final WeakReference<Thread> owner;
+        // 1 while the lane is on the ready lanes queue or being consumed
+        private volatile int scheduled;
+
+        Lane(MessagePassingQueue<E> queue)
+        {
+            this.queue = queue;
+            this.owner = new WeakReference<Thread>(Thread.currentThread());
+        }
+
+        boolean isOwnerDead()
+        {
+            final Thread thread = owner.get();
+            return thread == null || !thread.isAlive();
+        }
+
+        int lvScheduled()
+        {
+            return scheduled;
+        }
+
+        void svScheduled(int newValue)
+        {
+            UNSAFE.putIntVolatile(this, SCHEDULED_OFFSET, newValue);
+        }
+
+        boolean casScheduled(int expect, int newValue)
+        {
+            return UNSAFE.compareAndSwapInt(this, SCHEDULED_OFFSET, expect, newValue);
+        }
+    }
+}
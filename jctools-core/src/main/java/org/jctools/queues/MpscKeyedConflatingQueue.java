@@ -0,0 +1,216 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.maps.NonBlockingHashMapLong;
+import org.jctools.util.RangeUtil;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+
+/**
+ * A keyed conflating MPSC queue: the last value offered for a key replaces the pending value of that key, so the
+ * consumer gets only the latest value per key (e.g. per instrument for price updates) however far behind it is.<br>
+ * Each key has an entry holding its pending value, indexed in a {@link NonBlockingHashMapLong}. A producer swaps its
+ * value into the entry, and the producer which makes the entry go from clean (no pending value) to dirty enqueues it
+ * on an {@link MpscArrayQueue} of dirty entries. The consumer polls a dirty entry and swaps its value out, cleaning it.
+ * Values are consumed one per dirty key, in the order the keys were first dirtied since they were last consumed.<br>
+ * An entry is in the dirty queue at most once, so the dirty queue capacity bounds the number of keys. Entries are
+ * allocated on the first offer of a key and kept, so the steady state with a known set of keys is allocation free.
+ */
+public class MpscKeyedConflatingQueue<V>
+{
+    private final static long KEYS_OFFSET = fieldOffset(MpscKeyedConflatingQueue.class, "keys");
+
+    private final NonBlockingHashMapLong<Entry<V>> entries;
+    private final MpscArrayQueue<Entry<V>> dirtyEntries;
+    private final int maxKeys;
+    private volatile int keys;
+
+    /**
+     * @param maxKeys the maximum number of distinct keys, offers of further keys are rejected
+     */
+    public MpscKeyedConflatingQueue(int maxKeys)
+    {
+        RangeUtil.checkGreaterThanOrEqual(maxKeys, 1, "maxKeys");
+        this.maxKeys = maxKeys;
+        this.entries = new NonBlockingHashMapLong<Entry<V>>(maxKeys);
+        this.dirtyEntries = new MpscArrayQueue<Entry<V>>(Math.max(maxKeys, 2));
+    }
+
+    /**
+     * Called from a producer thread subject to the restrictions appropriate to the implementation and according to
+     * the {@link java.util.Queue#offer(Object)} interface.
+     *
+     * @param key   the key to conflate values on
+     * @param value not {@code null}, replaces any value pending for the key
+     * @return true if the value is pending for the key, false if the key is new and there are {@link #maxKeys()}
+     * keys already
+     */
+    public boolean offer(long key, V value)
+    {
+        if (null == value)
+        {
+            throw new NullPointerException();
+        }
+        Entry<V> entry = entries.get(key);
+        if (entry == null && (entry = newEntry(key)) == null)
+        {
+            return false;
+        }
+        if (entry.getAndSetValue(value) == null)
+        {
+            // we dirtied the entry, it is not in the dirty queue. Entries in the queue are dirty and distinct, so
+            // there is room for it.
+            dirtyEntries.offer(entry);
+        }
+        return true;
+    }
+
+    private Entry<V> newEntry(long key)
+    {
+        int keys;
+        do
+        {
+            keys = this.keys;
+            if (keys >= maxKeys)
+            {
+                // another producer may have just added this key
+                return entries.get(key);
+            }
+        }
+        while (!UNSAFE.compareAndSwapInt(this, KEYS_OFFSET, keys, keys + 1));
+
+        final Entry<V> entry = new Entry<V>(key);
+        final Entry<V> prev = entries.putIfAbsent(key, entry);
+        if (prev != null)
+        {
+            // lost the race to add this key, give back the key we counted
+            UNSAFE.getAndAddInt(this, KEYS_OFFSET, -1);
+            return prev;
+        }
+        return entry;
+    }
+
+    /**
+     * Called from the consumer thread subject to the restrictions appropriate to the implementation and according to
+     * the {@link java.util.Queue#poll()} interface.
+     *
+     * @return the latest value of the first dirtied key, or {@code null} if no key has a pending value
+     */
+    public V poll()
+    {
+        final Entry<V> entry = dirtyEntries.poll();
+        if (entry == null)
+        {
+            return null;
+        }
+        // only the consumer cleans an entry, and entries in the queue are dirty
+        return entry.getAndSetValue(null);
+    }
+
+    /**
+     * Remove all keys with pending values and hand them to the consumer, see {@link #drain(KeyedConsumer, int)}.
+     */
+    public int drain(KeyedConsumer<V> c)
+    {
+        return drain(c, maxKeys);
+    }
+
+    /**
+     * Remove up to limit keys with pending values and hand them with their latest value to the consumer, in first
+     * dirtied order.
+     *
+     * @return the number of keys drained
+     */
+    public int drain(KeyedConsumer<V> c, int limit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+        for (int i = 0; i < limit; i++)
+        {
+            final Entry<V> entry = dirtyEntries.poll();
+            if (entry == null)
+            {
+                return i;
+            }
+            c.accept(entry.key, entry.getAndSetValue(null));
+        }
+        return limit;
+    }
+
+    /**
+     * @return the number of keys with a pending value
+     */
+    public int size()
+    {
+        return dirtyEntries.size();
+    }
+
+    public boolean isEmpty()
+    {
+        return dirtyEntries.isEmpty();
+    }
+
+    /**
+     * @return the number of keys offered so far, pending or not
+     */
+    public int keys()
+    {
+        return keys;
+    }
+
+    public int maxKeys()
+    {
+        return maxKeys;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+
+    public interface KeyedConsumer<V>
+    {
+        /**
+         * This method will process a key and its latest value drained from the queue.
+         *
+         * @param key   the drained key
+         * @param value the latest value offered for the key, not {@code null}
+         */
+        void accept(long key, V value);
+    }
+
+    static final class Entry<V>
+    {
+        private final static long VALUE_OFFSET = fieldOffset(Entry.class, "value");
+
+        final long key;
+        private volatile V value;
+
+        Entry(long key)
+        {
+            this.key = key;
+        }
+
+        @SuppressWarnings("unchecked")
+        V getAndSetValue(V newValue)
+        {
+            return (V) UNSAFE.getAndSetObject(this, VALUE_OFFSET, newValue);
+        }
+    }
+}
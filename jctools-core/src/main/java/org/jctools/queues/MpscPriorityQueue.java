@@ -0,0 +1,520 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.util.RangeUtil;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+
+abstract class MpscPriorityQueueL0Pad<E> extends AbstractQueue<E> implements MessagePassingQueue<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+abstract class MpscPriorityQueueColdFields<E> extends MpscPriorityQueueL0Pad<E>
+{
+    protected final MessagePassingQueue<E>[] lanes;
+    protected final int lowestLevel;
+    // null for strict priority
+    protected final int[] weights;
+
+    @SuppressWarnings("unchecked")
+    MpscPriorityQueueColdFields(int levels, int laneCapacity, boolean unboundedLanes, int[] weights)
+    {
+        RangeUtil.checkGreaterThanOrEqual(levels, 1, "levels");
+        RangeUtil.checkLessThanOrEqual(levels, 64, "levels");
+        if (weights != null)
+        {
+            if (weights.length != levels)
+                throw new IllegalArgumentException("weights.length(" + weights.length + ") != levels(" + levels + ")");
+            weights = weights.clone();
+            for (int weight : weights)
+            {
+                RangeUtil.checkGreaterThanOrEqual(weight, 1, "weight");
+            }
+        }
+        lanes = new MessagePassingQueue[levels];
+        for (int i = 0; i < levels; i++)
+        {
+            lanes[i] = unboundedLanes ?
+                new MpscUnboundedArrayQueue<E>(laneCapacity) :
+                new MpscArrayQueue<E>(laneCapacity);
+        }
+        lowestLevel = levels - 1;
+        this.weights = weights;
+    }
+}
+
+abstract class MpscPriorityQueueMidPad<E> extends MpscPriorityQueueColdFields<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpscPriorityQueueMidPad(int levels, int laneCapacity, boolean unboundedLanes, int[] weights)
+    {
+        super(levels, laneCapacity, unboundedLanes, weights);
+    }
+}
+
+//$gen:ordered-fields
+abstract class MpscPriorityQueueNonEmptyLevelsField<E> extends MpscPriorityQueueMidPad<E>
+{
+    private final static long NON_EMPTY_LEVELS_OFFSET =
+        fieldOffset(MpscPriorityQueueNonEmptyLevelsField.class, "nonEmptyLevels");
+
+    // bit i is set when lane i may be non-empty
+    private volatile long nonEmptyLevels;
+
+    MpscPriorityQueueNonEmptyLevelsField(int levels, int laneCapacity, boolean unboundedLanes, int[] weights)
+    {
+        super(levels, laneCapacity, unboundedLanes, weights);
+    }
+
+    final long lvNonEmptyLevels()
+    {
+        return nonEmptyLevels;
+    }
+
+    final boolean casNonEmptyLevels(long expect, long newValue)
+    {
+        return UNSAFE.compareAndSwapLong(this, NON_EMPTY_LEVELS_OFFSET, expect, newValue);
+    }
+}
+
+abstract class MpscPriorityQueueL2Pad<E> extends MpscPriorityQueueNonEmptyLevelsField<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpscPriorityQueueL2Pad(int levels, int laneCapacity, boolean unboundedLanes, int[] weights)
+    {
+        super(levels, laneCapacity, unboundedLanes, weights);
+    }
+}
+
+abstract class MpscPriorityQueueConsumerFields<E> extends MpscPriorityQueueL2Pad<E>
+{
+    // weighted round robin state, only accessed by the consumer
+    int consumerLevel;
+    int consumerCredit;
+
+    MpscPriorityQueueConsumerFields(int levels, int laneCapacity, boolean unboundedLanes, int[] weights)
+    {
+        super(levels, laneCapacity, unboundedLanes, weights);
+        // the first round starts from the highest priority level
+        consumerLevel = lowestLevel;
+    }
+}
+
+/**
+ * A multi level priority MPSC queue made up of an MPSC lane per level, level 0 being the highest priority. Producers
+ * offer to a level with {@link #offer(Object, int)}, the {@link java.util.Queue} and {@link MessagePassingQueue}
+ * offer/fill methods offer to the lowest priority level.<br>
+ * A summary bitmap of the levels which may be non-empty lets the consumer pick the next lane with a single load
+ * rather than polling each lane. Producers set the bit of their level after offering to the lane when it is not set
+ * already. The consumer clears the bit when it finds the lane empty and then re-checks the lane, so either the
+ * consumer sees an element offered concurrently or the producer sees the cleared bit and sets it again. An offer
+ * takes effect when its level is marked, before the offer returns: {@link #isEmpty()} and {@link #size()} only count
+ * the lanes of marked levels, so they agree with {@link #poll()} and {@link #peek()}. The bitmap limits the queue to
+ * 64 levels.<br>
+ * The consumer picks the next lane in one of two orders:
+ * <ol>
+ * <li>Strict priority: always the highest priority non-empty lane, lower priority lanes may be starved.
+ * <li>Weighted round-robin: each non-empty lane in turn, from highest to lowest priority, for up to its weight in
+ * elements before moving on to the next non-empty lane.
+ * </ol>
+ * Elements are FIFO within a level only.
+ */
+public class MpscPriorityQueue<E> extends MpscPriorityQueueConsumerFields<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    /**
+     * Strict priority queue of bounded lanes.
+     *
+     * @param levels       number of priority levels, up to 64
+     * @param laneCapacity capacity of each level
+     */
+    public MpscPriorityQueue(int levels, int laneCapacity)
+    {
+        this(levels, laneCapacity, false, null);
+    }
+
+    /**
+     * @param levels         number of priority levels, up to 64
+     * @param laneCapacity   capacity of each level, or the chunk size of each level for unbounded lanes
+     * @param unboundedLanes true for {@link MpscUnboundedArrayQueue} lanes, false for {@link MpscArrayQueue} lanes
+     * @param weights        the number of elements consumed in turn from each level for weighted round-robin
+     *                       draining, or null for strict priority draining
+     */
+    public MpscPriorityQueue(int levels, int laneCapacity, boolean unboundedLanes, int[] weights)
+    {
+        super(levels, laneCapacity, unboundedLanes, weights);
+    }
+
+    public int levels()
+    {
+        return lanes.length;
+    }
+
+    @Override
+    public boolean offer(E e)
+    {
+        return offer(e, lowestLevel);
+    }
+
+    /**
+     * Offer to the given priority level.
+     *
+     * @param level 0 for highest priority, up to {@link #levels()} - 1 for lowest
+     * @throws IllegalArgumentException if level is out of range
+     */
+    public boolean offer(E e, int level)
+    {
+        if (level < 0 || level > lowestLevel)
+            throw new IllegalArgumentException("level is out of range: " + level);
+        if (!lanes[level].offer(e))
+        {
+            return false;
+        }
+        markNonEmpty(level);
+        return true;
+    }
+
+    @Override
+    public boolean relaxedOffer(E e)
+    {
+        final int level = lowestLevel;
+        if (!lanes[level].relaxedOffer(e))
+        {
+            return false;
+        }
+        markNonEmpty(level);
+        return true;
+    }
+
+    private void markNonEmpty(int level)
+    {
+        final long levelBit = 1L << level;
+        long levels;
+        while (((levels = lvNonEmptyLevels()) & levelBit) == 0)
+        {
+            if (casNonEmptyLevels(levels, levels | levelBit))
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Clear the level bit and re-check the lane, see class doc.
+     */
+    private void markEmpty(int level)
+    {
+        final long levelBit = 1L << level;
+        long levels;
+        do
+        {
+            levels = lvNonEmptyLevels();
+        }
+        while (!casNonEmptyLevels(levels, levels & ~levelBit));
+        if (!lanes[level].isEmpty())
+        {
+            markNonEmpty(level);
+        }
+    }
+
+    /**
+     * @return the level to consume from next, given a non-empty levels bitmap, without changing the round-robin state
+     */
+    private int peekLevel(long nonEmptyLevels)
+    {
+        if (weights == null)
+        {
+            return Long.numberOfTrailingZeros(nonEmptyLevels);
+        }
+        final int level = consumerLevel;
+        if (consumerCredit > 0 && (nonEmptyLevels & (1L << level)) != 0)
+        {
+            return level;
+        }
+        // move on to the next non-empty level, wrapping around to the highest priority
+        final long lowerPriorityLevels = nonEmptyLevels & (-2L << level);
+        return Long.numberOfTrailingZeros(lowerPriorityLevels != 0 ? lowerPriorityLevels : nonEmptyLevels);
+    }
+
+    /**
+     * @return the level to consume from next, given a non-empty levels bitmap, moving the round-robin on to it
+     */
+    private int nextLevel(long nonEmptyLevels)
+    {
+        final int level = peekLevel(nonEmptyLevels);
+        final int[] weights = this.weights;
+        if (weights != null && (level != consumerLevel || consumerCredit <= 0))
+        {
+            consumerLevel = level;
+            consumerCredit = weights[level];
+        }
+        return level;
+    }
+
+    @Override
+    public E poll()
+    {
+        long nonEmptyLevels;
+        while ((nonEmptyLevels = lvNonEmptyLevels()) != 0)
+        {
+            final int level = nextLevel(nonEmptyLevels);
+            final E e = lanes[level].poll();
+            if (e != null)
+            {
+                consumerCredit--;
+                return e;
+            }
+            markEmpty(level);
+        }
+        return null;
+    }
+
+    @Override
+    public E relaxedPoll()
+    {
+        long nonEmptyLevels;
+        while ((nonEmptyLevels = lvNonEmptyLevels()) != 0)
+        {
+            final int level = nextLevel(nonEmptyLevels);
+            final E e = lanes[level].relaxedPoll();
+            if (e != null)
+            {
+                consumerCredit--;
+                return e;
+            }
+            markEmpty(level);
+        }
+        return null;
+    }
+
+    @Override
+    public E peek()
+    {
+        long nonEmptyLevels;
+        while ((nonEmptyLevels = lvNonEmptyLevels()) != 0)
+        {
+            final int level = peekLevel(nonEmptyLevels);
+            final E e = lanes[level].peek();
+            if (e != null)
+            {
+                return e;
+            }
+            markEmpty(level);
+        }
+        return null;
+    }
+
+    @Override
+    public E relaxedPeek()
+    {
+        long nonEmptyLevels;
+        while ((nonEmptyLevels = lvNonEmptyLevels()) != 0)
+        {
+            final int level = peekLevel(nonEmptyLevels);
+            final E e = lanes[level].relaxedPeek();
+            if (e != null)
+            {
+                return e;
+            }
+            markEmpty(level);
+        }
+        return null;
+    }
+
+    @Override
+    public int size()
+    {
+        long size = 0;
+        // only marked levels count, see class doc
+        long nonEmptyLevels = lvNonEmptyLevels();
+        while (nonEmptyLevels != 0)
+        {
+            size += lanes[Long.numberOfTrailingZeros(nonEmptyLevels)].size();
+            nonEmptyLevels &= nonEmptyLevels - 1;
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        // only marked levels count, see class doc
+        long nonEmptyLevels = lvNonEmptyLevels();
+        while (nonEmptyLevels != 0)
+        {
+            if (!lanes[Long.numberOfTrailingZeros(nonEmptyLevels)].isEmpty())
+            {
+                return false;
+            }
+            nonEmptyLevels &= nonEmptyLevels - 1;
+        }
+        return true;
+    }
+
+    @Override
+    public int capacity()
+    {
+        long capacity = 0;
+        for (MessagePassingQueue<E> lane : lanes)
+        {
+            if (lane.capacity() == UNBOUNDED_CAPACITY)
+            {
+                return UNBOUNDED_CAPACITY;
+            }
+            capacity += lane.capacity();
+        }
+        return (int) Math.min(capacity, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Iterator<E> iterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+
+    @Override
+    public int drain(Consumer<E> c)
+    {
+        return drain(c, 4096);
+    }
+
+    @Override
+    public int drain(Consumer<E> c, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, c, limit);
+    }
+
+    @Override
+    public int drain(E[] dst, int dstOffset, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, dstOffset, limit);
+    }
+
+    @Override
+    public int drain(List<? super E> dst, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, limit);
+    }
+
+    @Override
+    public int fill(Supplier<E> s)
+    {
+        final MessagePassingQueue<E> lane = lanes[lowestLevel];
+        final int filled = lane.fill(s);
+        if (filled != 0)
+        {
+            markNonEmpty(lowestLevel);
+        }
+        return filled;
+    }
+
+    @Override
+    public int fill(Supplier<E> s, int limit)
+    {
+        final int filled = lanes[lowestLevel].fill(s, limit);
+        if (filled != 0)
+        {
+            markNonEmpty(lowestLevel);
+        }
+        return filled;
+    }
+
+    @Override
+    public void drain(Consumer<E> c, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.drain(this, c, wait, exit);
+    }
+
+    @Override
+    public void fill(Supplier<E> s, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.fill(this, s, wait, exit);
+    }
+}
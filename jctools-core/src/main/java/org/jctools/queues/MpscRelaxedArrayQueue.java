@@ -23,10 +23,10 @@ package org.jctools.queues;
 import org.jctools.util.PortableJvmInfo;
 import org.jctools.util.Pow2;
 import org.jctools.util.RangeUtil;
-import org.jctools.util.UnsafeRefArrayAccess;
 
 import java.util.AbstractQueue;
 import java.util.Iterator;
+import java.util.List;
 
 import static org.jctools.util.UnsafeAccess.UNSAFE;
 import static org.jctools.util.UnsafeAccess.fieldOffset;
@@ -52,6 +52,7 @@ abstract class MpscRelaxedArrayQueueL0Pad<E> extends AbstractQueue<E>
     byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
 }
 
+//$gen:ordered-fields
 abstract class MpscRelaxedArrayQueueActiveCycleIdField<E> extends MpscRelaxedArrayQueueL0Pad<E>
 {
     private static final long ACTIVE_CYCLE_ID_OFFSET = fieldOffset(MpscRelaxedArrayQueueActiveCycleIdField.class, "activeCycleId");
@@ -100,6 +101,7 @@ abstract class MpscRelaxedArrayQueueMidPad<E> extends MpscRelaxedArrayQueueActiv
     byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
 }
 
+//$gen:ordered-fields
 abstract class MpscRelaxedArrayQueueProducerLimitField<E> extends MpscRelaxedArrayQueueMidPad<E>
 {
     private static final long P_LIMIT_OFFSET = fieldOffset(MpscRelaxedArrayQueueProducerLimitField.class, "producerLimit");
@@ -137,11 +139,12 @@ abstract class MpscRelaxedArrayQueueL2Pad<E> extends MpscRelaxedArrayQueueProduc
     byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
 }
 
+//$gen:ordered-fields
 abstract class MpscRelaxedArrayQueueConsumerPositionField<E> extends MpscRelaxedArrayQueueL2Pad<E>
 {
     private static final long C_POS_OFFSET = fieldOffset(MpscRelaxedArrayQueueConsumerPositionField.class, "consumerPosition");
 
-    protected volatile long consumerPosition;
+    private volatile long consumerPosition;
 
     protected final long lvConsumerPosition()
     {
@@ -179,60 +182,119 @@ abstract class MpscRelaxedArrayQueueL3Pad<E> extends MpscRelaxedArrayQueueConsum
     byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
 }
 
+//$gen:ordered-fields
 abstract class MpscRelaxedArrayQueueProducerCycleClaimFields<E> extends MpscRelaxedArrayQueueL3Pad<E>
 {
-    private static final long P_CYCLE_CLAIM_BASE;
-    private static final long ELEMENT_SHIFT;
-    static
+    private static final long P_FIRST_CYCLE_CLAIM_OFFSET =
+        fieldOffset(MpscRelaxedArrayQueueProducerCycleClaimFields.class, "producerFirstCycleClaim");
+    private static final long P_SECOND_CYCLE_CLAIM_OFFSET =
+        fieldOffset(MpscRelaxedArrayQueueProducerCycleClaimFields.class, "producerSecondCycleClaim");
+
+    // these are selected by cycleIndex, the cycle id parity
+    private volatile long producerFirstCycleClaim;
+    private volatile long producerSecondCycleClaim;
+
+    protected final long lvProducerCycleClaim(int cycleIndex)
     {
-        final long pClaim1 = fieldOffset(MpscRelaxedArrayQueueProducerCycleClaimFields.class, "producerFirstCycleClaim");
-        final long pClaim2 = fieldOffset(MpscRelaxedArrayQueueProducerCycleClaimFields.class, "producerSecondCycleClaim");
+        return cycleIndex == 0 ? lvProducerFirstCycleClaim() : lvProducerSecondCycleClaim();
+    }
 
-        P_CYCLE_CLAIM_BASE = Math.min(pClaim1, pClaim2);
-        ELEMENT_SHIFT = Integer.numberOfTrailingZeros(Long.SIZE / Byte.SIZE);
-        if (Math.max(pClaim1, pClaim2) != calcProducerCycleClaimOffset(1))
+    protected final void soProducerCycleClaim(int cycleIndex, long value)
+    {
+        if (cycleIndex == 0)
+        {
+            soProducerFirstCycleClaim(value);
+        }
+        else
         {
-            throw new RuntimeException("The JVM is not packing long fields as expected!");
+            soProducerSecondCycleClaim(value);
         }
     }
-    // these are treated as an array, just inlined
-    protected volatile long producerFirstCycleClaim;
-    protected volatile long producerSecondCycleClaim;
 
-    private static long calcProducerCycleClaimOffset(int index)
+    protected final long getAndIncrementProducerCycleClaim(int cycleIndex)
     {
-        return P_CYCLE_CLAIM_BASE + (index << ELEMENT_SHIFT);
+        return cycleIndex == 0 ? getAndIncrementProducerFirstCycleClaim() : getAndIncrementProducerSecondCycleClaim();
     }
 
-    protected final long lvProducerCycleClaim(int cycleIndex)
+    protected final boolean casProducerCycleClaim(int cycleIndex, long expectedValue, long newValue)
     {
-        return UNSAFE.getLongVolatile(this, calcProducerCycleClaimOffset(cycleIndex));
+        return cycleIndex == 0 ?
+            casProducerFirstCycleClaim(expectedValue, newValue) :
+            casProducerSecondCycleClaim(expectedValue, newValue);
     }
 
-    protected final void soProducerCycleClaim(int cycleIndex, long value)
+    private long lvProducerFirstCycleClaim()
     {
-        UNSAFE.putOrderedLong(this, calcProducerCycleClaimOffset(cycleIndex), value);
+        return producerFirstCycleClaim;
     }
 
-    protected final long getAndIncrementProducerCycleClaim(int cycleIndex)
+    private void soProducerFirstCycleClaim(long value)
     {
-        return UNSAFE.getAndAddLong(this, calcProducerCycleClaimOffset(cycleIndex), 1);
+        UNSAFE.putOrderedLong(this, P_FIRST_CYCLE_CLAIM_OFFSET, value);
     }
 
-    protected final boolean casProducerCycleClaim(int cycleIndex, long expectedValue, long newValue)
+    private long getAndIncrementProducerFirstCycleClaim()
+    {
+        return UNSAFE.getAndAddLong(this, P_FIRST_CYCLE_CLAIM_OFFSET, 1);
+    }
+
+    private boolean casProducerFirstCycleClaim(long expectedValue, long newValue)
+    {
+        return UNSAFE.compareAndSwapLong(this, P_FIRST_CYCLE_CLAIM_OFFSET, expectedValue, newValue);
+    }
+
+    private long lvProducerSecondCycleClaim()
+    {
+        return producerSecondCycleClaim;
+    }
+
+    private void soProducerSecondCycleClaim(long value)
+    {
+        UNSAFE.putOrderedLong(this, P_SECOND_CYCLE_CLAIM_OFFSET, value);
+    }
+
+    private long getAndIncrementProducerSecondCycleClaim()
     {
-        return UNSAFE.compareAndSwapLong(this, calcProducerCycleClaimOffset(cycleIndex), expectedValue, newValue);
+        return UNSAFE.getAndAddLong(this, P_SECOND_CYCLE_CLAIM_OFFSET, 1);
+    }
+
+    private boolean casProducerSecondCycleClaim(long expectedValue, long newValue)
+    {
+        return UNSAFE.compareAndSwapLong(this, P_SECOND_CYCLE_CLAIM_OFFSET, expectedValue, newValue);
     }
 }
 
 abstract class MpscRelaxedArrayQueueL4Pad<E> extends MpscRelaxedArrayQueueProducerCycleClaimFields<E>
 {
-    long p01, p02, p03, p04, p05, p06;
-    long p10, p11, p12, p13, p14, p15, p16, p17;
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
 }
 
 /**
- * This class is still work in progress, please do not pick up for production use just yet.
+ * A Multi-Producer-Single-Consumer queue based on a bounded array, where producers claim slots with a getAndAdd on
+ * the claim counter of the active cycle instead of a CAS on a shared producer index.<br>
+ * The buffer is split in 2 cycles of {@link #capacity()} elements each. Producers increment the claim of the active
+ * cycle, and the producer claiming the first position past the end of the cycle rotates the active cycle. An
+ * over-claim past the producer limit is rolled back with a CAS when the queue is full. This keeps producers from
+ * retrying a failed CAS on the same cache line under heavy contention, at the cost of allocating twice the requested
+ * capacity.<br>
+ * A producer descheduled for longer than a full rotation of the buffer fails its offer with an
+ * {@link IllegalStateException}, so a capacity comfortably above the number of producers is recommended.
+ * The iterator is not supported.
  */
 public class MpscRelaxedArrayQueue<E> extends MpscRelaxedArrayQueueL4Pad<E> implements MessagePassingQueue<E>
 {
@@ -264,7 +326,7 @@ public class MpscRelaxedArrayQueue<E> extends MpscRelaxedArrayQueueL4Pad<E> impl
     {
         RangeUtil.checkGreaterThanOrEqual(capacity, 2, "capacity");
         capacity = Pow2.roundToPowerOfTwo(capacity * 2);
-        this.buffer = (E[]) new Object[capacity];
+        this.buffer = allocateRefArray(capacity);
         this.soConsumerPosition(0);
         this.soActiveCycleId(0);
         this.mask = capacity - 1;
@@ -523,7 +585,7 @@ public class MpscRelaxedArrayQueue<E> extends MpscRelaxedArrayQueueL4Pad<E> impl
     private void soCycleElement(E[] buffer, E e, int activeCycleIndex, int positionWithinCycle, int cycleLengthLog2)
     {
         final int indexInBuffer = calcElementIndexInBuffer(positionWithinCycle, activeCycleIndex, cycleLengthLog2);
-        final long offset = UnsafeRefArrayAccess.calcRefElementOffset(indexInBuffer);
+        final long offset = calcRefElementOffset(indexInBuffer);
         soRefElement(buffer, offset, e);
     }
 
@@ -638,9 +700,10 @@ public class MpscRelaxedArrayQueue<E> extends MpscRelaxedArrayQueueL4Pad<E> impl
 
         // need to have a stable consumer and a valid claim
         final long size = producerPosition(positionWithinCycle, producerClaimCycleId, this.cycleLengthLog2) - after;
-        if (size > mask + 1)
+        final long bufferLength = mask + 1;
+        if (size > bufferLength)
         {
-            return (int) (mask + 1);
+            return (int) bufferLength;
         }
         else
         {
@@ -702,12 +765,28 @@ public class MpscRelaxedArrayQueue<E> extends MpscRelaxedArrayQueueL4Pad<E> impl
     @Override
     public int drain(Consumer<E> c)
     {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
         return drain(c, capacity());
     }
 
+    @Override
+    public int drain(E[] dst, int dstOffset, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, dstOffset, limit);
+    }
+
+    @Override
+    public int drain(List<? super E> dst, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, limit);
+    }
+
     @Override
     public int fill(Supplier<E> s)
     {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
         long result = 0;// result is a long because we want to have a safepoint check at regular intervals
         final int capacity = capacity();
         do
@@ -726,6 +805,10 @@ public class MpscRelaxedArrayQueue<E> extends MpscRelaxedArrayQueueL4Pad<E> impl
     @Override
     public int drain(Consumer<E> c, int limit)
     {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
         final E[] buffer = this.buffer;
         final long mask = this.mask;
         for (int i = 0; i < limit; i++)
@@ -750,6 +833,10 @@ public class MpscRelaxedArrayQueue<E> extends MpscRelaxedArrayQueueL4Pad<E> impl
     @Override
     public int fill(Supplier<E> s, int limit)
     {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
         final int positionOnCycleMask = this.positionWithinCycleMask;
         final int cycleLengthLog2 = this.cycleLengthLog2;
         final int cycleLength = this.cycleLength;
@@ -813,6 +900,12 @@ public class MpscRelaxedArrayQueue<E> extends MpscRelaxedArrayQueueL4Pad<E> impl
     @Override
     public void drain(Consumer<E> c, WaitStrategy w, ExitCondition exit)
     {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (null == w)
+            throw new IllegalArgumentException("wait is null");
+        if (null == exit)
+            throw new IllegalArgumentException("exit condition is null");
         final E[] buffer = this.buffer;
         final long mask = this.mask;
         long consumerPosition = lvConsumerPosition();
@@ -840,6 +933,12 @@ public class MpscRelaxedArrayQueue<E> extends MpscRelaxedArrayQueueL4Pad<E> impl
     @Override
     public void fill(Supplier<E> s, WaitStrategy w, ExitCondition exit)
     {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (null == w)
+            throw new IllegalArgumentException("waiter is null");
+        if (null == exit)
+            throw new IllegalArgumentException("exit condition is null");
         int idleCounter = 0;
         while (exit.keepRunning())
         {
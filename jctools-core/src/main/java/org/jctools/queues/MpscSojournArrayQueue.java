@@ -0,0 +1,952 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.util.RangeUtil;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+import static org.jctools.util.UnsafeLongArrayAccess.*;
+import static org.jctools.util.UnsafeRefArrayAccess.*;
+
+abstract class MpscSojournArrayQueueL1Pad<E> extends ConcurrentCircularArrayQueue<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    // byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpscSojournArrayQueueL1Pad(int capacity)
+    {
+        super(capacity);
+    }
+}
+
+//$gen:ordered-fields
+abstract class MpscSojournArrayQueueProducerIndexField<E> extends MpscSojournArrayQueueL1Pad<E>
+{
+    private final static long P_INDEX_OFFSET = fieldOffset(MpscSojournArrayQueueProducerIndexField.class, "producerIndex");
+
+    private volatile long producerIndex;
+
+    MpscSojournArrayQueueProducerIndexField(int capacity)
+    {
+        super(capacity);
+    }
+
+    @Override
+    public final long lvProducerIndex()
+    {
+        return producerIndex;
+    }
+
+    final boolean casProducerIndex(long expect, long newValue)
+    {
+        return UNSAFE.compareAndSwapLong(this, P_INDEX_OFFSET, expect, newValue);
+    }
+}
+
+abstract class MpscSojournArrayQueueMidPad<E> extends MpscSojournArrayQueueProducerIndexField<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpscSojournArrayQueueMidPad(int capacity)
+    {
+        super(capacity);
+    }
+}
+
+//$gen:ordered-fields
+abstract class MpscSojournArrayQueueProducerLimitField<E> extends MpscSojournArrayQueueMidPad<E>
+{
+    private final static long P_LIMIT_OFFSET = fieldOffset(MpscSojournArrayQueueProducerLimitField.class, "producerLimit");
+
+    // First unavailable index the producer may claim up to before rereading the consumer index
+    private volatile long producerLimit;
+
+    MpscSojournArrayQueueProducerLimitField(int capacity)
+    {
+        super(capacity);
+        this.producerLimit = capacity;
+    }
+
+    final long lvProducerLimit()
+    {
+        return producerLimit;
+    }
+
+    final void soProducerLimit(long newValue)
+    {
+        UNSAFE.putOrderedLong(this, P_LIMIT_OFFSET, newValue);
+    }
+}
+
+abstract class MpscSojournArrayQueueL2Pad<E> extends MpscSojournArrayQueueProducerLimitField<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    // byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpscSojournArrayQueueL2Pad(int capacity)
+    {
+        super(capacity);
+    }
+}
+
+//$gen:ordered-fields
+abstract class MpscSojournArrayQueueConsumerIndexField<E> extends MpscSojournArrayQueueL2Pad<E>
+{
+    private final static long C_INDEX_OFFSET = fieldOffset(MpscSojournArrayQueueConsumerIndexField.class, "consumerIndex");
+
+    private long consumerIndex;
+
+    MpscSojournArrayQueueConsumerIndexField(int capacity)
+    {
+        super(capacity);
+    }
+
+    @Override
+    public final long lvConsumerIndex()
+    {
+        return UNSAFE.getLongVolatile(this, C_INDEX_OFFSET);
+    }
+
+    final long lpConsumerIndex()
+    {
+        return consumerIndex;
+    }
+
+    final void soConsumerIndex(long newValue)
+    {
+        UNSAFE.putOrderedLong(this, C_INDEX_OFFSET, newValue);
+    }
+}
+
+abstract class MpscSojournArrayQueueL3Pad<E> extends MpscSojournArrayQueueConsumerIndexField<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpscSojournArrayQueueL3Pad(int capacity)
+    {
+        super(capacity);
+    }
+}
+
+//$gen:ordered-fields
+abstract class MpscSojournArrayQueueClockFields<E> extends MpscSojournArrayQueueL3Pad<E>
+{
+    private final static long CLOCK_OFFSET = fieldOffset(MpscSojournArrayQueueClockFields.class, "clock");
+    private final static long ADMISSION_LIMIT_OFFSET =
+        fieldOffset(MpscSojournArrayQueueClockFields.class, "admissionLimit");
+    private final static long MIN_SOJOURN_OFFSET = fieldOffset(MpscSojournArrayQueueClockFields.class, "minSojourn");
+
+    // enqueue time of the element in the matching buffer slot
+    protected final long[] stamps;
+    protected final long targetNanos;
+    protected final long intervalNanos;
+    protected final long clockResolutionNanos;
+
+    // coarse clock, written by the consumer and read by producers to stamp elements
+    private volatile long clock;
+    // the size offerIfAdmitted offers below, the capacity unless the last interval was over target
+    private volatile int admissionLimit;
+    // minimum sojourn time of the last complete interval
+    private volatile long minSojourn;
+
+    MpscSojournArrayQueueClockFields(int capacity, long targetNanos, long intervalNanos)
+    {
+        super(capacity);
+        RangeUtil.checkPositive(targetNanos, "targetNanos");
+        RangeUtil.checkPositive(intervalNanos, "intervalNanos");
+        this.stamps = allocateLongArray((int) (mask + 1));
+        this.targetNanos = targetNanos;
+        this.intervalNanos = intervalNanos;
+        this.clockResolutionNanos = Math.max(1, targetNanos >> 4);
+        this.clock = System.nanoTime();
+        this.admissionLimit = (int) (mask + 1);
+    }
+
+    final long lvClock()
+    {
+        return clock;
+    }
+
+    final long lpClock()
+    {
+        return UNSAFE.getLong(this, CLOCK_OFFSET);
+    }
+
+    final void soClock(long newValue)
+    {
+        UNSAFE.putOrderedLong(this, CLOCK_OFFSET, newValue);
+    }
+
+    final int lvAdmissionLimit()
+    {
+        return admissionLimit;
+    }
+
+    final int lpAdmissionLimit()
+    {
+        return UNSAFE.getInt(this, ADMISSION_LIMIT_OFFSET);
+    }
+
+    final void soAdmissionLimit(int newValue)
+    {
+        UNSAFE.putOrderedInt(this, ADMISSION_LIMIT_OFFSET, newValue);
+    }
+
+    final long lvMinSojourn()
+    {
+        return minSojourn;
+    }
+
+    final void soMinSojourn(long newValue)
+    {
+        UNSAFE.putOrderedLong(this, MIN_SOJOURN_OFFSET, newValue);
+    }
+}
+
+abstract class MpscSojournArrayQueueL4Pad<E> extends MpscSojournArrayQueueClockFields<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MpscSojournArrayQueueL4Pad(int capacity, long targetNanos, long intervalNanos)
+    {
+        super(capacity, targetNanos, intervalNanos);
+    }
+}
+
+abstract class MpscSojournArrayQueueConsumerFields<E> extends MpscSojournArrayQueueL4Pad<E>
+{
+    // sojourn interval state, only accessed by the consumer
+    long intervalStart;
+    long intervalEnd;
+    long intervalStartIndex;
+    long intervalMinSojourn;
+
+    MpscSojournArrayQueueConsumerFields(int capacity, long targetNanos, long intervalNanos)
+    {
+        super(capacity, targetNanos, intervalNanos);
+        intervalStart = lpClock();
+        intervalEnd = intervalStart + intervalNanos;
+        intervalMinSojourn = Long.MAX_VALUE;
+    }
+}
+
+/**
+ * An MPSC queue with the {@link MpscArrayQueue} layout which tracks how long elements wait in the queue (their sojourn
+ * time) and sheds load CoDel style when they wait too long.<br>
+ * Producers stamp each element with a coarse clock as they store it. The clock is a field the consumer updates from
+ * {@link System#nanoTime()} as it polls, so producers pay a load and a plain store per element rather than a call to
+ * {@code nanoTime}. The clock lags real time by as much as the time between consumer polls, so a stamp is never later
+ * than the actual enqueue time and sojourn times are overestimated rather than underestimated.<br>
+ * The consumer tracks the minimum sojourn time of the elements it takes in each interval. The minimum, rather than
+ * the mean or the maximum, is what separates a standing queue from a burst: a burst drains within an interval and
+ * some element gets through quickly, a standing queue keeps every element waiting. Finding the queue empty counts as
+ * a 0 sojourn time. At the end of an interval where the minimum exceeded the target the queue is overloaded, and the
+ * consumer turns the latency target into a depth limit using the dequeue rate of the interval (Little's law). Offers
+ * made with {@link #offerIfAdmitted(Object)} go through the {@link #offerIfBelowThreshold(Object, int)} path with
+ * that limit and are rejected until an interval ends within target. All other offers only fail when the queue is
+ * full, callers wanting to flag rather than reject can check {@link #isOverloaded()}.<br>
+ * Drains time a batch once, on starting, and count the sojourn time of its last element only, which underestimates
+ * it rather than overestimates it.
+ */
+public class MpscSojournArrayQueue<E> extends MpscSojournArrayQueueConsumerFields<E>
+    implements OfferIfBelowThreshold<E>, OfferBatch<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    public static final long DEFAULT_TARGET_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    public static final long DEFAULT_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * Use the CoDel defaults, a target of {@link #DEFAULT_TARGET_NANOS} and an interval of
+     * {@link #DEFAULT_INTERVAL_NANOS}.
+     */
+    public MpscSojournArrayQueue(int capacity)
+    {
+        this(capacity, DEFAULT_TARGET_NANOS, DEFAULT_INTERVAL_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param capacity the queue capacity, rounded up to the next power of 2
+     * @param target   the acceptable minimum sojourn time over an interval
+     * @param interval the time over which the minimum sojourn time is tracked, in the order of the consumer's worst
+     *                 case processing time
+     * @param unit     the unit of target and interval
+     */
+    public MpscSojournArrayQueue(int capacity, long target, long interval, TimeUnit unit)
+    {
+        super(capacity, unit.toNanos(target), unit.toNanos(interval));
+    }
+
+    public long targetNanos()
+    {
+        return targetNanos;
+    }
+
+    public long intervalNanos()
+    {
+        return intervalNanos;
+    }
+
+    /**
+     * @return the minimum sojourn time of the last complete interval, 0 before the first interval completes
+     */
+    public long minSojournNanos()
+    {
+        return lvMinSojourn();
+    }
+
+    /**
+     * @return true if the minimum sojourn time of the last complete interval exceeded the target
+     */
+    public boolean isOverloaded()
+    {
+        return lvMinSojourn() > targetNanos;
+    }
+
+    /**
+     * @return the size below which {@link #offerIfAdmitted(Object)} offers, the capacity unless overloaded
+     */
+    public int admissionLimit()
+    {
+        return lvAdmissionLimit();
+    }
+
+    /**
+     * {@link #offerIfBelowThreshold} the {@link #admissionLimit()}, i.e. {@link #offer} unless the queue is overloaded
+     * and its size is not below the depth the consumer can drain within the target.
+     *
+     * @param e the object to offer onto the queue, not null
+     * @return true if the offer is successful, false if the queue is full or the offer was shed
+     */
+    public boolean offerIfAdmitted(final E e)
+    {
+        return offerIfBelowThreshold(e, lvAdmissionLimit());
+    }
+
+    @Override
+    public boolean offerIfBelowThreshold(final E e, int threshold)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException();
+        }
+
+        final long mask = this.mask;
+        final long capacity = mask + 1;
+
+        long producerLimit = lvProducerLimit();
+        long pIndex;
+        do
+        {
+            pIndex = lvProducerIndex();
+            long available = producerLimit - pIndex;
+            long size = capacity - available;
+            if (size >= threshold)
+            {
+                final long cIndex = lvConsumerIndex();
+                size = pIndex - cIndex;
+                if (size >= threshold)
+                {
+                    return false; // the size exceeds threshold
+                }
+                else
+                {
+                    // update producer limit to the next index that we must recheck the consumer index
+                    producerLimit = cIndex + capacity;
+
+                    // this is racy, but the race is benign
+                    soProducerLimit(producerLimit);
+                }
+            }
+        }
+        while (!casProducerIndex(pIndex, pIndex + 1));
+
+        // stamp before the element is visible to the consumer
+        spLongElement(stamps, calcCircularLongElementOffset(pIndex, mask), lvClock());
+        soRefElement(buffer, calcCircularRefElementOffset(pIndex, mask), e);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc} <br>
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * Lock free offer using a single CAS, as {@link MpscArrayQueue#offer}. Only fails if the queue is full, whatever
+     * the sojourn time.
+     */
+    @Override
+    public boolean offer(final E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException();
+        }
+
+        final long mask = this.mask;
+        long producerLimit = lvProducerLimit();
+        long pIndex;
+        do
+        {
+            pIndex = lvProducerIndex();
+            if (pIndex >= producerLimit)
+            {
+                final long cIndex = lvConsumerIndex();
+                producerLimit = cIndex + mask + 1;
+
+                if (pIndex >= producerLimit)
+                {
+                    return false; // FULL :(
+                }
+                else
+                {
+                    // update producer limit to the next index that we must recheck the consumer index
+                    // this is racy, but the race is benign
+                    soProducerLimit(producerLimit);
+                }
+            }
+        }
+        while (!casProducerIndex(pIndex, pIndex + 1));
+
+        // stamp before the element is visible to the consumer
+        spLongElement(stamps, calcCircularLongElementOffset(pIndex, mask), lvClock());
+        soRefElement(buffer, calcCircularRefElementOffset(pIndex, mask), e);
+        return true;
+    }
+
+    @Override
+    public boolean relaxedOffer(E e)
+    {
+        return offer(e);
+    }
+
+    private void stampClaimed(long pIndex, int length)
+    {
+        final long[] stamps = this.stamps;
+        final long mask = this.mask;
+        final long stamp = lvClock();
+        for (int i = 0; i < length; i++)
+        {
+            spLongElement(stamps, calcCircularLongElementOffset(pIndex + i, mask), stamp);
+        }
+    }
+
+    @Override
+    public int fill(Supplier<E> s, int limit)
+    {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        if (limit == 0)
+            return 0;
+
+        final long mask = this.mask;
+        final long capacity = mask + 1;
+        long producerLimit = lvProducerLimit();
+        long pIndex;
+        int actualLength;
+        do
+        {
+            pIndex = lvProducerIndex();
+            long available = producerLimit - pIndex;
+            if (available <= 0)
+            {
+                final long cIndex = lvConsumerIndex();
+                producerLimit = cIndex + capacity;
+                available = producerLimit - pIndex;
+                if (available <= 0)
+                {
+                    return 0; // FULL :(
+                }
+                else
+                {
+                    // update producer limit to the next index that we must recheck the consumer index
+                    soProducerLimit(producerLimit);
+                }
+            }
+            actualLength = (int) Math.min(available, limit);
+        }
+        while (!casProducerIndex(pIndex, pIndex + actualLength));
+        stampClaimed(pIndex, actualLength);
+        final E[] buffer = this.buffer;
+        for (int i = 0; i < actualLength; i++)
+        {
+            soRefElement(buffer, calcCircularRefElementOffset(pIndex + i, mask), s.get());
+        }
+        return actualLength;
+    }
+
+    @Override
+    public int offer(final E[] src, final int srcOffset, final int length)
+    {
+        MessagePassingQueueUtil.checkOfferBatch(src, srcOffset, length);
+        if (length == 0)
+            return 0;
+
+        final long mask = this.mask;
+        final long capacity = mask + 1;
+        long producerLimit = lvProducerLimit();
+        long pIndex;
+        int actualLength;
+        do
+        {
+            pIndex = lvProducerIndex();
+            long available = producerLimit - pIndex;
+            if (available <= 0)
+            {
+                final long cIndex = lvConsumerIndex();
+                producerLimit = cIndex + capacity;
+                available = producerLimit - pIndex;
+                if (available <= 0)
+                {
+                    return 0; // FULL :(
+                }
+                else
+                {
+                    // update producer limit to the next index that we must recheck the consumer index
+                    soProducerLimit(producerLimit);
+                }
+            }
+            actualLength = (int) Math.min(available, length);
+        }
+        while (!casProducerIndex(pIndex, pIndex + actualLength));
+        stampClaimed(pIndex, actualLength);
+        final E[] buffer = this.buffer;
+        for (int i = 0; i < actualLength; i++)
+        {
+            soRefElement(buffer, calcCircularRefElementOffset(pIndex + i, mask), src[srcOffset + i]);
+        }
+        return actualLength;
+    }
+
+    @Override
+    public int offer(final List<? extends E> src, final int srcOffset, final int length)
+    {
+        MessagePassingQueueUtil.checkOfferBatch(src, srcOffset, length);
+        if (length == 0)
+            return 0;
+
+        final long mask = this.mask;
+        final long capacity = mask + 1;
+        long producerLimit = lvProducerLimit();
+        long pIndex;
+        int actualLength;
+        do
+        {
+            pIndex = lvProducerIndex();
+            long available = producerLimit - pIndex;
+            if (available <= 0)
+            {
+                final long cIndex = lvConsumerIndex();
+                producerLimit = cIndex + capacity;
+                available = producerLimit - pIndex;
+                if (available <= 0)
+                {
+                    return 0; // FULL :(
+                }
+                else
+                {
+                    // update producer limit to the next index that we must recheck the consumer index
+                    soProducerLimit(producerLimit);
+                }
+            }
+            actualLength = (int) Math.min(available, length);
+        }
+        while (!casProducerIndex(pIndex, pIndex + actualLength));
+        stampClaimed(pIndex, actualLength);
+        final E[] buffer = this.buffer;
+        for (int i = 0; i < actualLength; i++)
+        {
+            soRefElement(buffer, calcCircularRefElementOffset(pIndex + i, mask), src.get(srcOffset + i));
+        }
+        return actualLength;
+    }
+
+    @Override
+    public int fill(Supplier<E> s)
+    {
+        return MessagePassingQueueUtil.fillBounded(this, s);
+    }
+
+    @Override
+    public void fill(Supplier<E> s, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.fill(this, s, wait, exit);
+    }
+
+    private void onDequeue(long now, long stamp, long cIndex)
+    {
+        final long sojourn = now - stamp;
+        if (sojourn < intervalMinSojourn)
+        {
+            intervalMinSojourn = sojourn;
+        }
+        tick(now, cIndex);
+    }
+
+    private void onEmpty(long now, long cIndex)
+    {
+        intervalMinSojourn = 0;
+        tick(now, cIndex);
+    }
+
+    private void tick(long now, long cIndex)
+    {
+        if (now - lpClock() >= clockResolutionNanos)
+        {
+            soClock(now);
+        }
+        if (now - intervalEnd >= 0)
+        {
+            endInterval(now, cIndex);
+        }
+    }
+
+    private void endInterval(long now, long cIndex)
+    {
+        final long minSojourn = intervalMinSojourn;
+        final int capacity = (int) (mask + 1);
+        int limit = capacity;
+        if (minSojourn > targetNanos)
+        {
+            // Little's law: the depth the consumer drains within the target at this interval's dequeue rate
+            final double dequeueRate = (double) (cIndex - intervalStartIndex) / (now - intervalStart);
+            limit = (int) Math.max(1, Math.min(capacity, dequeueRate * targetNanos));
+        }
+        if (limit != lpAdmissionLimit())
+        {
+            soAdmissionLimit(limit);
+        }
+        soMinSojourn(minSojourn);
+
+        intervalStart = now;
+        intervalEnd = now + intervalNanos;
+        intervalStartIndex = cIndex;
+        intervalMinSojourn = Long.MAX_VALUE;
+    }
+
+    @Override
+    public E poll()
+    {
+        final long cIndex = lpConsumerIndex();
+        final long offset = calcCircularRefElementOffset(cIndex, mask);
+        // Copy field to avoid re-reading after volatile load
+        final E[] buffer = this.buffer;
+
+        // If we can't see the next available element we can't poll
+        E e = lvRefElement(buffer, offset);
+        if (null == e)
+        {
+            /*
+             * NOTE: Queue may not actually be empty in the case of a producer (P1) being interrupted after
+             * winning the CAS on offer but before storing the element in the queue. Other producers may go on
+             * to fill up the queue after this element.
+             */
+            if (cIndex != lvProducerIndex())
+            {
+                do
+                {
+                    e = lvRefElement(buffer, offset);
+                }
+                while (e == null);
+            }
+            else
+            {
+                onEmpty(System.nanoTime(), cIndex);
+                return null;
+            }
+        }
+
+        // read the stamp before the slot is released to producers
+        final long stamp = lpLongElement(stamps, calcCircularLongElementOffset(cIndex, mask));
+        spRefElement(buffer, offset, null);
+        soConsumerIndex(cIndex + 1);
+        onDequeue(System.nanoTime(), stamp, cIndex + 1);
+        return e;
+    }
+
+    @Override
+    public E relaxedPoll()
+    {
+        final E[] buffer = this.buffer;
+        final long cIndex = lpConsumerIndex();
+        final long offset = calcCircularRefElementOffset(cIndex, mask);
+
+        // If we can't see the next available element we can't poll
+        E e = lvRefElement(buffer, offset);
+        if (null == e)
+        {
+            onEmpty(System.nanoTime(), cIndex);
+            return null;
+        }
+
+        final long stamp = lpLongElement(stamps, calcCircularLongElementOffset(cIndex, mask));
+        spRefElement(buffer, offset, null);
+        soConsumerIndex(cIndex + 1);
+        onDequeue(System.nanoTime(), stamp, cIndex + 1);
+        return e;
+    }
+
+    @Override
+    public E peek()
+    {
+        // Copy field to avoid re-reading after volatile load
+        final E[] buffer = this.buffer;
+
+        final long cIndex = lpConsumerIndex();
+        final long offset = calcCircularRefElementOffset(cIndex, mask);
+        E e = lvRefElement(buffer, offset);
+        if (null == e)
+        {
+            if (cIndex != lvProducerIndex())
+            {
+                do
+                {
+                    e = lvRefElement(buffer, offset);
+                }
+                while (e == null);
+            }
+            else
+            {
+                return null;
+            }
+        }
+        return e;
+    }
+
+    @Override
+    public E relaxedPeek()
+    {
+        return lvRefElement(buffer, calcCircularRefElementOffset(lpConsumerIndex(), mask));
+    }
+
+    @Override
+    public int drain(final Consumer<E> c, final int limit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+        if (limit == 0)
+            return 0;
+
+        final long now = System.nanoTime();
+        final E[] buffer = this.buffer;
+        final long[] stamps = this.stamps;
+        final long mask = this.mask;
+        final long cIndex = lpConsumerIndex();
+
+        long stamp = 0;
+        int i = 0;
+        for (; i < limit; i++)
+        {
+            final long index = cIndex + i;
+            final long offset = calcCircularRefElementOffset(index, mask);
+            final E e = lvRefElement(buffer, offset);
+            if (null == e)
+            {
+                break;
+            }
+            stamp = lpLongElement(stamps, calcCircularLongElementOffset(index, mask));
+            spRefElement(buffer, offset, null);
+            soConsumerIndex(index + 1); // ordered store -> atomic and ordered for size()
+            c.accept(e);
+        }
+        onDrain(now, stamp, cIndex + i, i, limit);
+        return i;
+    }
+
+    @Override
+    public int drain(final E[] dst, final int dstOffset, final int limit)
+    {
+        MessagePassingQueueUtil.checkDrainBatch(dst, dstOffset, limit);
+        if (limit == 0)
+            return 0;
+
+        final long now = System.nanoTime();
+        final E[] buffer = this.buffer;
+        final long mask = this.mask;
+        final long cIndex = lpConsumerIndex();
+
+        int i = 0;
+        for (; i < limit; i++)
+        {
+            final long offset = calcCircularRefElementOffset(cIndex + i, mask);
+            final E e = lvRefElement(buffer, offset);
+            if (null == e)
+            {
+                break;
+            }
+            spRefElement(buffer, offset, null);
+            dst[dstOffset + i] = e;
+        }
+        return releaseBatch(now, cIndex, i, limit);
+    }
+
+    @Override
+    public int drain(final List<? super E> dst, final int limit)
+    {
+        MessagePassingQueueUtil.checkDrainBatch(dst, limit);
+        if (limit == 0)
+            return 0;
+
+        final long now = System.nanoTime();
+        final E[] buffer = this.buffer;
+        final long mask = this.mask;
+        final long cIndex = lpConsumerIndex();
+
+        int i = 0;
+        for (; i < limit; i++)
+        {
+            final long offset = calcCircularRefElementOffset(cIndex + i, mask);
+            final E e = lvRefElement(buffer, offset);
+            if (null == e)
+            {
+                break;
+            }
+            spRefElement(buffer, offset, null);
+            dst.add(e);
+        }
+        return releaseBatch(now, cIndex, i, limit);
+    }
+
+    private int releaseBatch(long now, long cIndex, int drained, int limit)
+    {
+        long stamp = 0;
+        if (drained != 0)
+        {
+            // read the last stamp before the whole batch is released to producers by a single ordered store
+            stamp = lpLongElement(stamps, calcCircularLongElementOffset(cIndex + drained - 1, mask));
+            soConsumerIndex(cIndex + drained);
+        }
+        onDrain(now, stamp, cIndex + drained, drained, limit);
+        return drained;
+    }
+
+    private void onDrain(long now, long lastStamp, long cIndex, int drained, int limit)
+    {
+        if (drained != 0)
+        {
+            onDequeue(now, lastStamp, cIndex);
+        }
+        if (drained < limit)
+        {
+            onEmpty(now, cIndex);
+        }
+    }
+
+    @Override
+    public int drain(Consumer<E> c)
+    {
+        return drain(c, capacity());
+    }
+
+    @Override
+    public void drain(Consumer<E> c, WaitStrategy w, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.drain(this, c, w, exit);
+    }
+}
@@ -0,0 +1,403 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jctools.queues.MessagePassingQueue.Consumer;
+import org.jctools.util.Pow2;
+import org.jctools.util.RangeUtil;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+
+/**
+ * A hashed hierarchical timing wheel owned by a single ticking thread, fed by any number of scheduling and cancelling
+ * threads through {@link MpscUnboundedArrayQueue}s. Scheduling and cancelling are an offer to a queue, and do not
+ * contend on the wheel.<br>
+ * The wheel has {@code levels} levels of {@code wheelSize} buckets, a bucket of level {@code L} spans
+ * {@code wheelSize^L} ticks. A timeout is placed in the lowest level covering its deadline, and cascaded down to the
+ * lower levels as the wheel turns. Timeouts beyond the span of the top level are parked in it until they are in
+ * range. Buckets are intrusive doubly linked lists, so a cancelled timeout is unlinked in O(1).<br>
+ * The ticking thread calls {@link #expire(long, Consumer)}, which drains the scheduled and cancelled timeouts into the
+ * wheel, turns it up to the given time and hands the attachments of the expired timeouts to the consumer in a batch.
+ * A timeout never expires before its deadline, and expires up to a tick after it for a ticking thread keeping up.
+ */
+public class MpscTimingWheel<T>
+{
+    private final MpscUnboundedArrayQueue<Timeout<T>> scheduled;
+    private final MpscUnboundedArrayQueue<Timeout<T>> cancelled;
+    private final long startNanos;
+    private final long tickNanos;
+    private final int wheelBits;
+    private final int wheelMask;
+    private final int levels;
+    private final long maxDeltaTicks;
+    private final Consumer<Timeout<T>> intake;
+    private final Consumer<Timeout<T>> cancellation;
+
+    // only accessed by the ticking thread
+    private final Timeout<T>[] buckets;
+    private long currentTick;
+    private int timeouts;
+    private Consumer<T> expired;
+    private int expiredCount;
+
+    /**
+     * @param tickDuration the wheel resolution
+     * @param unit         of the tick duration
+     * @param wheelSize    the number of buckets of each level, will be rounded up to the next power of 2
+     * @param levels       the number of levels, the span of the top level is {@code tick * wheelSize^levels}
+     * @param startNanos   the {@link System#nanoTime()} of the wheel start, the time of tick 0
+     */
+    @SuppressWarnings("unchecked")
+    public MpscTimingWheel(long tickDuration, TimeUnit unit, int wheelSize, int levels, long startNanos)
+    {
+        this.tickNanos = RangeUtil.checkPositive(unit.toNanos(tickDuration), "tickDuration");
+        RangeUtil.checkGreaterThanOrEqual(wheelSize, 2, "wheelSize");
+        RangeUtil.checkGreaterThanOrEqual(levels, 1, "levels");
+        this.wheelBits = Integer.numberOfTrailingZeros(Pow2.roundToPowerOfTwo(wheelSize));
+        RangeUtil.checkLessThanOrEqual(wheelBits * levels, 62, "wheelBits * levels");
+        this.wheelMask = (1 << wheelBits) - 1;
+        this.levels = levels;
+        this.maxDeltaTicks = (1L << (wheelBits * levels)) - 1;
+        this.startNanos = startNanos;
+        this.buckets = new Timeout[levels << wheelBits];
+        this.scheduled = new MpscUnboundedArrayQueue<Timeout<T>>(1024);
+        this.cancelled = new MpscUnboundedArrayQueue<Timeout<T>>(1024);
+        this.intake = new Consumer<Timeout<T>>()
+        {
+            @Override
+            public void accept(Timeout<T> timeout)
+            {
+                intake(timeout);
+            }
+        };
+        this.cancellation = new Consumer<Timeout<T>>()
+        {
+            @Override
+            public void accept(Timeout<T> timeout)
+            {
+                unlink(timeout);
+            }
+        };
+    }
+
+    /**
+     * Called from any thread.
+     *
+     * @return the timeout, to cancel it
+     */
+    public Timeout<T> schedule(T attachment, long delay, TimeUnit unit)
+    {
+        return scheduleAt(attachment, System.nanoTime() + unit.toNanos(delay));
+    }
+
+    /**
+     * Called from any thread.
+     *
+     * @param deadlineNanos the {@link System#nanoTime()} to expire the timeout at
+     * @return the timeout, to cancel it
+     */
+    public Timeout<T> scheduleAt(T attachment, long deadlineNanos)
+    {
+        if (null == attachment)
+        {
+            throw new NullPointerException();
+        }
+        final Timeout<T> timeout = new Timeout<T>(this, attachment, deadlineNanos);
+        scheduled.offer(timeout);
+        return timeout;
+    }
+
+    /**
+     * Called from the ticking thread only. Takes in the timeouts scheduled and cancelled so far, and turns the wheel
+     * up to the tick of the given time.
+     *
+     * @param nowNanos the current {@link System#nanoTime()}
+     * @param c        handed the attachments of the expired timeouts
+     * @return the number of expired timeouts
+     */
+    public int expire(long nowNanos, Consumer<T> c)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        expired = c;
+        expiredCount = 0;
+        try
+        {
+            // a timeout cancelled before it is taken in is dropped on intake, its cancellation finds it unlinked
+            while (scheduled.drain(intake) != 0)
+            {
+                // drain in batches until the producers are caught up with
+            }
+            while (cancelled.drain(cancellation) != 0)
+            {
+                // same as above
+            }
+            final long targetTick = (nowNanos - startNanos) / tickNanos;
+            if (timeouts == 0)
+            {
+                // nothing to cascade or expire on the way
+                currentTick = Math.max(currentTick, targetTick);
+            }
+            while (currentTick < targetTick)
+            {
+                currentTick++;
+                cascade();
+                expireBucket((int) (currentTick & wheelMask));
+            }
+            return expiredCount;
+        }
+        finally
+        {
+            expired = null;
+        }
+    }
+
+    /**
+     * @return the current tick, the number of tick durations from the start to the last {@link #expire} time
+     */
+    public long currentTick()
+    {
+        return currentTick;
+    }
+
+    /**
+     * @return the number of timeouts in the wheel, not counting those not yet taken in by {@link #expire}
+     */
+    public int timeouts()
+    {
+        return timeouts;
+    }
+
+    private void intake(Timeout<T> timeout)
+    {
+        if (timeout.lvState() != Timeout.PENDING)
+        {
+            // cancelled before it made it into the wheel
+            return;
+        }
+        final long elapsedNanos = timeout.deadlineNanos - startNanos;
+        // round up, so it does not expire before its deadline
+        timeout.deadlineTick = elapsedNanos <= 0 ? 0 : (elapsedNanos - 1) / tickNanos + 1;
+        if (timeout.deadlineTick <= currentTick)
+        {
+            expire(timeout);
+            return;
+        }
+        timeouts++;
+        place(timeout);
+    }
+
+    private void place(Timeout<T> timeout)
+    {
+        long deadlineTick = timeout.deadlineTick;
+        long deltaTicks = deadlineTick - currentTick;
+        if (deltaTicks > maxDeltaTicks)
+        {
+            // park it in the top level, it is cascaded back in when in range
+            deltaTicks = maxDeltaTicks;
+            deadlineTick = currentTick + maxDeltaTicks;
+        }
+        int level = 0;
+        while (level < levels - 1 && deltaTicks >> (wheelBits * (level + 1)) != 0)
+        {
+            level++;
+        }
+        link(timeout, (level << wheelBits) | (int) ((deadlineTick >>> (wheelBits * level)) & wheelMask));
+    }
+
+    /**
+     * Re-place the timeouts of the higher level buckets starting at the current tick, from the top level down so
+     * timeouts cascaded into a lower level bucket starting now are cascaded again.
+     */
+    private void cascade()
+    {
+        int topLevel = 0;
+        while (topLevel < levels - 1 && (currentTick & ((1L << (wheelBits * (topLevel + 1))) - 1)) == 0)
+        {
+            topLevel++;
+        }
+        for (int level = topLevel; level > 0; level--)
+        {
+            final int bucket = (level << wheelBits) | (int) ((currentTick >>> (wheelBits * level)) & wheelMask);
+            Timeout<T> timeout = detach(bucket);
+            while (timeout != null)
+            {
+                final Timeout<T> next = timeout.next;
+                timeout.next = null;
+                place(timeout);
+                timeout = next;
+            }
+        }
+    }
+
+    private void expireBucket(int bucket)
+    {
+        Timeout<T> timeout = detach(bucket);
+        while (timeout != null)
+        {
+            final Timeout<T> next = timeout.next;
+            timeout.next = null;
+            timeouts--;
+            expire(timeout);
+            timeout = next;
+        }
+    }
+
+    private void expire(Timeout<T> timeout)
+    {
+        // lost to a cancel, the cancellation finds it unlinked
+        if (timeout.casState(Timeout.PENDING, Timeout.EXPIRED))
+        {
+            expiredCount++;
+            expired.accept(timeout.attachment);
+        }
+    }
+
+    private void link(Timeout<T> timeout, int bucket)
+    {
+        final Timeout<T> head = buckets[bucket];
+        timeout.bucket = bucket;
+        timeout.prev = null;
+        timeout.next = head;
+        if (head != null)
+        {
+            head.prev = timeout;
+        }
+        buckets[bucket] = timeout;
+    }
+
+    private void unlink(Timeout<T> timeout)
+    {
+        final int bucket = timeout.bucket;
+        if (bucket == Timeout.NO_BUCKET)
+        {
+            // not taken in yet, or expired
+            return;
+        }
+        final Timeout<T> prev = timeout.prev;
+        final Timeout<T> next = timeout.next;
+        if (prev == null)
+        {
+            buckets[bucket] = next;
+        }
+        else
+        {
+            prev.next = next;
+        }
+        if (next != null)
+        {
+            next.prev = prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucket = Timeout.NO_BUCKET;
+        timeouts--;
+    }
+
+    /**
+     * @return the head of the bucket list, the timeouts are unlinked from the bucket but still linked to each other
+     */
+    private Timeout<T> detach(int bucket)
+    {
+        final Timeout<T> head = buckets[bucket];
+        buckets[bucket] = null;
+        for (Timeout<T> timeout = head; timeout != null; timeout = timeout.next)
+        {
+            timeout.prev = null;
+            timeout.bucket = Timeout.NO_BUCKET;
+        }
+        return head;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+
+    public static final class Timeout<T>
+    {
+        private final static long STATE_OFFSET = fieldOffset(Timeout.class, "state");
+        static final int PENDING = 0;
+        static final int CANCELLED = 1;
+        static final int EXPIRED = 2;
+        static final int NO_BUCKET = -1;
+
+        private final MpscTimingWheel<T> wheel;
+        private final T attachment;
+        private final long deadlineNanos;
+        private volatile int state;
+
+        // only accessed by the ticking thread
+        long deadlineTick;
+        int bucket = NO_BUCKET;
+        Timeout<T> prev;
+        Timeout<T> next;
+
+        Timeout(MpscTimingWheel<T> wheel, T attachment, long deadlineNanos)
+        {
+            this.wheel = wheel;
+            this.attachment = attachment;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        public T attachment()
+        {
+            return attachment;
+        }
+
+        public long deadlineNanos()
+        {
+            return deadlineNanos;
+        }
+
+        /**
+         * Called from any thread, the timeout is removed from the wheel on the next {@link MpscTimingWheel#expire}.
+         *
+         * @return true if cancelled, false if already expired or cancelled
+         */
+        public boolean cancel()
+        {
+            if (!casState(PENDING, CANCELLED))
+            {
+                return false;
+            }
+            wheel.cancelled.offer(this);
+            return true;
+        }
+
+        public boolean isCancelled()
+        {
+            return lvState() == CANCELLED;
+        }
+
+        public boolean isExpired()
+        {
+            return lvState() == EXPIRED;
+        }
+
+        int lvState()
+        {
+            return state;
+        }
+
+        boolean casState(int expect, int newValue)
+        {
+            return UNSAFE.compareAndSwapInt(this, STATE_OFFSET, expect, newValue);
+        }
+    }
+}
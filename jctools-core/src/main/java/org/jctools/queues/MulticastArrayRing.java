@@ -0,0 +1,647 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.queues.MessagePassingQueue.Consumer;
+import org.jctools.queues.MessagePassingQueue.ExitCondition;
+import org.jctools.queues.MessagePassingQueue.WaitStrategy;
+import org.jctools.util.Pow2;
+import org.jctools.util.RangeUtil;
+
+import java.util.Arrays;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+import static org.jctools.util.UnsafeLongArrayAccess.*;
+import static org.jctools.util.UnsafeRefArrayAccess.*;
+
+abstract class MulticastArrayRingL0Pad<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+abstract class MulticastArrayRingColdFields<E> extends MulticastArrayRingL0Pad<E>
+{
+    private final static long SUBSCRIBERS_OFFSET = fieldOffset(MulticastArrayRingColdFields.class, "subscribers");
+    static final MulticastArrayRing.Subscriber[] NO_SUBSCRIBERS = new MulticastArrayRing.Subscriber[0];
+
+    protected final long mask;
+    protected final E[] buffer;
+    protected final long[] sequenceBuffer;
+    protected final boolean overwrite;
+    private volatile MulticastArrayRing.Subscriber<E>[] subscribers;
+
+    @SuppressWarnings("unchecked")
+    MulticastArrayRingColdFields(int capacity, boolean overwrite)
+    {
+        int actualCapacity = Pow2.roundToPowerOfTwo(capacity);
+        mask = actualCapacity - 1;
+        buffer = allocateRefArray(actualCapacity);
+        sequenceBuffer = allocateLongArray(actualCapacity);
+        // each slot starts out as if the element one lap before the first was published to it
+        for (long i = 0; i < actualCapacity; i++)
+        {
+            soLongElement(sequenceBuffer, calcCircularLongElementOffset(i, mask), i - mask);
+        }
+        this.overwrite = overwrite;
+        subscribers = NO_SUBSCRIBERS;
+    }
+
+    final MulticastArrayRing.Subscriber<E>[] lvSubscribers()
+    {
+        return subscribers;
+    }
+
+    final boolean casSubscribers(MulticastArrayRing.Subscriber<E>[] expect, MulticastArrayRing.Subscriber<E>[] newValue)
+    {
+        return UNSAFE.compareAndSwapObject(this, SUBSCRIBERS_OFFSET, expect, newValue);
+    }
+}
+
+abstract class MulticastArrayRingL1Pad<E> extends MulticastArrayRingColdFields<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MulticastArrayRingL1Pad(int capacity, boolean overwrite)
+    {
+        super(capacity, overwrite);
+    }
+}
+
+//$gen:ordered-fields
+abstract class MulticastArrayRingProducerIndexField<E> extends MulticastArrayRingL1Pad<E>
+{
+    private final static long P_INDEX_OFFSET = fieldOffset(MulticastArrayRingProducerIndexField.class, "producerIndex");
+
+    private volatile long producerIndex;
+
+    MulticastArrayRingProducerIndexField(int capacity, boolean overwrite)
+    {
+        super(capacity, overwrite);
+    }
+
+    public final long lvProducerIndex()
+    {
+        return producerIndex;
+    }
+
+    final boolean casProducerIndex(long expect, long newValue)
+    {
+        return UNSAFE.compareAndSwapLong(this, P_INDEX_OFFSET, expect, newValue);
+    }
+}
+
+abstract class MulticastArrayRingL2Pad<E> extends MulticastArrayRingProducerIndexField<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MulticastArrayRingL2Pad(int capacity, boolean overwrite)
+    {
+        super(capacity, overwrite);
+    }
+}
+
+//$gen:ordered-fields
+abstract class MulticastArrayRingProducerLimitField<E> extends MulticastArrayRingL2Pad<E>
+{
+    private final static long P_LIMIT_OFFSET = fieldOffset(MulticastArrayRingProducerLimitField.class, "producerLimit");
+
+    // First unavailable index the producers may claim without checking the subscribers
+    private volatile long producerLimit;
+
+    MulticastArrayRingProducerLimitField(int capacity, boolean overwrite)
+    {
+        super(capacity, overwrite);
+        this.producerLimit = mask + 1;
+    }
+
+    final long lvProducerLimit()
+    {
+        return producerLimit;
+    }
+
+    final void soProducerLimit(long newValue)
+    {
+        UNSAFE.putOrderedLong(this, P_LIMIT_OFFSET, newValue);
+    }
+}
+
+abstract class MulticastArrayRingL3Pad<E> extends MulticastArrayRingProducerLimitField<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    MulticastArrayRingL3Pad(int capacity, boolean overwrite)
+    {
+        super(capacity, overwrite);
+    }
+}
+
+abstract class MulticastArrayRingSubscriberL0Pad<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+//$gen:ordered-fields
+abstract class MulticastArrayRingSubscriberSequenceField<E> extends MulticastArrayRingSubscriberL0Pad<E>
+{
+    private final static long SEQUENCE_OFFSET =
+        fieldOffset(MulticastArrayRingSubscriberSequenceField.class, "sequence");
+
+    // next index this subscriber will read
+    private volatile long sequence;
+
+    MulticastArrayRingSubscriberSequenceField(long sequence)
+    {
+        this.sequence = sequence;
+    }
+
+    final long lvSequence()
+    {
+        return sequence;
+    }
+
+    final long lpSequence()
+    {
+        return UNSAFE.getLong(this, SEQUENCE_OFFSET);
+    }
+
+    final void soSequence(long newValue)
+    {
+        UNSAFE.putOrderedLong(this, SEQUENCE_OFFSET, newValue);
+    }
+}
+
+/**
+ * A multicast (broadcast) ring buffer: the producers write each element once and every {@link Subscriber} reads every
+ * element published after it subscribed, tracking its own read sequence. This replaces a fan out to N SPSC queues,
+ * which costs the producer N offers per element, with a single offer.<br>
+ * Any thread may call {@link #offer(Object)}, a single producer only pays for an uncontended CAS. Each
+ * {@link Subscriber} must only be read from a single thread at a time, different subscribers may be read from
+ * different threads.<br>
+ * The ring layout follows {@link ConcurrentSequencedCircularArrayQueue}: an element buffer and a sequence buffer of
+ * matching power of 2 capacity, with each slot sequence set to the index of the element published to it plus 1. The
+ * producer and limit fields are padded as in {@link MpmcArrayQueue} and so is each subscriber sequence. Slots are not
+ * cleared by the subscribers, so an element remains reachable until it is overwritten one lap later.<br>
+ * The ring works in one of two modes:
+ * <ol>
+ * <li>Gated (the default): the producers are gated by the slowest subscriber and {@link #offer(Object)} returns false
+ * when the slowest subscriber is a full ring behind. With no subscribers elements are published to no one and the
+ * producers are never gated.
+ * <li>Overwrite: the producers are never gated and overwrite elements subscribers have not read yet. A subscriber
+ * which was lapped by the producers detects it when reading, skips to the oldest element still in the ring and
+ * accounts for the elements it lost in {@link Subscriber#lostCount()}.
+ * </ol>
+ */
+public class MulticastArrayRing<E> extends MulticastArrayRingL3Pad<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    // marks a slot as being overwritten, lower than any published sequence
+    private static final long OVERWRITING = Long.MIN_VALUE;
+
+    /**
+     * @param capacity the ring capacity, rounded up to the next power of 2
+     */
+    public MulticastArrayRing(int capacity)
+    {
+        this(capacity, false);
+    }
+
+    /**
+     * @param capacity  the ring capacity, rounded up to the next power of 2
+     * @param overwrite true if the producers may overwrite elements not yet read by lagging subscribers, false if the
+     *                  producers are gated by the slowest subscriber
+     */
+    public MulticastArrayRing(int capacity, boolean overwrite)
+    {
+        super(RangeUtil.checkGreaterThanOrEqual(capacity, 2, "capacity"), overwrite);
+    }
+
+    public int capacity()
+    {
+        return (int) (mask + 1);
+    }
+
+    public boolean isOverwrite()
+    {
+        return overwrite;
+    }
+
+    public int subscriberCount()
+    {
+        return lvSubscribers().length;
+    }
+
+    /**
+     * Publish an element to all current subscribers.
+     *
+     * @param e not null
+     * @return true if the element was published, false if the ring is gated and the slowest subscriber is a full ring
+     * behind (always true for an overwriting ring)
+     * @throws NullPointerException if e is null
+     */
+    public boolean offer(final E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException();
+        }
+        final long mask = this.mask;
+        final long[] sBuffer = sequenceBuffer;
+        final boolean overwrite = this.overwrite;
+
+        long pIndex;
+        do
+        {
+            pIndex = lvProducerIndex();
+            if (!overwrite && pIndex >= lvProducerLimit())
+            {
+                final long producerLimit = computeProducerLimit(pIndex);
+                if (pIndex >= producerLimit)
+                {
+                    return false;
+                }
+                soProducerLimit(producerLimit);
+            }
+        }
+        while (!casProducerIndex(pIndex, pIndex + 1));
+
+        final long seqOffset = calcCircularLongElementOffset(pIndex, mask);
+        // The element one lap back may still be written by a producer lapped by this one. This can only happen when
+        // no subscriber is gating the producers, or when overwriting.
+        while (lvLongElement(sBuffer, seqOffset) != pIndex - mask)
+        {
+            ;
+        }
+        final long offset = calcCircularRefElementOffset(pIndex, mask);
+        if (overwrite)
+        {
+            // subscribers re-check the sequence after reading the element, this store must be visible before the
+            // element store
+            soLongElement(sBuffer, seqOffset, OVERWRITING);
+            soRefElement(buffer, offset, e);
+        }
+        else
+        {
+            spRefElement(buffer, offset, e);
+        }
+        soLongElement(sBuffer, seqOffset, pIndex + 1);
+        return true;
+    }
+
+    /**
+     * The producers may claim indices up to a lap ahead of the slowest subscriber. The producer index is loaded before
+     * the subscribers, so a subscriber not observed here has started at or after pIndex, see {@link #subscribe()}.
+     */
+    private long computeProducerLimit(long pIndex)
+    {
+        final long capacity = mask + 1;
+        long minSequence = pIndex;
+        for (Subscriber<E> subscriber : lvSubscribers())
+        {
+            minSequence = Math.min(minSequence, subscriber.lvSequence());
+        }
+        return minSequence + capacity;
+    }
+
+    /**
+     * Subscribe to all elements published from now on. The returned subscriber gates the producers (on a gated ring)
+     * until it is closed.
+     *
+     * @return a new subscriber, to be read from a single thread at a time
+     */
+    public Subscriber<E> subscribe()
+    {
+        // Start at a conservative estimate of the producer index so that producers seeing the subscriber are gated
+        // from the start.
+        final Subscriber<E> subscriber = new Subscriber<E>(this, lvProducerIndex());
+        Subscriber<E>[] current;
+        Subscriber<E>[] next;
+        do
+        {
+            current = lvSubscribers();
+            next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = subscriber;
+        }
+        while (!casSubscribers(current, next));
+        // Producers which did not observe the subscriber loaded the producer index before it was added, so they are
+        // gated to before this index. Elements from here on are safe from being overwritten.
+        subscriber.soSequence(lvProducerIndex());
+        return subscriber;
+    }
+
+    @SuppressWarnings("unchecked")
+    void unsubscribe(Subscriber<E> subscriber)
+    {
+        Subscriber<E>[] current;
+        Subscriber<E>[] next;
+        do
+        {
+            current = lvSubscribers();
+            int index = -1;
+            for (int i = 0; i < current.length; i++)
+            {
+                if (current[i] == subscriber)
+                {
+                    index = i;
+                    break;
+                }
+            }
+            if (index == -1)
+            {
+                return;
+            }
+            if (current.length == 1)
+            {
+                next = NO_SUBSCRIBERS;
+            }
+            else
+            {
+                next = Arrays.copyOf(current, current.length - 1);
+                System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+            }
+        }
+        while (!casSubscribers(current, next));
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+
+    /**
+     * A reader of all elements published to the ring after subscribing. A subscriber must only be read from a single
+     * thread at a time.
+     */
+    public static final class Subscriber<E> extends MulticastArrayRingSubscriberSequenceField<E>
+    {
+        byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+        byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+        byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+        byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+        byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+        byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+        byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+        byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+        byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+        byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+        byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+        byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+        byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+        byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+        byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+        byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+        private final MulticastArrayRing<E> ring;
+        private long lostCount;
+        private boolean closed;
+
+        Subscriber(MulticastArrayRing<E> ring, long sequence)
+        {
+            super(sequence);
+            this.ring = ring;
+        }
+
+        /**
+         * @return the next element published to the ring, or null if there is none available or this subscriber is
+         * closed
+         */
+        public E poll()
+        {
+            if (closed)
+            {
+                return null;
+            }
+            final MulticastArrayRing<E> ring = this.ring;
+            final long mask = ring.mask;
+            final long[] sBuffer = ring.sequenceBuffer;
+            long sequence = lpSequence();
+            while (true)
+            {
+                final long seqOffset = calcCircularLongElementOffset(sequence, mask);
+                final long seq = lvLongElement(sBuffer, seqOffset);
+                if (seq < sequence + 1)
+                {
+                    // not yet published, or being overwritten, in which case we will notice we got lapped next time
+                    return null;
+                }
+                if (seq == sequence + 1)
+                {
+                    final E e = lpRefElement(ring.buffer, calcCircularRefElementOffset(sequence, mask));
+                    if (!ring.overwrite)
+                    {
+                        // the producers are gated by this sequence, the element can't have been overwritten
+                        soSequence(sequence + 1);
+                        return e;
+                    }
+                    UNSAFE.loadFence();
+                    if (lvLongElement(sBuffer, seqOffset) == sequence + 1)
+                    {
+                        soSequence(sequence + 1);
+                        return e;
+                    }
+                }
+                sequence = skipLapped(sequence);
+            }
+        }
+
+        private long skipLapped(long sequence)
+        {
+            final MulticastArrayRing<E> ring = this.ring;
+            // the oldest element which may still be in the ring, we may get lapped again before reading it
+            final long next = Math.max(sequence + 1, ring.lvProducerIndex() - (ring.mask + 1));
+            lostCount += next - sequence;
+            soSequence(next);
+            return next;
+        }
+
+        /**
+         * Read up to limit available elements.
+         *
+         * @return the number of elements read
+         */
+        public int drain(Consumer<E> c, int limit)
+        {
+            if (null == c)
+                throw new IllegalArgumentException("c is null");
+            if (limit < 0)
+                throw new IllegalArgumentException("limit is negative: " + limit);
+            E e;
+            int i = 0;
+            for (; i < limit && (e = poll()) != null; i++)
+            {
+                c.accept(e);
+            }
+            return i;
+        }
+
+        /**
+         * Read all available elements, up to a ring capacity.
+         *
+         * @return the number of elements read
+         */
+        public int drain(Consumer<E> c)
+        {
+            return drain(c, ring.capacity());
+        }
+
+        /**
+         * Read elements as they are published until the exit condition is met, idling on the wait strategy when there
+         * are none available.
+         */
+        public void drain(Consumer<E> c, WaitStrategy wait, ExitCondition exit)
+        {
+            if (null == c)
+                throw new IllegalArgumentException("c is null");
+            if (null == wait)
+                throw new IllegalArgumentException("wait is null");
+            if (null == exit)
+                throw new IllegalArgumentException("exit condition is null");
+
+            int idleCounter = 0;
+            while (exit.keepRunning())
+            {
+                final E e = poll();
+                if (e == null)
+                {
+                    idleCounter = wait.idle(idleCounter);
+                    continue;
+                }
+                idleCounter = 0;
+                c.accept(e);
+            }
+        }
+
+        /**
+         * @return the number of elements this subscriber lost to being lapped by the producers, always 0 for a gated
+         * ring. This is only accurate when called from the reading thread.
+         */
+        public long lostCount()
+        {
+            return lostCount;
+        }
+
+        /**
+         * @return the number of elements published to the ring and not yet read by this subscriber, which may exceed
+         * the capacity for a lapped subscriber
+         */
+        public long lag()
+        {
+            return Math.max(0, ring.lvProducerIndex() - lvSequence());
+        }
+
+        /**
+         * Stop gating the producers. A closed subscriber reads no further elements.
+         */
+        public void close()
+        {
+            if (!closed)
+            {
+                closed = true;
+                ring.unsubscribe(this);
+            }
+        }
+    }
+}
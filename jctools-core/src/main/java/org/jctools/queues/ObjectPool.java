@@ -0,0 +1,309 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.queues.MessagePassingQueue.Consumer;
+import org.jctools.queues.MessagePassingQueue.Supplier;
+import org.jctools.util.RangeUtil;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+
+/**
+ * An object pool with per thread magazines in front of a shared depot, after Bonwick's magazine allocator. Using a
+ * {@link MpmcArrayQueue} as a pool costs a shared CAS per acquire and per release, this pool only touches the shared
+ * depot once per magazine.<br>
+ * Each thread holds two magazines, small stacks of {@code magazineSize} objects. Acquire and release work on the
+ * loaded magazine and fall back to the previous one, so a thread going back and forth across a magazine boundary does
+ * not hit the depot. When both are empty, acquire exchanges an empty magazine for a full one from the depot, and when
+ * both are full, release hands the depot a full magazine for an empty one. The depot is a pair of
+ * {@link MpmcArrayQueue}s of full and empty magazines, holding up to {@code maxMagazines} full magazines.<br>
+ * An acquire finding no object in the depot is a miss, creating the object with the factory if there is one.
+ * A release finding the depot full is a discard, the object is left to the GC. Objects in the magazines of a thread
+ * are only available to other threads after it calls {@link #flush()}, and are lost to the pool if it dies without.
+ */
+public class ObjectPool<T>
+{
+    private final static long MISSES_OFFSET = fieldOffset(ObjectPool.class, "misses");
+    private final static long DISCARDS_OFFSET = fieldOffset(ObjectPool.class, "discards");
+    private final static long EXCHANGES_OFFSET = fieldOffset(ObjectPool.class, "exchanges");
+
+    private final int magazineSize;
+    private final int maxMagazines;
+    private final Supplier<T> factory;
+    private final Consumer<T> reset;
+    private final MpmcArrayQueue<Magazine> fullMagazines;
+    private final MpmcArrayQueue<Magazine> emptyMagazines;
+    private final ThreadLocal<Magazines> magazines;
+    private volatile long misses;
+    private volatile long discards;
+    private volatile long exchanges;
+
+    /**
+     * A pool returning {@code null} on a miss and not resetting released objects.
+     *
+     * @param magazineSize the number of objects per magazine, exchanged with the depot in one operation
+     * @param maxMagazines the maximum number of full magazines in the depot, will be rounded up to the next power of 2
+     */
+    public ObjectPool(int magazineSize, int maxMagazines)
+    {
+        this(magazineSize, maxMagazines, null, null);
+    }
+
+    /**
+     * @param magazineSize the number of objects per magazine, exchanged with the depot in one operation
+     * @param maxMagazines the maximum number of full magazines in the depot, will be rounded up to the next power of 2
+     * @param factory      creates objects on a miss, may be {@code null} to return {@code null} instead
+     * @param reset        called on the released objects before they are pooled, may be {@code null}
+     */
+    public ObjectPool(int magazineSize, int maxMagazines, Supplier<T> factory, Consumer<T> reset)
+    {
+        this.magazineSize = RangeUtil.checkGreaterThanOrEqual(magazineSize, 1, "magazineSize");
+        RangeUtil.checkGreaterThanOrEqual(maxMagazines, 1, "maxMagazines");
+        this.factory = factory;
+        this.reset = reset;
+        this.fullMagazines = new MpmcArrayQueue<Magazine>(Math.max(maxMagazines, 2));
+        this.emptyMagazines = new MpmcArrayQueue<Magazine>(Math.max(maxMagazines, 2));
+        this.maxMagazines = fullMagazines.capacity();
+        this.magazines = new ThreadLocal<Magazines>()
+        {
+            @Override
+            protected Magazines initialValue()
+            {
+                return new Magazines(newMagazine(), newMagazine());
+            }
+        };
+    }
+
+    /**
+     * Called from any thread.
+     *
+     * @return a pooled object, or on a miss a new one from the factory, or {@code null} if there is no factory
+     */
+    public T acquire()
+    {
+        final Magazines magazines = this.magazines.get();
+        Magazine loaded = magazines.loaded;
+        if (loaded.size == 0)
+        {
+            final Magazine previous = magazines.previous;
+            if (previous.size != 0)
+            {
+                magazines.previous = loaded;
+                magazines.loaded = loaded = previous;
+            }
+            else
+            {
+                final Magazine full = fullMagazines.poll();
+                if (full == null)
+                {
+                    UNSAFE.getAndAddLong(this, MISSES_OFFSET, 1);
+                    return factory == null ? null : factory.get();
+                }
+                UNSAFE.getAndAddLong(this, EXCHANGES_OFFSET, 1);
+                // we have 2 empty magazines, give one back for the full one
+                emptyMagazines.offer(previous);
+                magazines.previous = loaded;
+                magazines.loaded = loaded = full;
+            }
+        }
+        return loaded.pop();
+    }
+
+    /**
+     * Called from any thread, not necessarily the thread which acquired the object.
+     *
+     * @param e not {@code null}, reset and pooled, or discarded if the pool is full
+     */
+    public void release(T e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException();
+        }
+        if (reset != null)
+        {
+            reset.accept(e);
+        }
+        final Magazines magazines = this.magazines.get();
+        Magazine loaded = magazines.loaded;
+        if (loaded.size == magazineSize)
+        {
+            final Magazine previous = magazines.previous;
+            if (previous.size != magazineSize)
+            {
+                magazines.previous = loaded;
+                magazines.loaded = loaded = previous;
+            }
+            else if (fullMagazines.offer(previous))
+            {
+                UNSAFE.getAndAddLong(this, EXCHANGES_OFFSET, 1);
+                // we have 2 full magazines, give one to the depot for an empty one
+                Magazine empty = emptyMagazines.poll();
+                if (empty == null)
+                {
+                    empty = newMagazine();
+                }
+                magazines.previous = loaded;
+                magazines.loaded = loaded = empty;
+            }
+            else
+            {
+                UNSAFE.getAndAddLong(this, DISCARDS_OFFSET, 1);
+                return;
+            }
+        }
+        loaded.push(e);
+    }
+
+    /**
+     * Called from any thread, hands the non-empty magazines of the calling thread to the depot so other threads can
+     * acquire their objects. Objects which do not fit in the depot are discarded.
+     */
+    public void flush()
+    {
+        final Magazines magazines = this.magazines.get();
+        magazines.loaded = flush(magazines.loaded);
+        magazines.previous = flush(magazines.previous);
+    }
+
+    /**
+     * @return the magazine to hold in place of the flushed one
+     */
+    private Magazine flush(Magazine magazine)
+    {
+        final int size = magazine.size;
+        if (size == 0)
+        {
+            return magazine;
+        }
+        if (!fullMagazines.offer(magazine))
+        {
+            UNSAFE.getAndAddLong(this, DISCARDS_OFFSET, size);
+            magazine.clear();
+            return magazine;
+        }
+        final Magazine empty = emptyMagazines.poll();
+        return empty == null ? newMagazine() : empty;
+    }
+
+    private Magazine newMagazine()
+    {
+        return new Magazine(magazineSize);
+    }
+
+    public int magazineSize()
+    {
+        return magazineSize;
+    }
+
+    /**
+     * @return the maximum number of full magazines in the depot
+     */
+    public int maxMagazines()
+    {
+        return maxMagazines;
+    }
+
+    /**
+     * @return the number of magazines in the depot, magazines held by threads not included
+     */
+    public int depotMagazines()
+    {
+        return fullMagazines.size();
+    }
+
+    /**
+     * @return the number of acquires which found no object in the magazines of the thread and in the depot
+     */
+    public long misses()
+    {
+        return misses;
+    }
+
+    /**
+     * @return the number of released objects discarded because the depot is full
+     */
+    public long discards()
+    {
+        return discards;
+    }
+
+    /**
+     * @return the number of full magazines exchanged with the depot on acquire and release
+     */
+    public long exchanges()
+    {
+        return exchanges;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+
+    /**
+     * The magazines of a thread, only accessed by it.
+     */
+    static final class Magazines
+    {
+        Magazine loaded;
+        Magazine previous;
+
+        Magazines(Magazine loaded, Magazine previous)
+        {
+            this.loaded = loaded;
+            this.previous = previous;
+        }
+    }
+
+    /**
+     * A stack of objects, only accessed by the thread holding it. Exchanging it through the depot queues publishes
+     * its content to the next thread.
+     */
+    static final class Magazine
+    {
+        final Object[] elements;
+        int size;
+
+        Magazine(int capacity)
+        {
+            this.elements = new Object[capacity];
+        }
+
+        void push(Object e)
+        {
+            elements[size++] = e;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T pop()
+        {
+            final int index = --size;
+            final T e = (T) elements[index];
+            elements[index] = null;
+            return e;
+        }
+
+        void clear()
+        {
+            for (int i = 0; i < size; i++)
+            {
+                elements[i] = null;
+            }
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import java.util.List;
+
+/**
+ * Multi-producer queues implementing this interface can claim a contiguous range of slots for a batch of elements
+ * with a single atomic update of the producer index, rather than one per element as with repeated calls to
+ * {@link MessagePassingQueue#offer}. The elements are then published in order, one by one, with ordered stores.
+ * <p>
+ * This is similar to {@link MessagePassingQueue#fill(MessagePassingQueue.Supplier, int)} but takes the elements from
+ * an existing array or list, which saves the allocation of a supplier where the elements are already at hand.
+ *
+ * @param <E> the event/message type
+ */
+public interface OfferBatch<E>
+{
+    /**
+     * Called from a producer thread subject to the restrictions appropriate to the implementation. Offer up to
+     * {@code length} elements from {@code src}, starting at {@code srcOffset}, in order. Elements not offered
+     * (because the queue filled up) are left for the caller to retry.
+     *
+     * @param src       the elements to offer, none of which may be {@code null} in the given range
+     * @param srcOffset the index in {@code src} of the first element to offer
+     * @param length    the maximum number of elements to offer
+     * @return the number of elements offered, the first {@code n} elements of the range, 0 iff the queue is full
+     * @throws NullPointerException if src, or an element in the given range, is {@code null}
+     * @throws IllegalArgumentException if length or srcOffset are negative, or the range exceeds src
+     */
+    int offer(E[] src, int srcOffset, int length);
+
+    /**
+     * As {@link #offer(Object[], int, int)}, taking the elements from a {@link List}. Lists should support fast
+     * (i.e. {@link java.util.RandomAccess}) indexed access.
+     *
+     * @param src       the elements to offer, none of which may be {@code null} in the given range
+     * @param srcOffset the index in {@code src} of the first element to offer
+     * @param length    the maximum number of elements to offer
+     * @return the number of elements offered, the first {@code n} elements of the range, 0 iff the queue is full
+     * @throws NullPointerException if src, or an element in the given range, is {@code null}
+     * @throws IllegalArgumentException if length or srcOffset are negative, or the range exceeds src
+     */
+    int offer(List<? extends E> src, int srcOffset, int length);
+}
@@ -0,0 +1,249 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+
+/**
+ * Tracks the threads parked on one side of a blocking queue (consumers waiting for elements or producers waiting for
+ * space) and wakes them up when the other side makes progress.<br>
+ * Waiting threads spin on the queue for a while before registering and parking, so short waits never reach the
+ * scheduler. Signalling costs a full fence and a load while nobody is waiting. A woken waiter passes the signal on
+ * when leaving if the queue still allows progress, which is what makes a single unpark per signal sufficient when
+ * several threads are waiting.
+ */
+abstract class ParkingWaiters
+{
+    static final int SPIN_TRIES = 256;
+
+    /**
+     * Waiters for a side of the queue used by a single thread, e.g. the consumer of an SPSC queue.
+     */
+    static ParkingWaiters single()
+    {
+        return new Single();
+    }
+
+    /**
+     * Waiters for a side of the queue used by many threads, e.g. the consumers of an MPMC queue.
+     */
+    static ParkingWaiters multiple()
+    {
+        return new Multiple();
+    }
+
+    abstract void add(Thread waiter);
+
+    abstract void remove(Thread waiter);
+
+    /**
+     * Must be called after the queue state change that may allow a waiter to make progress. The full fence orders
+     * the state change (typically an ordered store) before the load of the waiters, pairing with the waiter
+     * registering itself before re-checking the queue.
+     */
+    abstract void signal();
+
+    /**
+     * @return the polled element, or null if timed out
+     */
+    static <E> E waitPoll(MessagePassingQueue<E> q, ParkingWaiters notEmpty, boolean timed, long nanos)
+        throws InterruptedException
+    {
+        if (Thread.interrupted())
+        {
+            throw new InterruptedException();
+        }
+        E e = q.poll();
+        if (e != null || (timed && nanos <= 0))
+        {
+            return e;
+        }
+        final long deadline = timed ? System.nanoTime() + nanos : 0L;
+        for (int i = 0; i < SPIN_TRIES; i++)
+        {
+            if ((e = q.poll()) != null)
+            {
+                return e;
+            }
+        }
+
+        final Thread waiter = Thread.currentThread();
+        notEmpty.add(waiter);
+        try
+        {
+            while ((e = q.poll()) == null)
+            {
+                if (timed)
+                {
+                    nanos = deadline - System.nanoTime();
+                    if (nanos <= 0)
+                    {
+                        return null;
+                    }
+                    LockSupport.parkNanos(notEmpty, nanos);
+                }
+                else
+                {
+                    LockSupport.park(notEmpty);
+                }
+                if (Thread.interrupted())
+                {
+                    throw new InterruptedException();
+                }
+            }
+            return e;
+        }
+        finally
+        {
+            notEmpty.remove(waiter);
+            // we may have consumed the signal meant for another waiter
+            if (!q.isEmpty())
+            {
+                notEmpty.signal();
+            }
+        }
+    }
+
+    /**
+     * @return true if the element was offered, false if timed out
+     */
+    static <E> boolean waitOffer(MessagePassingQueue<E> q, E e, ParkingWaiters notFull, boolean timed, long nanos)
+        throws InterruptedException
+    {
+        if (null == e)
+        {
+            throw new NullPointerException();
+        }
+        if (Thread.interrupted())
+        {
+            throw new InterruptedException();
+        }
+        if (q.offer(e))
+        {
+            return true;
+        }
+        if (timed && nanos <= 0)
+        {
+            return false;
+        }
+        final long deadline = timed ? System.nanoTime() + nanos : 0L;
+        for (int i = 0; i < SPIN_TRIES; i++)
+        {
+            if (q.offer(e))
+            {
+                return true;
+            }
+        }
+
+        final Thread waiter = Thread.currentThread();
+        notFull.add(waiter);
+        try
+        {
+            while (!q.offer(e))
+            {
+                if (timed)
+                {
+                    nanos = deadline - System.nanoTime();
+                    if (nanos <= 0)
+                    {
+                        return false;
+                    }
+                    LockSupport.parkNanos(notFull, nanos);
+                }
+                else
+                {
+                    LockSupport.park(notFull);
+                }
+                if (Thread.interrupted())
+                {
+                    throw new InterruptedException();
+                }
+            }
+            return true;
+        }
+        finally
+        {
+            notFull.remove(waiter);
+            // we may have consumed the signal meant for another waiter
+            if (q.size() < q.capacity())
+            {
+                notFull.signal();
+            }
+        }
+    }
+
+    static final class Single extends ParkingWaiters
+    {
+        private final static long WAITER_OFFSET = fieldOffset(Single.class, "waiter");
+
+        private volatile Thread waiter;
+
+        @Override
+        void add(Thread waiter)
+        {
+            // volatile store, must not be reordered with the following load of the queue state
+            this.waiter = waiter;
+        }
+
+        @Override
+        void remove(Thread waiter)
+        {
+            UNSAFE.putOrderedObject(this, WAITER_OFFSET, null);
+        }
+
+        @Override
+        void signal()
+        {
+            UNSAFE.fullFence();
+            final Thread waiter = this.waiter;
+            if (waiter != null)
+            {
+                LockSupport.unpark(waiter);
+            }
+        }
+    }
+
+    static final class Multiple extends ParkingWaiters
+    {
+        private final ConcurrentLinkedQueue<Thread> waiters = new ConcurrentLinkedQueue<Thread>();
+
+        @Override
+        void add(Thread waiter)
+        {
+            // the CAS linking the waiter in is a full barrier
+            waiters.offer(waiter);
+        }
+
+        @Override
+        void remove(Thread waiter)
+        {
+            waiters.remove(waiter);
+        }
+
+        @Override
+        void signal()
+        {
+            UNSAFE.fullFence();
+            final Thread waiter = waiters.peek();
+            if (waiter != null)
+            {
+                LockSupport.unpark(waiter);
+            }
+        }
+    }
+}
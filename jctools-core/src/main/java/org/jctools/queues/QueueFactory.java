@@ -0,0 +1,291 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Preference;
+import org.jctools.util.UnsafeAccess;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * The queue factory picks the best fit queue implementation for a {@link ConcurrentQueueSpec} and the runtime, so
+ * user code can state its requirements rather than depend on the implementation classes:
+ * <ul>
+ * <li>the threading model picks the algorithm, e.g. {@link MpscArrayQueue} for a bounded multi producer single
+ * consumer queue, or {@link MpmcUnboundedXaddArrayQueue} for an unbounded multi consumer queue.
+ * <li>the memory access is VarHandle based when {@code jctools-core-jdk11} is on the class path of a JDK 9+ runtime,
+ * Unsafe based when {@code sun.misc.Unsafe} is usable, and {@link java.util.concurrent.atomic} based otherwise. The
+ * {@value #ACCESS_PROPERTY} system property forces one of "varhandle", "unsafe" or "atomic".
+ * <li>{@link Preference#FOOTPRINT} picks the unpadded variants, chunked queues for large bounded capacities and linked
+ * queues for unbounded single consumer queues.
+ * </ul>
+ * All the implementations are FIFO, which satisfies any {@link org.jctools.queues.spec.Ordering}. All of them are
+ * {@link java.util.Queue}s as well.
+ * <p>
+ * The selection happens once, in {@link #forSpec(ConcurrentQueueSpec)}: keep the factory around where queues are
+ * created and the queues are then plain instances of the selected class, there is no dispatch on queue operations.
+ */
+public final class QueueFactory
+{
+    public static final String ACCESS_PROPERTY = "jctools.queue.factory.access";
+    /**
+     * Bounded queues of at least this capacity are chunked when favouring footprint.
+     */
+    public static final int CHUNKED_MIN_CAPACITY = 1024;
+    static final int UNBOUNDED_CHUNK_SIZE = 1024;
+    static final int FOOTPRINT_CHUNK_SIZE = 64;
+
+    enum Access
+    {
+        VARHANDLE("varhandle", "varhandle.", "VarHandle"),
+        UNSAFE("unsafe", "", ""),
+        ATOMIC("atomic", "atomic.", "Atomic");
+
+        final String propertyValue;
+        final String subPackage;
+        final String infix;
+
+        Access(String propertyValue, String subPackage, String infix)
+        {
+            this.propertyValue = propertyValue;
+            this.subPackage = subPackage;
+            this.infix = infix;
+        }
+    }
+
+    static final Access ACCESS = selectAccess();
+
+    private final ConcurrentQueueSpec spec;
+    private final Constructor<?> constructor;
+    private final Object[] args;
+
+    private QueueFactory(ConcurrentQueueSpec spec, Constructor<?> constructor, Object[] args)
+    {
+        this.spec = spec;
+        this.constructor = constructor;
+        this.args = args;
+    }
+
+    /**
+     * Select the queue implementation for the spec. Selection is done reflectively and is not cheap, create the
+     * factory once per call site.
+     *
+     * @throws IllegalArgumentException if no implementation is found for the spec
+     */
+    public static QueueFactory forSpec(ConcurrentQueueSpec spec)
+    {
+        if (null == spec)
+        {
+            throw new IllegalArgumentException("spec is null");
+        }
+        final boolean footprint = spec.preference == Preference.FOOTPRINT;
+        final String algorithm;
+        final Object[] args;
+        if (spec.isBounded())
+        {
+            final boolean chunked = footprint && spec.capacity >= CHUNKED_MIN_CAPACITY;
+            if (spec.isSpsc())
+            {
+                algorithm = chunked ? "SpscChunkedArrayQueue" : "SpscArrayQueue";
+            }
+            else if (spec.isMpsc())
+            {
+                algorithm = chunked ? "MpscChunkedArrayQueue" : "MpscArrayQueue";
+            }
+            else if (spec.isSpmc())
+            {
+                algorithm = "SpmcArrayQueue";
+            }
+            else
+            {
+                algorithm = "MpmcArrayQueue";
+            }
+            args = new Object[] {spec.capacity};
+        }
+        else if (spec.consumers == 1)
+        {
+            if (footprint)
+            {
+                algorithm = spec.isSpsc() ? "SpscLinkedQueue" : "MpscLinkedQueue";
+                args = new Object[0];
+            }
+            else
+            {
+                algorithm = spec.isSpsc() ? "SpscUnboundedArrayQueue" :
+                    spec.preference == Preference.THROUGHPUT ? "MpscUnboundedXaddArrayQueue" : "MpscUnboundedArrayQueue";
+                args = new Object[] {UNBOUNDED_CHUNK_SIZE};
+            }
+        }
+        else
+        {
+            algorithm = "MpmcUnboundedXaddArrayQueue";
+            args = footprint ? new Object[] {FOOTPRINT_CHUNK_SIZE, 0} : new Object[] {UNBOUNDED_CHUNK_SIZE};
+        }
+
+        // fall back on the next access kind if a variant is missing
+        for (Access access = ACCESS; access != null; access = fallback(access))
+        {
+            final Constructor<?> constructor = findConstructor(className(algorithm, access, !footprint), args.length);
+            if (constructor != null)
+            {
+                return new QueueFactory(spec, constructor, args);
+            }
+        }
+        throw new IllegalArgumentException("Cannot match queue for spec:" + spec);
+    }
+
+    /**
+     * Shorthand for {@code forSpec(spec).newQueue()}, the implementation is selected on every call.
+     */
+    public static <E> MessagePassingQueue<E> newQueue(ConcurrentQueueSpec spec)
+    {
+        return forSpec(spec).newQueue();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <E> MessagePassingQueue<E> newQueue()
+    {
+        try
+        {
+            return (MessagePassingQueue<E>) constructor.newInstance(args);
+        }
+        catch (InvocationTargetException e)
+        {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public ConcurrentQueueSpec spec()
+    {
+        return spec;
+    }
+
+    /**
+     * @return the class of the queues created by this factory
+     */
+    public Class<?> queueClass()
+    {
+        return constructor.getDeclaringClass();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "QueueFactory{" + queueClass().getName() + " for " + spec + '}';
+    }
+
+    /**
+     * The variants are named after the Unsafe padded queue, e.g. {@code MpscArrayQueue} is
+     * {@code atomic.unpadded.MpscAtomicUnpaddedArrayQueue} and {@code MpscLinkedQueue} is
+     * {@code varhandle.MpscLinkedVarHandleQueue}.
+     */
+    static String className(String algorithm, Access access, boolean padded)
+    {
+        final String infix = padded ? access.infix : access.infix + "Unpadded";
+        final int suffixAt = algorithm.endsWith("ArrayQueue") ?
+            algorithm.length() - "ArrayQueue".length() :
+            algorithm.length() - "Queue".length();
+        final StringBuilder name = new StringBuilder("org.jctools.queues.").append(access.subPackage);
+        if (!padded)
+        {
+            name.append("unpadded.");
+        }
+        return name.append(algorithm, 0, suffixAt).append(infix).append(algorithm, suffixAt, algorithm.length())
+            .toString();
+    }
+
+    private static Constructor<?> findConstructor(String className, int argCount)
+    {
+        try
+        {
+            final Class<?> queueClass = Class.forName(className, true, QueueFactory.class.getClassLoader());
+            final Class<?>[] parameterTypes = new Class<?>[argCount];
+            for (int i = 0; i < argCount; i++)
+            {
+                parameterTypes[i] = int.class;
+            }
+            return queueClass.getConstructor(parameterTypes);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            return null;
+        }
+        catch (LinkageError e)
+        {
+            // e.g. the VarHandle variants on a pre JDK 9 runtime
+            return null;
+        }
+    }
+
+    private static Access fallback(Access access)
+    {
+        switch (access)
+        {
+            case VARHANDLE:
+                return isUnsafeAvailable() ? Access.UNSAFE : Access.ATOMIC;
+            case UNSAFE:
+                return Access.ATOMIC;
+            default:
+                return null;
+        }
+    }
+
+    private static Access selectAccess()
+    {
+        final String forced = System.getProperty(ACCESS_PROPERTY);
+        if (forced != null)
+        {
+            for (Access access : Access.values())
+            {
+                if (access.propertyValue.equalsIgnoreCase(forced))
+                {
+                    return access;
+                }
+            }
+            // not a known access kind, select as if unset
+        }
+        if (findConstructor(className("MpscArrayQueue", Access.VARHANDLE, true), 1) != null)
+        {
+            return Access.VARHANDLE;
+        }
+        return isUnsafeAvailable() ? Access.UNSAFE : Access.ATOMIC;
+    }
+
+    private static boolean isUnsafeAvailable()
+    {
+        try
+        {
+            return UnsafeAccess.UNSAFE != null;
+        }
+        catch (Throwable e)
+        {
+            return false;
+        }
+    }
+}
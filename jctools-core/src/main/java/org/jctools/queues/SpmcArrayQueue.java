@@ -13,6 +13,8 @@
  */
 package org.jctools.queues;
 
+import java.util.List;
+
 import static org.jctools.util.UnsafeAccess.UNSAFE;
 import static org.jctools.util.UnsafeAccess.fieldOffset;
 import static org.jctools.util.UnsafeRefArrayAccess.*;
@@ -436,6 +438,18 @@ public class SpmcArrayQueue<E> extends SpmcArrayQueueL3Pad<E>
         return MessagePassingQueueUtil.drain(this, c);
     }
 
+    @Override
+    public int drain(final E[] dst, final int dstOffset, final int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, dstOffset, limit);
+    }
+
+    @Override
+    public int drain(final List<? super E> dst, final int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, limit);
+    }
+
     @Override
     public int fill(final Supplier<E> s)
     {
@@ -0,0 +1,201 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link java.util.concurrent.BlockingQueue} on top of {@link SpscArrayQueue}, a lock free alternative to
+ * {@link java.util.concurrent.ArrayBlockingQueue} for a single producer and a single consumer.<br>
+ * Blocked producers and consumers spin on the queue for a while before parking, and are unparked by the other side
+ * once it makes progress (see {@link ParkingWaiters}). The price of blocking support on the non blocking path is a
+ * full fence after each successful offer or poll, to check for parked threads on the other side.<br>
+ * The {@link MessagePassingQueue} methods keep the semantics of {@link SpscArrayQueue} and wake up parked threads as
+ * any other offer or poll would.
+ */
+public class SpscBlockingArrayQueue<E> extends SpscArrayQueue<E> implements MessagePassingBlockingQueue<E>
+{
+    private final ParkingWaiters notEmpty = ParkingWaiters.single();
+    private final ParkingWaiters notFull = ParkingWaiters.single();
+
+    public SpscBlockingArrayQueue(final int capacity)
+    {
+        super(capacity);
+    }
+
+    @Override
+    public boolean offer(final E e)
+    {
+        if (super.offer(e))
+        {
+            notEmpty.signal();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public E poll()
+    {
+        final E e = super.poll();
+        if (e != null)
+        {
+            notFull.signal();
+        }
+        return e;
+    }
+
+    @Override
+    public boolean relaxedOffer(final E e)
+    {
+        if (super.relaxedOffer(e))
+        {
+            notEmpty.signal();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public E relaxedPoll()
+    {
+        final E e = super.relaxedPoll();
+        if (e != null)
+        {
+            notFull.signal();
+        }
+        return e;
+    }
+
+    @Override
+    public void put(final E e) throws InterruptedException
+    {
+        ParkingWaiters.waitOffer(this, e, notFull, false, 0L);
+    }
+
+    @Override
+    public boolean offer(final E e, final long timeout, final TimeUnit unit) throws InterruptedException
+    {
+        return ParkingWaiters.waitOffer(this, e, notFull, true, unit.toNanos(timeout));
+    }
+
+    @Override
+    public E take() throws InterruptedException
+    {
+        return ParkingWaiters.waitPoll(this, notEmpty, false, 0L);
+    }
+
+    @Override
+    public E poll(final long timeout, final TimeUnit unit) throws InterruptedException
+    {
+        return ParkingWaiters.waitPoll(this, notEmpty, true, unit.toNanos(timeout));
+    }
+
+    @Override
+    public int remainingCapacity()
+    {
+        return capacity() - size();
+    }
+
+    @Override
+    public int drainTo(final Collection<? super E> c)
+    {
+        return MessagePassingQueueUtil.drainTo(this, c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(final Collection<? super E> c, final int maxElements)
+    {
+        return MessagePassingQueueUtil.drainTo(this, c, maxElements);
+    }
+
+    @Override
+    public int drain(final Consumer<E> c, final int limit, final long timeout, final TimeUnit unit)
+        throws InterruptedException
+    {
+        return MessagePassingQueueUtil.drain(this, c, limit, timeout, unit);
+    }
+
+    @Override
+    public int drain(final Consumer<E> c)
+    {
+        return drain(c, capacity());
+    }
+
+    @Override
+    public int drain(final Consumer<E> c, final int limit)
+    {
+        final int drained = super.drain(c, limit);
+        if (drained != 0)
+        {
+            notFull.signal();
+        }
+        return drained;
+    }
+
+    @Override
+    public int drain(final E[] dst, final int dstOffset, final int limit)
+    {
+        final int drained = super.drain(dst, dstOffset, limit);
+        if (drained != 0)
+        {
+            notFull.signal();
+        }
+        return drained;
+    }
+
+    @Override
+    public int drain(final List<? super E> dst, final int limit)
+    {
+        final int drained = super.drain(dst, limit);
+        if (drained != 0)
+        {
+            notFull.signal();
+        }
+        return drained;
+    }
+
+    @Override
+    public void drain(final Consumer<E> c, final WaitStrategy w, final ExitCondition exit)
+    {
+        // the underlying queue only returns on exit, producers must be signalled along the way
+        MessagePassingQueueUtil.drain(this, c, w, exit);
+    }
+
+    @Override
+    public int fill(final Supplier<E> s)
+    {
+        return MessagePassingQueueUtil.fillBounded(this, s);
+    }
+
+    @Override
+    public int fill(final Supplier<E> s, final int limit)
+    {
+        final int filled = super.fill(s, limit);
+        if (filled != 0)
+        {
+            notEmpty.signal();
+        }
+        return filled;
+    }
+
+    @Override
+    public void fill(final Supplier<E> s, final WaitStrategy w, final ExitCondition exit)
+    {
+        // the underlying queue only returns on exit, consumers must be signalled along the way
+        MessagePassingQueueUtil.fill(this, s, w, exit);
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.queues.MessagePassingQueue.ExitCondition;
+import org.jctools.queues.MessagePassingQueue.WaitStrategy;
+import org.jctools.util.RangeUtil;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+import static org.jctools.util.UnsafeLongArrayAccess.*;
+
+abstract class SpscLongArrayQueueL1Pad extends ConcurrentCircularLongArrayQueue
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    // byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    SpscLongArrayQueueL1Pad(int capacity)
+    {
+        super(capacity);
+    }
+}
+
+//$gen:ordered-fields
+abstract class SpscLongArrayQueueProducerIndexFields extends SpscLongArrayQueueL1Pad
+{
+    private final static long P_INDEX_OFFSET = fieldOffset(SpscLongArrayQueueProducerIndexFields.class, "producerIndex");
+
+    private long producerIndex;
+    // First unavailable index the producer may claim up to before rereading the consumer index
+    protected long producerLimit;
+
+    SpscLongArrayQueueProducerIndexFields(int capacity)
+    {
+        super(capacity);
+        this.producerLimit = capacity();
+    }
+
+    @Override
+    public final long lvProducerIndex()
+    {
+        return UNSAFE.getLongVolatile(this, P_INDEX_OFFSET);
+    }
+
+    final long lpProducerIndex()
+    {
+        return producerIndex;
+    }
+
+    final void soProducerIndex(final long newValue)
+    {
+        UNSAFE.putOrderedLong(this, P_INDEX_OFFSET, newValue);
+    }
+}
+
+abstract class SpscLongArrayQueueL2Pad extends SpscLongArrayQueueProducerIndexFields
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    // byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    SpscLongArrayQueueL2Pad(int capacity)
+    {
+        super(capacity);
+    }
+}
+
+//$gen:ordered-fields
+abstract class SpscLongArrayQueueConsumerIndexFields extends SpscLongArrayQueueL2Pad
+{
+    private final static long C_INDEX_OFFSET = fieldOffset(SpscLongArrayQueueConsumerIndexFields.class, "consumerIndex");
+
+    private long consumerIndex;
+    // First unavailable index the consumer may consume up to before rereading the producer index
+    protected long consumerLimit;
+
+    SpscLongArrayQueueConsumerIndexFields(int capacity)
+    {
+        super(capacity);
+    }
+
+    @Override
+    public final long lvConsumerIndex()
+    {
+        return UNSAFE.getLongVolatile(this, C_INDEX_OFFSET);
+    }
+
+    final long lpConsumerIndex()
+    {
+        return consumerIndex;
+    }
+
+    final void soConsumerIndex(final long newValue)
+    {
+        UNSAFE.putOrderedLong(this, C_INDEX_OFFSET, newValue);
+    }
+}
+
+abstract class SpscLongArrayQueueL3Pad extends SpscLongArrayQueueConsumerIndexFields
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    // byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    SpscLongArrayQueueL3Pad(int capacity)
+    {
+        super(capacity);
+    }
+}
+
+/**
+ * A Single-Producer-Single-Consumer queue of primitive {@code long} elements, backed by a pre-allocated
+ * {@code long[]}. See {@link SpscArrayQueue} for the reference type equivalent.
+ * <p>
+ * As primitive slots cannot be nulled out to signal availability, this implementation follows the Leslie Lamport
+ * algorithm: the element store is published by an ordered store of the producer index, and each side caches the
+ * index of the other to minimize cross core traffic.<br>
+ * This implementation is wait free.
+ */
+public class SpscLongArrayQueue extends SpscLongArrayQueueL3Pad
+{
+    public SpscLongArrayQueue(final int capacity)
+    {
+        super(RangeUtil.checkGreaterThanOrEqual(capacity, 1, "capacity"));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation is correct for single producer thread use only.
+     */
+    @Override
+    public boolean offer(final long e)
+    {
+        final long producerIndex = lpProducerIndex();
+        if (producerIndex >= producerLimit && !offerSlowPath(producerIndex))
+        {
+            return false;
+        }
+        spLongElement(buffer, calcCircularLongElementOffset(producerIndex, mask), e);
+        soProducerIndex(producerIndex + 1); // ordered store -> atomic and ordered for size()
+        return true;
+    }
+
+    private boolean offerSlowPath(final long producerIndex)
+    {
+        final long producerLimit = lvConsumerIndex() + mask + 1;
+        this.producerLimit = producerLimit;
+        return producerIndex < producerLimit;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation is correct for single consumer thread use only.
+     */
+    @Override
+    public long poll(final long emptyValue)
+    {
+        final long consumerIndex = lpConsumerIndex();
+        if (consumerIndex >= consumerLimit && !pollSlowPath(consumerIndex))
+        {
+            return emptyValue;
+        }
+        final long e = lpLongElement(buffer, calcCircularLongElementOffset(consumerIndex, mask));
+        soConsumerIndex(consumerIndex + 1); // ordered store -> atomic and ordered for size()
+        return e;
+    }
+
+    private boolean pollSlowPath(final long consumerIndex)
+    {
+        final long consumerLimit = lvProducerIndex();
+        this.consumerLimit = consumerLimit;
+        return consumerIndex < consumerLimit;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation is correct for single consumer thread use only.
+     */
+    @Override
+    public long peek(final long emptyValue)
+    {
+        final long consumerIndex = lpConsumerIndex();
+        if (consumerIndex >= consumerLimit && !pollSlowPath(consumerIndex))
+        {
+            return emptyValue;
+        }
+        return lpLongElement(buffer, calcCircularLongElementOffset(consumerIndex, mask));
+    }
+
+    @Override
+    public boolean relaxedOffer(final long e)
+    {
+        return offer(e);
+    }
+
+    @Override
+    public long relaxedPoll(final long emptyValue)
+    {
+        return poll(emptyValue);
+    }
+
+    @Override
+    public long relaxedPeek(final long emptyValue)
+    {
+        return peek(emptyValue);
+    }
+
+    @Override
+    public int drain(final Consumer c)
+    {
+        return drain(c, capacity());
+    }
+
+    @Override
+    public int fill(final Supplier s)
+    {
+        return fill(s, capacity());
+    }
+
+    @Override
+    public int drain(final Consumer c, final int limit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+        if (limit == 0)
+            return 0;
+
+        final long[] buffer = this.buffer;
+        final long mask = this.mask;
+        final long consumerIndex = lpConsumerIndex();
+        long available = consumerLimit - consumerIndex;
+        if (available < limit)
+        {
+            pollSlowPath(consumerIndex);
+            available = consumerLimit - consumerIndex;
+        }
+        final int actualLimit = (int) Math.min(available, limit);
+        for (int i = 0; i < actualLimit; i++)
+        {
+            final long index = consumerIndex + i;
+            final long e = lpLongElement(buffer, calcCircularLongElementOffset(index, mask));
+            soConsumerIndex(index + 1); // ordered store -> atomic and ordered for size()
+            c.accept(e);
+        }
+        return actualLimit;
+    }
+
+    @Override
+    public int fill(final Supplier s, final int limit)
+    {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        if (limit == 0)
+            return 0;
+
+        final long[] buffer = this.buffer;
+        final long mask = this.mask;
+        final long producerIndex = lpProducerIndex();
+        long available = producerLimit - producerIndex;
+        if (available < limit)
+        {
+            offerSlowPath(producerIndex);
+            available = producerLimit - producerIndex;
+        }
+        final int actualLimit = (int) Math.min(available, limit);
+        for (int i = 0; i < actualLimit; i++)
+        {
+            final long index = producerIndex + i;
+            spLongElement(buffer, calcCircularLongElementOffset(index, mask), s.get());
+            soProducerIndex(index + 1); // ordered store -> atomic and ordered for size()
+        }
+        return actualLimit;
+    }
+
+    @Override
+    public void drain(final Consumer c, final WaitStrategy w, final ExitCondition exit)
+    {
+        MessagePassingQueueUtil.drain(this, c, w, exit);
+    }
+
+    @Override
+    public void fill(final Supplier s, final WaitStrategy w, final ExitCondition exit)
+    {
+        MessagePassingQueueUtil.fill(this, s, w, exit);
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.queues.MessagePassingQueue.WaitStrategy;
+import org.jctools.util.ThreadHints;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ready made {@link WaitStrategy} implementations for the {@link MessagePassingQueue} drain/fill wait loops, e.g.
+ * {@link MessagePassingQueue#drain(MessagePassingQueue.Consumer, WaitStrategy, MessagePassingQueue.ExitCondition)}.
+ * <p>
+ * All strategies keep their progress in the idle counter managed by the caller, so they hold no per thread state,
+ * can be shared between threads and do not allocate when idling. Phased strategies stop incrementing the counter
+ * once in their last phase, so long idle periods can't overflow it into an earlier phase.
+ * <p>
+ * The strategies trade wake up latency for CPU usage:
+ * <ul>
+ * <li>{@link #busySpin()} has the lowest latency and burns a whole core while idle.</li>
+ * <li>{@link #spinYield(int)} gives up the core to other runnable threads after spinning for a while.</li>
+ * <li>{@link #progressive(int, int, long, long)} spins, then yields, then parks for exponentially growing periods.</li>
+ * <li>{@link #park(long)} parks for a fixed period and uses next to no CPU while idle. Parking releases the carrier
+ * thread of a virtual thread, where spinning or yielding keep it busy, so this (or {@link #progressive} with few
+ * spins and yields) is the strategy to use from virtual threads.</li>
+ * </ul>
+ */
+public final class WaitStrategies
+{
+    private WaitStrategies()
+    {
+    }
+
+    /**
+     * @return a strategy spinning on {@link ThreadHints#onSpinWait()} (i.e. {@code Thread.onSpinWait()} where
+     * available)
+     */
+    public static WaitStrategy busySpin()
+    {
+        return BusySpinWaitStrategy.INSTANCE;
+    }
+
+    /**
+     * @param spins number of idle calls spinning before yielding on each subsequent call
+     * @return a spin then yield strategy
+     */
+    public static WaitStrategy spinYield(int spins)
+    {
+        return new SpinYieldWaitStrategy(spins);
+    }
+
+    /**
+     * @param spins          number of idle calls spinning
+     * @param yields         number of idle calls yielding after the spins
+     * @param minParkPeriodNs first park period, after the spins and yields
+     * @param maxParkPeriodNs the park period is doubled on each subsequent idle call up to this period
+     * @return a spin, then yield, then park with exponential backoff strategy
+     */
+    public static WaitStrategy progressive(int spins, int yields, long minParkPeriodNs, long maxParkPeriodNs)
+    {
+        return new ProgressiveWaitStrategy(spins, yields, minParkPeriodNs, maxParkPeriodNs);
+    }
+
+    /**
+     * @param parkPeriodNs park period on each idle call
+     * @return a park with timeout strategy
+     */
+    public static WaitStrategy park(long parkPeriodNs)
+    {
+        return new ParkWaitStrategy(parkPeriodNs);
+    }
+
+    static final class BusySpinWaitStrategy implements WaitStrategy
+    {
+        static final BusySpinWaitStrategy INSTANCE = new BusySpinWaitStrategy();
+
+        @Override
+        public int idle(int idleCounter)
+        {
+            ThreadHints.onSpinWait();
+            // the counter is meaningless to this strategy, keep it from overflowing anyway
+            return idleCounter == Integer.MAX_VALUE ? idleCounter : idleCounter + 1;
+        }
+    }
+
+    static final class SpinYieldWaitStrategy implements WaitStrategy
+    {
+        private final int spins;
+
+        SpinYieldWaitStrategy(int spins)
+        {
+            if (spins < 0)
+                throw new IllegalArgumentException("spins is negative: " + spins);
+            this.spins = spins;
+        }
+
+        @Override
+        public int idle(int idleCounter)
+        {
+            if (idleCounter < spins)
+            {
+                ThreadHints.onSpinWait();
+                return idleCounter + 1;
+            }
+            Thread.yield();
+            return idleCounter;
+        }
+    }
+
+    static final class ProgressiveWaitStrategy implements WaitStrategy
+    {
+        private final int spins;
+        private final int spinsAndYields;
+        private final int lastIdleCounter;
+        private final long minParkPeriodNs;
+        private final long maxParkPeriodNs;
+
+        ProgressiveWaitStrategy(int spins, int yields, long minParkPeriodNs, long maxParkPeriodNs)
+        {
+            if (spins < 0)
+                throw new IllegalArgumentException("spins is negative: " + spins);
+            if (yields < 0)
+                throw new IllegalArgumentException("yields is negative: " + yields);
+            if (minParkPeriodNs < 1)
+                throw new IllegalArgumentException("minParkPeriodNs is less than 1: " + minParkPeriodNs);
+            if (maxParkPeriodNs < minParkPeriodNs)
+                throw new IllegalArgumentException(
+                    "maxParkPeriodNs(" + maxParkPeriodNs + ") is less than minParkPeriodNs(" + minParkPeriodNs + ")");
+            if ((long) spins + yields >= Integer.MAX_VALUE - 64)
+                throw new IllegalArgumentException("spins + yields is too large: " + ((long) spins + yields));
+            this.spins = spins;
+            this.spinsAndYields = spins + yields;
+            this.minParkPeriodNs = minParkPeriodNs;
+            this.maxParkPeriodNs = maxParkPeriodNs;
+            // the number of doublings it takes to get from min to max park period
+            final int doublings = 64 - Long.numberOfLeadingZeros((maxParkPeriodNs - 1) / minParkPeriodNs);
+            this.lastIdleCounter = spinsAndYields + doublings;
+        }
+
+        @Override
+        public int idle(int idleCounter)
+        {
+            if (idleCounter < spins)
+            {
+                ThreadHints.onSpinWait();
+            }
+            else if (idleCounter < spinsAndYields)
+            {
+                Thread.yield();
+            }
+            else if (idleCounter < lastIdleCounter)
+            {
+                LockSupport.parkNanos(minParkPeriodNs << (idleCounter - spinsAndYields));
+            }
+            else
+            {
+                LockSupport.parkNanos(maxParkPeriodNs);
+                return idleCounter;
+            }
+            return idleCounter + 1;
+        }
+    }
+
+    static final class ParkWaitStrategy implements WaitStrategy
+    {
+        private final long parkPeriodNs;
+
+        ParkWaitStrategy(long parkPeriodNs)
+        {
+            if (parkPeriodNs < 1)
+                throw new IllegalArgumentException("parkPeriodNs is less than 1: " + parkPeriodNs);
+            this.parkPeriodNs = parkPeriodNs;
+        }
+
+        @Override
+        public int idle(int idleCounter)
+        {
+            LockSupport.parkNanos(parkPeriodNs);
+            return idleCounter;
+        }
+    }
+}
@@ -0,0 +1,525 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.queues.IndexedQueueSizeUtil.IndexedQueue;
+import org.jctools.util.Pow2;
+import org.jctools.util.RangeUtil;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+import static org.jctools.util.UnsafeRefArrayAccess.*;
+
+abstract class WorkStealingArrayDequeL0Pad<E> extends AbstractQueue<E>
+    implements MessagePassingQueue<E>, IndexedQueue, QueueProgressIndicators
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+//$gen:ordered-fields
+abstract class WorkStealingArrayDequeBottomField<E> extends WorkStealingArrayDequeL0Pad<E>
+{
+    private final static long BOTTOM_OFFSET = fieldOffset(WorkStealingArrayDequeBottomField.class, "bottom");
+
+    // the owner end, only written by the owner
+    private long bottom;
+
+    final long lvBottom()
+    {
+        return UNSAFE.getLongVolatile(this, BOTTOM_OFFSET);
+    }
+
+    final long lpBottom()
+    {
+        return bottom;
+    }
+
+    final void soBottom(long newValue)
+    {
+        UNSAFE.putOrderedLong(this, BOTTOM_OFFSET, newValue);
+    }
+
+    final void svBottom(long newValue)
+    {
+        UNSAFE.putLongVolatile(this, BOTTOM_OFFSET, newValue);
+    }
+}
+
+abstract class WorkStealingArrayDequeL1Pad<E> extends WorkStealingArrayDequeBottomField<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+//$gen:ordered-fields
+abstract class WorkStealingArrayDequeTopField<E> extends WorkStealingArrayDequeL1Pad<E>
+{
+    private final static long TOP_OFFSET = fieldOffset(WorkStealingArrayDequeTopField.class, "top");
+
+    // the thieves end, contended by the thieves and by the owner taking the last element
+    private volatile long top;
+
+    final long lvTop()
+    {
+        return top;
+    }
+
+    final boolean casTop(long expect, long newValue)
+    {
+        return UNSAFE.compareAndSwapLong(this, TOP_OFFSET, expect, newValue);
+    }
+}
+
+abstract class WorkStealingArrayDequeL2Pad<E> extends WorkStealingArrayDequeTopField<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+//$gen:ordered-fields
+abstract class WorkStealingArrayDequeBufferField<E> extends WorkStealingArrayDequeL2Pad<E>
+{
+    private final static long BUFFER_OFFSET = fieldOffset(WorkStealingArrayDequeBufferField.class, "buffer");
+
+    protected final int maxCapacity;
+    // replaced by a larger copy when full, only written by the owner
+    private volatile E[] buffer;
+
+    WorkStealingArrayDequeBufferField(int initialCapacity, int maxCapacity)
+    {
+        RangeUtil.checkGreaterThanOrEqual(initialCapacity, 2, "initialCapacity");
+        RangeUtil.checkLessThanOrEqual(
+            Pow2.roundToPowerOfTwo(initialCapacity), Pow2.roundToPowerOfTwo(maxCapacity), "initialCapacity");
+        this.maxCapacity = Pow2.roundToPowerOfTwo(maxCapacity);
+        this.buffer = allocateRefArray(Pow2.roundToPowerOfTwo(initialCapacity));
+    }
+
+    final E[] lvBuffer()
+    {
+        return buffer;
+    }
+
+    @SuppressWarnings("unchecked")
+    final E[] lpBuffer()
+    {
+        return (E[]) UNSAFE.getObject(this, BUFFER_OFFSET);
+    }
+
+    final void soBuffer(E[] newValue)
+    {
+        UNSAFE.putOrderedObject(this, BUFFER_OFFSET, newValue);
+    }
+}
+
+/**
+ * A Chase-Lev work-stealing deque: a single owner thread pushes and pops at the bottom end, LIFO, while any thread
+ * may steal from the top end, FIFO. This is the per worker task queue of a work-stealing scheduler, where the owner
+ * works depth first on the tasks it forks and idle workers steal the oldest, and usually largest, tasks.<br>
+ * The owner only contends with thieves when taking the last element. Popping decrements bottom before reading top,
+ * with a volatile store of bottom so that a racing thief, which reads top before bottom, either sees the
+ * decremented bottom or has its top CAS fail. The last element goes to whoever wins the top CAS.<br>
+ * The backing array starts at <i>initialCapacity</i> and doubles in size when a push finds it full, up to
+ * <i>maxCapacity</i>. The owner copies the live range to the new array and publishes it before the bottom store
+ * which makes the pushed element visible, thieves holding the old array read the same elements from it. Popped
+ * slots are nulled, stolen slots can't be (the owner may already reuse them when the thief's CAS succeeds) and
+ * hold on to the stolen element until the owner pushes over them.
+ * <p>
+ * The {@link MessagePassingQueue} and {@link java.util.Queue} methods map to this as an SPMC FIFO queue:
+ * <ul>
+ * <li>{@code offer}/{@code relaxedOffer}/{@code fill} are {@link #push(Object)} and may only be called by the owner.
+ * <li>{@code poll}/{@code drain} are {@link #steal()} and may be called by any thread, including the owner.
+ * <li>{@link #pop()} is the owner only LIFO end.
+ * </ul>
+ * {@code relaxedPoll} gives up on losing a race for the top element rather than retrying. As the owner moves bottom
+ * both ways the producer index is not monotonic.
+ */
+public class WorkStealingArrayDeque<E> extends WorkStealingArrayDequeBufferField<E>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+
+    public WorkStealingArrayDeque(int maxCapacity)
+    {
+        this(Math.max(2, Pow2.roundToPowerOfTwo(maxCapacity / 8)), maxCapacity);
+    }
+
+    /**
+     * @param initialCapacity the initial size of the backing array, rounded up to a power of 2. Must be 2 or more.
+     * @param maxCapacity     the maximum capacity, rounded up to a power of 2. Must not round up to less than
+     *                        initialCapacity.
+     */
+    public WorkStealingArrayDeque(int initialCapacity, int maxCapacity)
+    {
+        super(initialCapacity, maxCapacity);
+    }
+
+    /**
+     * Owner only. Push to the bottom end, growing the backing array if it is full.
+     *
+     * @param e not null
+     * @return false if the deque is at max capacity
+     */
+    public boolean push(final E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException();
+        }
+        final long b = lpBottom();
+        final long t = lvTop();
+        E[] buffer = lpBuffer();
+        if (b - t >= buffer.length)
+        {
+            if (buffer.length >= maxCapacity)
+            {
+                return false; // FULL :(
+            }
+            buffer = grow(buffer, t, b);
+        }
+        spRefElement(buffer, calcCircularRefElementOffset(b, buffer.length - 1), e);
+        // ordered store publishes the element, and a new buffer, to thieves
+        soBottom(b + 1);
+        return true;
+    }
+
+    private E[] grow(final E[] oldBuffer, final long t, final long b)
+    {
+        final long oldMask = oldBuffer.length - 1;
+        final E[] newBuffer = allocateRefArray(oldBuffer.length * 2);
+        final long newMask = newBuffer.length - 1;
+        for (long i = t; i < b; i++)
+        {
+            spRefElement(
+                newBuffer,
+                calcCircularRefElementOffset(i, newMask),
+                lpRefElement(oldBuffer, calcCircularRefElementOffset(i, oldMask)));
+        }
+        soBuffer(newBuffer);
+        return newBuffer;
+    }
+
+    /**
+     * Owner only. Pop from the bottom end, the most recently pushed element.
+     *
+     * @return the element, or null if the deque is empty or a thief took the last element
+     */
+    public E pop()
+    {
+        final long b = lpBottom() - 1;
+        final E[] buffer = lpBuffer();
+        // volatile store, so that top is read after thieves can see bottom moved (StoreLoad)
+        svBottom(b);
+        final long t = lvTop();
+        if (t > b)
+        {
+            // empty, restore bottom
+            soBottom(b + 1);
+            return null;
+        }
+        final long offset = calcCircularRefElementOffset(b, buffer.length - 1);
+        E e = lpRefElement(buffer, offset);
+        if (t == b)
+        {
+            // the last element, race the thieves for it
+            if (!casTop(t, t + 1))
+            {
+                e = null;
+            }
+            else
+            {
+                spRefElement(buffer, offset, null);
+            }
+            soBottom(b + 1);
+            return e;
+        }
+        // thieves can't reach b now, no need to restore bottom
+        spRefElement(buffer, offset, null);
+        return e;
+    }
+
+    /**
+     * Any thread. Steal from the top end, the least recently pushed element, retrying on losing a race for it.
+     *
+     * @return the element, or null if the deque is empty
+     */
+    public E steal()
+    {
+        E e;
+        do
+        {
+            final long t = lvTop();
+            // top is read before bottom, see pop
+            final long b = lvBottom();
+            if (t >= b)
+            {
+                return null;
+            }
+            e = tryStealAt(t);
+        }
+        while (null == e);
+        return e;
+    }
+
+    /**
+     * @return the element at t, null if another thread took it first
+     */
+    private E tryStealAt(final long t)
+    {
+        final E[] buffer = lvBuffer();
+        final E e = lvRefElement(buffer, calcCircularRefElementOffset(t, buffer.length - 1));
+        // the element read is only valid if top did not move since
+        if (casTop(t, t + 1))
+        {
+            return e;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean offer(final E e)
+    {
+        return push(e);
+    }
+
+    @Override
+    public boolean relaxedOffer(E e)
+    {
+        return push(e);
+    }
+
+    @Override
+    public E poll()
+    {
+        return steal();
+    }
+
+    @Override
+    public E relaxedPoll()
+    {
+        final long t = lvTop();
+        final long b = lvBottom();
+        if (t >= b)
+        {
+            return null;
+        }
+        return tryStealAt(t);
+    }
+
+    @Override
+    public E peek()
+    {
+        long nextTop = lvTop();
+        long t;
+        E e;
+        do
+        {
+            t = nextTop;
+            if (t >= lvBottom())
+            {
+                return null;
+            }
+            final E[] buffer = lvBuffer();
+            e = lvRefElement(buffer, calcCircularRefElementOffset(t, buffer.length - 1));
+            // sandwich the element load between 2 top loads
+            nextTop = lvTop();
+        }
+        while (null == e || nextTop != t);
+        return e;
+    }
+
+    @Override
+    public E relaxedPeek()
+    {
+        final long t = lvTop();
+        if (t >= lvBottom())
+        {
+            return null;
+        }
+        final E[] buffer = lvBuffer();
+        return lvRefElement(buffer, calcCircularRefElementOffset(t, buffer.length - 1));
+    }
+
+    @Override
+    public long lvProducerIndex()
+    {
+        return lvBottom();
+    }
+
+    @Override
+    public long lvConsumerIndex()
+    {
+        return lvTop();
+    }
+
+    @Override
+    public long currentProducerIndex()
+    {
+        return lvBottom();
+    }
+
+    @Override
+    public long currentConsumerIndex()
+    {
+        return lvTop();
+    }
+
+    @Override
+    public int size()
+    {
+        return IndexedQueueSizeUtil.size(this, IndexedQueueSizeUtil.PLAIN_DIVISOR);
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return IndexedQueueSizeUtil.isEmpty(this);
+    }
+
+    @Override
+    public int capacity()
+    {
+        return maxCapacity;
+    }
+
+    @Override
+    public Iterator<E> iterator()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+
+    @Override
+    public int drain(Consumer<E> c)
+    {
+        return drain(c, capacity());
+    }
+
+    @Override
+    public int drain(Consumer<E> c, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, c, limit);
+    }
+
+    @Override
+    public int drain(E[] dst, int dstOffset, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, dstOffset, limit);
+    }
+
+    @Override
+    public int drain(List<? super E> dst, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, limit);
+    }
+
+    @Override
+    public void drain(Consumer<E> c, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.drain(this, c, wait, exit);
+    }
+
+    @Override
+    public int fill(Supplier<E> s)
+    {
+        return MessagePassingQueueUtil.fillBounded(this, s);
+    }
+
+    @Override
+    public int fill(Supplier<E> s, int limit)
+    {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        int i = 0;
+        // only get elements there is room for
+        for (; i < limit && lpBottom() - lvTop() < maxCapacity; i++)
+        {
+            push(s.get());
+        }
+        return i;
+    }
+
+    @Override
+    public void fill(Supplier<E> s, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.fill(this, s, wait, exit);
+    }
+}
@@ -4,6 +4,7 @@ import org.jctools.util.PortableJvmInfo;
 import org.jctools.util.Pow2;
 import java.util.AbstractQueue;
 import java.util.Iterator;
+import java.util.List;
 import static org.jctools.queues.atomic.MpUnboundedXaddAtomicChunk.NOT_USED;
 import java.util.concurrent.atomic.*;
 import org.jctools.queues.*;
@@ -244,21 +245,53 @@ abstract class MpUnboundedXaddAtomicArrayQueue<R extends MpUnboundedXaddAtomicCh
 {
     // it must be != MpUnboundedXaddChunk.NOT_USED
     private static final long ROTATION = -2;
+    // number of consumer chunk rotations with a spare pooled chunk before one is released
+    private static final int POOL_RELEASE_WINDOW = 16;
     final int chunkMask;
     final int chunkShift;
+    final int minPooledChunks;
     final int maxPooledChunks;
     final SpscAtomicUnpaddedArrayQueue<R> freeChunksPool;
+    // pooled chunks in use or in the free pool, it moves between minPooledChunks and maxPooledChunks
+    private final AtomicInteger pooledChunks;
+    // single writer counters: allocations and reuses by the appending producer, releases by the rotating consumer
+    private final AtomicLong chunkAllocations = new AtomicLong();
+    private final AtomicLong chunkReuses = new AtomicLong();
+    private final AtomicLong chunkReleases = new AtomicLong();
+    // only accessed by the consumer rotating chunks
+    private int releaseWindowRotations;
+    private int releaseWindowMinSpareChunks = Integer.MAX_VALUE;
 
     /**
      * @param chunkSize The buffer size to be used in each chunk of this queue
      * @param maxPooledChunks The maximum number of reused chunks kept around to avoid allocation, chunks are pre-allocated
      */
     MpUnboundedXaddAtomicArrayQueue(int chunkSize, int maxPooledChunks)
+    {
+        this(chunkSize, maxPooledChunks, maxPooledChunks);
+    }
+
+    /**
+     * The pool starts with {@code minPooledChunks} pre-allocated chunks and grows up to {@code maxPooledChunks} while
+     * the backlog needs them. Once a spare chunk has been idle in the pool for a while the consumer releases it to the
+     * GC, one chunk at a time, down to {@code minPooledChunks}. Release is driven by consumer chunk rotations, an idle
+     * queue keeps its pool.
+     *
+     * @param chunkSize The buffer size to be used in each chunk of this queue
+     * @param minPooledChunks The number of reused chunks which are pre-allocated and never released
+     * @param maxPooledChunks The maximum number of reused chunks kept around to avoid allocation
+     */
+    MpUnboundedXaddAtomicArrayQueue(int chunkSize, int minPooledChunks, int maxPooledChunks)
     {
         if (maxPooledChunks < 0)
         {
             throw new IllegalArgumentException("Expecting a positive maxPooledChunks, but got:"+maxPooledChunks);
         }
+        if (minPooledChunks < 0 || minPooledChunks > maxPooledChunks)
+        {
+            throw new IllegalArgumentException(
+                "Expecting minPooledChunks in [0, maxPooledChunks], but got:"+minPooledChunks);
+        }
         chunkSize = Pow2.roundToPowerOfTwo(chunkSize);
 
         this.chunkMask = chunkSize - 1;
@@ -269,10 +302,12 @@ abstract class MpUnboundedXaddAtomicArrayQueue<R extends MpUnboundedXaddAtomicCh
         soProducerChunk(first);
         soProducerChunkIndex(0);
         soConsumerChunk(first);
-        for (int i = 1; i < maxPooledChunks; i++)
+        for (int i = 1; i < minPooledChunks; i++)
         {
             freeChunksPool.offer(newChunk(NOT_USED, null, chunkSize, true));
         }
+        this.pooledChunks = new AtomicInteger(maxPooledChunks > 0 ? Math.max(1, minPooledChunks) : 0);
+        this.minPooledChunks = minPooledChunks;
         this.maxPooledChunks = maxPooledChunks;
     }
 
@@ -281,11 +316,48 @@ abstract class MpUnboundedXaddAtomicArrayQueue<R extends MpUnboundedXaddAtomicCh
         return chunkMask + 1;
     }
 
+    public final int minPooledChunks()
+    {
+        return minPooledChunks;
+    }
+
     public final int maxPooledChunks()
     {
         return maxPooledChunks;
     }
 
+    /**
+     * @return the number of pooled chunks currently owned by this queue, in use or free
+     */
+    public final int pooledChunks()
+    {
+        return pooledChunks.get();
+    }
+
+    /**
+     * @return the number of chunks allocated after construction, pooled or not
+     */
+    public final long chunkAllocations()
+    {
+        return chunkAllocations.get();
+    }
+
+    /**
+     * @return the number of chunks taken from the pool instead of being allocated
+     */
+    public final long chunkReuses()
+    {
+        return chunkReuses.get();
+    }
+
+    /**
+     * @return the number of consumed chunks left to the GC, either not pooled or released from the pool
+     */
+    public final long chunkReleases()
+    {
+        return chunkReleases.get();
+    }
+
     abstract R newChunk(long index, R prev, int chunkSize, boolean pooled);
 
     @Override
@@ -393,10 +465,18 @@ abstract class MpUnboundedXaddAtomicArrayQueue<R extends MpUnboundedXaddAtomicCh
             newChunk.soPrev(prevChunk);
             // index set is releasing prev, allowing other pending offers to continue
             newChunk.soIndex(nextChunkIndex);
+            chunkReuses.lazySet(chunkReuses.get() + 1);
         }
         else
         {
-            newChunk = newChunk(nextChunkIndex, prevChunk, chunkMask + 1, false);
+            // the backlog outgrew the pool: grow it, single-writer under the append lock, the consumer can only shrink it
+            final boolean pooled = pooledChunks.get() < maxPooledChunks;
+            if (pooled)
+            {
+                pooledChunks.incrementAndGet();
+            }
+            newChunk = newChunk(nextChunkIndex, prevChunk, chunkMask + 1, pooled);
+            chunkAllocations.lazySet(chunkAllocations.get() + 1);
         }
         return newChunk;
     }
@@ -411,17 +491,50 @@ abstract class MpUnboundedXaddAtomicArrayQueue<R extends MpUnboundedXaddAtomicCh
         cChunk.soNext(null);
         next.soPrev(null);
         // no need to cChunk.soIndex(NOT_USED)
-        if (cChunk.isPooled())
+        if (cChunk.isPooled() && !releasePooledChunk())
         {
             final boolean pooled = freeChunksPool.offer(cChunk);
             assert pooled;
         }
+        else
+        {
+            chunkReleases.lazySet(chunkReleases.get() + 1);
+        }
         this.soConsumerChunk(next);
         // MC case:
         // from now on the code is not single-threaded anymore and
         // other consumers can move forward consumerIndex
     }
 
+    /**
+     * Called by the consumer rotating away from a pooled chunk, a pooled chunk is released if the pool always had a
+     * spare chunk during the last {@link #POOL_RELEASE_WINDOW} rotations.
+     */
+    private boolean releasePooledChunk()
+    {
+        if (minPooledChunks == maxPooledChunks)
+        {
+            return false;
+        }
+        final int spareChunks = freeChunksPool.size();
+        if (spareChunks < releaseWindowMinSpareChunks)
+        {
+            releaseWindowMinSpareChunks = spareChunks;
+        }
+        if (++releaseWindowRotations < POOL_RELEASE_WINDOW)
+        {
+            return false;
+        }
+        final boolean release = releaseWindowMinSpareChunks > 0 && pooledChunks.get() > minPooledChunks;
+        releaseWindowRotations = 0;
+        releaseWindowMinSpareChunks = Integer.MAX_VALUE;
+        if (release)
+        {
+            pooledChunks.decrementAndGet();
+        }
+        return release;
+    }
+
     @Override
     public Iterator<E> iterator()
     {
@@ -458,6 +571,18 @@ abstract class MpUnboundedXaddAtomicArrayQueue<R extends MpUnboundedXaddAtomicCh
         return MessagePassingQueueUtil.drain(this, c);
     }
 
+    @Override
+    public int drain(E[] dst, int dstOffset, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, dstOffset, limit);
+    }
+
+    @Override
+    public int drain(List<? super E> dst, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, limit);
+    }
+
     @Override
     public int fill(Supplier<E> s)
     {
@@ -12,11 +12,13 @@
  * limitations under the License.
  */
 package org.jctools.queues.atomic;
+import java.util.List;
 import java.util.concurrent.atomic.*;
 import org.jctools.queues.*;
 import static org.jctools.queues.atomic.AtomicQueueUtil.*;
 
 
+
 /**
  * NOTE: This class was automatically generated by org.jctools.queues.atomic.JavaParsingAtomicArrayQueueGenerator
  * which can found in the jctools-build module. The original source file is MpscArrayQueue.java.
@@ -232,7 +234,7 @@ abstract class MpscAtomicArrayQueueL3Pad<E> extends MpscAtomicArrayQueueConsumer
  * method for polling from the queue (with minor change to correctly publish the index) and an extension of
  * the Leslie Lamport concurrent queue algorithm (originated by Martin Thompson) on the producer side.
  */
-public class MpscAtomicArrayQueue<E> extends MpscAtomicArrayQueueL3Pad<E> implements OfferIfBelowThreshold<E>
+public class MpscAtomicArrayQueue<E> extends MpscAtomicArrayQueueL3Pad<E> implements OfferIfBelowThreshold<E>, OfferBatch<E>
 {
     public MpscAtomicArrayQueue(final int capacity)
     {
@@ -541,6 +543,66 @@ public class MpscAtomicArrayQueue<E> extends MpscAtomicArrayQueueL3Pad<E> implem
         return limit;
     }
 
+    @Override
+    public int drain(final E[] dst, final int dstOffset, final int limit)
+    {
+        MessagePassingQueueUtil.checkDrainBatch(dst, dstOffset, limit);
+        if (limit == 0)
+            return 0;
+
+        final AtomicReferenceArray<E> buffer = this.buffer;
+        final int mask = this.mask;
+        final long cIndex = this.lpConsumerIndex();
+
+        int i = 0;
+        for (; i < limit; i++)
+        {
+            final int offset = calcCircularRefElementOffset(cIndex + i, mask);
+            final E e = lvRefElement(buffer, offset);
+            if (null == e)
+            {
+                break;
+            }
+            spRefElement(buffer, offset, null);
+            dst[dstOffset + i] = e;
+        }
+        if (i != 0)
+        {
+            soConsumerIndex(cIndex + i); // single ordered store releases the whole batch
+        }
+        return i;
+    }
+
+    @Override
+    public int drain(final List<? super E> dst, final int limit)
+    {
+        MessagePassingQueueUtil.checkDrainBatch(dst, limit);
+        if (limit == 0)
+            return 0;
+
+        final AtomicReferenceArray<E> buffer = this.buffer;
+        final int mask = this.mask;
+        final long cIndex = this.lpConsumerIndex();
+
+        int i = 0;
+        for (; i < limit; i++)
+        {
+            final int offset = calcCircularRefElementOffset(cIndex + i, mask);
+            final E e = lvRefElement(buffer, offset);
+            if (null == e)
+            {
+                break;
+            }
+            spRefElement(buffer, offset, null);
+            dst.add(e);
+        }
+        if (i != 0)
+        {
+            soConsumerIndex(cIndex + i); // single ordered store releases the whole batch
+        }
+        return i;
+    }
+
     @Override
     public int fill(Supplier<E> s, int limit)
     {
@@ -589,6 +651,102 @@ public class MpscAtomicArrayQueue<E> extends MpscAtomicArrayQueueL3Pad<E> implem
         return actualLimit;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * Lock free batch offer using a single CAS to claim all the slots the batch will occupy.
+     */
+    @Override
+    public int offer(final E[] src, final int srcOffset, final int length)
+    {
+        MessagePassingQueueUtil.checkOfferBatch(src, srcOffset, length);
+        if (length == 0)
+            return 0;
+
+        final int mask = this.mask;
+        final long capacity = mask + 1;
+        long producerLimit = lvProducerLimit();
+        long pIndex;
+        int actualLength;
+        do
+        {
+            pIndex = lvProducerIndex();
+            long available = producerLimit - pIndex;
+            if (available <= 0)
+            {
+                final long cIndex = lvConsumerIndex();
+                producerLimit = cIndex + capacity;
+                available = producerLimit - pIndex;
+                if (available <= 0)
+                {
+                    return 0; // FULL :(
+                }
+                else
+                {
+                    // update producer limit to the next index that we must recheck the consumer index
+                    soProducerLimit(producerLimit);
+                }
+            }
+            actualLength = (int) Math.min(available, length);
+        }
+        while (!casProducerIndex(pIndex, pIndex + actualLength));
+        // right, now we claimed a few slots and can fill them with goodness
+        final AtomicReferenceArray<E> buffer = this.buffer;
+        for (int i = 0; i < actualLength; i++)
+        {
+            // Won CAS, move on to storing
+            final int offset = calcCircularRefElementOffset(pIndex + i, mask);
+            soRefElement(buffer, offset, src[srcOffset + i]);
+        }
+        return actualLength;
+    }
+
+    @Override
+    public int offer(final List<? extends E> src, final int srcOffset, final int length)
+    {
+        MessagePassingQueueUtil.checkOfferBatch(src, srcOffset, length);
+        if (length == 0)
+            return 0;
+
+        final int mask = this.mask;
+        final long capacity = mask + 1;
+        long producerLimit = lvProducerLimit();
+        long pIndex;
+        int actualLength;
+        do
+        {
+            pIndex = lvProducerIndex();
+            long available = producerLimit - pIndex;
+            if (available <= 0)
+            {
+                final long cIndex = lvConsumerIndex();
+                producerLimit = cIndex + capacity;
+                available = producerLimit - pIndex;
+                if (available <= 0)
+                {
+                    return 0; // FULL :(
+                }
+                else
+                {
+                    // update producer limit to the next index that we must recheck the consumer index
+                    soProducerLimit(producerLimit);
+                }
+            }
+            actualLength = (int) Math.min(available, length);
+        }
+        while (!casProducerIndex(pIndex, pIndex + actualLength));
+        // right, now we claimed a few slots and can fill them with goodness
+        final AtomicReferenceArray<E> buffer = this.buffer;
+        for (int i = 0; i < actualLength; i++)
+        {
+            // Won CAS, move on to storing
+            final int offset = calcCircularRefElementOffset(pIndex + i, mask);
+            soRefElement(buffer, offset, src.get(srcOffset + i));
+        }
+        return actualLength;
+    }
+
     @Override
     public int drain(Consumer<E> c)
     {
@@ -47,6 +47,19 @@ public class MpscUnboundedXaddAtomicArrayQueue<E> extends MpUnboundedXaddAtomicA
         this(chunkSize, 2);
     }
 
+    /**
+     * An adaptive pool: starts with {@code minPooledChunks} chunks, grows up to {@code maxPooledChunks} under backlog
+     * and releases spare chunks back down to {@code minPooledChunks} once the queue stays shallow.
+     *
+     * @param chunkSize The buffer size to be used in each chunk of this queue
+     * @param minPooledChunks The number of reused chunks which are pre-allocated and never released
+     * @param maxPooledChunks The maximum number of reused chunks kept around to avoid allocation
+     */
+    public MpscUnboundedXaddAtomicArrayQueue(int chunkSize, int minPooledChunks, int maxPooledChunks)
+    {
+        super(chunkSize, minPooledChunks, maxPooledChunks);
+    }
+
     @Override
     final MpscUnboundedXaddAtomicChunk<E> newChunk(long index, MpscUnboundedXaddAtomicChunk<E> prev, int chunkSize, boolean pooled)
     {
@@ -0,0 +1,213 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.atomic.unpadded;
+import org.jctools.util.Pow2;
+import org.jctools.util.RangeUtil;
+import java.util.concurrent.atomic.*;
+import org.jctools.queues.*;
+import static org.jctools.queues.atomic.AtomicQueueUtil.*;
+
+
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.atomic.unpadded.JavaParsingAtomicUnpaddedArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpmcBoundedXaddArrayQueue.java.
+ */
+abstract class MpmcBoundedXaddAtomicUnpaddedArrayQueuePad1<E> extends MpmcXaddAtomicUnpaddedArrayQueue<E>
+{
+    MpmcBoundedXaddAtomicUnpaddedArrayQueuePad1(int chunkSize, int maxPooledChunks)
+    {
+        super(chunkSize, maxPooledChunks);
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.atomic.unpadded.JavaParsingAtomicUnpaddedArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpmcBoundedXaddArrayQueue.java.
+ */
+abstract class MpmcBoundedXaddAtomicUnpaddedArrayQueuePermitsField<E> extends MpmcBoundedXaddAtomicUnpaddedArrayQueuePad1<E>
+{
+    // Free slots: taken by producers before claiming a producer index, given back by consumers once a slot is freed
+    private static final AtomicLongFieldUpdater<MpmcBoundedXaddAtomicUnpaddedArrayQueuePermitsField> PERMITS_UPDATER = AtomicLongFieldUpdater.newUpdater(MpmcBoundedXaddAtomicUnpaddedArrayQueuePermitsField.class, "permits");
+    
+    private volatile long permits;
+
+    MpmcBoundedXaddAtomicUnpaddedArrayQueuePermitsField(int chunkSize, int maxPooledChunks)
+    {
+        super(chunkSize, maxPooledChunks);
+    }
+
+    final long lvPermits()
+    {
+        return permits;
+    }
+
+    final void soPermits(long newValue)
+    {
+        PERMITS_UPDATER.lazySet(this, newValue);
+    }
+
+    final long getAndAddPermits(long delta)
+    {
+        return PERMITS_UPDATER.getAndAdd(this, delta);
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.atomic.unpadded.JavaParsingAtomicUnpaddedArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpmcBoundedXaddArrayQueue.java.
+ */
+abstract class MpmcBoundedXaddAtomicUnpaddedArrayQueuePad2<E> extends MpmcBoundedXaddAtomicUnpaddedArrayQueuePermitsField<E>
+{
+
+    MpmcBoundedXaddAtomicUnpaddedArrayQueuePad2(int chunkSize, int maxPooledChunks)
+    {
+        super(chunkSize, maxPooledChunks);
+    }
+}
+
+/**
+ * NOTE: This class was automatically generated by org.jctools.queues.atomic.unpadded.JavaParsingAtomicUnpaddedArrayQueueGenerator
+ * which can found in the jctools-build module. The original source file is MpmcBoundedXaddArrayQueue.java.
+ *
+ * A bounded MPMC queue built on the same linked chunks as {@link MpmcUnboundedXaddArrayQueue}.<br>
+ * Producers claim slots with a single XADD on the producer index rather than the CAS loop used by
+ * {@link MpmcArrayQueue}, which scales better under heavy producer contention. A claim can't be undone, so the
+ * capacity is enforced by a permit count producers take with an XADD before claiming and consumers give back once a
+ * slot is freed: a producer which takes the count below zero returns its permit and fails. A producer racing with
+ * such a failing producer may also find the queue full for the duration of the race. Enough chunks to hold the
+ * capacity are pooled up front, so the queue does not allocate in steady state.<br>
+ * Users should be aware that {@link #poll()} could spin while awaiting a new element to be available:
+ * to avoid this behaviour {@link #relaxedPoll()} should be used instead, accounting for the semantic differences
+ * between the twos.
+ */
+public class MpmcBoundedXaddAtomicUnpaddedArrayQueue<E> extends MpmcBoundedXaddAtomicUnpaddedArrayQueuePad2<E>
+{
+    private final int capacity;
+
+    /**
+     * @param chunkSize The buffer size to be used in each chunk of this queue, rounded up to the next power of 2 and
+     *                  capped at the capacity
+     * @param capacity the queue capacity, rounded up to the next power of 2
+     */
+    public MpmcBoundedXaddAtomicUnpaddedArrayQueue(int chunkSize, int capacity)
+    {
+        super(boundedChunkSize(capacity, chunkSize), pooledChunks(capacity, chunkSize));
+        this.capacity = Pow2.roundToPowerOfTwo(capacity);
+        soPermits(this.capacity);
+    }
+
+    /**
+     * @param capacity the queue capacity, rounded up to the next power of 2. The chunk size defaults to a quarter of
+     *                 the capacity.
+     */
+    public MpmcBoundedXaddAtomicUnpaddedArrayQueue(int capacity)
+    {
+        this(Math.max(1, Pow2.roundToPowerOfTwo(RangeUtil.checkGreaterThanOrEqual(capacity, 1, "capacity")) / 4), capacity);
+    }
+
+    private static int boundedChunkSize(int capacity, int chunkSize)
+    {
+        RangeUtil.checkGreaterThanOrEqual(capacity, 1, "capacity");
+        RangeUtil.checkGreaterThanOrEqual(chunkSize, 1, "chunkSize");
+        return Math.min(Pow2.roundToPowerOfTwo(chunkSize), Pow2.roundToPowerOfTwo(capacity));
+    }
+
+    private static int pooledChunks(int capacity, int chunkSize)
+    {
+        // a full queue spans capacity / chunkSize chunks, one more if the consumer index is mid chunk and one more
+        // for the chunk held by the consumer until it moves on
+        return Pow2.roundToPowerOfTwo(capacity) / boundedChunkSize(capacity, chunkSize) + 2;
+    }
+
+    @Override
+    public boolean offer(E e)
+    {
+        if (null == e)
+        {
+            throw new NullPointerException();
+        }
+        if (acquirePermits(1) == 0)
+        {
+            return false; // FULL :(
+        }
+        return super.offer(e);
+    }
+
+    @Override
+    public E poll()
+    {
+        final E e = super.poll();
+        if (e != null)
+        {
+            getAndAddPermits(1);
+        }
+        return e;
+    }
+
+    @Override
+    public E relaxedPoll()
+    {
+        final E e = super.relaxedPoll();
+        if (e != null)
+        {
+            getAndAddPermits(1);
+        }
+        return e;
+    }
+
+    @Override
+    public int fill(Supplier<E> s, int limit)
+    {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        if (limit == 0)
+            return 0;
+        final int permits = acquirePermits(limit);
+        if (permits == 0)
+        {
+            return 0;
+        }
+        return super.fill(s, permits);
+    }
+
+    /**
+     * @return the number of permits taken, at most {@code requested}, the excess is given back
+     */
+    private int acquirePermits(int requested)
+    {
+        final long available = getAndAddPermits(-requested);
+        if (available >= requested)
+        {
+            return requested;
+        }
+        final int acquired = (int) Math.max(0, available);
+        getAndAddPermits(requested - acquired);
+        return acquired;
+    }
+
+    @Override
+    public int fill(Supplier<E> s)
+    {
+        return MessagePassingQueueUtil.fillBounded(this, s);
+    }
+
+    @Override
+    public int capacity()
+    {
+        return capacity;
+    }
+}
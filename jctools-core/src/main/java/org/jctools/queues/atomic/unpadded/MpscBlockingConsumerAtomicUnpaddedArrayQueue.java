@@ -15,6 +15,7 @@ package org.jctools.queues.atomic.unpadded;
 import java.util.AbstractQueue;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.LockSupport;
 import org.jctools.queues.IndexedQueueSizeUtil.IndexedQueue;
@@ -765,6 +766,18 @@ public class MpscBlockingConsumerAtomicUnpaddedArrayQueue<E> extends MpscBlockin
         return drain(c, capacity());
     }
 
+    @Override
+    public int drain(E[] dst, int dstOffset, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, dstOffset, limit);
+    }
+
+    @Override
+    public int drain(List<? super E> dst, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, limit);
+    }
+
     @Override
     public int drain(final Consumer<E> c, final int limit)
     {
@@ -47,6 +47,19 @@ public class MpscUnboundedXaddAtomicUnpaddedArrayQueue<E> extends MpUnboundedXad
         this(chunkSize, 2);
     }
 
+    /**
+     * An adaptive pool: starts with {@code minPooledChunks} chunks, grows up to {@code maxPooledChunks} under backlog
+     * and releases spare chunks back down to {@code minPooledChunks} once the queue stays shallow.
+     *
+     * @param chunkSize The buffer size to be used in each chunk of this queue
+     * @param minPooledChunks The number of reused chunks which are pre-allocated and never released
+     * @param maxPooledChunks The maximum number of reused chunks kept around to avoid allocation
+     */
+    public MpscUnboundedXaddAtomicUnpaddedArrayQueue(int chunkSize, int minPooledChunks, int maxPooledChunks)
+    {
+        super(chunkSize, minPooledChunks, maxPooledChunks);
+    }
+
     @Override
     final MpscUnboundedXaddAtomicUnpaddedChunk<E> newChunk(long index, MpscUnboundedXaddAtomicUnpaddedChunk<E> prev, int chunkSize, boolean pooled)
     {
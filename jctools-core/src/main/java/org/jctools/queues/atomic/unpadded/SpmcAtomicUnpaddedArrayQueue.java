@@ -12,11 +12,13 @@
  * limitations under the License.
  */
 package org.jctools.queues.atomic.unpadded;
+import java.util.List;
 import java.util.concurrent.atomic.*;
 import org.jctools.queues.*;
 import static org.jctools.queues.atomic.AtomicQueueUtil.*;
 
 
+
 /**
  * NOTE: This class was automatically generated by org.jctools.queues.atomic.unpadded.JavaParsingAtomicUnpaddedArrayQueueGenerator
  * which can found in the jctools-build module. The original source file is SpmcArrayQueue.java.
@@ -397,6 +399,18 @@ public class SpmcAtomicUnpaddedArrayQueue<E> extends SpmcAtomicUnpaddedArrayQueu
         return MessagePassingQueueUtil.drain(this, c);
     }
 
+    @Override
+    public int drain(final E[] dst, final int dstOffset, final int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, dstOffset, limit);
+    }
+
+    @Override
+    public int drain(final List<? super E> dst, final int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, limit);
+    }
+
     @Override
     public int fill(final Supplier<E> s)
     {
@@ -0,0 +1,437 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.intrusive;
+
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.MessagePassingQueueUtil;
+import org.jctools.util.UnsafeAccess;
+
+import java.util.List;
+
+import static org.jctools.util.UnsafeAccess.UNSAFE;
+import static org.jctools.util.UnsafeAccess.fieldOffset;
+
+abstract class BaseIntrusiveLinkedQueuePad0 implements MessagePassingQueue<Node>
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    // byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+    //    * drop 8b as object header acts as padding and is >= 8b *
+}
+
+// $gen:ordered-fields
+abstract class BaseIntrusiveLinkedQueueProducerNodeRef extends BaseIntrusiveLinkedQueuePad0
+{
+    private final static long P_NODE_OFFSET = fieldOffset(BaseIntrusiveLinkedQueueProducerNodeRef.class, "producerNode");
+
+    private volatile Node producerNode;
+
+    final Node lvProducerNode()
+    {
+        return producerNode;
+    }
+
+    final Node xchgProducerNode(Node newValue)
+    {
+        if (UnsafeAccess.SUPPORTS_GET_AND_SET_REF)
+        {
+            return (Node) UNSAFE.getAndSetObject(this, P_NODE_OFFSET, newValue);
+        }
+        else
+        {
+            Node oldValue;
+            do
+            {
+                oldValue = lvProducerNode();
+            }
+            while (!UNSAFE.compareAndSwapObject(this, P_NODE_OFFSET, oldValue, newValue));
+            return oldValue;
+        }
+    }
+}
+
+abstract class BaseIntrusiveLinkedQueuePad1 extends BaseIntrusiveLinkedQueueProducerNodeRef
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+//$gen:ordered-fields
+abstract class BaseIntrusiveLinkedQueueConsumerNodeRef extends BaseIntrusiveLinkedQueuePad1
+{
+    private final static long C_NODE_OFFSET = fieldOffset(BaseIntrusiveLinkedQueueConsumerNodeRef.class, "consumerNode");
+    private final static long C_LOCK_OFFSET = fieldOffset(BaseIntrusiveLinkedQueueConsumerNodeRef.class, "consumerLock");
+
+    private Node consumerNode;
+    // only used by multi consumer queues, sits with the consumer node it guards
+    private volatile int consumerLock;
+
+    final void spConsumerNode(Node newValue)
+    {
+        consumerNode = newValue;
+    }
+
+    final Node lvConsumerNode()
+    {
+        return (Node) UNSAFE.getObjectVolatile(this, C_NODE_OFFSET);
+    }
+
+    final Node lpConsumerNode()
+    {
+        return consumerNode;
+    }
+
+    final int lvConsumerLock()
+    {
+        return consumerLock;
+    }
+
+    final void soConsumerLock(int newValue)
+    {
+        UNSAFE.putOrderedInt(this, C_LOCK_OFFSET, newValue);
+    }
+
+    final boolean casConsumerLock(int expect, int newValue)
+    {
+        return UNSAFE.compareAndSwapInt(this, C_LOCK_OFFSET, expect, newValue);
+    }
+}
+
+abstract class BaseIntrusiveLinkedQueuePad2 extends BaseIntrusiveLinkedQueueConsumerNodeRef
+{
+    byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
+    byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
+    byte b020,b021,b022,b023,b024,b025,b026,b027;// 24b
+    byte b030,b031,b032,b033,b034,b035,b036,b037;// 32b
+    byte b040,b041,b042,b043,b044,b045,b046,b047;// 40b
+    byte b050,b051,b052,b053,b054,b055,b056,b057;// 48b
+    byte b060,b061,b062,b063,b064,b065,b066,b067;// 56b
+    byte b070,b071,b072,b073,b074,b075,b076,b077;// 64b
+    byte b100,b101,b102,b103,b104,b105,b106,b107;// 72b
+    byte b110,b111,b112,b113,b114,b115,b116,b117;// 80b
+    byte b120,b121,b122,b123,b124,b125,b126,b127;// 88b
+    byte b130,b131,b132,b133,b134,b135,b136,b137;// 96b
+    byte b140,b141,b142,b143,b144,b145,b146,b147;//104b
+    byte b150,b151,b152,b153,b154,b155,b156,b157;//112b
+    byte b160,b161,b162,b163,b164,b165,b166,b167;//120b
+    byte b170,b171,b172,b173,b174,b175,b176,b177;//128b
+}
+
+/**
+ * Intrusive linked queues link the {@link Node}s offered to them rather than wrapping elements in queue allocated
+ * nodes, an offer does not allocate. The algorithm is the <a href="http://www.1024cores.net/home/lock-free-algorithms/queues/intrusive-mpsc-node-based-queue">Intrusive
+ * MPSC node-based queue</a> as presented on <a href="http://www.1024cores.net">1024cores</a> by Dmitry Vyukov: the
+ * producers swap themselves in as the producer node and then link the previous one to them, a stub node is put back
+ * in the queue by the consumer when it takes the last node, so a node can be handed out as soon as it is consumed.
+ * <p>
+ * Node reuse: a node returned by a poll, or passed to the consumer of a drain, is no longer used by the queue and may
+ * be offered again straight away, to this queue or another. A node must not be offered before it is handed out, e.g.
+ * to 2 queues at once or while a drain still holds it.
+ *
+ * @see Node
+ */
+abstract class BaseIntrusiveLinkedQueue extends BaseIntrusiveLinkedQueuePad2
+{
+    protected final Node stub = new NodeImpl();
+
+    BaseIntrusiveLinkedQueue()
+    {
+        spConsumerNode(stub);
+        xchgProducerNode(stub);
+    }
+
+    /**
+     * {@inheritDoc} <br>
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * Offer is allowed from multiple threads.<br>
+     * Offer takes the node, so it must not be in this or any other queue.<br>
+     * This implementation is wait free (when the JDK supports getAndSet).
+     */
+    @Override
+    public boolean offer(Node node)
+    {
+        if (null == node)
+        {
+            throw new NullPointerException();
+        }
+        node.setNext(null);
+        final Node prev = xchgProducerNode(node);
+        // bubble potential: the consumer may observe the producer node before prev is linked to it
+        prev.setNext(node);
+        return true;
+    }
+
+    @Override
+    public boolean relaxedOffer(Node node)
+    {
+        return offer(node);
+    }
+
+    /**
+     * Called from the single consumer thread, or a consumer holding the consumer lock.
+     *
+     * @param relaxed return null rather than wait on a producer which has not yet linked its node
+     * @return the consumed node, its next pointer is set to the stub
+     */
+    final Node consumeNode(boolean relaxed)
+    {
+        final Node stub = this.stub;
+        Node cNode = lpConsumerNode();
+        Node next = cNode.getNext();
+
+        if (cNode == stub)
+        {
+            if (null == next)
+            {
+                // consumer is stub and next is null, the queue is empty unless a producer is mid offer
+                if (relaxed || lvProducerNode() == stub)
+                {
+                    return null;
+                }
+                next = spinWaitForNextNode(stub);
+            }
+            // we see a way out of stub, cNode is swapped for next and start again
+            spConsumerNode(next);
+            cNode = next;
+            next = next.getNext();
+        }
+        if (null == next)
+        {
+            if (cNode != lvProducerNode())
+            {
+                // a producer swapped in its node but has not linked cNode to it yet
+                if (relaxed)
+                {
+                    return null;
+                }
+                next = spinWaitForNextNode(cNode);
+            }
+            else
+            {
+                // cNode is the last node, put the stub behind it so it can be handed out
+                offer(stub);
+                next = cNode.getNext();
+                if (null == next)
+                {
+                    // another producer got in before the stub and has not linked cNode to its node yet
+                    if (relaxed)
+                    {
+                        return null;
+                    }
+                    next = spinWaitForNextNode(cNode);
+                }
+            }
+        }
+        spConsumerNode(next);
+        // prevent GC nepotism, signal consumed to size
+        cNode.setNext(stub);
+        return cNode;
+    }
+
+    /**
+     * Called from the single consumer thread, or a consumer holding the consumer lock.
+     */
+    final Node peekNode(boolean relaxed)
+    {
+        final Node stub = this.stub;
+        final Node cNode = lpConsumerNode();
+        if (cNode != stub)
+        {
+            return cNode;
+        }
+        Node next = stub.getNext();
+        if (null == next && !relaxed && lvProducerNode() != stub)
+        {
+            next = spinWaitForNextNode(stub);
+        }
+        return next;
+    }
+
+    private static Node spinWaitForNextNode(Node currNode)
+    {
+        Node next;
+        while ((next = currNode.getNext()) == null)
+        {
+            // spin, we are no longer wait free
+        }
+        return next;
+    }
+
+    /**
+     * {@inheritDoc} <br>
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * This is an O(n) operation as we run through all the nodes and count them.<br>
+     * The accuracy of the value returned by this method is subject to races with producer/consumer threads. In
+     * particular when racing with the consumer thread this method may under estimate the size.<br>
+     * Note that passing nodes between queues, or concurrent requeuing of nodes can cause this method to return strange
+     * values.
+     */
+    @Override
+    public int size()
+    {
+        // Read consumer first, this is important because if the producer node is 'older' than the consumer
+        // the consumer may overtake it (consume past it) invalidating the 'snapshot' notion of size.
+        final Node stub = this.stub;
+        Node chaserNode = lvConsumerNode();
+        if (chaserNode == stub)
+        {
+            chaserNode = chaserNode.getNext();
+        }
+
+        final Node producerNode = lvProducerNode();
+        int size = 0;
+        // must chase the nodes all the way to the producer node, but there's no need to count beyond expected head.
+        while (chaserNode != null && chaserNode != stub &&
+            size < Integer.MAX_VALUE) // stop at max int
+        {
+            if (chaserNode == producerNode)
+            {
+                return size + 1;
+            }
+            chaserNode = chaserNode.getNext();
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * {@inheritDoc} <br>
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * Queue is empty when the consumer node and the producer node are both the stub.
+     */
+    @Override
+    public boolean isEmpty()
+    {
+        final Node stub = this.stub;
+        return lvConsumerNode() == stub && lvProducerNode() == stub;
+    }
+
+    @Override
+    public int capacity()
+    {
+        return UNBOUNDED_CAPACITY;
+    }
+
+    @Override
+    public void clear()
+    {
+        while (poll() != null)
+        {
+            // if you stare into the void
+        }
+    }
+
+    /**
+     * {@inheritDoc} <br>
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * The nodes are linked to each other before the batch is published with a single exchange of the producer node.
+     */
+    @Override
+    public int fill(Supplier<Node> s, int limit)
+    {
+        if (null == s)
+            throw new IllegalArgumentException("supplier is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative:" + limit);
+        if (limit == 0)
+            return 0;
+
+        Node tail = s.get();
+        final Node head = tail;
+        for (int i = 1; i < limit; i++)
+        {
+            final Node temp = s.get();
+            // the exchange of the producer node publishes the links
+            tail.setNext(temp);
+            tail = temp;
+        }
+        tail.setNext(null);
+        final Node prev = xchgProducerNode(tail);
+        prev.setNext(head);
+        return limit;
+    }
+
+    @Override
+    public int fill(Supplier<Node> s)
+    {
+        return MessagePassingQueueUtil.fillUnbounded(this, s);
+    }
+
+    @Override
+    public void fill(Supplier<Node> s, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.fill(this, s, wait, exit);
+    }
+
+    @Override
+    public int drain(Consumer<Node> c)
+    {
+        return MessagePassingQueueUtil.drain(this, c);
+    }
+
+    @Override
+    public int drain(Node[] dst, int dstOffset, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, dstOffset, limit);
+    }
+
+    @Override
+    public int drain(List<? super Node> dst, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, limit);
+    }
+
+    @Override
+    public void drain(Consumer<Node> c, WaitStrategy wait, ExitCondition exit)
+    {
+        MessagePassingQueueUtil.drain(this, c, wait, exit);
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.getClass().getName();
+    }
+}
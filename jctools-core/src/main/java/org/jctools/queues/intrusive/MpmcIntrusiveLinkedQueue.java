@@ -0,0 +1,201 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.intrusive;
+
+import org.jctools.util.ThreadHints;
+
+/**
+ * Intrusive MPMC queue, the producers are the same as in {@link MpscIntrusiveLinkedQueue} and the consumers take
+ * turns on a spin lock guarding the consumer node.
+ * <p>
+ * The consumer side of the algorithm cannot be made lock free with a CAS of the consumer node: nodes are reused, so a
+ * consumer may find the consumer node and its next node back in place after they went through other threads (ABA).
+ * The lock is held for the unlinking only, a drain unlinks a batch of nodes under a single lock acquire and hands
+ * them to the consumer after releasing it.
+ *
+ * @see Node
+ */
+public class MpmcIntrusiveLinkedQueue extends BaseIntrusiveLinkedQueue
+{
+    public MpmcIntrusiveLinkedQueue()
+    {
+        super();
+    }
+
+    /**
+     * {@inheritDoc} <br>
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * Poll is allowed from multiple threads, and blocks while another consumer holds the consumer lock.<br>
+     * Poll is potentially blocking on a producer, see {@link MpscIntrusiveLinkedQueue#poll()}.<br>
+     * The returned node may be offered again straight away.
+     */
+    @Override
+    public Node poll()
+    {
+        lockConsumer();
+        try
+        {
+            return consumeNode(false);
+        }
+        finally
+        {
+            unlockConsumer();
+        }
+    }
+
+    /**
+     * {@inheritDoc} <br>
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * Peek is allowed from multiple threads, the returned node may be taken by another consumer at any point after.
+     */
+    @Override
+    public Node peek()
+    {
+        lockConsumer();
+        try
+        {
+            return peekNode(false);
+        }
+        finally
+        {
+            unlockConsumer();
+        }
+    }
+
+    /**
+     * {@inheritDoc} <br>
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * Returns {@code null} if another consumer holds the consumer lock.
+     */
+    @Override
+    public Node relaxedPoll()
+    {
+        if (!tryLockConsumer())
+        {
+            return null;
+        }
+        try
+        {
+            return consumeNode(true);
+        }
+        finally
+        {
+            unlockConsumer();
+        }
+    }
+
+    /**
+     * {@inheritDoc} <br>
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * Returns {@code null} if another consumer holds the consumer lock.
+     */
+    @Override
+    public Node relaxedPeek()
+    {
+        if (!tryLockConsumer())
+        {
+            return null;
+        }
+        try
+        {
+            return peekNode(true);
+        }
+        finally
+        {
+            unlockConsumer();
+        }
+    }
+
+    /**
+     * {@inheritDoc} <br>
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * The batch is unlinked under a single lock acquire and chained through the next pointers of the drained nodes,
+     * the consumer is called after the lock is released.
+     */
+    @Override
+    public int drain(Consumer<Node> c, int limit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+        if (limit == 0)
+            return 0;
+
+        Node head = null;
+        Node tail = null;
+        int count = 0;
+        lockConsumer();
+        try
+        {
+            Node node;
+            while (count < limit && (node = consumeNode(true)) != null)
+            {
+                if (null == head)
+                {
+                    head = node;
+                }
+                else
+                {
+                    tail.setNext(node);
+                }
+                tail = node;
+                count++;
+            }
+        }
+        finally
+        {
+            unlockConsumer();
+        }
+        if (null != tail)
+        {
+            tail.setNext(null);
+        }
+
+        final Node stub = this.stub;
+        Node node = head;
+        while (null != node)
+        {
+            // read next before handing the node out, it may be offered again
+            final Node next = node.getNext();
+            node.setNext(stub);
+            c.accept(node);
+            node = next;
+        }
+        return count;
+    }
+
+    private boolean tryLockConsumer()
+    {
+        return lvConsumerLock() == 0 && casConsumerLock(0, 1);
+    }
+
+    private void lockConsumer()
+    {
+        while (!tryLockConsumer())
+        {
+            ThreadHints.onSpinWait();
+        }
+    }
+
+    private void unlockConsumer()
+    {
+        soConsumerLock(0);
+    }
+}
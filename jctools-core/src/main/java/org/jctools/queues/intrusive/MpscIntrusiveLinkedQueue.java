@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.intrusive;
+
+/**
+ * Intrusive MPSC queue implementation based on <a href="http://www.1024cores.net/home/lock-free-algorithms/queues/intrusive-mpsc-node-based-queue">Intrusive
+ * MPSC node-based queue</a> as presented on <a href="http://www.1024cores.net">1024cores</a> by Dmitry Vyukov.
+ * <p>
+ * This is also the intrusive queue to use with a single producer: handing out the last node requires the consumer
+ * to put the stub back into the queue, so the producer node is updated by 2 threads whatever the number of
+ * producers.
+ *
+ * @see Node
+ */
+public class MpscIntrusiveLinkedQueue extends BaseIntrusiveLinkedQueue
+{
+    public MpscIntrusiveLinkedQueue()
+    {
+        super();
+    }
+
+    /**
+     * {@inheritDoc} <br>
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * Poll is allowed from a SINGLE thread.<br>
+     * Poll is potentially blocking here as the {@link java.util.Queue#poll()} does not allow returning {@code null}
+     * if the queue is not empty. This is very different from the original Vyukov guarantees. See
+     * {@link #relaxedPoll()} for the original semantics.<br>
+     * The returned node may be offered again straight away.
+     */
+    @Override
+    public Node poll()
+    {
+        return consumeNode(false);
+    }
+
+    /**
+     * {@inheritDoc} <br>
+     * <p>
+     * IMPLEMENTATION NOTES:<br>
+     * Peek is allowed from a SINGLE thread.<br>
+     * Peek is potentially blocking here, see {@link #poll()}.
+     */
+    @Override
+    public Node peek()
+    {
+        return peekNode(false);
+    }
+
+    @Override
+    public Node relaxedPoll()
+    {
+        return consumeNode(true);
+    }
+
+    @Override
+    public Node relaxedPeek()
+    {
+        return peekNode(true);
+    }
+
+    @Override
+    public int drain(Consumer<Node> c, int limit)
+    {
+        if (null == c)
+            throw new IllegalArgumentException("c is null");
+        if (limit < 0)
+            throw new IllegalArgumentException("limit is negative: " + limit);
+        if (limit == 0)
+            return 0;
+
+        for (int i = 0; i < limit; i++)
+        {
+            final Node node = consumeNode(true);
+            if (null == node)
+            {
+                return i;
+            }
+            c.accept(node);
+        }
+        return limit;
+    }
+}
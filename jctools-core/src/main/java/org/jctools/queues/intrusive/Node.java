@@ -14,17 +14,23 @@
 package org.jctools.queues.intrusive;
 
 /**
- * Intrusive queue nodes are required to implement this interface.
+ * Intrusive queue nodes are required to implement this interface. The queue links nodes through their next pointer,
+ * so a node may only be in one queue at a time. A node handed out by a queue may be offered again straight away, to
+ * the same queue or another.
  *
  * @see NodeImpl for a base implementation
  */
-public interface Node {
+public interface Node
+{
     /**
      * Stores a pointer to the next node in the linked queue structure. This corresponds to
      * mpscq_node_t.next in the <a href="http://www.1024cores.net/home/lock-free-algorithms/queues/intrusive-mpsc-node-based-queue">
-     * 1024cores post Intrusive MPSC node-based queue</a>. Note the volatile semantics of the stores in the algorithm.
+     * 1024cores post Intrusive MPSC node-based queue</a>. The store must have at least ordered (lazySet) semantics.
      */
     void setNext(Node next);
 
+    /**
+     * Loads the next node pointer, the load must have volatile semantics.
+     */
     Node getNext();
 }
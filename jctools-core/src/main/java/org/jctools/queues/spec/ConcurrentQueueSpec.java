@@ -15,7 +15,13 @@ package org.jctools.queues.spec;
 
 import org.jctools.queues.MessagePassingQueue;
 
-@Deprecated//(since = "3.0.0")
+/**
+ * Describes the requirements on a queue: the number of producer and consumer threads, the capacity, the ordering
+ * and what to favour. A producer or consumer count of 1 means a single thread, any other count means many threads.
+ * A capacity of less than 1 means the queue is unbounded.
+ *
+ * @see org.jctools.queues.QueueFactory
+ */
 public final class ConcurrentQueueSpec
 {
     public final int producers;
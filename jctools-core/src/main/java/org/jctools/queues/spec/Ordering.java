@@ -0,0 +1,29 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.spec;
+
+/**
+ * The ordering a {@link ConcurrentQueueSpec} requires of the elements handed to the consumers.
+ */
+public enum Ordering
+{
+    /** Elements are consumed in the order they were offered. */
+    FIFO,
+    /** Elements may be consumed out of order, by no more than a bounded number of places. */
+    KFIFO,
+    /** Elements offered by the same producer are consumed in the order they were offered. */
+    PRODUCER_FIFO,
+    /** No ordering is required. */
+    NONE
+}
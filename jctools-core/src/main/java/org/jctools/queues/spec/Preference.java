@@ -0,0 +1,29 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.spec;
+
+/**
+ * What a {@link ConcurrentQueueSpec} favours when more than one implementation fits its other requirements.
+ */
+public enum Preference
+{
+    LATENCY,
+    THROUGHPUT,
+    NONE,
+    /**
+     * Favour a small queue instance over throughput, e.g. when there are many mostly idle queues: instances are not
+     * padded against false sharing and large bounded queues grow their buffer as needed.
+     */
+    FOOTPRINT
+}
@@ -11,10 +11,7 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
+@Export
 package org.jctools.queues.spec;
 
-@Deprecated//(since = "3.0.0")
-public enum Preference
-{
-    LATENCY, THROUGHPUT, NONE
-}
+import org.osgi.annotation.bundle.Export;
@@ -12,12 +12,14 @@
  * limitations under the License.
  */
 package org.jctools.queues.unpadded;
+import java.util.List;
 import static org.jctools.util.UnsafeAccess.UNSAFE;
 import static org.jctools.util.UnsafeAccess.fieldOffset;
 import static org.jctools.util.UnsafeRefArrayAccess.*;
 import org.jctools.queues.*;
 
 
+
 /**
  * NOTE: This class was automatically generated by org.jctools.queues.unpadded.JavaParsingUnpaddedQueueGenerator
  * which can found in the jctools-build module. The original source file is SpmcArrayQueue.java.
@@ -398,6 +400,18 @@ public class SpmcUnpaddedArrayQueue<E> extends SpmcUnpaddedArrayQueueL3Pad<E>
         return MessagePassingQueueUtil.drain(this, c);
     }
 
+    @Override
+    public int drain(final E[] dst, final int dstOffset, final int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, dstOffset, limit);
+    }
+
+    @Override
+    public int drain(final List<? super E> dst, final int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, limit);
+    }
+
     @Override
     public int fill(final Supplier<E> s)
     {
@@ -0,0 +1,64 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Access to {@code Thread.onSpinWait()} while compiling against Java 8. On JDK 9+ the call through the constant
+ * method handle is inlined and intrinsified by the JIT (e.g. into a PAUSE instruction on x86), on Java 8 it is a
+ * no-op.
+ */
+@InternalAPI
+public final class ThreadHints
+{
+    private static final MethodHandle ON_SPIN_WAIT;
+
+    static
+    {
+        MethodHandle onSpinWait = null;
+        try
+        {
+            onSpinWait = MethodHandles.lookup().findStatic(Thread.class, "onSpinWait", MethodType.methodType(void.class));
+        }
+        catch (Exception ignore)
+        {
+            // not available before Java 9
+        }
+        ON_SPIN_WAIT = onSpinWait;
+    }
+
+    private ThreadHints()
+    {
+    }
+
+    /**
+     * Indicates the caller is momentarily unable to progress, until some other thread makes progress.
+     */
+    public static void onSpinWait()
+    {
+        if (null != ON_SPIN_WAIT)
+        {
+            try
+            {
+                ON_SPIN_WAIT.invokeExact();
+            }
+            catch (Throwable ignore)
+            {
+            }
+        }
+    }
+}
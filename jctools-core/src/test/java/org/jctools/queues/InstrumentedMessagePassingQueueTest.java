@@ -0,0 +1,147 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jctools.queues.InstrumentedMessagePassingQueue.Snapshot;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class InstrumentedMessagePassingQueueTest
+{
+    @Test
+    public void testCountsFailedOffersAndEmptyPolls()
+    {
+        final InstrumentedMessagePassingQueue<Integer> q = new InstrumentedMessagePassingQueue<>(
+            new SpscArrayQueue<Integer>(4));
+        assertNull(q.poll());
+        assertNull(q.relaxedPoll());
+        for (int i = 0; i < 4; i++)
+        {
+            assertTrue(q.offer(i));
+        }
+        assertFalse(q.offer(4));
+        assertFalse(q.relaxedOffer(4));
+        assertEquals(0, q.fill(new MessagePassingQueue.Supplier<Integer>()
+        {
+            @Override
+            public Integer get()
+            {
+                return 4;
+            }
+        }, 4));
+        assertEquals(Integer.valueOf(0), q.poll());
+
+        final Snapshot snapshot = q.snapshot();
+        assertEquals(3, snapshot.failedOffers());
+        assertEquals(2, snapshot.emptyPolls());
+        assertEquals(0, snapshot.drains());
+    }
+
+    @Test
+    public void testCountsDrainBatches()
+    {
+        final InstrumentedMessagePassingQueue<Integer> q = new InstrumentedMessagePassingQueue<>(
+            new MpscArrayQueue<Integer>(16));
+        for (int i = 0; i < 10; i++)
+        {
+            q.offer(i);
+        }
+        final List<Integer> dst = new ArrayList<>();
+        assertEquals(4, q.drain(dst, 4));
+        assertEquals(2, q.drain(new Integer[2], 0, 2));
+        assertEquals(4, q.drain(new MessagePassingQueue.Consumer<Integer>()
+        {
+            @Override
+            public void accept(Integer e)
+            {
+            }
+        }));
+        assertEquals(0, q.drain(dst, 4));
+
+        final Snapshot snapshot = q.snapshot();
+        assertEquals(4, snapshot.drains());
+        assertEquals(1, snapshot.emptyDrains());
+        assertEquals(10, snapshot.drainedElements());
+        assertEquals(10.0 / 3, snapshot.meanDrainBatchSize(), 0.0001);
+    }
+
+    @Test
+    public void testSnapshotAndReset()
+    {
+        final InstrumentedMessagePassingQueue<Integer> q = new InstrumentedMessagePassingQueue<>(
+            new MpscArrayQueue<Integer>(2), 2, 1, 4);
+        q.poll();
+        q.offer(1);
+        q.offer(2);
+        q.offer(3);
+
+        final Snapshot first = q.snapshotAndReset();
+        assertEquals(1, first.failedOffers());
+        assertEquals(1, first.emptyPolls());
+        assertEquals(4, first.occupancySamples());
+
+        final Snapshot second = q.snapshot();
+        assertEquals(0, second.failedOffers());
+        assertEquals(0, second.emptyPolls());
+        assertEquals(0, second.occupancySamples());
+    }
+
+    @Test
+    public void testBoundedOccupancyHistogram()
+    {
+        // sample interval 1 samples on every offer and poll
+        final InstrumentedMessagePassingQueue<Integer> q = new InstrumentedMessagePassingQueue<>(
+            new SpscArrayQueue<Integer>(8), 1, 1, 4);
+        assertEquals(0, q.occupancyBucket(0));
+        assertEquals(0, q.occupancyBucket(1));
+        assertEquals(1, q.occupancyBucket(2));
+        assertEquals(3, q.occupancyBucket(7));
+        assertEquals(3, q.occupancyBucket(8));
+
+        for (int i = 0; i < 8; i++)
+        {
+            q.offer(i);
+        }
+        q.offer(8);
+
+        // sizes after each offer: 1..8, then 8 for the failed offer
+        final Snapshot snapshot = q.snapshot();
+        assertArrayEquals(new long[]{1, 2, 2, 4}, snapshot.occupancyHistogram());
+        assertEquals(9, snapshot.occupancySamples());
+    }
+
+    @Test
+    public void testUnboundedOccupancyHistogram()
+    {
+        final InstrumentedMessagePassingQueue<Integer> q = new InstrumentedMessagePassingQueue<>(
+            new MpscUnboundedArrayQueue<Integer>(16), 1, 1, 4);
+        assertEquals(MessagePassingQueue.UNBOUNDED_CAPACITY, q.capacity());
+        assertEquals(0, q.occupancyBucket(0));
+        assertEquals(1, q.occupancyBucket(1));
+        assertEquals(2, q.occupancyBucket(2));
+        assertEquals(2, q.occupancyBucket(3));
+        assertEquals(3, q.occupancyBucket(4));
+        assertEquals(3, q.occupancyBucket(1 << 20));
+
+        q.poll();
+        q.offer(1);
+        q.offer(2);
+        q.offer(3);
+        q.offer(4);
+        assertArrayEquals(new long[]{1, 1, 2, 1}, q.snapshot().occupancyHistogram());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSampleIntervalMustBePowerOfTwo()
+    {
+        new InstrumentedMessagePassingQueue<>(new SpscArrayQueue<Integer>(8), 1, 3, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDelegateMustNotBeNull()
+    {
+        new InstrumentedMessagePassingQueue<Integer>(null);
+    }
+}
@@ -0,0 +1,206 @@
+package org.jctools.queues;
+
+import org.jctools.util.Pow2;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.jctools.util.TestUtil.*;
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class LongQueueSanityTest
+{
+    public static final int SIZE = 8192 * 2;
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final int requestedCapacity;
+    private final int producers;
+    private final MessagePassingLongQueue queue;
+
+    public LongQueueSanityTest(String name, int requestedCapacity, int producers, MessagePassingLongQueue queue)
+    {
+        this.requestedCapacity = requestedCapacity;
+        this.producers = producers;
+        this.queue = queue;
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(new Object[]{"SpscLongArrayQueue(1)", 1, 1, new SpscLongArrayQueue(1)});
+        list.add(new Object[]{"SpscLongArrayQueue(SIZE)", SIZE, 1, new SpscLongArrayQueue(SIZE)});
+        list.add(new Object[]{"MpscLongArrayQueue(1)", 1, 0, new MpscLongArrayQueue(1)});
+        list.add(new Object[]{"MpscLongArrayQueue(SIZE)", SIZE, 0, new MpscLongArrayQueue(SIZE)});
+        list.add(new Object[]{"MpmcLongArrayQueue(2)", 2, 0, new MpmcLongArrayQueue(2)});
+        list.add(new Object[]{"MpmcLongArrayQueue(SIZE)", SIZE, 0, new MpmcLongArrayQueue(SIZE)});
+        return list;
+    }
+
+    @After
+    public void clear()
+    {
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void capacityWorks()
+    {
+        assertEquals(Pow2.roundToPowerOfTwo(requestedCapacity), queue.capacity());
+    }
+
+    @Test
+    public void emptyValueIsReturnedWhenEmpty()
+    {
+        assertEquals(EMPTY, queue.poll(EMPTY));
+        assertEquals(EMPTY, queue.peek(EMPTY));
+        assertEquals(EMPTY, queue.relaxedPoll(EMPTY));
+        assertEquals(EMPTY, queue.relaxedPeek(EMPTY));
+        assertEquals(-1, queue.poll(-1));
+    }
+
+    @Test
+    public void emptyValueCanBeOffered()
+    {
+        assertTrue(queue.offer(EMPTY));
+        assertEquals(1, queue.size());
+        assertEquals(EMPTY, queue.peek(0));
+        assertEquals(EMPTY, queue.poll(0));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void sanity()
+    {
+        for (int i = 0; i < SIZE; i++)
+        {
+            assertEquals(EMPTY, queue.relaxedPoll(EMPTY));
+            assertTrue(queue.isEmpty());
+            assertEquals(0, queue.size());
+        }
+        long i = 0;
+        while (i < SIZE && queue.relaxedOffer(Long.MAX_VALUE - i))
+        {
+            i++;
+        }
+        final int size = (int) i;
+        assertEquals(queue.capacity(), size);
+        assertFalse(queue.offer(0));
+        // expect FIFO
+        i = 0;
+        long p;
+        while ((p = queue.relaxedPeek(EMPTY)) != EMPTY)
+        {
+            final long e = queue.relaxedPoll(EMPTY);
+            assertEquals(p, e);
+            assertEquals(size - (i + 1), queue.size());
+            assertEquals(Long.MAX_VALUE - i++, e);
+        }
+        assertEquals(size, i);
+    }
+
+    @Test
+    public void sanityDrainFillBatch()
+    {
+        assertEquals(0, queue.drain(e -> fail(), SIZE));
+        final AtomicLong counter = new AtomicLong();
+        final int filled = queue.fill(counter::getAndIncrement, SIZE);
+        assertEquals(queue.capacity(), filled);
+        assertEquals(filled, queue.size());
+        assertEquals(0, queue.fill(() -> {fail(); return 0;}, 1));
+
+        final AtomicLong expected = new AtomicLong();
+        int drained = 0;
+        int drainCount;
+        do
+        {
+            drained += drainCount = queue.drain(e -> assertEquals(expected.getAndIncrement(), e), 3);
+        }
+        while (drainCount != 0);
+        assertEquals(filled, drained);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void fillToCapacity()
+    {
+        assertEquals(queue.capacity(), queue.fill(() -> 1L));
+        assertEquals(queue.capacity(), queue.size());
+        assertEquals(queue.capacity(), queue.drain(e -> assertEquals(1L, e)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fillNegativeLimit()
+    {
+        queue.fill(() -> 1L, -1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void drainNullConsumer()
+    {
+        queue.drain(null, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void drainNullWaiter()
+    {
+        queue.drain(e -> {}, null, () -> true);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testProducerOrdering() throws Exception
+    {
+        final AtomicBoolean stop = new AtomicBoolean();
+        final AtomicLong threadId = new AtomicLong();
+        final AtomicLong fail = new AtomicLong();
+        final MessagePassingLongQueue q = queue;
+        List<Thread> threads = new ArrayList<>();
+        // each producer offers (id << 32 | seq) so the consumer can verify per producer ordering
+        threads(() -> {
+            final long id = threadId.getAndIncrement() << 32;
+            long seq = 0;
+            while (!stop.get())
+            {
+                if (q.relaxedOffer(id | seq))
+                {
+                    seq++;
+                }
+            }
+        }, producers, threads);
+
+        threads(() -> {
+            final long[] lastSeen = new long[CONCURRENT_TEST_THREADS + 1];
+            Arrays.fill(lastSeen, -1);
+            while (!stop.get())
+            {
+                final long e = q.relaxedPoll(EMPTY);
+                if (e == EMPTY)
+                {
+                    continue;
+                }
+                final int id = (int) (e >>> 32);
+                final long seq = e & 0xFFFFFFFFL;
+                if (seq <= lastSeen[id])
+                {
+                    fail.set(1);
+                    stop.set(true);
+                }
+                lastSeen[id] = seq;
+            }
+        }, 1, threads);
+
+        startWaitJoin(stop, threads);
+        assertEquals("reordering detected", 0, fail.get());
+    }
+}
@@ -0,0 +1,120 @@
+package org.jctools.queues;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class MpUnboundedXaddChunkPoolTest
+{
+    private static final int CHUNK_SIZE = 16;
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        return Arrays.asList(new Object[][]{{"Mpsc"}, {"Mpmc"}});
+    }
+
+    private final String type;
+
+    public MpUnboundedXaddChunkPoolTest(String type)
+    {
+        this.type = type;
+    }
+
+    private MpUnboundedXaddArrayQueue<?, Integer> newQueue(int minPooledChunks, int maxPooledChunks)
+    {
+        if (type.equals("Mpsc"))
+        {
+            return new MpscUnboundedXaddArrayQueue<>(CHUNK_SIZE, minPooledChunks, maxPooledChunks);
+        }
+        return new MpmcUnboundedXaddArrayQueue<>(CHUNK_SIZE, minPooledChunks, maxPooledChunks);
+    }
+
+    private static void offerAndPoll(MpUnboundedXaddArrayQueue<?, Integer> q, int elements)
+    {
+        for (int i = 0; i < elements; i++)
+        {
+            assertTrue(q.offer(i));
+        }
+        for (int i = 0; i < elements; i++)
+        {
+            assertEquals(Integer.valueOf(i), q.poll());
+        }
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    public void testPoolGrowsUnderBacklogAndShrinksWhenShallow()
+    {
+        final MpUnboundedXaddArrayQueue<?, Integer> q = newQueue(1, 8);
+        assertEquals(1, q.minPooledChunks());
+        assertEquals(8, q.maxPooledChunks());
+        assertEquals(1, q.pooledChunks());
+
+        // a burst spanning 8 chunks grows the pool to its max
+        offerAndPoll(q, 8 * CHUNK_SIZE);
+        assertEquals(8, q.pooledChunks());
+        assertEquals(7, q.chunkAllocations());
+        assertEquals(0, q.chunkReuses());
+        assertEquals(0, q.chunkReleases());
+
+        // shallow traffic crossing a chunk at a time needs 2 chunks, the spare ones are released
+        for (int i = 0; i < 200; i++)
+        {
+            offerAndPoll(q, CHUNK_SIZE);
+        }
+        assertEquals(2, q.pooledChunks());
+        assertEquals(7, q.chunkAllocations());
+        assertEquals(200, q.chunkReuses());
+        assertEquals(6, q.chunkReleases());
+
+        // the next burst grows the pool again, chunks beyond the max are not pooled
+        offerAndPoll(q, 64 * CHUNK_SIZE);
+        assertEquals(8, q.pooledChunks());
+        assertEquals(7 + 63, q.chunkAllocations());
+    }
+
+    @Test
+    public void testFixedPoolIsPreAllocatedAndNeverReleased()
+    {
+        final MpUnboundedXaddArrayQueue<?, Integer> q = newQueue(4, 4);
+        assertEquals(4, q.pooledChunks());
+        for (int i = 0; i < 100; i++)
+        {
+            offerAndPoll(q, 3 * CHUNK_SIZE);
+        }
+        assertEquals(4, q.pooledChunks());
+        assertEquals(0, q.chunkAllocations());
+        assertEquals(0, q.chunkReleases());
+
+        offerAndPoll(q, 16 * CHUNK_SIZE);
+        assertEquals(4, q.pooledChunks());
+        // only the chunks beyond the pool are allocated, and dropped once consumed but for the current consumer chunk
+        assertEquals(q.chunkAllocations() - 1, q.chunkReleases());
+        assertTrue(q.chunkAllocations() > 0);
+    }
+
+    @Test
+    public void testUnpooledQueue()
+    {
+        final MpUnboundedXaddArrayQueue<?, Integer> q = newQueue(0, 0);
+        assertEquals(0, q.pooledChunks());
+        offerAndPoll(q, 4 * CHUNK_SIZE);
+        // the first chunk is allocated on construction
+        assertEquals(3, q.chunkAllocations());
+        assertEquals(3, q.chunkReleases());
+        assertEquals(0, q.chunkReuses());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMinPooledChunksMustNotExceedMax()
+    {
+        newQueue(3, 2);
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.jctools.queues.MpmcEventRing.UNAVAILABLE;
+import static org.junit.Assert.*;
+
+public class MpmcEventRingTest
+{
+    static final class Event
+    {
+        long value;
+        int producer;
+    }
+
+    @Test
+    public void testClaimPublishAcquireRelease()
+    {
+        final MpmcEventRing<Event> ring = new MpmcEventRing<>(4, Event::new);
+        assertEquals(4, ring.capacity());
+        assertTrue(ring.isEmpty());
+        assertEquals(UNAVAILABLE, ring.acquire());
+
+        final long claimed = ring.claim();
+        assertEquals(0, claimed);
+        ring.event(claimed).value = 42;
+        // claimed but not published
+        assertEquals(1, ring.size());
+        assertEquals(UNAVAILABLE, ring.acquire());
+
+        ring.publish(claimed);
+        final long acquired = ring.acquire();
+        assertEquals(claimed, acquired);
+        assertEquals(42, ring.event(acquired).value);
+        ring.release(acquired);
+        assertTrue(ring.isEmpty());
+        assertEquals(UNAVAILABLE, ring.acquire());
+    }
+
+    @Test
+    public void testClaimIsUnavailableUntilReleased()
+    {
+        final MpmcEventRing<Event> ring = new MpmcEventRing<>(4, Event::new);
+        for (int i = 0; i < 4; i++)
+        {
+            final long sequence = ring.claim();
+            assertEquals(i, sequence);
+            ring.publish(sequence);
+        }
+        assertEquals(UNAVAILABLE, ring.claim());
+
+        // acquired is not enough, the event is still being read
+        final long acquired = ring.acquire();
+        assertEquals(UNAVAILABLE, ring.claim());
+        ring.release(acquired);
+        assertEquals(4, ring.claim());
+    }
+
+    @Test
+    public void testEventsArePreallocatedAndReused()
+    {
+        final AtomicLong created = new AtomicLong();
+        final MpmcEventRing<Event> ring = new MpmcEventRing<>(8, () ->
+        {
+            created.incrementAndGet();
+            return new Event();
+        });
+        assertEquals(8, created.get());
+
+        final IdentityHashMap<Event, Boolean> seen = new IdentityHashMap<>();
+        for (int i = 0; i < 100; i++)
+        {
+            final int value = i;
+            assertTrue(ring.publishEvent(e -> e.value = value));
+            assertEquals(1, ring.drain(e ->
+            {
+                assertEquals(value, e.value);
+                seen.put(e, Boolean.TRUE);
+            }));
+        }
+        assertEquals(8, created.get());
+        assertEquals(8, seen.size());
+    }
+
+    @Test
+    public void testPublishEventAndDrain()
+    {
+        final MpmcEventRing<Event> ring = new MpmcEventRing<>(8, Event::new);
+        for (int i = 0; i < 8; i++)
+        {
+            final int value = i;
+            assertTrue(ring.publishEvent(e -> e.value = value));
+        }
+        assertFalse(ring.publishEvent(e -> fail()));
+        assertEquals(8, ring.size());
+
+        final List<Long> values = new ArrayList<>();
+        assertEquals(3, ring.drain(e -> values.add(e.value), 3));
+        assertEquals(5, ring.drain(e -> values.add(e.value)));
+        assertEquals(0, ring.drain(e -> values.add(e.value)));
+        for (int i = 0; i < 8; i++)
+        {
+            assertEquals(i, (long) values.get(i));
+        }
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testFactoryMustNotReturnNull()
+    {
+        new MpmcEventRing<Event>(4, () -> null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacityTooSmall()
+    {
+        new MpmcEventRing<>(1, Event::new);
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentProducersAndConsumers() throws Exception
+    {
+        final int producers = 2;
+        final int consumers = 2;
+        final int count = 200_000;
+        final MpmcEventRing<Event> ring = new MpmcEventRing<>(64, Event::new);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final AtomicLong received = new AtomicLong();
+        final AtomicLong sum = new AtomicLong();
+        final AtomicBoolean stop = new AtomicBoolean();
+
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++)
+        {
+            final int id = p;
+            threads.add(new Thread(() ->
+            {
+                for (long i = 0; i < count; i++)
+                {
+                    long sequence;
+                    while ((sequence = ring.claim()) == UNAVAILABLE)
+                    {
+                        Thread.yield();
+                    }
+                    final Event e = ring.event(sequence);
+                    e.value = i;
+                    e.producer = id;
+                    ring.publish(sequence);
+                }
+            }));
+        }
+        final List<Thread> consumerThreads = new ArrayList<>();
+        for (int c = 0; c < consumers; c++)
+        {
+            consumerThreads.add(new Thread(() ->
+            {
+                try
+                {
+                    ring.drain(e ->
+                    {
+                        sum.addAndGet(e.value);
+                        received.incrementAndGet();
+                        // poison the event, a producer must overwrite it before it is read again
+                        e.value = Long.MIN_VALUE;
+                        e.producer = -1;
+                    }, idle -> { Thread.yield(); return idle + 1; }, () -> !stop.get() || !ring.isEmpty());
+                }
+                catch (Throwable t)
+                {
+                    failure.set(t);
+                }
+            }));
+        }
+        threads.addAll(consumerThreads);
+        for (Thread t : threads)
+        {
+            t.start();
+        }
+        for (Thread t : threads.subList(0, producers))
+        {
+            t.join();
+        }
+        stop.set(true);
+        for (Thread t : consumerThreads)
+        {
+            t.join();
+        }
+        assertNull(failure.get());
+        assertEquals((long) producers * count, received.get());
+        assertEquals(producers * ((long) count * (count - 1) / 2), sum.get());
+        assertTrue(ring.isEmpty());
+    }
+}
@@ -8,8 +8,10 @@ import org.junit.After;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
 
 import static org.hamcrest.Matchers.is;
@@ -155,7 +157,7 @@ public abstract class MpqSanityTest
     @Test(expected = IllegalArgumentException.class)
     public void drainNullConsumerLimit()
     {
-        queue.drain(null, 10);
+        queue.drain((MessagePassingQueue.Consumer<Integer>) null, 10);
         fail();
     }
 
@@ -174,6 +176,85 @@ public abstract class MpqSanityTest
         assertEquals(1, queue.size());
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void drainToNullArray()
+    {
+        queue.drain((Integer[]) null, 0, 1);
+        fail();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void drainToArrayRangeExceedsDst()
+    {
+        queue.drain(new Integer[2], 1, 2);
+        fail();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void drainToNullList()
+    {
+        queue.drain((List<Integer>) null, 1);
+        fail();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void drainToListNegativeLimit()
+    {
+        queue.drain(new ArrayList<Integer>(), -1);
+        fail();
+    }
+
+    @Test
+    public void drainToArrayInBatches()
+    {
+        final int count = offerUpTo(SIZE);
+        final Integer[] dst = new Integer[8];
+        assertEquals(0, queue.drain(dst, 1, 0));
+        int drained = 0;
+        int batch;
+        while ((batch = queue.drain(dst, 1, 7)) != 0)
+        {
+            assertNull(dst[0]);
+            for (int i = 0; i < batch; i++)
+            {
+                assertEquals(drained + i, dst[1 + i].intValue());
+            }
+            drained += batch;
+            assertEquals(count - drained, queue.size());
+        }
+        assertEquals(count, drained);
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void drainToListInBatches()
+    {
+        final int count = offerUpTo(SIZE);
+        final List<Integer> dst = new ArrayList<>();
+        int batch;
+        while ((batch = queue.drain(dst, 5)) != 0)
+        {
+            assertTrue(batch <= 5);
+        }
+        assertEquals(count, dst.size());
+        for (int i = 0; i < count; i++)
+        {
+            assertEquals(i, dst.get(i).intValue());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    private int offerUpTo(int limit)
+    {
+        int count = 0;
+        while (count < limit && queue.offer(count))
+        {
+            count++;
+        }
+        return count;
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void drainNullConsumerWaiterExit()
     {
@@ -416,6 +497,186 @@ public abstract class MpqSanityTest
         assertTrue(queue.size() == 0);
     }
 
+    @Test
+    public void offerBatchUntilFull()
+    {
+        assumeThat(queue instanceof OfferBatch, is(true));
+        assumeThat(spec.isBounded(), is(true));
+        @SuppressWarnings("unchecked")
+        final OfferBatch<Integer> batchQueue = (OfferBatch<Integer>) queue;
+        final int capacity = queue.capacity();
+        final Integer[] src = new Integer[capacity + 16];
+        for (int i = 0; i < src.length; i++)
+        {
+            src[i] = i;
+        }
+
+        int offered = 0;
+        int batch;
+        while ((batch = batchQueue.offer(src, offered, Math.min(7, src.length - offered))) != 0)
+        {
+            offered += batch;
+            assertEquals(offered, queue.size());
+        }
+        assertEquals(capacity, offered);
+        assertEquals(0, batchQueue.offer(src, offered, 1));
+
+        for (int i = 0; i < capacity; i++)
+        {
+            assertEquals(i, queue.poll().intValue());
+        }
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void offerBatchFromList()
+    {
+        assumeThat(queue instanceof OfferBatch, is(true));
+        assumeThat(spec.isBounded(), is(true));
+        @SuppressWarnings("unchecked")
+        final OfferBatch<Integer> batchQueue = (OfferBatch<Integer>) queue;
+        final List<Integer> src = new ArrayList<>();
+        for (int i = 0; i < 8; i++)
+        {
+            src.add(i);
+        }
+        final int expected = Math.min(queue.capacity(), 5);
+        assertEquals(0, batchQueue.offer(src, 3, 0));
+        assertEquals(expected, batchQueue.offer(src, 3, 5));
+        for (int i = 0; i < expected; i++)
+        {
+            assertEquals(3 + i, queue.poll().intValue());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void offerBatchWithNullElementOffersNothing()
+    {
+        assumeThat(queue instanceof OfferBatch, is(true));
+        @SuppressWarnings("unchecked")
+        final OfferBatch<Integer> batchQueue = (OfferBatch<Integer>) queue;
+        try
+        {
+            batchQueue.offer(new Integer[]{1, null}, 0, 2);
+            fail();
+        }
+        catch (NullPointerException expected)
+        {
+        }
+        // nulls outside of the range are ignored
+        assertEquals(1, batchQueue.offer(new Integer[]{1, null}, 0, 1));
+        assertEquals(1, queue.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void offerBatchRangeExceedsSrc()
+    {
+        assumeThat(queue instanceof OfferBatch, is(true));
+        @SuppressWarnings("unchecked")
+        final OfferBatch<Integer> batchQueue = (OfferBatch<Integer>) queue;
+        batchQueue.offer(new Integer[]{1, 2}, 1, 2);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testOfferBatchProducerOrdering() throws Exception
+    {
+        assumeThat(queue instanceof OfferBatch, is(true));
+        @SuppressWarnings("unchecked")
+        final OfferBatch<Integer> batchQueue = (OfferBatch<Integer>) queue;
+        final AtomicBoolean stop = new AtomicBoolean();
+        final AtomicInteger producerId = new AtomicInteger();
+        final Val fail = new Val();
+        List<Thread> threads = new ArrayList<>();
+        // each producer offers (id << 24 | seq) so the consumer can verify per producer ordering
+        threads(() -> {
+            final int id = producerId.getAndIncrement() << 24;
+            final Integer[] batch = new Integer[16];
+            int seq = 0;
+            int pending = 0;
+            while (!stop.get())
+            {
+                while (pending < batch.length)
+                {
+                    batch[pending++] = id | (seq++ & 0xFFFFFF);
+                }
+                final int offered = batchQueue.offer(batch, 0, pending);
+                System.arraycopy(batch, offered, batch, 0, pending - offered);
+                pending -= offered;
+            }
+        }, spec.producers, threads);
+
+        threads(() -> {
+            final int[] lastSeen = new int[CONCURRENT_TEST_THREADS + 1];
+            Arrays.fill(lastSeen, -1);
+            while (!stop.get())
+            {
+                final Integer e = queue.relaxedPoll();
+                if (e == null)
+                {
+                    continue;
+                }
+                final int id = e >>> 24;
+                final int seq = e & 0xFFFFFF;
+                if (lastSeen[id] != -1 && seq != ((lastSeen[id] + 1) & 0xFFFFFF))
+                {
+                    fail.value = 1;
+                    stop.set(true);
+                }
+                lastSeen[id] = seq;
+            }
+        }, 1, threads);
+
+        startWaitJoin(stop, threads);
+        assertEquals("reordering detected", 0, fail.value);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testDrainBatchProducerOrdering() throws Exception
+    {
+        final AtomicBoolean stop = new AtomicBoolean();
+        final AtomicInteger producerId = new AtomicInteger();
+        final Val fail = new Val();
+        List<Thread> threads = new ArrayList<>();
+        // each producer offers (id << 24 | seq) so the consumer can verify per producer ordering
+        threads(() -> {
+            final int id = producerId.getAndIncrement() << 24;
+            int seq = 0;
+            while (!stop.get())
+            {
+                if (queue.relaxedOffer(id | (seq & 0xFFFFFF)))
+                {
+                    seq++;
+                }
+            }
+        }, spec.producers, threads);
+
+        threads(() -> {
+            final int[] lastSeen = new int[CONCURRENT_TEST_THREADS + 1];
+            Arrays.fill(lastSeen, -1);
+            final Integer[] batch = new Integer[16];
+            while (!stop.get())
+            {
+                final int drained = queue.drain(batch, 0, batch.length);
+                for (int i = 0; i < drained; i++)
+                {
+                    final int e = batch[i];
+                    final int id = e >>> 24;
+                    final int seq = e & 0xFFFFFF;
+                    if (lastSeen[id] != -1 && seq != ((lastSeen[id] + 1) & 0xFFFFFF))
+                    {
+                        fail.value = 1;
+                        stop.set(true);
+                    }
+                    lastSeen[id] = seq;
+                }
+            }
+        }, 1, threads);
+
+        startWaitJoin(stop, threads);
+        assertEquals("reordering detected", 0, fail.value);
+    }
+
     @Test
     public void testPowerOf2Capacity()
     {
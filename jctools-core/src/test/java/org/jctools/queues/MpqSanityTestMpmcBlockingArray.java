@@ -0,0 +1,29 @@
+package org.jctools.queues;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import static org.jctools.util.TestUtil.*;
+
+@RunWith(Parameterized.class)
+public class MpqSanityTestMpmcBlockingArray extends MpqSanityTest
+{
+    public MpqSanityTestMpmcBlockingArray(ConcurrentQueueSpec spec, MessagePassingQueue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeParams(0, 0, 2, Ordering.FIFO, new MpmcBlockingArrayQueue<>(2)));// MPMC size 2
+        list.add(makeParams(0, 0, SIZE, Ordering.FIFO, new MpmcBlockingArrayQueue<>(SIZE)));// MPMC size SIZE
+        return list;
+    }
+}
@@ -0,0 +1,99 @@
+package org.jctools.queues;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.atomic.MpmcBoundedXaddAtomicArrayQueue;
+import org.jctools.queues.atomic.unpadded.MpmcBoundedXaddAtomicUnpaddedArrayQueue;
+import org.jctools.queues.unpadded.MpmcBoundedXaddUnpaddedArrayQueue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.jctools.util.TestUtil.CONCURRENT_TEST_THREADS;
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.jctools.util.TestUtil.makeParams;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(Parameterized.class)
+public class MpqSanityTestMpmcBoundedXadd extends MpqSanityTest
+{
+    public MpqSanityTestMpmcBoundedXadd(ConcurrentQueueSpec spec, MessagePassingQueue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        // Unsafe
+        list.add(makeParams(0, 0, 1, Ordering.FIFO, new MpmcBoundedXaddArrayQueue<>(1)));
+        list.add(makeParams(0, 0, 16, Ordering.FIFO, new MpmcBoundedXaddArrayQueue<>(1, 16)));
+        list.add(makeParams(0, 0, 16, Ordering.FIFO, new MpmcBoundedXaddArrayQueue<>(4, 16)));
+        list.add(makeParams(0, 0, 16, Ordering.FIFO, new MpmcBoundedXaddArrayQueue<>(32, 16)));
+        list.add(makeParams(0, 0, SIZE, Ordering.FIFO, new MpmcBoundedXaddArrayQueue<>(SIZE)));
+        list.add(makeParams(0, 0, SIZE, Ordering.FIFO, new MpmcBoundedXaddArrayQueue<>(128, SIZE)));
+        // Atomic
+        list.add(makeParams(0, 0, 1, Ordering.FIFO, new MpmcBoundedXaddAtomicArrayQueue<>(1)));
+        list.add(makeParams(0, 0, 16, Ordering.FIFO, new MpmcBoundedXaddAtomicArrayQueue<>(4, 16)));
+        list.add(makeParams(0, 0, SIZE, Ordering.FIFO, new MpmcBoundedXaddAtomicArrayQueue<>(SIZE)));
+        // Unpadded
+        list.add(makeParams(0, 0, 1, Ordering.FIFO, new MpmcBoundedXaddUnpaddedArrayQueue<>(1)));
+        list.add(makeParams(0, 0, 16, Ordering.FIFO, new MpmcBoundedXaddUnpaddedArrayQueue<>(4, 16)));
+        list.add(makeParams(0, 0, SIZE, Ordering.FIFO, new MpmcBoundedXaddUnpaddedArrayQueue<>(SIZE)));
+        // Atomic Unpadded
+        list.add(makeParams(0, 0, 1, Ordering.FIFO, new MpmcBoundedXaddAtomicUnpaddedArrayQueue<>(1)));
+        list.add(makeParams(0, 0, 16, Ordering.FIFO, new MpmcBoundedXaddAtomicUnpaddedArrayQueue<>(4, 16)));
+        list.add(makeParams(0, 0, SIZE, Ordering.FIFO, new MpmcBoundedXaddAtomicUnpaddedArrayQueue<>(SIZE)));
+        return list;
+    }
+
+    @Test
+    public void testIsNotAnUnboundedQueue()
+    {
+        assertFalse(queue instanceof MpmcUnboundedXaddArrayQueue);
+        assertTrue(queue.capacity() != MessagePassingQueue.UNBOUNDED_CAPACITY);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testRacingOffersNeverExceedTheCapacity() throws InterruptedException
+    {
+        final int capacity = queue.capacity();
+        for (int round = 0; round < 100; round++)
+        {
+            final AtomicInteger offered = new AtomicInteger();
+            final List<Thread> producers = new ArrayList<>();
+            for (int i = 0; i < Math.max(2, CONCURRENT_TEST_THREADS); i++)
+            {
+                producers.add(new Thread(() ->
+                {
+                    while (queue.offer(1))
+                    {
+                        offered.incrementAndGet();
+                    }
+                }));
+            }
+            for (Thread producer : producers)
+            {
+                producer.start();
+            }
+            for (Thread producer : producers)
+            {
+                producer.join();
+            }
+            assertEquals(capacity, offered.get());
+            assertEquals(capacity, queue.size());
+            assertFalse(queue.offer(1));
+            assertEquals(capacity, queue.drain(e -> {}));
+            assertTrue(queue.isEmpty());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.jctools.queues;
+
+import org.jctools.queues.atomic.MpscBlockingConsumerUnboundedAtomicArrayQueue;
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.jctools.queues.unpadded.MpscBlockingConsumerUnboundedUnpaddedArrayQueue;
+import org.jctools.queues.atomic.unpadded.MpscBlockingConsumerUnboundedAtomicUnpaddedArrayQueue;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import static org.jctools.util.TestUtil.makeParams;
+
+@RunWith(Parameterized.class)
+public class MpqSanityTestMpscBlockingConsumerUnbounded extends MpqSanityTest
+{
+    public MpqSanityTestMpscBlockingConsumerUnbounded(ConcurrentQueueSpec spec, MessagePassingQueue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscBlockingConsumerUnboundedArrayQueue<>(2)));
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscBlockingConsumerUnboundedArrayQueue<>(64)));
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscBlockingConsumerUnboundedAtomicArrayQueue<>(2)));
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscBlockingConsumerUnboundedAtomicArrayQueue<>(64)));
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscBlockingConsumerUnboundedUnpaddedArrayQueue<>(2)));
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscBlockingConsumerUnboundedUnpaddedArrayQueue<>(64)));
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscBlockingConsumerUnboundedAtomicUnpaddedArrayQueue<>(2)));
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscBlockingConsumerUnboundedAtomicUnpaddedArrayQueue<>(64)));
+        return list;
+    }
+}
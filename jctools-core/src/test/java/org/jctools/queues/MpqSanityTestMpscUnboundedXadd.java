@@ -36,10 +36,13 @@ public class MpqSanityTestMpscUnboundedXadd extends MpqSanityTest
         list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddArrayQueue<>(64, 2)));
         list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddArrayQueue<>(1, 3)));
         list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddArrayQueue<>(64, 3)));
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddArrayQueue<>(1, 0, 4)));
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddArrayQueue<>(64, 1, 4)));
         // Atomic
         list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddAtomicArrayQueue<>(1, 0)));
         list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddAtomicArrayQueue<>(64, 1)));
         list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddAtomicArrayQueue<>(64, 3)));
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddAtomicArrayQueue<>(64, 1, 4)));
         // Unpadded
         list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddUnpaddedArrayQueue<>(1, 0)));
         list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscUnboundedXaddUnpaddedArrayQueue<>(64, 1)));
@@ -0,0 +1,29 @@
+package org.jctools.queues;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import static org.jctools.util.TestUtil.*;
+
+@RunWith(Parameterized.class)
+public class MpqSanityTestSpmcBlockingArray extends MpqSanityTest
+{
+    public MpqSanityTestSpmcBlockingArray(ConcurrentQueueSpec spec, MessagePassingQueue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeParams(1, 0, 1, Ordering.FIFO, new SpmcBlockingArrayQueue<>(1)));// SPMC size 1
+        list.add(makeParams(1, 0, SIZE, Ordering.FIFO, new SpmcBlockingArrayQueue<>(SIZE)));// SPMC size SIZE
+        return list;
+    }
+}
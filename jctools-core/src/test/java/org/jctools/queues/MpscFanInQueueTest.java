@@ -0,0 +1,200 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jctools.util.TestUtil.Val;
+import org.junit.Test;
+
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+
+public class MpscFanInQueueTest
+{
+    @Test(timeout = TEST_TIMEOUT)
+    public void testCapacityIsPerProducer() throws Exception
+    {
+        final MpscFanInQueue<Integer> q = new MpscFanInQueue<>(4);
+        assertEquals(4, q.capacity());
+        for (int i = 0; i < 4; i++)
+        {
+            assertTrue(q.offer(i));
+        }
+        assertFalse(q.offer(4));
+        final Val offered = new Val();
+        final Thread producer = new Thread(() -> {
+            while (q.offer(10 + offered.value))
+            {
+                offered.value++;
+            }
+        });
+        producer.start();
+        producer.join();
+        assertEquals(4, offered.value);
+        assertEquals(8, q.size());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testRoundRobinOverLanes() throws Exception
+    {
+        final int budget = MpscFanInQueue.LANE_POLL_BUDGET;
+        final MpscFanInQueue<Integer> q = new MpscFanInQueue<>(4 * budget);
+        for (int i = 0; i < 2 * budget; i++)
+        {
+            q.offer(i);
+        }
+        final Thread producer = new Thread(() -> {
+            for (int i = 0; i < 2 * budget; i++)
+            {
+                q.offer(1000 + i);
+            }
+        });
+        producer.start();
+        producer.join();
+        // up to a budget from each lane in turn
+        for (int round = 0; round < 2; round++)
+        {
+            for (int i = 0; i < budget; i++)
+            {
+                assertEquals(round * budget + i, (int) q.poll());
+            }
+            for (int i = 0; i < budget; i++)
+            {
+                assertEquals(1000 + round * budget + i, (int) q.poll());
+            }
+        }
+        assertNull(q.poll());
+        assertTrue(q.isEmpty());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testLaneMissingFromReadyLanesIsScannedUnderLoad() throws Exception
+    {
+        final int budget = MpscFanInQueue.LANE_POLL_BUDGET;
+        final MpscFanInQueue<Integer> q = new MpscFanInQueue<>(4 * budget);
+        final Thread producer = new Thread(() -> q.offer(-1));
+        producer.start();
+        producer.join();
+        // as if the producer missed the consumer unscheduling its lane
+        q.readyLanes.clear();
+        q.lvLanes()[0].svScheduled(0);
+
+        // keep this thread's lane busy, it is always back on the ready lanes when its budget runs out
+        int polls = 0;
+        Integer e;
+        do
+        {
+            while (q.offer(polls))
+            {
+                ;
+            }
+            e = q.poll();
+            polls++;
+        }
+        while (e != -1 && polls <= (MpscFanInQueue.LANE_SCAN_INTERVAL + 1) * budget);
+        assertEquals(-1, (int) e);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testDeadProducerLanesAreRemovedOnceDrained() throws Exception
+    {
+        final MpscFanInQueue<Integer> q = new MpscFanInQueue<>(16);
+        final List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++)
+        {
+            final int value = p;
+            producers.add(new Thread(() -> q.offer(value)));
+        }
+        for (Thread t : producers)
+        {
+            t.start();
+        }
+        for (Thread t : producers)
+        {
+            t.join();
+        }
+        assertEquals(4, q.lanes());
+        int sum = 0;
+        Integer e;
+        while ((e = q.poll()) != null)
+        {
+            sum += e;
+        }
+        assertEquals(6, sum);
+        // finding the queue empty scans the lanes and removes the dead ones
+        assertNull(q.poll());
+        assertEquals(0, q.lanes());
+
+        // live producers keep their lanes
+        q.offer(1);
+        assertEquals(1, (int) q.poll());
+        assertNull(q.poll());
+        assertEquals(1, q.lanes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testChunkSizeNotLessThanCapacity()
+    {
+        new MpscFanInQueue<Integer>(32, 32);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testManyProducersNoElementLost() throws Exception
+    {
+        testManyProducers(new MpscFanInQueue<>(64));
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testManyProducersNoElementLostChunked() throws Exception
+    {
+        testManyProducers(new MpscFanInQueue<>(16, 1024));
+    }
+
+    private void testManyProducers(MpscFanInQueue<Integer> q) throws Exception
+    {
+        final int producerCount = 8;
+        final int perProducer = 20_000;
+        final List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < producerCount; p++)
+        {
+            final int base = p * perProducer;
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++)
+                {
+                    while (!q.relaxedOffer(base + i))
+                    {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        for (Thread t : producers)
+        {
+            t.start();
+        }
+        final int[] next = new int[producerCount];
+        final Val fail = new Val();
+        final Val received = new Val();
+        while (received.value < producerCount * perProducer)
+        {
+            if (q.drain(e -> {
+                received.value++;
+                // FIFO per producer
+                if (e % perProducer != next[e / perProducer]++)
+                {
+                    fail.value++;
+                }
+            }) == 0)
+            {
+                Thread.yield();
+            }
+        }
+        for (Thread t : producers)
+        {
+            t.join();
+        }
+        assertEquals(0, fail.value);
+        assertNull(q.poll());
+        assertEquals(0, q.lanes());
+    }
+}
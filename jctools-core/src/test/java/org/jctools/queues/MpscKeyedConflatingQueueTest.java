@@ -0,0 +1,141 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MpscKeyedConflatingQueueTest
+{
+    @Test
+    public void testConflatesPendingValuesInFirstDirtiedOrder()
+    {
+        final MpscKeyedConflatingQueue<String> q = new MpscKeyedConflatingQueue<>(8);
+        assertTrue(q.isEmpty());
+        assertNull(q.poll());
+
+        assertTrue(q.offer(1, "a1"));
+        assertTrue(q.offer(2, "b1"));
+        assertTrue(q.offer(1, "a2"));
+        assertTrue(q.offer(3, "c1"));
+        assertTrue(q.offer(2, "b2"));
+        assertEquals(3, q.size());
+        assertEquals(3, q.keys());
+
+        assertEquals("a2", q.poll());
+        // a consumed key is dirtied again behind the pending ones
+        assertTrue(q.offer(1, "a3"));
+        assertEquals("b2", q.poll());
+        assertEquals("c1", q.poll());
+        assertEquals("a3", q.poll());
+        assertNull(q.poll());
+        assertTrue(q.isEmpty());
+        assertEquals(3, q.keys());
+    }
+
+    @Test
+    public void testDrainHandsOutKeys()
+    {
+        final MpscKeyedConflatingQueue<Integer> q = new MpscKeyedConflatingQueue<>(16);
+        for (int i = 0; i < 100; i++)
+        {
+            assertTrue(q.offer(i % 10, i));
+        }
+        final List<Long> keys = new ArrayList<>();
+        final List<Integer> values = new ArrayList<>();
+        assertEquals(4, q.drain(new MpscKeyedConflatingQueue.KeyedConsumer<Integer>()
+        {
+            @Override
+            public void accept(long key, Integer value)
+            {
+                keys.add(key);
+                values.add(value);
+            }
+        }, 4));
+        assertEquals(6, q.size());
+        for (int i = 0; i < 4; i++)
+        {
+            assertEquals(Long.valueOf(i), keys.get(i));
+            assertEquals(Integer.valueOf(90 + i), values.get(i));
+        }
+    }
+
+    @Test
+    public void testRejectsKeysBeyondMaxKeys()
+    {
+        final MpscKeyedConflatingQueue<Integer> q = new MpscKeyedConflatingQueue<>(2);
+        assertTrue(q.offer(1, 1));
+        assertTrue(q.offer(2, 2));
+        assertFalse(q.offer(3, 3));
+        // known keys are still accepted, pending or not
+        assertTrue(q.offer(1, 4));
+        assertEquals(Integer.valueOf(4), q.poll());
+        assertTrue(q.offer(1, 5));
+        assertEquals(2, q.size());
+        assertEquals(2, q.keys());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullValue()
+    {
+        new MpscKeyedConflatingQueue<Integer>(2).offer(1, null);
+    }
+
+    @Test(timeout = 30000)
+    public void testLastValueWinsWithConcurrentProducers() throws InterruptedException
+    {
+        final int producers = 4;
+        final int keysPerProducer = 16;
+        final int updates = 200000;
+        final MpscKeyedConflatingQueue<Long> q = new MpscKeyedConflatingQueue<>(producers * keysPerProducer);
+        final AtomicLong done = new AtomicLong();
+        final Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++)
+        {
+            final int producer = p;
+            threads[p] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    for (long i = 1; i <= updates; i++)
+                    {
+                        // each producer owns its keys, so values of a key increase
+                        assertTrue(q.offer(producer * keysPerProducer + (i % keysPerProducer), i));
+                    }
+                    done.incrementAndGet();
+                }
+            };
+            threads[p].start();
+        }
+
+        final long[] lastValues = new long[producers * keysPerProducer];
+        final MpscKeyedConflatingQueue.KeyedConsumer<Long> consumer = new MpscKeyedConflatingQueue.KeyedConsumer<Long>()
+        {
+            @Override
+            public void accept(long key, Long value)
+            {
+                assertTrue(value > lastValues[(int) key]);
+                lastValues[(int) key] = value;
+            }
+        };
+        while (done.get() < producers)
+        {
+            q.drain(consumer);
+        }
+        q.drain(consumer);
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        assertTrue(q.isEmpty());
+        for (int key = 0; key < lastValues.length; key++)
+        {
+            // the last value offered for each key is consumed
+            assertEquals(updates - (keysPerProducer - key % keysPerProducer) % keysPerProducer, lastValues[key]);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jctools.util.TestUtil.Val;
+import org.junit.Test;
+
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+
+public class MpscPriorityQueueTest
+{
+    @Test
+    public void testStrictPriorityOrder()
+    {
+        final MpscPriorityQueue<Integer> q = new MpscPriorityQueue<>(3, 16);
+        assertEquals(3, q.levels());
+        assertEquals(48, q.capacity());
+        q.offer(20, 2);
+        q.offer(10, 1);
+        q.offer(21, 2);
+        q.offer(0, 0);
+        q.offer(11, 1);
+        assertEquals(5, q.size());
+        assertEquals(0, (int) q.peek());
+        final List<Integer> drained = new ArrayList<>();
+        assertEquals(2, q.drain(drained::add, 2));
+        // a new high priority element overtakes the remaining ones
+        q.offer(1, 0);
+        assertEquals(4, q.drain(drained::add));
+        assertEquals(Arrays.asList(0, 10, 1, 11, 20, 21), Arrays.asList(drained.toArray()));
+        assertNull(q.poll());
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    public void testPlainOfferGoesToLowestPriority()
+    {
+        final MpscPriorityQueue<Integer> q = new MpscPriorityQueue<>(2, 4);
+        assertTrue(q.offer(1));
+        assertTrue(q.offer(0, 0));
+        assertEquals(0, (int) q.poll());
+        assertEquals(1, (int) q.poll());
+    }
+
+    @Test
+    public void testLaneFullOnlyRejectsItsLevel()
+    {
+        final MpscPriorityQueue<Integer> q = new MpscPriorityQueue<>(2, 2);
+        assertTrue(q.offer(1, 1));
+        assertTrue(q.offer(2, 1));
+        assertFalse(q.offer(3, 1));
+        assertTrue(q.offer(0, 0));
+    }
+
+    @Test
+    public void testWeightedRoundRobin()
+    {
+        final MpscPriorityQueue<Integer> q = new MpscPriorityQueue<>(3, 64, false, new int[]{3, 2, 1});
+        for (int i = 0; i < 6; i++)
+        {
+            q.offer(i, 0);
+            q.offer(10 + i, 1);
+            q.offer(20 + i, 2);
+        }
+        final List<Integer> drained = new ArrayList<>();
+        q.drain(drained::add);
+        assertEquals(Arrays.asList(
+            0, 1, 2, 10, 11, 20,
+            3, 4, 5, 12, 13, 21,
+            // level 0 is empty, it is skipped
+            14, 15, 22,
+            23, 24, 25), drained);
+    }
+
+    @Test
+    public void testPeekDoesNotChangeTheWeightedRoundRobin()
+    {
+        final MpscPriorityQueue<Integer> q = new MpscPriorityQueue<>(2, 16, false, new int[]{2, 1});
+        for (int i = 0; i < 3; i++)
+        {
+            q.offer(i, 0);
+            q.offer(10 + i, 1);
+        }
+        final List<Integer> drained = new ArrayList<>();
+        for (int i = 0; i < 6; i++)
+        {
+            final Integer peeked = q.peek();
+            assertEquals(peeked, q.peek());
+            assertEquals(peeked, q.relaxedPeek());
+            final Integer polled = q.poll();
+            assertEquals(peeked, polled);
+            drained.add(polled);
+        }
+        assertEquals(Arrays.asList(0, 1, 10, 2, 11, 12), drained);
+    }
+
+    @Test
+    public void testIsEmptyAndSizeFollowTheMarkedLevels()
+    {
+        final MpscPriorityQueue<Integer> q = new MpscPriorityQueue<>(2, 4);
+        // as seen by the consumer between a producer lane offer and the level bit being set
+        assertTrue(q.lanes[1].offer(1));
+        assertTrue(q.isEmpty());
+        assertEquals(0, q.size());
+        assertNull(q.peek());
+        assertNull(q.poll());
+        // marking the level makes both elements visible
+        assertTrue(q.offer(2, 1));
+        assertFalse(q.isEmpty());
+        assertEquals(2, q.size());
+        assertEquals(1, (int) q.poll());
+        assertEquals(2, (int) q.poll());
+        // the level stays marked until the consumer finds its lane empty
+        assertTrue(q.isEmpty());
+        assertEquals(0, q.size());
+        assertNull(q.poll());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfferLevelOutOfRange()
+    {
+        new MpscPriorityQueue<Integer>(2, 4).offer(1, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyLevels()
+    {
+        new MpscPriorityQueue<Integer>(65, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWeightsLengthMismatch()
+    {
+        new MpscPriorityQueue<Integer>(2, 4, false, new int[]{1});
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testConcurrentProducersNoElementLost() throws Exception
+    {
+        final int levels = 4;
+        final int perProducer = 50_000;
+        final MpscPriorityQueue<Integer> q = new MpscPriorityQueue<>(levels, 64, false, new int[]{4, 3, 2, 1});
+        final Val fail = new Val();
+        final List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < levels; p++)
+        {
+            final int level = p;
+            producers.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++)
+                {
+                    while (!q.offer(level * perProducer + i, level))
+                    {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        for (Thread t : producers)
+        {
+            t.start();
+        }
+        final int[] next = new int[levels];
+        int received = 0;
+        while (received < levels * perProducer)
+        {
+            final Integer e = q.relaxedPoll();
+            if (e == null)
+            {
+                Thread.yield();
+                continue;
+            }
+            received++;
+            // FIFO per level
+            final int level = e / perProducer;
+            if (e % perProducer != next[level]++)
+            {
+                fail.value++;
+            }
+        }
+        for (Thread t : producers)
+        {
+            t.join();
+        }
+        assertEquals(0, fail.value);
+        assertNull(q.poll());
+    }
+}
@@ -0,0 +1,87 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MpscSojournArrayQueueTest
+{
+    @Test
+    public void testShedsAdmittedOffersWhileOverloaded() throws InterruptedException
+    {
+        final MpscSojournArrayQueue<Integer> q = new MpscSojournArrayQueue<>(64, 1, 10, TimeUnit.MILLISECONDS);
+        assertFalse(q.isOverloaded());
+        assertEquals(64, q.admissionLimit());
+        for (int i = 0; i < 32; i++)
+        {
+            assertTrue(q.offerIfAdmitted(i));
+        }
+        // every element waits past the end of the first interval
+        Thread.sleep(20);
+        assertEquals(Integer.valueOf(0), q.poll());
+
+        assertTrue(q.isOverloaded());
+        assertTrue(q.minSojournNanos() >= TimeUnit.MILLISECONDS.toNanos(20));
+        // a single element dequeued in ~20ms drains nothing within the target
+        assertEquals(1, q.admissionLimit());
+        assertFalse(q.offerIfAdmitted(32));
+        assertFalse(q.offerIfBelowThreshold(32, q.admissionLimit()));
+        // plain offers are not shed
+        assertTrue(q.offer(32));
+
+        final List<Integer> drained = new ArrayList<>();
+        assertEquals(32, q.drain(drained, 64));
+        assertEquals(32, drained.size());
+        // the queue was found empty in the next interval
+        Thread.sleep(15);
+        assertNull(q.poll());
+
+        assertFalse(q.isOverloaded());
+        assertEquals(0, q.minSojournNanos());
+        assertEquals(64, q.admissionLimit());
+        assertTrue(q.offerIfAdmitted(33));
+    }
+
+    @Test
+    public void testBurstWithinTargetIsNotOverloaded() throws InterruptedException
+    {
+        final MpscSojournArrayQueue<Integer> q = new MpscSojournArrayQueue<>(16, 10, 1, TimeUnit.SECONDS);
+        for (int i = 0; i < 16; i++)
+        {
+            assertTrue(q.offerIfAdmitted(i));
+        }
+        assertFalse(q.offerIfAdmitted(16));
+        Thread.sleep(5);
+        final Integer[] dst = new Integer[16];
+        assertEquals(16, q.drain(dst, 0, 16));
+        assertEquals(Integer.valueOf(15), dst[15]);
+        assertFalse(q.isOverloaded());
+        assertEquals(16, q.admissionLimit());
+    }
+
+    @Test
+    public void testDefaults()
+    {
+        final MpscSojournArrayQueue<Integer> q = new MpscSojournArrayQueue<>(10);
+        assertEquals(16, q.capacity());
+        assertEquals(MpscSojournArrayQueue.DEFAULT_TARGET_NANOS, q.targetNanos());
+        assertEquals(MpscSojournArrayQueue.DEFAULT_INTERVAL_NANOS, q.intervalNanos());
+        assertEquals(0, q.minSojournNanos());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTargetMustBePositive()
+    {
+        new MpscSojournArrayQueue<Integer>(16, 0, 100, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIntervalMustBePositive()
+    {
+        new MpscSojournArrayQueue<Integer>(16, 5, 0, TimeUnit.MILLISECONDS);
+    }
+}
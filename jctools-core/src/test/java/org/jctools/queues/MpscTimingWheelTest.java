@@ -0,0 +1,150 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jctools.queues.MessagePassingQueue.Consumer;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MpscTimingWheelTest
+{
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final List<Long> expired = new ArrayList<>();
+    private final Consumer<Long> collector = new Consumer<Long>()
+    {
+        @Override
+        public void accept(Long e)
+        {
+            expired.add(e);
+        }
+    };
+
+    @Test
+    public void testExpiresOnTheTickOfTheDeadlineAcrossLevels()
+    {
+        // 3 levels of 8 buckets span 512 ticks, deadlines go beyond to exercise parking in the top level
+        final MpscTimingWheel<Long> wheel = new MpscTimingWheel<>(1, TimeUnit.MILLISECONDS, 8, 3, 0);
+        final long[] deadlines = {1, 7, 8, 9, 63, 64, 65, 100, 511, 512, 513, 1000, 5000};
+        for (long deadlineTick : deadlines)
+        {
+            // half a tick before, rounded up to the tick of the deadline
+            wheel.scheduleAt(deadlineTick, deadlineTick * TICK_NANOS - TICK_NANOS / 2);
+        }
+        assertEquals(0, wheel.expire(0, collector));
+        assertEquals(deadlines.length, wheel.timeouts());
+
+        int fired = 0;
+        for (long tick = 1; tick <= 5000; tick++)
+        {
+            fired += wheel.expire(tick * TICK_NANOS, collector);
+            for (Long deadlineTick : expired)
+            {
+                assertEquals(tick, deadlineTick.longValue());
+            }
+            expired.clear();
+        }
+        assertEquals(deadlines.length, fired);
+        assertEquals(0, wheel.timeouts());
+    }
+
+    @Test
+    public void testExpiresInBatchWhenTicksAreSkipped()
+    {
+        final MpscTimingWheel<Long> wheel = new MpscTimingWheel<>(1, TimeUnit.MILLISECONDS, 16, 2, 0);
+        for (long deadlineTick = 1; deadlineTick <= 300; deadlineTick++)
+        {
+            wheel.scheduleAt(deadlineTick, deadlineTick * TICK_NANOS);
+        }
+        assertEquals(0, wheel.expire(0, collector));
+        assertEquals(150, wheel.expire(150 * TICK_NANOS, collector));
+        for (int i = 0; i < 150; i++)
+        {
+            assertEquals(Long.valueOf(i + 1), expired.get(i));
+        }
+        assertEquals(150, wheel.expire(1000 * TICK_NANOS, collector));
+        assertEquals(1000, wheel.currentTick());
+        // scheduled in the past, expires on intake
+        wheel.scheduleAt(1L, 10 * TICK_NANOS);
+        assertEquals(1, wheel.expire(1000 * TICK_NANOS, collector));
+    }
+
+    @Test
+    public void testCancel()
+    {
+        final MpscTimingWheel<Long> wheel = new MpscTimingWheel<>(1, TimeUnit.MILLISECONDS, 8, 2, 0);
+        final MpscTimingWheel.Timeout<Long> beforeIntake = wheel.scheduleAt(1L, 5 * TICK_NANOS);
+        final MpscTimingWheel.Timeout<Long> inWheel = wheel.scheduleAt(2L, 5 * TICK_NANOS);
+        final MpscTimingWheel.Timeout<Long> kept = wheel.scheduleAt(3L, 5 * TICK_NANOS);
+        assertTrue(beforeIntake.cancel());
+        assertFalse(beforeIntake.cancel());
+        assertTrue(beforeIntake.isCancelled());
+        wheel.expire(0, collector);
+        assertEquals(2, wheel.timeouts());
+
+        assertTrue(inWheel.cancel());
+        wheel.expire(TICK_NANOS, collector);
+        assertEquals(1, wheel.timeouts());
+
+        assertEquals(1, wheel.expire(5 * TICK_NANOS, collector));
+        assertEquals(Long.valueOf(3), expired.get(0));
+        assertTrue(kept.isExpired());
+        assertFalse(kept.cancel());
+        assertEquals(0, wheel.timeouts());
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentScheduleAndCancel() throws InterruptedException
+    {
+        final int producers = 4;
+        final int timeoutsPerProducer = 100000;
+        final MpscTimingWheel<Long> wheel = new MpscTimingWheel<>(1, TimeUnit.MILLISECONDS, 64, 3, 0);
+        final AtomicInteger cancelled = new AtomicInteger();
+        final Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++)
+        {
+            threads[p] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    for (long i = 0; i < timeoutsPerProducer; i++)
+                    {
+                        final MpscTimingWheel.Timeout<Long> timeout = wheel.scheduleAt(i, (1 + i % 5000) * TICK_NANOS);
+                        if (i % 3 == 0 && timeout.cancel())
+                        {
+                            cancelled.incrementAndGet();
+                        }
+                    }
+                }
+            };
+            threads[p].start();
+        }
+        final AtomicInteger fired = new AtomicInteger();
+        final Consumer<Long> counter = new Consumer<Long>()
+        {
+            @Override
+            public void accept(Long e)
+            {
+                fired.incrementAndGet();
+            }
+        };
+        long tick = 0;
+        while (threads[0].isAlive() || threads[1].isAlive() || threads[2].isAlive() || threads[3].isAlive())
+        {
+            // turn the wheel part way while timeouts are scheduled, deadlines already passed expire on intake
+            wheel.expire(Math.min(++tick, 2000) * TICK_NANOS, counter);
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        wheel.expire(10000 * TICK_NANOS, counter);
+        assertEquals(producers * timeoutsPerProducer, fired.get() + cancelled.get());
+        assertEquals(0, wheel.timeouts());
+    }
+}
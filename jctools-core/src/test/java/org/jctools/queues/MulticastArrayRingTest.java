@@ -0,0 +1,185 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jctools.queues.MulticastArrayRing.Subscriber;
+import org.jctools.util.TestUtil.Val;
+import org.junit.Test;
+
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+
+public class MulticastArrayRingTest
+{
+    @Test
+    public void testEverySubscriberSeesEveryElement()
+    {
+        final MulticastArrayRing<Integer> ring = new MulticastArrayRing<>(8);
+        final Subscriber<Integer> s1 = ring.subscribe();
+        final Subscriber<Integer> s2 = ring.subscribe();
+        assertEquals(2, ring.subscriberCount());
+        for (int i = 0; i < 5; i++)
+        {
+            assertTrue(ring.offer(i));
+        }
+        assertEquals(5, s1.lag());
+        final List<Integer> l1 = new ArrayList<>();
+        assertEquals(5, s1.drain(l1::add));
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals(i, (int) l1.get(i));
+            assertEquals(i, (int) s2.poll());
+        }
+        assertNull(s1.poll());
+        assertNull(s2.poll());
+        assertEquals(0, s1.lag());
+    }
+
+    @Test
+    public void testLateSubscriberOnlySeesLaterElements()
+    {
+        final MulticastArrayRing<Integer> ring = new MulticastArrayRing<>(8);
+        ring.offer(1);
+        final Subscriber<Integer> s = ring.subscribe();
+        assertNull(s.poll());
+        ring.offer(2);
+        assertEquals(2, (int) s.poll());
+    }
+
+    @Test
+    public void testProducerGatedBySlowestSubscriber()
+    {
+        final MulticastArrayRing<Integer> ring = new MulticastArrayRing<>(4);
+        final Subscriber<Integer> fast = ring.subscribe();
+        final Subscriber<Integer> slow = ring.subscribe();
+        for (int i = 0; i < 4; i++)
+        {
+            assertTrue(ring.offer(i));
+            assertEquals(i, (int) fast.poll());
+        }
+        assertFalse(ring.offer(4));
+        assertEquals(0, (int) slow.poll());
+        assertTrue(ring.offer(4));
+        assertFalse(ring.offer(5));
+
+        // a closed subscriber no longer gates the producers
+        slow.close();
+        assertNull(slow.poll());
+        assertEquals(1, ring.subscriberCount());
+        assertTrue(ring.offer(5));
+        assertEquals(4, (int) fast.poll());
+        assertEquals(5, (int) fast.poll());
+        assertEquals(0, fast.lostCount());
+    }
+
+    @Test
+    public void testNoSubscribersNeverGates()
+    {
+        final MulticastArrayRing<Integer> ring = new MulticastArrayRing<>(4);
+        for (int i = 0; i < 100; i++)
+        {
+            assertTrue(ring.offer(i));
+        }
+    }
+
+    @Test
+    public void testOverwriteDetectsLappedSubscriber()
+    {
+        final MulticastArrayRing<Integer> ring = new MulticastArrayRing<>(4, true);
+        final Subscriber<Integer> s = ring.subscribe();
+        for (int i = 0; i < 10; i++)
+        {
+            assertTrue(ring.offer(i));
+        }
+        // 0..5 were overwritten
+        assertEquals(6, (int) s.poll());
+        assertEquals(6, s.lostCount());
+        assertEquals(7, (int) s.poll());
+        assertEquals(8, (int) s.poll());
+        assertEquals(9, (int) s.poll());
+        assertNull(s.poll());
+        assertEquals(6, s.lostCount());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testOfferNull()
+    {
+        new MulticastArrayRing<Integer>(4).offer(null);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testConcurrentProducersAndSubscribers() throws Exception
+    {
+        testConcurrent(false);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testConcurrentProducersAndSubscribersOverwrite() throws Exception
+    {
+        testConcurrent(true);
+    }
+
+    private void testConcurrent(boolean overwrite) throws Exception
+    {
+        final MulticastArrayRing<Integer> ring = new MulticastArrayRing<>(64, overwrite);
+        final int producers = 2;
+        final int subscribers = 3;
+        final int perProducer = 20_000;
+        final Val fail = new Val();
+        final List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < subscribers; c++)
+        {
+            final Subscriber<Integer> s = ring.subscribe();
+            threads.add(new Thread(() -> {
+                final int[] last = new int[producers];
+                long received = 0;
+                // stop when all elements are accounted for, either read or lost
+                while (received + s.lostCount() < producers * perProducer)
+                {
+                    final Integer e = s.poll();
+                    if (e == null)
+                    {
+                        Thread.yield();
+                        continue;
+                    }
+                    received++;
+                    final int producer = e / perProducer;
+                    final int value = e % perProducer + 1;
+                    // per producer FIFO, with gaps only when overwriting
+                    if (value <= last[producer] || (!overwrite && value != last[producer] + 1))
+                    {
+                        fail.value++;
+                    }
+                    last[producer] = value;
+                }
+                if (!overwrite && s.lostCount() != 0)
+                {
+                    fail.value++;
+                }
+            }));
+        }
+        for (int p = 0; p < producers; p++)
+        {
+            final int base = p * perProducer;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++)
+                {
+                    while (!ring.offer(base + i))
+                    {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        for (Thread t : threads)
+        {
+            t.start();
+        }
+        for (Thread t : threads)
+        {
+            t.join();
+        }
+        assertEquals(0, fail.value);
+    }
+}
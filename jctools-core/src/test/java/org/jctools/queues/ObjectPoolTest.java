@@ -0,0 +1,180 @@
+package org.jctools.queues;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jctools.queues.MessagePassingQueue.Consumer;
+import org.jctools.queues.MessagePassingQueue.Supplier;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ObjectPoolTest
+{
+    private final AtomicInteger created = new AtomicInteger();
+    private final Supplier<int[]> factory = new Supplier<int[]>()
+    {
+        @Override
+        public int[] get()
+        {
+            created.incrementAndGet();
+            return new int[1];
+        }
+    };
+    private final Consumer<int[]> reset = new Consumer<int[]>()
+    {
+        @Override
+        public void accept(int[] e)
+        {
+            e[0] = 0;
+        }
+    };
+
+    @Test
+    public void testReusesReleasedObjectsOnTheSameThread()
+    {
+        final ObjectPool<int[]> pool = new ObjectPool<>(4, 4, factory, reset);
+        final int[][] acquired = new int[10][];
+        for (int round = 0; round < 100; round++)
+        {
+            for (int i = 0; i < acquired.length; i++)
+            {
+                acquired[i] = pool.acquire();
+                assertEquals(0, acquired[i][0]);
+                acquired[i][0] = i + 1;
+            }
+            for (int[] e : acquired)
+            {
+                pool.release(e);
+            }
+        }
+        // the first round missed, the 2 magazines of the thread and a depot magazine hold all the objects since
+        assertEquals(10, created.get());
+        assertEquals(10, pool.misses());
+        assertEquals(0, pool.discards());
+        assertTrue(pool.exchanges() > 0);
+    }
+
+    @Test
+    public void testMagazinesAreHandedOffAcrossThreads() throws InterruptedException
+    {
+        final ObjectPool<int[]> pool = new ObjectPool<>(4, 4, factory, null);
+        final int[][] released = new int[9][];
+        final Thread releaser = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                for (int i = 0; i < released.length; i++)
+                {
+                    released[i] = new int[]{i};
+                    pool.release(released[i]);
+                }
+            }
+        };
+        releaser.start();
+        releaser.join();
+        // 2 full magazines and one more object: the first full magazine went to the depot
+        assertEquals(1, pool.depotMagazines());
+        final Map<int[], Boolean> expected = new IdentityHashMap<>();
+        for (int i = 0; i < 4; i++)
+        {
+            expected.put(released[i], Boolean.TRUE);
+        }
+        for (int i = 0; i < 4; i++)
+        {
+            assertNotNull(expected.remove(pool.acquire()));
+        }
+        assertEquals(0, created.get());
+        assertEquals(0, pool.misses());
+        // the rest is held by the releasing thread
+        assertEquals(0, pool.acquire()[0]);
+        assertEquals(1, created.get());
+        assertEquals(1, pool.misses());
+    }
+
+    @Test
+    public void testFlushAndDiscards() throws InterruptedException
+    {
+        final ObjectPool<int[]> pool = new ObjectPool<>(2, 2);
+        assertNull(pool.acquire());
+        assertEquals(1, pool.misses());
+        for (int i = 0; i < 10; i++)
+        {
+            pool.release(new int[]{i});
+        }
+        // 2 magazines held, 2 in the depot, 2 discarded
+        assertEquals(2, pool.depotMagazines());
+        assertEquals(2, pool.discards());
+        pool.flush();
+        assertEquals(6, pool.discards());
+
+        final AtomicReference<int[]> acquired = new AtomicReference<>();
+        final Thread acquirer = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                acquired.set(pool.acquire());
+            }
+        };
+        acquirer.start();
+        acquirer.join();
+        assertNotNull(acquired.get());
+    }
+
+    @Test(timeout = 30000)
+    public void testObjectsAreNotSharedByConcurrentThreads() throws InterruptedException
+    {
+        final ObjectPool<AtomicInteger> pool = new ObjectPool<>(8, 16, new Supplier<AtomicInteger>()
+        {
+            @Override
+            public AtomicInteger get()
+            {
+                return new AtomicInteger();
+            }
+        }, null);
+        final AtomicInteger shared = new AtomicInteger();
+        final Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++)
+        {
+            final int burst = 1 + t * 7;
+            threads[t] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    final AtomicInteger[] held = new AtomicInteger[burst];
+                    for (int i = 0; i < 100000; i++)
+                    {
+                        for (int j = 0; j < burst; j++)
+                        {
+                            held[j] = pool.acquire();
+                            if (!held[j].compareAndSet(0, 1))
+                            {
+                                shared.incrementAndGet();
+                            }
+                        }
+                        for (int j = 0; j < burst; j++)
+                        {
+                            held[j].set(0);
+                            pool.release(held[j]);
+                        }
+                        if (i % 1000 == 0)
+                        {
+                            pool.flush();
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        assertEquals(0, shared.get());
+    }
+}
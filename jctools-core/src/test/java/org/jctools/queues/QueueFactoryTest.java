@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.jctools.queues.spec.Preference;
+import org.jctools.queues.unpadded.MpmcUnboundedXaddUnpaddedArrayQueue;
+import org.jctools.queues.unpadded.MpscChunkedUnpaddedArrayQueue;
+import org.jctools.queues.unpadded.MpscLinkedUnpaddedQueue;
+import org.jctools.queues.unpadded.MpscUnpaddedArrayQueue;
+import org.jctools.queues.unpadded.SpscLinkedUnpaddedQueue;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Queue;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeThat;
+
+public class QueueFactoryTest
+{
+    @Before
+    public void unsafeIsSelected()
+    {
+        // the VarHandle variants are not on the class path of this module
+        assumeThat(QueueFactory.ACCESS, is(QueueFactory.Access.UNSAFE));
+    }
+
+    @Test
+    public void testBoundedQueuesMatchTheThreadingModel()
+    {
+        assertSame(SpscArrayQueue.class, queueClass(1, 1, 128, Preference.NONE));
+        assertSame(MpscArrayQueue.class, queueClass(0, 1, 128, Preference.NONE));
+        assertSame(SpmcArrayQueue.class, queueClass(1, 0, 128, Preference.NONE));
+        assertSame(MpmcArrayQueue.class, queueClass(0, 0, 128, Preference.NONE));
+        // large bounded queues are not chunked unless favouring footprint
+        assertSame(MpscArrayQueue.class, queueClass(0, 1, 1 << 20, Preference.THROUGHPUT));
+    }
+
+    @Test
+    public void testUnboundedQueuesMatchTheThreadingModel()
+    {
+        assertSame(SpscUnboundedArrayQueue.class, queueClass(1, 1, 0, Preference.NONE));
+        assertSame(MpscUnboundedArrayQueue.class, queueClass(0, 1, 0, Preference.LATENCY));
+        assertSame(MpscUnboundedXaddArrayQueue.class, queueClass(0, 1, 0, Preference.THROUGHPUT));
+        assertSame(MpmcUnboundedXaddArrayQueue.class, queueClass(1, 0, 0, Preference.NONE));
+        assertSame(MpmcUnboundedXaddArrayQueue.class, queueClass(0, 0, 0, Preference.NONE));
+    }
+
+    @Test
+    public void testFootprintPreferenceSelectsUnpaddedQueues()
+    {
+        assertSame(MpscUnpaddedArrayQueue.class, queueClass(0, 1, 128, Preference.FOOTPRINT));
+        assertSame(MpscChunkedUnpaddedArrayQueue.class,
+            queueClass(0, 1, QueueFactory.CHUNKED_MIN_CAPACITY, Preference.FOOTPRINT));
+        assertSame(SpscLinkedUnpaddedQueue.class, queueClass(1, 1, 0, Preference.FOOTPRINT));
+        assertSame(MpscLinkedUnpaddedQueue.class, queueClass(0, 1, 0, Preference.FOOTPRINT));
+        assertSame(MpmcUnboundedXaddUnpaddedArrayQueue.class, queueClass(0, 0, 0, Preference.FOOTPRINT));
+    }
+
+    @Test
+    public void testVariantNamesFollowTheGeneratedClasses()
+    {
+        assertEquals("org.jctools.queues.atomic.MpscAtomicArrayQueue",
+            QueueFactory.className("MpscArrayQueue", QueueFactory.Access.ATOMIC, true));
+        assertEquals("org.jctools.queues.atomic.unpadded.MpscLinkedAtomicUnpaddedQueue",
+            QueueFactory.className("MpscLinkedQueue", QueueFactory.Access.ATOMIC, false));
+        assertEquals("org.jctools.queues.unpadded.SpscChunkedUnpaddedArrayQueue",
+            QueueFactory.className("SpscChunkedArrayQueue", QueueFactory.Access.UNSAFE, false));
+        assertEquals("org.jctools.queues.varhandle.unpadded.MpmcUnboundedXaddVarHandleUnpaddedArrayQueue",
+            QueueFactory.className("MpmcUnboundedXaddArrayQueue", QueueFactory.Access.VARHANDLE, false));
+    }
+
+    @Test
+    public void testFactoryCreatesWorkingQueues()
+    {
+        for (Preference preference : Preference.values())
+        {
+            for (int capacity : new int[] {0, 16, QueueFactory.CHUNKED_MIN_CAPACITY})
+            {
+                final QueueFactory factory = QueueFactory.forSpec(spec(0, 0, capacity, preference));
+                final MessagePassingQueue<Integer> q1 = factory.newQueue();
+                final MessagePassingQueue<Integer> q2 = factory.newQueue();
+                assertTrue(q1 != q2);
+                assertTrue(q1 instanceof Queue);
+                assertSame(factory.queueClass(), q1.getClass());
+                for (int i = 0; i < 16; i++)
+                {
+                    assertTrue(q1.offer(i));
+                }
+                for (int i = 0; i < 16; i++)
+                {
+                    assertEquals(Integer.valueOf(i), q1.poll());
+                }
+                assertNull(q1.poll());
+                assertTrue(q2.isEmpty());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testQueueConstructorExceptionsArePropagated()
+    {
+        QueueFactory.newQueue(spec(0, 0, 1, Preference.NONE));
+    }
+
+    private static Class<?> queueClass(int producers, int consumers, int capacity, Preference preference)
+    {
+        return QueueFactory.forSpec(spec(producers, consumers, capacity, preference)).queueClass();
+    }
+
+    private static ConcurrentQueueSpec spec(int producers, int consumers, int capacity, Preference preference)
+    {
+        return new ConcurrentQueueSpec(producers, consumers, capacity, Ordering.FIFO, preference);
+    }
+}
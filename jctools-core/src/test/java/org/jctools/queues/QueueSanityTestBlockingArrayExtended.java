@@ -0,0 +1,329 @@
+package org.jctools.queues;
+
+import java.lang.Thread.State;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import org.jctools.util.TestUtil.Val;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class QueueSanityTestBlockingArrayExtended
+{
+    final IntFunction<MessagePassingBlockingQueue<Integer>> factory;
+    final int producers;
+    final int consumers;
+
+    public QueueSanityTestBlockingArrayExtended(
+        IntFunction<MessagePassingBlockingQueue<Integer>> factory,
+        int producers,
+        int consumers)
+    {
+        this.factory = factory;
+        this.producers = producers;
+        this.consumers = consumers;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<>();
+        list.add(new Object[]{(IntFunction<MessagePassingBlockingQueue<Integer>>) SpscBlockingArrayQueue::new, 1, 1});
+        list.add(new Object[]{(IntFunction<MessagePassingBlockingQueue<Integer>>) SpmcBlockingArrayQueue::new, 1, 3});
+        list.add(new Object[]{(IntFunction<MessagePassingBlockingQueue<Integer>>) MpmcBlockingArrayQueue::new, 3, 3});
+        return list;
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testTakeBlocksUntilOffer() throws Exception
+    {
+        final MessagePassingBlockingQueue<Integer> q = factory.apply(4);
+        final Val taken = new Val();
+        Thread consumer = new Thread(() -> {
+            try
+            {
+                taken.value = q.take();
+            }
+            catch (InterruptedException e)
+            {
+                taken.value = -1;
+            }
+        });
+        consumer.start();
+        awaitParked(consumer);
+
+        assertTrue(q.offer(7));
+        consumer.join();
+        assertEquals(7, taken.value);
+        assertTrue(q.isEmpty());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testPutBlocksUntilPoll() throws Exception
+    {
+        final MessagePassingBlockingQueue<Integer> q = factory.apply(4);
+        final int capacity = q.capacity();
+        for (int i = 0; i < capacity; i++)
+        {
+            q.put(i);
+        }
+        assertEquals(0, q.remainingCapacity());
+        final AtomicBoolean putDone = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            try
+            {
+                q.put(capacity);
+                putDone.set(true);
+            }
+            catch (InterruptedException e)
+            {
+            }
+        });
+        producer.start();
+        awaitParked(producer);
+        assertFalse(putDone.get());
+
+        assertEquals(0, (int) q.poll());
+        producer.join();
+        assertTrue(putDone.get());
+        for (int i = 1; i <= capacity; i++)
+        {
+            assertEquals(i, (int) q.take());
+        }
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testDrainWakesUpProducer() throws Exception
+    {
+        final MessagePassingBlockingQueue<Integer> q = factory.apply(4);
+        final int capacity = q.capacity();
+        while (q.offer(1))
+        {
+            ;
+        }
+        Thread producer = new Thread(() -> {
+            try
+            {
+                q.put(2);
+            }
+            catch (InterruptedException e)
+            {
+            }
+        });
+        producer.start();
+        awaitParked(producer);
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(capacity, q.drain(drained, capacity));
+        producer.join();
+        assertEquals(2, (int) q.poll());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testPollTimeoutSemantics() throws Exception
+    {
+        final MessagePassingBlockingQueue<Integer> q = factory.apply(2);
+
+        assertNull(q.poll(0, NANOSECONDS));
+
+        q.offer(1);
+        assertEquals(1, (int) q.poll(0, NANOSECONDS));
+
+        long beforeNanos = System.nanoTime();
+        assertNull(q.poll(250L, MILLISECONDS));
+        long tookMillis = MILLISECONDS.convert(System.nanoTime() - beforeNanos, NANOSECONDS);
+
+        assertTrue("took " + tookMillis + "ms", 200L < tookMillis && tookMillis < 300L);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testOfferTimeoutSemantics() throws Exception
+    {
+        final MessagePassingBlockingQueue<Integer> q = factory.apply(2);
+        while (q.offer(1))
+        {
+            ;
+        }
+
+        assertFalse(q.offer(2, 0, NANOSECONDS));
+
+        long beforeNanos = System.nanoTime();
+        assertFalse(q.offer(2, 250L, MILLISECONDS));
+        long tookMillis = MILLISECONDS.convert(System.nanoTime() - beforeNanos, NANOSECONDS);
+
+        assertTrue("took " + tookMillis + "ms", 200L < tookMillis && tookMillis < 300L);
+
+        q.poll();
+        assertTrue(q.offer(2, 0, NANOSECONDS));
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testTakeBlocksAndIsInterrupted() throws Exception
+    {
+        final MessagePassingBlockingQueue<Integer> q = factory.apply(4);
+        final AtomicBoolean wasInterrupted = new AtomicBoolean();
+        final AtomicBoolean interruptedStatusAfter = new AtomicBoolean();
+        Thread consumer = new Thread(() -> {
+            try
+            {
+                q.take();
+            }
+            catch (InterruptedException e)
+            {
+                wasInterrupted.set(true);
+            }
+            interruptedStatusAfter.set(Thread.currentThread().isInterrupted());
+        });
+        consumer.start();
+        awaitParked(consumer);
+        consumer.interrupt();
+        consumer.join();
+        assertTrue(wasInterrupted.get());
+        assertFalse(interruptedStatusAfter.get());
+        assertNull(q.poll());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testPutBlocksAndIsInterrupted() throws Exception
+    {
+        final MessagePassingBlockingQueue<Integer> q = factory.apply(4);
+        while (q.offer(1))
+        {
+            ;
+        }
+        final AtomicBoolean wasInterrupted = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            try
+            {
+                q.put(2);
+            }
+            catch (InterruptedException e)
+            {
+                wasInterrupted.set(true);
+            }
+        });
+        producer.start();
+        awaitParked(producer);
+        producer.interrupt();
+        producer.join();
+        assertTrue(wasInterrupted.get());
+        assertEquals(q.capacity(), q.size());
+        while (!q.isEmpty())
+        {
+            assertEquals(1, (int) q.poll());
+        }
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testPutTakeTransfersAllElements() throws Exception
+    {
+        // a tiny queue keeps both sides blocking most of the time
+        final MessagePassingBlockingQueue<Integer> q = factory.apply(2);
+        final int perProducer = 100_000;
+        final int total = perProducer * producers;
+        final AtomicLong taken = new AtomicLong();
+        final AtomicLong sum = new AtomicLong();
+        final Val fail = new Val();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++)
+        {
+            threads.add(new Thread(() -> {
+                try
+                {
+                    for (int i = 1; i <= perProducer; i++)
+                    {
+                        q.put(i);
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    fail.value++;
+                }
+            }));
+        }
+        for (int c = 0; c < consumers; c++)
+        {
+            threads.add(new Thread(() -> {
+                try
+                {
+                    while (taken.get() < total)
+                    {
+                        Integer e = q.poll(10, MILLISECONDS);
+                        if (e != null)
+                        {
+                            sum.addAndGet(e);
+                            taken.incrementAndGet();
+                        }
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    fail.value++;
+                }
+            }));
+        }
+        for (Thread t : threads)
+        {
+            t.start();
+        }
+        for (Thread t : threads)
+        {
+            t.join();
+        }
+        assertEquals(0, fail.value);
+        assertEquals(total, taken.get());
+        assertEquals((long) producers * perProducer * (perProducer + 1) / 2, sum.get());
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    public void testDrainToSemantics()
+    {
+        final MessagePassingBlockingQueue<Integer> q = factory.apply(8);
+        for (int i = 0; i < 6; i++)
+        {
+            q.offer(i);
+        }
+        List<Integer> dst = new ArrayList<>();
+        assertEquals(2, q.drainTo(dst, 2));
+        assertEquals(4, q.drainTo(dst));
+        assertEquals(0, q.drainTo(dst));
+        for (int i = 0; i < 6; i++)
+        {
+            assertEquals(i, (int) dst.get(i));
+        }
+        assertEquals(q.capacity(), q.remainingCapacity());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testDrainToNull()
+    {
+        factory.apply(8).drainTo(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDrainToSelf()
+    {
+        final MessagePassingBlockingQueue<Integer> q = factory.apply(8);
+        q.drainTo(q);
+    }
+
+    private static void awaitParked(Thread t)
+    {
+        State state;
+        while ((state = t.getState()) != State.WAITING && state != State.TIMED_WAITING)
+        {
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.jctools.queues;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+import static org.jctools.util.TestUtil.*;
+
+@RunWith(Parameterized.class)
+public class QueueSanityTestInstrumented extends QueueSanityTest
+{
+    public QueueSanityTestInstrumented(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeParams(1, 1, SIZE, Ordering.FIFO, new InstrumentedMessagePassingQueue<>(new SpscArrayQueue<>(SIZE))));
+        list.add(makeParams(0, 1, SIZE, Ordering.FIFO, new InstrumentedMessagePassingQueue<>(new MpscArrayQueue<>(SIZE))));
+        list.add(makeParams(0, 0, SIZE, Ordering.FIFO, new InstrumentedMessagePassingQueue<>(new MpmcArrayQueue<>(SIZE))));
+        list.add(makeParams(0, 1, 0, Ordering.FIFO,
+            new InstrumentedMessagePassingQueue<>(new MpscUnboundedArrayQueue<>(16), 2, 1, 8)));
+        return list;
+    }
+}
@@ -0,0 +1,51 @@
+package org.jctools.queues;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.atomic.MpmcBoundedXaddAtomicArrayQueue;
+import org.jctools.queues.atomic.unpadded.MpmcBoundedXaddAtomicUnpaddedArrayQueue;
+import org.jctools.queues.unpadded.MpmcBoundedXaddUnpaddedArrayQueue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+import static org.jctools.util.TestUtil.makeParams;
+
+@RunWith(Parameterized.class)
+public class QueueSanityTestMpmcBoundedXadd extends QueueSanityTest
+{
+    public QueueSanityTestMpmcBoundedXadd(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        // Unsafe
+        list.add(makeParams(0, 0, 1, Ordering.FIFO, new MpmcBoundedXaddArrayQueue<>(1)));
+        list.add(makeParams(0, 0, 16, Ordering.FIFO, new MpmcBoundedXaddArrayQueue<>(1, 16)));
+        list.add(makeParams(0, 0, 16, Ordering.FIFO, new MpmcBoundedXaddArrayQueue<>(4, 16)));
+        list.add(makeParams(0, 0, 16, Ordering.FIFO, new MpmcBoundedXaddArrayQueue<>(32, 16)));
+        list.add(makeParams(0, 0, SIZE, Ordering.FIFO, new MpmcBoundedXaddArrayQueue<>(SIZE)));
+        list.add(makeParams(0, 0, SIZE, Ordering.FIFO, new MpmcBoundedXaddArrayQueue<>(128, SIZE)));
+        // Atomic
+        list.add(makeParams(0, 0, 1, Ordering.FIFO, new MpmcBoundedXaddAtomicArrayQueue<>(1)));
+        list.add(makeParams(0, 0, 16, Ordering.FIFO, new MpmcBoundedXaddAtomicArrayQueue<>(4, 16)));
+        list.add(makeParams(0, 0, SIZE, Ordering.FIFO, new MpmcBoundedXaddAtomicArrayQueue<>(SIZE)));
+        // Unpadded
+        list.add(makeParams(0, 0, 1, Ordering.FIFO, new MpmcBoundedXaddUnpaddedArrayQueue<>(1)));
+        list.add(makeParams(0, 0, 16, Ordering.FIFO, new MpmcBoundedXaddUnpaddedArrayQueue<>(4, 16)));
+        list.add(makeParams(0, 0, SIZE, Ordering.FIFO, new MpmcBoundedXaddUnpaddedArrayQueue<>(SIZE)));
+        // Atomic Unpadded
+        list.add(makeParams(0, 0, 1, Ordering.FIFO, new MpmcBoundedXaddAtomicUnpaddedArrayQueue<>(1)));
+        list.add(makeParams(0, 0, 16, Ordering.FIFO, new MpmcBoundedXaddAtomicUnpaddedArrayQueue<>(4, 16)));
+        list.add(makeParams(0, 0, SIZE, Ordering.FIFO, new MpmcBoundedXaddAtomicUnpaddedArrayQueue<>(SIZE)));
+        return list;
+    }
+}
@@ -38,10 +38,13 @@ public class QueueSanityTestMpmcUnboundedXadd extends QueueSanityTest
         list.add(makeParams(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddArrayQueue<>(16, 3)));
         list.add(makeParams(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddArrayQueue<>(1, 4)));
         list.add(makeParams(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddArrayQueue<>(16, 4)));
+        list.add(makeParams(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddArrayQueue<>(1, 0, 4)));
+        list.add(makeParams(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddArrayQueue<>(16, 1, 4)));
         // Atomic
         list.add(makeParams(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(1, 0)));
         list.add(makeParams(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(16, 1)));
         list.add(makeParams(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(16, 4)));
+        list.add(makeParams(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddAtomicArrayQueue<>(16, 1, 4)));
         // Unpadded
         list.add(makeParams(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddUnpaddedArrayQueue<>(1, 0)));
         list.add(makeParams(0, 0, 0, Ordering.FIFO, new MpmcUnboundedXaddUnpaddedArrayQueue<>(16, 1)));
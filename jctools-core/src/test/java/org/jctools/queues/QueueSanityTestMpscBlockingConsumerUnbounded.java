@@ -0,0 +1,39 @@
+package org.jctools.queues;
+
+import org.jctools.queues.atomic.MpscBlockingConsumerUnboundedAtomicArrayQueue;
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.jctools.queues.unpadded.MpscBlockingConsumerUnboundedUnpaddedArrayQueue;
+import org.jctools.queues.atomic.unpadded.MpscBlockingConsumerUnboundedAtomicUnpaddedArrayQueue;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+import static org.jctools.util.TestUtil.makeParams;
+
+@RunWith(Parameterized.class)
+public class QueueSanityTestMpscBlockingConsumerUnbounded extends QueueSanityTest
+{
+    public QueueSanityTestMpscBlockingConsumerUnbounded(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscBlockingConsumerUnboundedArrayQueue<>(2)));// MPSC size 1
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscBlockingConsumerUnboundedArrayQueue<>(64)));// MPSC size SIZE
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscBlockingConsumerUnboundedAtomicArrayQueue<>(2)));// MPSC size 1
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscBlockingConsumerUnboundedAtomicArrayQueue<>(64)));// MPSC size SIZE
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscBlockingConsumerUnboundedUnpaddedArrayQueue<>(2)));// MPSC size 1
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscBlockingConsumerUnboundedUnpaddedArrayQueue<>(64)));// MPSC size SIZE
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscBlockingConsumerUnboundedAtomicUnpaddedArrayQueue<>(2)));// MPSC size 1
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscBlockingConsumerUnboundedAtomicUnpaddedArrayQueue<>(64)));// MPSC size SIZE
+        return list;
+    }
+}
@@ -0,0 +1,238 @@
+package org.jctools.queues;
+
+import java.lang.Thread.State;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
+
+import org.jctools.queues.atomic.MpscBlockingConsumerUnboundedAtomicArrayQueue;
+import org.jctools.queues.atomic.unpadded.MpscBlockingConsumerUnboundedAtomicUnpaddedArrayQueue;
+import org.jctools.queues.unpadded.MpscBlockingConsumerUnboundedUnpaddedArrayQueue;
+import org.jctools.util.TestUtil.Val;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.jctools.util.TestUtil.CONCURRENT_TEST_DURATION;
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+
+@RunWith(Parameterized.class)
+public class QueueSanityTestMpscBlockingConsumerUnboundedExtended
+{
+    final IntFunction<MessagePassingBlockingQueue<Object>> factory;
+
+    public QueueSanityTestMpscBlockingConsumerUnboundedExtended(IntFunction<MessagePassingBlockingQueue<Object>> factory)
+    {
+        this.factory = factory;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<IntFunction<MessagePassingBlockingQueue<Object>>> parameters()
+    {
+        ArrayList<IntFunction<MessagePassingBlockingQueue<Object>>> list = new ArrayList<>();
+        list.add(MpscBlockingConsumerUnboundedArrayQueue::new);
+        list.add(MpscBlockingConsumerUnboundedUnpaddedArrayQueue::new);
+        list.add(MpscBlockingConsumerUnboundedAtomicArrayQueue::new);
+        list.add(MpscBlockingConsumerUnboundedAtomicUnpaddedArrayQueue::new);
+        return list;
+    }
+
+    @Test
+    public void testPutNeverBlocks() throws Exception
+    {
+        // a tiny chunk size forces many resizes
+        final MessagePassingBlockingQueue<Object> q = factory.apply(2);
+        for (int i = 0; i < 1000; i++)
+        {
+            q.put(i);
+            assertTrue(q.offer(i, 0, NANOSECONDS));
+        }
+        assertEquals(2000, q.size());
+        assertEquals(Integer.MAX_VALUE, q.remainingCapacity());
+        List<Object> dst = new ArrayList<>();
+        assertEquals(2000, q.drainTo(dst));
+        assertTrue(q.isEmpty());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testPollTimeoutSemantics() throws Exception
+    {
+        final MessagePassingBlockingQueue<Object> q = factory.apply(2);
+
+        assertNull(q.poll(0, NANOSECONDS));
+
+        q.offer(1);
+        assertEquals(1, q.poll(0, NANOSECONDS));
+
+        long beforeNanos = System.nanoTime();
+        assertNull(q.poll(250L, MILLISECONDS));
+        long tookMillis = MILLISECONDS.convert(System.nanoTime() - beforeNanos, NANOSECONDS);
+
+        assertTrue("took " + tookMillis + "ms", 200L < tookMillis && tookMillis < 300L);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testBlockingDrainSemantics() throws Exception
+    {
+        final MessagePassingBlockingQueue<Object> q = factory.apply(2);
+        ArrayDeque<Object> ints = new ArrayDeque<>();
+        assertEquals(0, q.drain(ints::add, 0, 0, NANOSECONDS));
+        assertEquals(0, ints.size());
+
+        q.offer(1);
+
+        assertEquals(0, q.drain(ints::add, 0, 0, NANOSECONDS));
+        assertEquals(0, ints.size());
+        assertEquals(1, q.drain(ints::add, 1, 0, NANOSECONDS));
+        assertEquals(1, ints.poll());
+
+        long beforeNanos = System.nanoTime();
+        assertEquals(0, q.drain(ints::add, 1, 250L, MILLISECONDS));
+        long tookMillis = MILLISECONDS.convert(System.nanoTime() - beforeNanos, NANOSECONDS);
+        assertEquals(0, ints.size());
+        assertTrue("took " + tookMillis + "ms", 200L < tookMillis && tookMillis < 500L);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testTakeBlocksAndIsInterrupted() throws Exception
+    {
+        final AtomicBoolean wasInterrupted = new AtomicBoolean();
+        final AtomicBoolean interruptedStatusAfter = new AtomicBoolean();
+        final MessagePassingBlockingQueue<Object> q = factory.apply(64);
+        Thread consumer = new Thread(() -> {
+            try
+            {
+                q.take();
+            }
+            catch (InterruptedException e)
+            {
+                wasInterrupted.set(true);
+            }
+            interruptedStatusAfter.set(Thread.currentThread().isInterrupted());
+        });
+        consumer.setDaemon(true);
+        consumer.start();
+        while (consumer.getState() != State.TIMED_WAITING)
+        {
+            Thread.yield();
+        }
+        // If we got here -> thread got to the waiting state -> parked
+        consumer.interrupt();
+        consumer.join();
+        assertTrue(wasInterrupted.get());
+        assertFalse(interruptedStatusAfter.get());
+
+        // Queue should remain in original state (empty)
+        assertNull(q.poll());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testTakeAcrossChunksFromManyProducers() throws Exception
+    {
+        // small chunks so the blocked consumer is woken up by resizing producers too
+        final MessagePassingBlockingQueue<Object> q = factory.apply(4);
+        final int producers = 4;
+        final int perProducer = 50_000;
+        final Val fail = new Val();
+        final Val taken = new Val();
+        Thread consumer = new Thread(() -> {
+            final int[] nextPerProducer = new int[producers];
+            try
+            {
+                for (int i = 0; i < producers * perProducer; i++)
+                {
+                    final int e = (Integer) q.take();
+                    final int producer = e / perProducer;
+                    // per producer FIFO
+                    if (e % perProducer != nextPerProducer[producer]++)
+                    {
+                        fail.value++;
+                    }
+                    taken.value++;
+                }
+            }
+            catch (InterruptedException e)
+            {
+                fail.value++;
+            }
+        });
+        consumer.start();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++)
+        {
+            final int base = p * perProducer;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++)
+                {
+                    q.offer(base + i);
+                    if ((i & 1023) == 0)
+                    {
+                        // give the consumer a chance to catch up and block
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        for (Thread t : threads)
+        {
+            t.start();
+        }
+        for (Thread t : threads)
+        {
+            t.join();
+        }
+        consumer.join();
+        assertEquals(0, fail.value);
+        assertEquals(producers * perProducer, taken.value);
+        assertTrue(q.isEmpty());
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testOfferTakeSemantics() throws Exception
+    {
+        final AtomicBoolean stop = new AtomicBoolean();
+        final AtomicBoolean consumerLock = new AtomicBoolean(true);
+        final MessagePassingBlockingQueue<Object> q = factory.apply(2);
+
+        final Val fail = new Val();
+        final Runnable runnable = () -> {
+            while (!stop.get())
+            {
+                if (!q.offer(1))
+                {
+                    fail.value++;
+                }
+
+                while (!consumerLock.compareAndSet(true, false));
+
+                try
+                {
+                    if (q.take() == null)
+                    {
+                        fail.value++;
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    fail.value++;
+                }
+                consumerLock.lazySet(true);
+            }
+        };
+        Thread t1 = new Thread(runnable);
+        Thread t2 = new Thread(runnable);
+
+        t1.start();
+        t2.start();
+        Thread.sleep(CONCURRENT_TEST_DURATION);
+        stop.set(true);
+        t1.join();
+        t2.join();
+        assertEquals("Unexpected offer/poll observed", 0, fail.value);
+    }
+}
@@ -0,0 +1,32 @@
+package org.jctools.queues;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+import static org.jctools.util.TestUtil.*;
+
+@RunWith(Parameterized.class)
+public class QueueSanityTestMpscFanIn extends QueueSanityTest
+{
+    public QueueSanityTestMpscFanIn(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        // a single producer thread uses a single lane, so the queue behaves as an SPSC queue of the lane capacity
+        list.add(makeParams(1, 1, 4, Ordering.FIFO, new MpscFanInQueue<>(4)));// SPSC size 4
+        list.add(makeParams(1, 1, SIZE, Ordering.FIFO, new MpscFanInQueue<>(SIZE)));// SPSC size SIZE
+        list.add(makeParams(1, 1, SIZE, Ordering.FIFO, new MpscFanInQueue<>(8, SIZE)));// chunked lanes
+        return list;
+    }
+}
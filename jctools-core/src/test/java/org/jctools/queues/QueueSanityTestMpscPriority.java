@@ -0,0 +1,35 @@
+package org.jctools.queues;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+import static org.jctools.util.TestUtil.*;
+
+@RunWith(Parameterized.class)
+public class QueueSanityTestMpscPriority extends QueueSanityTest
+{
+    public QueueSanityTestMpscPriority(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        // the plain offer methods offer to the lowest priority level, so bounded queues need a single level to be
+        // filled to capacity
+        list.add(makeParams(0, 1, 1, Ordering.FIFO, new MpscPriorityQueue<>(1, 1)));// MPSC size 1
+        list.add(makeParams(0, 1, SIZE, Ordering.FIFO, new MpscPriorityQueue<>(1, SIZE)));// MPSC size SIZE
+        list.add(makeParams(0, 1, SIZE, Ordering.FIFO, new MpscPriorityQueue<>(1, SIZE, false, new int[]{4})));
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscPriorityQueue<>(4, 16, true, null)));
+        list.add(makeParams(0, 1, 0, Ordering.FIFO, new MpscPriorityQueue<>(4, 16, true, new int[]{8, 4, 2, 1})));
+        return list;
+    }
+}
@@ -0,0 +1,45 @@
+package org.jctools.queues;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import org.jctools.queues.atomic.MpscRelaxedAtomicArrayQueue;
+import org.jctools.queues.atomic.unpadded.MpscRelaxedAtomicUnpaddedArrayQueue;
+import org.jctools.queues.unpadded.MpscRelaxedUnpaddedArrayQueue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+
+import static org.jctools.util.TestUtil.makeParams;
+
+@RunWith(Parameterized.class)
+public class QueueSanityTestMpscRelaxed extends QueueSanityTestMpscArray
+{
+    public QueueSanityTestMpscRelaxed(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        // Unsafe
+        list.add(makeParams(0, 1, 2, Ordering.FIFO, new MpscRelaxedArrayQueue<>(2)));
+        list.add(makeParams(0, 1, SIZE, Ordering.FIFO, new MpscRelaxedArrayQueue<>(SIZE)));
+        // Atomic
+        list.add(makeParams(0, 1, 2, Ordering.FIFO, new MpscRelaxedAtomicArrayQueue<>(2)));
+        list.add(makeParams(0, 1, SIZE, Ordering.FIFO, new MpscRelaxedAtomicArrayQueue<>(SIZE)));
+        // Unpadded
+        list.add(makeParams(0, 1, 2, Ordering.FIFO, new MpscRelaxedUnpaddedArrayQueue<>(2)));
+        list.add(makeParams(0, 1, SIZE, Ordering.FIFO, new MpscRelaxedUnpaddedArrayQueue<>(SIZE)));
+        // Atomic Unpadded
+        list.add(makeParams(0, 1, 2, Ordering.FIFO, new MpscRelaxedAtomicUnpaddedArrayQueue<>(2)));
+        list.add(makeParams(0, 1, SIZE, Ordering.FIFO, new MpscRelaxedAtomicUnpaddedArrayQueue<>(SIZE)));
+        return list;
+    }
+}
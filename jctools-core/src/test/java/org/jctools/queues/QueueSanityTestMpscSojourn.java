@@ -0,0 +1,34 @@
+package org.jctools.queues;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import static org.jctools.util.TestUtil.*;
+
+@RunWith(Parameterized.class)
+public class QueueSanityTestMpscSojourn extends QueueSanityTest
+{
+    public QueueSanityTestMpscSojourn(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeParams(0, 1, 1, Ordering.FIFO, new MpscSojournArrayQueue<>(1)));// MPSC size 1
+        list.add(makeParams(0, 1, SIZE, Ordering.FIFO, new MpscSojournArrayQueue<>(SIZE)));// MPSC size SIZE
+        // intervals end all the time, the plain offers must not be shed
+        list.add(makeParams(0, 1, SIZE, Ordering.FIFO,
+            new MpscSojournArrayQueue<>(SIZE, 1, 1, TimeUnit.NANOSECONDS)));
+        return list;
+    }
+}
@@ -0,0 +1,30 @@
+package org.jctools.queues;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+import static org.jctools.util.TestUtil.*;
+
+@RunWith(Parameterized.class)
+public class QueueSanityTestSpscBlockingArray extends QueueSanityTest
+{
+    public QueueSanityTestSpscBlockingArray(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeParams(1, 1, 4, Ordering.FIFO, new SpscBlockingArrayQueue<>(4)));
+        list.add(makeParams(1, 1, SIZE, Ordering.FIFO, new SpscBlockingArrayQueue<>(SIZE)));
+        return list;
+    }
+}
@@ -0,0 +1,32 @@
+package org.jctools.queues;
+
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Queue;
+
+import static org.jctools.util.TestUtil.*;
+
+@RunWith(Parameterized.class)
+public class QueueSanityTestWorkStealingArrayDeque extends QueueSanityTest
+{
+    public QueueSanityTestWorkStealingArrayDeque(ConcurrentQueueSpec spec, Queue<Integer> queue)
+    {
+        super(spec, queue);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        // offer is the owner push and poll is steal, so this is an SPMC FIFO queue
+        list.add(makeParams(1, 0, 2, Ordering.FIFO, new WorkStealingArrayDeque<>(2, 2)));// fixed size 2
+        list.add(makeParams(1, 0, SIZE, Ordering.FIFO, new WorkStealingArrayDeque<>(SIZE)));// growable
+        list.add(makeParams(1, 0, SIZE, Ordering.FIFO, new WorkStealingArrayDeque<>(2, SIZE)));// growable from 2
+        return list;
+    }
+}
@@ -0,0 +1,112 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jctools.queues.MessagePassingQueue.WaitStrategy;
+import org.junit.Test;
+
+import static org.jctools.util.TestUtil.TEST_TIMEOUT;
+import static org.junit.Assert.*;
+
+public class WaitStrategiesTest
+{
+    @Test
+    public void testBusySpinCounterDoesNotOverflow()
+    {
+        final WaitStrategy wait = WaitStrategies.busySpin();
+        assertSame(wait, WaitStrategies.busySpin());
+        assertEquals(1, wait.idle(0));
+        assertEquals(Integer.MAX_VALUE, wait.idle(Integer.MAX_VALUE - 1));
+        assertEquals(Integer.MAX_VALUE, wait.idle(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testSpinYieldCounterStopsAfterSpins()
+    {
+        final WaitStrategy wait = WaitStrategies.spinYield(3);
+        int idleCounter = 0;
+        for (int i = 0; i < 10; i++)
+        {
+            idleCounter = wait.idle(idleCounter);
+        }
+        assertEquals(3, idleCounter);
+    }
+
+    @Test
+    public void testProgressiveCounterStopsAtMaxParkPeriod()
+    {
+        // 2 spins, 2 yields, then parks of 1, 2, 4, 8, 10 ns
+        final WaitStrategy wait = WaitStrategies.progressive(2, 2, 1, 10);
+        int idleCounter = 0;
+        for (int i = 0; i < 20; i++)
+        {
+            idleCounter = wait.idle(idleCounter);
+        }
+        assertEquals(8, idleCounter);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testParkWaitsForPeriod()
+    {
+        final WaitStrategy wait = WaitStrategies.park(TimeUnit.MILLISECONDS.toNanos(20));
+        final long start = System.nanoTime();
+        assertEquals(5, wait.idle(5));
+        // parkNanos may return spuriously, so we can't assert on the lower bound
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSpinYieldNegativeSpins()
+    {
+        WaitStrategies.spinYield(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testProgressiveMaxLessThanMin()
+    {
+        WaitStrategies.progressive(1, 1, 10, 5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testProgressiveZeroPark()
+    {
+        WaitStrategies.progressive(1, 1, 0, 5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParkZeroPeriod()
+    {
+        WaitStrategies.park(0);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testDrainFillTransferAllElements() throws Exception
+    {
+        final WaitStrategy[] strategies = {
+            WaitStrategies.busySpin(),
+            WaitStrategies.spinYield(100),
+            WaitStrategies.progressive(100, 10, 1000, 100_000),
+            WaitStrategies.park(10_000)
+        };
+        for (WaitStrategy wait : strategies)
+        {
+            final MessagePassingQueue<Integer> q = new SpscArrayQueue<>(1024);
+            final int total = 10_000;
+            final List<Integer> drained = new ArrayList<>(total);
+            final Thread consumer = new Thread(() ->
+                q.drain(drained::add, wait, () -> drained.size() < total));
+            consumer.start();
+            final int[] next = {0};
+            q.fill(() -> next[0]++, wait, () -> next[0] < total);
+            consumer.join();
+            // the exit conditions are checked between batches, so a few more elements may be transferred
+            assertTrue(drained.size() >= total);
+            for (int i = 0; i < total; i++)
+            {
+                assertEquals(i, (int) drained.get(i));
+            }
+        }
+    }
+}
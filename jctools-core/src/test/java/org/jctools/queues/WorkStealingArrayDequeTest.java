@@ -0,0 +1,152 @@
+package org.jctools.queues;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import static org.jctools.util.TestUtil.*;
+import static org.junit.Assert.*;
+
+public class WorkStealingArrayDequeTest
+{
+    @Test
+    public void testOwnerPopsLifoThievesStealFifo()
+    {
+        final WorkStealingArrayDeque<Integer> d = new WorkStealingArrayDeque<>(4, 16);
+        for (int i = 0; i < 6; i++)
+        {
+            assertTrue(d.push(i));
+        }
+        assertEquals(6, d.size());
+        assertEquals(Integer.valueOf(5), d.pop());
+        assertEquals(Integer.valueOf(0), d.steal());
+        assertEquals(Integer.valueOf(1), d.peek());
+        assertEquals(Integer.valueOf(4), d.pop());
+        assertEquals(Integer.valueOf(1), d.poll());
+        assertEquals(Integer.valueOf(2), d.relaxedPoll());
+        // the last element
+        assertEquals(Integer.valueOf(3), d.pop());
+        assertNull(d.pop());
+        assertNull(d.steal());
+        assertNull(d.peek());
+        assertTrue(d.isEmpty());
+        assertEquals(0, d.size());
+    }
+
+    @Test
+    public void testGrowsToMaxCapacity()
+    {
+        final WorkStealingArrayDeque<Integer> d = new WorkStealingArrayDeque<>(2, 8);
+        assertEquals(8, d.capacity());
+        // wrap the indices around the initial array before growing
+        assertTrue(d.push(-1));
+        assertEquals(Integer.valueOf(-1), d.steal());
+        for (int i = 0; i < 8; i++)
+        {
+            assertTrue(d.push(i));
+        }
+        assertFalse(d.push(8));
+        assertEquals(0, d.fill(() -> 8, 1));
+        assertEquals(8, d.size());
+        for (int i = 0; i < 8; i++)
+        {
+            assertEquals(Integer.valueOf(i), d.steal());
+        }
+        assertNull(d.steal());
+    }
+
+    @Test
+    public void testFillStopsAtMaxCapacity()
+    {
+        final WorkStealingArrayDeque<Integer> d = new WorkStealingArrayDeque<>(2, 8);
+        final int[] supplied = new int[1];
+        assertEquals(8, d.fill(() -> supplied[0]++, 10));
+        assertEquals(8, supplied[0]);
+        final List<Integer> stolen = new ArrayList<>();
+        assertEquals(8, d.drain(stolen, 10));
+        assertEquals(Integer.valueOf(7), stolen.get(7));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInitialCapacityMustNotExceedMaxCapacity()
+    {
+        new WorkStealingArrayDeque<Integer>(16, 8);
+    }
+
+    @Test(timeout = TEST_TIMEOUT)
+    public void testEachElementIsTakenOnce() throws InterruptedException
+    {
+        final WorkStealingArrayDeque<Integer> d = new WorkStealingArrayDeque<>(2, 1 << 12);
+        final int elements = 1 << 20;
+        final AtomicIntegerArray taken = new AtomicIntegerArray(elements);
+        final AtomicLong takenCount = new AtomicLong();
+        final AtomicBoolean ownerDone = new AtomicBoolean();
+        final AtomicBoolean duplicate = new AtomicBoolean();
+        final List<Thread> thieves = new ArrayList<>();
+        threads(() -> {
+            while (!ownerDone.get() || !d.isEmpty())
+            {
+                final Integer e = d.steal();
+                if (e != null)
+                {
+                    if (taken.getAndIncrement(e) != 0)
+                    {
+                        duplicate.set(true);
+                    }
+                    takenCount.incrementAndGet();
+                }
+            }
+        }, Math.max(1, CONCURRENT_TEST_THREADS - 1), thieves);
+        for (Thread thief : thieves)
+        {
+            thief.start();
+        }
+
+        // alternate pushes and pops to keep the owner racing thieves for the last element
+        int next = 0;
+        while (next < elements)
+        {
+            for (int i = 0; i < 16 && next < elements; i++)
+            {
+                if (d.push(next))
+                {
+                    next++;
+                }
+            }
+            for (int i = 0; i < 15; i++)
+            {
+                final Integer e = d.pop();
+                if (e == null)
+                {
+                    break;
+                }
+                if (taken.getAndIncrement(e) != 0)
+                {
+                    duplicate.set(true);
+                }
+                takenCount.incrementAndGet();
+            }
+        }
+        // take what the thieves left behind
+        Integer e;
+        while ((e = d.pop()) != null)
+        {
+            if (taken.getAndIncrement(e) != 0)
+            {
+                duplicate.set(true);
+            }
+            takenCount.incrementAndGet();
+        }
+        ownerDone.set(true);
+        for (Thread thief : thieves)
+        {
+            thief.join();
+        }
+        assertFalse(duplicate.get());
+        assertEquals(elements, takenCount.get());
+    }
+}
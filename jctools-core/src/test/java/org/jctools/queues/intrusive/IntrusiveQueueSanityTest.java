@@ -0,0 +1,493 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jctools.queues.intrusive;
+
+import org.jctools.queues.MessagePassingQueue;
+import org.jctools.queues.spec.ConcurrentQueueSpec;
+import org.jctools.queues.spec.Ordering;
+import org.jctools.queues.spec.Preference;
+import org.jctools.util.Pow2;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeThat;
+
+@RunWith(Parameterized.class)
+public class IntrusiveQueueSanityTest
+{
+    static final int SIZE = 8192 * 2;
+
+    TestNode[] nodes = new TestNode[SIZE];
+
+    private final ConcurrentQueueSpec spec;
+    private final MessagePassingQueue<Node> queue;
+
+    public IntrusiveQueueSanityTest(ConcurrentQueueSpec spec, MessagePassingQueue<Node> queue)
+    {
+        this.spec = spec;
+        this.queue = queue;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        ArrayList<Object[]> list = new ArrayList<Object[]>();
+        list.add(makeParams(0, 1, new MpscIntrusiveLinkedQueue()));
+        list.add(makeParams(0, 0, new MpmcIntrusiveLinkedQueue()));
+        return list;
+    }
+
+    private static Object[] makeParams(int producers, int consumers, MessagePassingQueue<Node> q)
+    {
+        return new Object[] {new ConcurrentQueueSpec(producers, consumers, 0, Ordering.FIFO, Preference.NONE), q};
+    }
+
+    @Before
+    public void clear()
+    {
+        for (int i = 0; i < SIZE; i++)
+        {
+            nodes[i] = new TestNode();
+            nodes[i].value = i;
+        }
+        queue.clear();
+    }
+
+    @Test
+    public void sanity()
+    {
+        for (int i = 0; i < SIZE; i++)
+        {
+            assertNull(queue.poll());
+            assertTrue(queue.isEmpty());
+            assertEquals(0, queue.size());
+        }
+        int i = 0;
+        while (i < SIZE && queue.offer(nodes[i]))
+            i++;
+        int size = i;
+        assertEquals(size, queue.size());
+        if (spec.ordering == Ordering.FIFO)
+        {
+            // expect FIFO
+            i = 0;
+            Node p;
+            TestNode e;
+            while ((p = queue.peek()) != null)
+            {
+                e = (TestNode) queue.poll();
+                assertEquals(p, e);
+                assertEquals(size - (i + 1), queue.size());
+                assertEquals(i++, e.value);
+            }
+            assertEquals(size, i);
+        }
+        else
+        {
+            // expect sum of elements is (size - 1) * size / 2 = 0 + 1 + .... + (size - 1)
+            int sum = (size - 1) * size / 2;
+            TestNode e;
+            while ((e = (TestNode) queue.poll()) != null)
+            {
+                assertEquals(--size, queue.size());
+                sum -= e.value;
+            }
+            assertEquals(0, sum);
+        }
+    }
+
+    @Test
+    public void testSizeIsTheNumberOfOffers()
+    {
+        int currentSize = 0;
+        while (currentSize < SIZE && queue.offer(nodes[currentSize]))
+        {
+            currentSize++;
+            assertEquals(currentSize, queue.size());
+        }
+    }
+
+    @Test
+    public void whenFirstInThenFirstOut()
+    {
+        assumeThat(spec.ordering, is(Ordering.FIFO));
+
+        // Arrange
+        for (int i = 0; i < SIZE; i++)
+        {
+            nodes[i].value = i;
+            queue.offer(nodes[i]);
+        }
+        final int size = queue.size();
+
+        // Act
+        int i = 0;
+        Node prev;
+        while ((prev = queue.peek()) != null)
+        {
+            final TestNode item = (TestNode) queue.poll();
+
+            assertThat(item, is(prev));
+            assertEquals(size - (i + 1), queue.size());
+            assertThat(item.value, is(i));
+            i++;
+        }
+
+        // Assert
+        assertThat(i, is(size));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void offerNullResultsInNPE()
+    {
+        queue.offer(null);
+    }
+
+    @Test
+    public void whenOfferItemAndPollItemThenSameInstanceReturnedAndQueueIsEmpty()
+    {
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+
+        // Act
+        final Integer e = 1876876;
+        nodes[0].value = e;
+        queue.offer(nodes[0]);
+        assertFalse(queue.isEmpty());
+        assertEquals(1, queue.size());
+
+        TestNode retNode = (TestNode) queue.poll();
+        final Integer oh = retNode.value;
+        assertEquals(e, oh);
+        assertSame(nodes[0], retNode);
+
+        // Assert
+        assertThat(retNode, sameInstance(nodes[0]));
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testPowerOf2Capacity()
+    {
+        assumeThat(spec.isBounded(), is(true));
+        int n = Pow2.roundToPowerOfTwo(spec.capacity);
+
+        for (int i = 0; i < n; i++)
+        {
+            assertTrue("Failed to insert:" + i, queue.offer(nodes[i]));
+        }
+        assertFalse(queue.offer(new TestNode()));
+        fail();
+    }
+
+    @Test
+    public void polledNodeCanBeOfferedAgainStraightAway()
+    {
+        final TestNode node = nodes[0];
+        for (int i = 0; i < SIZE; i++)
+        {
+            node.value = i;
+            assertTrue(queue.offer(node));
+            assertSame(node, queue.peek());
+            assertEquals(1, queue.size());
+            assertSame(node, queue.poll());
+            assertTrue(queue.isEmpty());
+            assertEquals(i, node.value);
+        }
+        // cycle a few nodes through the queue, the head of the queue is the last node offered half of the time
+        queue.offer(nodes[0]);
+        queue.offer(nodes[1]);
+        for (int i = 0; i < SIZE; i++)
+        {
+            final TestNode polled = (TestNode) queue.poll();
+            assertSame(nodes[i % 2], polled);
+            assertEquals(1, queue.size());
+            queue.offer(polled);
+        }
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    public void relaxedPollAndPeekOnEmptyReturnNull()
+    {
+        assertNull(queue.relaxedPeek());
+        assertNull(queue.relaxedPoll());
+        queue.relaxedOffer(nodes[0]);
+        assertSame(nodes[0], queue.relaxedPeek());
+        assertSame(nodes[0], queue.relaxedPoll());
+        assertNull(queue.relaxedPoll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void fillAndDrainInFifoOrder()
+    {
+        final int[] supplied = {0};
+        assertEquals(SIZE, queue.fill(new MessagePassingQueue.Supplier<Node>()
+        {
+            @Override
+            public Node get()
+            {
+                return nodes[supplied[0]++];
+            }
+        }, SIZE));
+        assertEquals(SIZE, queue.size());
+
+        final int[] drained = {0};
+        final MessagePassingQueue.Consumer<Node> consumer = new MessagePassingQueue.Consumer<Node>()
+        {
+            @Override
+            public void accept(Node e)
+            {
+                assertSame(nodes[drained[0]++], e);
+                // drained nodes are reusable while the drain is still going
+                queue.offer(e);
+            }
+        };
+        assertEquals(SIZE / 2, queue.drain(consumer, SIZE / 2));
+        assertEquals(SIZE, queue.size());
+        assertEquals(SIZE / 2, queue.drain(consumer, SIZE / 2));
+        assertEquals(SIZE, queue.size());
+        drained[0] = 0;
+        assertEquals(SIZE, queue.drain(consumer, SIZE));
+        assertEquals(SIZE, drained[0]);
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.drain(consumer, SIZE));
+    }
+
+    static final class Val
+    {
+        public int value;
+    }
+
+    @Test
+    public void testHappensBefore() throws Exception
+    {
+        final AtomicBoolean stop = new AtomicBoolean();
+        final MessagePassingQueue<Node> q = queue;
+        final Val fail = new Val();
+        Thread t1 = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                while (!stop.get())
+                {
+                    for (int i = 1; i <= 10; i++)
+                    {
+                        TestNode v = new TestNode();
+                        v.value = i;
+                        q.offer(v);
+                    }
+                    // slow down the producer, this will make the queue mostly empty encouraging visibility issues.
+                    Thread.yield();
+                }
+            }
+        });
+        Thread t2 = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                while (!stop.get())
+                {
+                    for (int i = 0; i < 10; i++)
+                    {
+                        TestNode v = (TestNode) q.peek();
+                        if (v != null && v.value == 0)
+                        {
+                            fail.value = 1;
+                            stop.set(true);
+                            System.out.println("v = " + v);
+                        }
+                        q.poll();
+                    }
+                }
+            }
+        });
+
+        t1.start();
+        t2.start();
+        Thread.sleep(1000);
+        stop.set(true);
+        t1.join();
+        t2.join();
+        assertEquals("reordering detected", 0, fail.value);
+    }
+
+    @Test
+    public void testSize() throws Exception
+    {
+        final AtomicBoolean stop = new AtomicBoolean();
+        final MessagePassingQueue<Node> q = queue;
+        final Val fail = new Val();
+        Thread t1 = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                while (!stop.get())
+                {
+                    q.offer(nodes[0]);
+                    q.poll();
+                }
+            }
+        });
+        Thread t2 = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                while (!stop.get())
+                {
+                    int size = q.size();
+                    if (size != 0 && size != 1)
+                    {
+                        fail.value = size;
+                    }
+                }
+            }
+        });
+
+        t1.start();
+        t2.start();
+        Thread.sleep(1000);
+        stop.set(true);
+        t1.join();
+        t2.join();
+        assertEquals("Unexpected size observed", 0, fail.value);
+    }
+
+    @Test
+    public void testNodesAreNotLostOrDuplicatedWhenReused() throws Exception
+    {
+        final int producerCount = 2;
+        final int nodesPerProducer = 64;
+        final int rounds = 20000;
+        final MessagePassingQueue<Node> q = queue;
+        // every node is owned by a producer, which offers it again once a consumer handed it back
+        final ArrayList<ConcurrentLinkedQueue<Node>> released = new ArrayList<ConcurrentLinkedQueue<Node>>();
+        // 1 while a node is in the queue, 0 while it is owned by its producer
+        final AtomicIntegerArray queued = new AtomicIntegerArray(producerCount * nodesPerProducer);
+        final AtomicInteger consumed = new AtomicInteger();
+        final AtomicBoolean stop = new AtomicBoolean();
+        final Val fail = new Val();
+        Thread[] producers = new Thread[producerCount];
+        for (int p = 0; p < producerCount; p++)
+        {
+            final ConcurrentLinkedQueue<Node> owned = new ConcurrentLinkedQueue<Node>();
+            for (int i = 0; i < nodesPerProducer; i++)
+            {
+                owned.offer(nodes[p * nodesPerProducer + i]);
+            }
+            released.add(owned);
+            producers[p] = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    for (int r = 0; r < rounds; r++)
+                    {
+                        Node e;
+                        while ((e = owned.poll()) == null)
+                        {
+                            Thread.yield();
+                        }
+                        if (!queued.compareAndSet(((TestNode) e).value, 0, 1))
+                        {
+                            fail.value = 1;
+                        }
+                        q.offer(e);
+                    }
+                }
+            });
+        }
+        final int consumerCount = spec.isMpmc() ? 2 : 1;
+        Thread[] consumers = new Thread[consumerCount];
+        for (int c = 0; c < consumerCount; c++)
+        {
+            consumers[c] = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    final MessagePassingQueue.Consumer<Node> release = new MessagePassingQueue.Consumer<Node>()
+                    {
+                        @Override
+                        public void accept(Node e)
+                        {
+                            final int index = ((TestNode) e).value;
+                            if (!queued.compareAndSet(index, 1, 0))
+                            {
+                                fail.value = 1;
+                            }
+                            consumed.incrementAndGet();
+                            released.get(index / nodesPerProducer).offer(e);
+                        }
+                    };
+                    while (!stop.get())
+                    {
+                        final Node e = q.poll();
+                        if (e != null)
+                        {
+                            release.accept(e);
+                        }
+                        q.drain(release, 8);
+                    }
+                }
+            });
+            consumers[c].start();
+        }
+        for (Thread producer : producers)
+        {
+            producer.start();
+        }
+        for (Thread producer : producers)
+        {
+            producer.join();
+        }
+        while (consumed.get() < producerCount * rounds)
+        {
+            Thread.yield();
+        }
+        stop.set(true);
+        for (Thread consumer : consumers)
+        {
+            consumer.join();
+        }
+        assertEquals("a node was handed out twice", 0, fail.value);
+        assertEquals(producerCount * rounds, consumed.get());
+        assertTrue(q.isEmpty());
+    }
+}
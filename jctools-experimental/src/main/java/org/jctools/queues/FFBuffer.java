@@ -13,6 +13,7 @@
  */
 package org.jctools.queues;
 
+import java.util.List;
 import java.util.Queue;
 
 import static org.jctools.util.UnsafeAccess.UNSAFE;
@@ -204,6 +205,18 @@ public final class FFBuffer<E> extends FFBufferL3Pad<E> implements Queue<E>
         return drain(c, limit);
     }
 
+    @Override
+    public int drain(E[] dst, int dstOffset, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, dstOffset, limit);
+    }
+
+    @Override
+    public int drain(List<? super E> dst, int limit)
+    {
+        return MessagePassingQueueUtil.drain(this, dst, limit);
+    }
+
     @Override
     public int fill(Supplier<E> s)
     {
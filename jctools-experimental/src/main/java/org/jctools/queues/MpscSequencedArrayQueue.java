@@ -20,6 +20,8 @@ import static org.jctools.util.UnsafeRefArrayAccess.calcCircularRefElementOffset
 
 import org.jctools.util.UnsafeRefArrayAccess;
 
+import java.util.List;
+
 abstract class MpscSequencedArrayQueueL1Pad<E> extends ConcurrentSequencedCircularArrayQueue<E> {
     byte b000,b001,b002,b003,b004,b005,b006,b007;//  8b
     byte b010,b011,b012,b013,b014,b015,b016,b017;// 16b
@@ -236,6 +238,16 @@ public class MpscSequencedArrayQueue<E> extends MpscSequencedArrayQueueConsumerF
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public int drain(E[] dst, int dstOffset, int limit) {
+        return MessagePassingQueueUtil.drain(this, dst, dstOffset, limit);
+    }
+
+    @Override
+    public int drain(List<? super E> dst, int limit) {
+        return MessagePassingQueueUtil.drain(this, dst, limit);
+    }
+
     @Override
     public int drain(Consumer<E> c, int limit) {
         for (int i=0;i<limit;i++) {
@@ -1,48 +0,0 @@
-/**
- * Licensed to the Apache Software Foundation (ASF) under one or more
- * contributor license agreements. See the NOTICE file distributed with
- * this work for additional information regarding copyright ownership.
- * The ASF licenses this file to You under the Apache License, Version 2.0
- * (the "License"); you may not use this file except in compliance with
- * the License. You may obtain a copy of the License at
- * <p>
- * http://www.apache.org/licenses/LICENSE-2.0
- * <p>
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package org.jctools.queues;
-
-import org.jctools.queues.spec.ConcurrentQueueSpec;
-import org.jctools.queues.spec.Ordering;
-import org.jctools.util.TestUtil;
-import org.junit.runners.Parameterized;
-
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Queue;
-
-import static org.jctools.util.TestUtil.makeParams;
-
-public class QueueSanityTestMpscRelaxed extends QueueSanityTestMpscArray
-{
-    public QueueSanityTestMpscRelaxed(ConcurrentQueueSpec spec, Queue<Integer> queue)
-    {
-        super(spec, queue);
-    }
-
-    @Parameterized.Parameters
-    public static Collection<Object[]> parameters()
-    {
-        ArrayList<Object[]> list = new ArrayList<Object[]>();
-        list.add(makeParams(1, 1, 2, Ordering.FIFO, new MpscRelaxedArrayQueue<Integer>(2)));// MPSC size 1
-        list.add(makeParams(1, 1, QueueSanityTest.SIZE, Ordering.FIFO, new MpscRelaxedArrayQueue<Integer>(
-            QueueSanityTest.SIZE)));// MPSC size SIZE
-        return list;
-    }
-
-}